@@ -17,11 +17,15 @@
 
 package org.apache.nifi.attribute.expression.language;
 
+import java.util.Collections;
 import java.util.Map;
 import java.util.Set;
 
 import org.antlr.runtime.tree.Tree;
 import org.apache.nifi.attribute.expression.language.evaluation.Evaluator;
+import org.apache.nifi.attribute.expression.language.evaluation.QueryResult;
+import org.apache.nifi.attribute.expression.language.evaluation.literals.StringLiteralEvaluator;
+import org.apache.nifi.attribute.expression.language.evaluation.selection.AttributeEvaluator;
 import org.apache.nifi.expression.AttributeValueDecorator;
 
 public class CompiledExpression implements Expression {
@@ -29,12 +33,46 @@ public class CompiledExpression implements Expression {
     private final Tree tree;
     private final String expression;
     private final Set<Evaluator<?>> allEvaluators;
+    private final boolean reusable;
+    private final String referencedAttributeName;
 
     public CompiledExpression(final String expression, final Evaluator<?> rootEvaluator, final Tree tree, final Set<Evaluator<?>> allEvaluators) {
+        this(expression, rootEvaluator, tree, allEvaluators, false);
+    }
+
+    /**
+     * @param expression the text of the expression
+     * @param rootEvaluator the root of the tree of Evaluators that was built for the expression
+     * @param tree the parsed expression
+     * @param allEvaluators all Evaluators that make up the tree
+     * @param reusable <code>true</code> if none of the Evaluators hold state between evaluations, so that the given tree of Evaluators can be
+     *            evaluated any number of times, concurrently; <code>false</code> if a new tree of Evaluators must be built from the parsed expression
+     *            for each evaluation
+     */
+    public CompiledExpression(final String expression, final Evaluator<?> rootEvaluator, final Tree tree, final Set<Evaluator<?>> allEvaluators, final boolean reusable) {
         this.rootEvaluator = rootEvaluator;
         this.tree = tree;
         this.expression = expression;
         this.allEvaluators = allEvaluators;
+        this.reusable = reusable;
+        this.referencedAttributeName = reusable ? getReferencedAttributeName(rootEvaluator) : null;
+    }
+
+    /**
+     * @return the name of the attribute if the expression does nothing more than reference a single attribute by a literal name, such as
+     *         <code>${filename}</code>, or <code>null</code> otherwise
+     */
+    private static String getReferencedAttributeName(final Evaluator<?> evaluator) {
+        if (!(evaluator instanceof AttributeEvaluator)) {
+            return null;
+        }
+
+        final Evaluator<String> nameEvaluator = ((AttributeEvaluator) evaluator).getNameEvaluator();
+        if (!(nameEvaluator instanceof StringLiteralEvaluator)) {
+            return null;
+        }
+
+        return nameEvaluator.evaluate(Collections.emptyMap()).getValue();
     }
 
     public Evaluator<?> getRootEvaluator() {
@@ -53,8 +91,30 @@ public class CompiledExpression implements Expression {
         return allEvaluators;
     }
 
+    public boolean isReusable() {
+        return reusable;
+    }
+
     @Override
     public String evaluate(final Map<String, String> variables, final AttributeValueDecorator decorator, final Map<String, String> stateVariables) {
-        return Query.evaluateExpression(getTree(), expression, variables, decorator, stateVariables);
+        if (!reusable) {
+            return Query.evaluateExpression(getTree(), expression, variables, decorator, stateVariables);
+        }
+
+        final String value;
+        if (referencedAttributeName != null) {
+            // No need to walk the tree of Evaluators or to wrap the value in a QueryResult just to look up an attribute
+            value = variables.get(referencedAttributeName);
+        } else {
+            final QueryResult<?> result = stateVariables == null ? rootEvaluator.evaluate(variables) : rootEvaluator.evaluate(new AttributesAndState(variables, stateVariables));
+            final Object evaluated = result.getValue();
+            value = evaluated == null ? null : evaluated.toString();
+        }
+
+        if (value == null) {
+            return null;
+        }
+
+        return decorator == null ? value : decorator.decorate(value);
     }
 }
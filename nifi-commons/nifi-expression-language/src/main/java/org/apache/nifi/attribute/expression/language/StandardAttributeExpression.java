@@ -59,8 +59,13 @@ public class StandardAttributeExpression implements AttributeExpression {
 
     @Override
     public String evaluate(final FlowFile flowFile, final AttributeValueDecorator decorator) throws ProcessException {
-        final ValueLookup lookup = new ValueLookup(variableRegistry, flowFile);
-        final Object evaluationResult = query.evaluate(lookup).getValue();
+        final ValueLookup lookup = ValueLookup.acquire(variableRegistry, flowFile, null);
+        final Object evaluationResult;
+        try {
+            evaluationResult = query.evaluate(lookup).getValue();
+        } finally {
+            lookup.release();
+        }
         if (evaluationResult == null) {
             return "";
         }
@@ -16,6 +16,7 @@
  */
 package org.apache.nifi.attribute.expression.language;
 
+import java.util.Collections;
 import java.util.Map;
 import java.util.concurrent.TimeUnit;
 
@@ -35,6 +36,7 @@ public class StandardPropertyValue implements PropertyValue {
     private final ControllerServiceLookup serviceLookup;
     private final PreparedQuery preparedQuery;
     private final VariableRegistry variableRegistry;
+    private volatile PropertyValue literalValue;
 
     public StandardPropertyValue(final String rawValue, final ControllerServiceLookup serviceLookup) {
         this(rawValue, serviceLookup, Query.prepare(rawValue), VariableRegistry.EMPTY_REGISTRY);
@@ -156,9 +158,24 @@ public class StandardPropertyValue implements PropertyValue {
             return this;
         }
 
-        final ValueLookup lookup = new ValueLookup(variableRegistry, flowFile, additionalAttributes);
-        final String evaluated = preparedQuery.evaluateExpressions(lookup, decorator, stateValues);
-        return new StandardPropertyValue(evaluated, serviceLookup, new EmptyPreparedQuery(evaluated), null);
+        if (preparedQuery instanceof EmptyPreparedQuery) {
+            // There are no Expressions, so the result is the same regardless of the FlowFile and variables
+            PropertyValue literal = literalValue;
+            if (literal == null) {
+                final String evaluated = preparedQuery.evaluateExpressions(Collections.emptyMap(), decorator, stateValues);
+                literal = new StandardPropertyValue(evaluated, serviceLookup, new EmptyPreparedQuery(evaluated), null);
+                literalValue = literal;
+            }
+            return literal;
+        }
+
+        final ValueLookup lookup = ValueLookup.acquire(variableRegistry, flowFile, additionalAttributes);
+        try {
+            final String evaluated = preparedQuery.evaluateExpressions(lookup, decorator, stateValues);
+            return new StandardPropertyValue(evaluated, serviceLookup, new EmptyPreparedQuery(evaluated), null);
+        } finally {
+            lookup.release();
+        }
     }
 
     @Override
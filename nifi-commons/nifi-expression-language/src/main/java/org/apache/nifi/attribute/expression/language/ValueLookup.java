@@ -32,11 +32,21 @@ import org.apache.nifi.registry.VariableRegistry;
  * A convenience class to encapsulate the logic of variable substitution
  * based first on any additional variable maps, then flow file properties,
  * then flow file attributes, and finally the provided variable registry.
+ * FlowFile properties, such as fileSize and entryDate, are resolved only
+ * when they are looked up, and FlowFile attributes are read in place.
  */
 final class ValueLookup implements Map<String, String> {
 
+    private static final ThreadLocal<ValueLookup> THREAD_LOOKUP = ThreadLocal.withInitial(ValueLookup::new);
+
     final List<Map<String, String>> maps = new ArrayList<>();
-    final VariableRegistry registry;
+    VariableRegistry registry;
+    private FlowFile flowFile;
+    private boolean inUse = false;
+
+    private ValueLookup() {
+        this.registry = VariableRegistry.EMPTY_REGISTRY;
+    }
 
     /**
      * Constructs a ValueLookup where values are looked up first based any
@@ -56,14 +66,52 @@ final class ValueLookup implements Map<String, String> {
                 maps.add(map);
             }
         }
-        if (flowFile != null) {
-            maps.add(ValueLookup.extractFlowFileProperties(flowFile));
-            maps.add(flowFile.getAttributes());
-        }
 
+        this.flowFile = flowFile;
         this.registry = registry == null ? VariableRegistry.EMPTY_REGISTRY : registry;
     }
 
+    /**
+     * Provides a ValueLookup for the current thread, so that evaluating an Expression does not have to create a new one each time.
+     * The lookup must be given back via {@link #release()} once the evaluation is complete. If the current thread's lookup is already
+     * in use, a new ValueLookup is created instead.
+     *
+     * @param registry the variable registry to lookup from; may be null
+     * @param flowFile the flowFile to pull attributes from; may be null
+     * @param additionalMap the map to pull values from before the FlowFile; may be null or empty
+     * @return a ValueLookup that looks up values from the given FlowFile, map, and registry
+     */
+    @SuppressWarnings("unchecked")
+    static ValueLookup acquire(final VariableRegistry registry, final FlowFile flowFile, final Map<String, String> additionalMap) {
+        final ValueLookup lookup = THREAD_LOOKUP.get();
+        if (lookup.inUse) {
+            return new ValueLookup(registry, flowFile, additionalMap);
+        }
+
+        lookup.inUse = true;
+        if (additionalMap != null && !additionalMap.isEmpty()) {
+            lookup.maps.add(additionalMap);
+        }
+        lookup.flowFile = flowFile;
+        lookup.registry = registry == null ? VariableRegistry.EMPTY_REGISTRY : registry;
+        return lookup;
+    }
+
+    /**
+     * Gives back a ValueLookup that was obtained via {@link #acquire(VariableRegistry, FlowFile, Map)}, clearing its references
+     * to the FlowFile, maps, and registry so that they are not held onto by the thread.
+     */
+    void release() {
+        if (!inUse) {
+            return;
+        }
+
+        maps.clear();
+        flowFile = null;
+        registry = VariableRegistry.EMPTY_REGISTRY;
+        inUse = false;
+    }
+
     static final Map<String, String> extractFlowFileProperties(final FlowFile flowFile) {
         final Map<String, String> flowFileProps = new HashMap<>();
         flowFileProps.put("flowFileId", String.valueOf(flowFile.getId()));
@@ -75,6 +123,41 @@ final class ValueLookup implements Map<String, String> {
         return flowFileProps;
     }
 
+    /**
+     * @return the value of the FlowFile property with the given name, as would be provided by {@link #extractFlowFileProperties(FlowFile)},
+     *         or <code>null</code> if the name is not that of a FlowFile property
+     */
+    static String getFlowFileProperty(final FlowFile flowFile, final String name) {
+        switch (name) {
+            case "flowFileId":
+                return String.valueOf(flowFile.getId());
+            case "fileSize":
+                return String.valueOf(flowFile.getSize());
+            case "entryDate":
+                return String.valueOf(flowFile.getEntryDate());
+            case "lineageStartDate":
+                return String.valueOf(flowFile.getLineageStartDate());
+            case "lastQueueDate":
+                return String.valueOf(flowFile.getLastQueueDate());
+            case "queueDateIndex":
+                return String.valueOf(flowFile.getQueueDateIndex());
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * @return all maps that values are looked up from, in order of precedence, not including the variable registry
+     */
+    private List<Map<String, String>> getAllMaps() {
+        final List<Map<String, String>> allMaps = new ArrayList<>(maps);
+        if (flowFile != null) {
+            allMaps.add(extractFlowFileProperties(flowFile));
+            allMaps.add(flowFile.getAttributes());
+        }
+        return allMaps;
+    }
+
     @Override
     public int size() {
         return keySet().size();
@@ -82,6 +165,10 @@ final class ValueLookup implements Map<String, String> {
 
     @Override
     public boolean isEmpty() {
+        if (flowFile != null) {
+            // FlowFile properties are always present
+            return false;
+        }
         for (final Map<String, String> map : maps) {
             if (!map.isEmpty()) {
                 return false;
@@ -98,6 +185,9 @@ final class ValueLookup implements Map<String, String> {
         if (maps.stream().anyMatch((map) -> (map.containsKey(key)))) {
             return true;
         }
+        if (flowFile != null && (getFlowFileProperty(flowFile, key.toString()) != null || flowFile.getAttributes().containsKey(key))) {
+            return true;
+        }
         return registry.getVariableKey(key.toString()) != null;
     }
 
@@ -117,13 +207,27 @@ final class ValueLookup implements Map<String, String> {
             return null;
         }
 
+        final String name = key.toString();
         for (final Map<String, String> map : maps) {
-            final String val = map.get(key.toString());
+            final String val = map.get(name);
             if (val != null) {
                 return val;
             }
         }
-        return registry.getVariableValue(key.toString());
+
+        if (flowFile != null) {
+            final String property = getFlowFileProperty(flowFile, name);
+            if (property != null) {
+                return property;
+            }
+
+            final String attribute = flowFile.getAttributes().get(name);
+            if (attribute != null) {
+                return attribute;
+            }
+        }
+
+        return registry.getVariableValue(name);
     }
 
     @Override
@@ -172,7 +276,7 @@ final class ValueLookup implements Map<String, String> {
             newMap.put(entry.getKey().getName(), entry.getValue());
         }
         //put attribute maps in reverse order
-        final List<Map<String,String>> listOfMaps = new ArrayList<>(maps);
+        final List<Map<String,String>> listOfMaps = getAllMaps();
         Collections.reverse(listOfMaps);
         for(final Map<String,String> map : listOfMaps){
             for(final Map.Entry<String, String> entry : map.entrySet()){
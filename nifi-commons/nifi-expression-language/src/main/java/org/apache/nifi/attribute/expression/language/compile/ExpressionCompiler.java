@@ -240,7 +240,8 @@ public class ExpressionCompiler {
             final Set<Evaluator<?>> allEvaluators = new HashSet<>(evaluators);
             this.evaluators.clear();
 
-            return new CompiledExpression(expression, evaluator, tree, allEvaluators);
+            final boolean reusable = allEvaluators.stream().noneMatch(ExpressionCompiler::isStateful);
+            return new CompiledExpression(expression, evaluator, tree, allEvaluators, reusable);
         } catch (final AttributeExpressionLanguageParsingException e) {
             throw e;
         } catch (final Exception e) {
@@ -248,6 +249,20 @@ public class ExpressionCompiler {
         }
     }
 
+    /**
+     * Determines whether or not the given Evaluator holds state from one evaluation to the next. Such Evaluators, which iterate over
+     * multiple attributes or reduce the results of iterating, cannot be shared between evaluations or between threads.
+     *
+     * @param evaluator the evaluator
+     * @return <code>true</code> if the evaluator holds state between evaluations
+     */
+    private static boolean isStateful(final Evaluator<?> evaluator) {
+        return evaluator instanceof AndEvaluator
+            || evaluator instanceof OrEvaluator
+            || evaluator instanceof ReduceEvaluator
+            || evaluator instanceof IteratingEvaluator;
+    }
+
     private Tree compileTree(final String expression) throws AttributeExpressionLanguageParsingException {
         try {
             final CharStream input = new ANTLRStringStream(expression);
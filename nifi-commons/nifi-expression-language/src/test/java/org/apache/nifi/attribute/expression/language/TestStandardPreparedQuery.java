@@ -20,10 +20,15 @@ import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 
 import org.junit.Ignore;
@@ -79,6 +84,66 @@ public class TestStandardPreparedQuery {
 
     }
 
+    @Test
+    public void testReusableExpressionEvaluatedRepeatedly() throws Exception {
+        final PreparedQuery prepared = Query.prepare("${filename:substringBefore('.'):toUpper()}-${counter:plus(1)}");
+
+        final ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            final List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < 4; t++) {
+                final int threadIndex = t;
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < 10000; i++) {
+                        final Map<String, String> attrs = new HashMap<>();
+                        attrs.put("filename", "file" + threadIndex + ".txt");
+                        attrs.put("counter", String.valueOf(i));
+                        assertEquals("FILE" + threadIndex + "-" + (i + 1), prepared.evaluateExpressions(attrs, null));
+                    }
+                }));
+            }
+
+            for (final Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testStatefulExpressionEvaluatedRepeatedly() {
+        final PreparedQuery and = Query.prepare("${a:equals('x'):and(${b:equals('y')})}");
+        final PreparedQuery anyAttribute = Query.prepare("${anyAttribute('a', 'b'):equals('y')}");
+        final PreparedQuery count = Query.prepare("${allAttributes('a', 'b'):isEmpty():not():count()}");
+
+        final Map<String, String> matching = new HashMap<>();
+        matching.put("a", "x");
+        matching.put("b", "y");
+
+        final Map<String, String> notMatching = new HashMap<>();
+        notMatching.put("a", "x");
+        notMatching.put("b", "");
+
+        for (int i = 0; i < 3; i++) {
+            assertEquals("true", and.evaluateExpressions(matching, null));
+            assertEquals("false", and.evaluateExpressions(notMatching, null));
+            assertEquals("true", anyAttribute.evaluateExpressions(matching, null));
+            assertEquals("false", anyAttribute.evaluateExpressions(notMatching, null));
+            assertEquals("2", count.evaluateExpressions(matching, null));
+            assertEquals("1", count.evaluateExpressions(notMatching, null));
+        }
+    }
+
+    @Test
+    public void testAttributeReferenceDecorated() {
+        final Map<String, String> attrs = new HashMap<>();
+        attrs.put("xx", "world");
+
+        assertEquals("[world]", Query.prepare("${xx}").evaluateExpressions(attrs, value -> "[" + value + "]"));
+        assertEquals("", Query.prepare("${yy}").evaluateExpressions(attrs, value -> "[" + value + "]"));
+    }
+
     @Test
     public void testSeveralSequentialExpressions() {
         final Map<String, String> attributes = new HashMap<>();
@@ -24,6 +24,7 @@ import org.junit.Test;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
 
 public class TestValueLookup {
 
@@ -83,6 +84,45 @@ public class TestValueLookup {
         assertEquals("done you are now overridden", newOverriddenLookup.get("override me"));
     }
 
+    @Test
+    public void testFlowFilePropertiesIncludedInEntries() {
+        final ValueLookup lookup = new ValueLookup(VariableRegistry.EMPTY_REGISTRY, createFlowFile());
+        assertFalse(lookup.isEmpty());
+        assertTrue(lookup.containsKey("fileSize"));
+        assertTrue(lookup.containsKey("lastQueueDate"));
+        assertEquals("null", lookup.get("lastQueueDate"));
+        assertEquals("0", lookup.get("queueDateIndex"));
+        assertEquals("50", lookup.entrySet().stream().filter(entry -> entry.getKey().equals("fileSize")).findFirst().get().getValue());
+        assertTrue(lookup.keySet().contains("filename"));
+        assertTrue(lookup.keySet().contains("flowFileId"));
+        assertEquals(8, lookup.size());
+    }
+
+    @Test
+    public void testAcquiredLookupReusedAfterRelease() {
+        final Map<String, String> otherAttrs = new HashMap<>();
+        otherAttrs.put("fake", "test");
+
+        final ValueLookup lookup = ValueLookup.acquire(VariableRegistry.EMPTY_REGISTRY, createFlowFile(), otherAttrs);
+        assertEquals("test", lookup.get("fake"));
+        assertEquals("fakefile.txt", lookup.get("filename"));
+
+        // while the thread's lookup is in use, a different one must be provided
+        final ValueLookup nested = ValueLookup.acquire(VariableRegistry.EMPTY_REGISTRY, null, null);
+        assertTrue(nested != lookup);
+        assertNull(nested.get("filename"));
+        nested.release();
+
+        lookup.release();
+        assertNull(lookup.get("fake"));
+        assertNull(lookup.get("filename"));
+
+        final ValueLookup reacquired = ValueLookup.acquire(VariableRegistry.EMPTY_REGISTRY, null, null);
+        assertTrue(reacquired == lookup);
+        assertTrue(reacquired.isEmpty());
+        reacquired.release();
+    }
+
     private FlowFile createFlowFile() {
         return new FlowFile() {
             @Override
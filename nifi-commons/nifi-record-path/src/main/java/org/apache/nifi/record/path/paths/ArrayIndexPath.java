@@ -17,6 +17,7 @@
 
 package org.apache.nifi.record.path.paths;
 
+import java.util.List;
 import java.util.stream.Stream;
 
 import org.apache.nifi.record.path.ArrayIndexFieldValue;
@@ -42,17 +43,37 @@ public class ArrayIndexPath extends RecordPathSegment {
 
         return parentResult
             .filter(Filters.fieldTypeFilter(RecordFieldType.ARRAY))
-            .filter(fieldValue -> fieldValue.getValue() != null && ((Object[]) fieldValue.getValue()).length > getArrayIndex(((Object[]) fieldValue.getValue()).length))
-            .map(fieldValue -> {
-                final ArrayDataType arrayDataType = (ArrayDataType) fieldValue.getField().getDataType();
-                final DataType elementDataType = arrayDataType.getElementType();
-                final RecordField arrayField = new RecordField(fieldValue.getField().getFieldName(), elementDataType);
-                final Object[] values = (Object[]) fieldValue.getValue();
-                final int arrayIndex = getArrayIndex(values.length);
-                final RecordField elementField = new RecordField(arrayField.getFieldName(), elementDataType);
-                final FieldValue result = new ArrayIndexFieldValue(values[arrayIndex], elementField, fieldValue, arrayIndex);
-                return result;
-            });
+            .filter(this::hasIndex)
+            .map(this::getElement);
+    }
+
+    @Override
+    boolean isDirectlyEvaluable() {
+        return getParentPath().isDirectlyEvaluable();
+    }
+
+    @Override
+    void evaluateDirectly(final RecordPathEvaluationContext context, final List<FieldValue> selectedFields) {
+        for (final FieldValue parentField : evaluateParentDirectly(context)) {
+            if (parentField.getField().getDataType().getFieldType() == RecordFieldType.ARRAY && hasIndex(parentField)) {
+                selectedFields.add(getElement(parentField));
+            }
+        }
+    }
+
+    private boolean hasIndex(final FieldValue fieldValue) {
+        return fieldValue.getValue() != null && ((Object[]) fieldValue.getValue()).length > getArrayIndex(((Object[]) fieldValue.getValue()).length);
+    }
+
+    private FieldValue getElement(final FieldValue fieldValue) {
+        final ArrayDataType arrayDataType = (ArrayDataType) fieldValue.getField().getDataType();
+        final DataType elementDataType = arrayDataType.getElementType();
+        final RecordField arrayField = new RecordField(fieldValue.getField().getFieldName(), elementDataType);
+        final Object[] values = (Object[]) fieldValue.getValue();
+        final int arrayIndex = getArrayIndex(values.length);
+        final RecordField elementField = new RecordField(arrayField.getFieldName(), elementDataType);
+        final FieldValue result = new ArrayIndexFieldValue(values[arrayIndex], elementField, fieldValue, arrayIndex);
+        return result;
     }
 
     private int getArrayIndex(final int arrayLength) {
@@ -17,6 +17,7 @@
 
 package org.apache.nifi.record.path.paths;
 
+import java.util.List;
 import java.util.Optional;
 import java.util.stream.Stream;
 
@@ -27,9 +28,11 @@ import org.apache.nifi.record.path.util.Filters;
 import org.apache.nifi.serialization.record.Record;
 import org.apache.nifi.serialization.record.RecordField;
 import org.apache.nifi.serialization.record.RecordFieldType;
+import org.apache.nifi.serialization.record.RecordSchema;
 
 public class ChildFieldPath extends RecordPathSegment {
     private final String childName;
+    private volatile ResolvedField resolvedField;
 
     ChildFieldPath(final String childName, final RecordPathSegment parent, final boolean absolute) {
         super("/" + childName, parent, absolute);
@@ -51,17 +54,36 @@ public class ChildFieldPath extends RecordPathSegment {
             return missingChild(fieldValue);
         }
 
-        final Object value = record.getValue(childName);
-        if (value == null) {
+        final RecordField field = resolveField(record.getSchema());
+        if (field == null) {
             return missingChild(fieldValue);
         }
 
-        final Optional<RecordField> field = record.getSchema().getField(childName);
-        if (!field.isPresent()) {
+        final Object value = record.getValue(field);
+        if (value == null) {
             return missingChild(fieldValue);
         }
 
-        return new StandardFieldValue(value, field.get(), fieldValue);
+        return new StandardFieldValue(value, field, fieldValue);
+    }
+
+    /**
+     * Finds the field with the child name in the given schema. Because the Records that a RecordPath is evaluated against
+     * generally share the same schema, the field that was last found is kept along with its schema so that it does not
+     * need to be looked up again for each Record.
+     *
+     * @return the field, or <code>null</code> if the schema has no field with the child name
+     */
+    private RecordField resolveField(final RecordSchema schema) {
+        final ResolvedField resolved = resolvedField;
+        if (resolved != null && resolved.schema == schema) {
+            return resolved.field;
+        }
+
+        final Optional<RecordField> field = schema.getField(childName);
+        final RecordField recordField = field.orElse(null);
+        resolvedField = new ResolvedField(schema, recordField);
+        return recordField;
     }
 
     @Override
@@ -70,4 +92,26 @@ public class ChildFieldPath extends RecordPathSegment {
             // map to Optional<FieldValue> containing child element
             .map(fieldVal -> getChild(fieldVal));
     }
+
+    @Override
+    boolean isDirectlyEvaluable() {
+        return getParentPath().isDirectlyEvaluable();
+    }
+
+    @Override
+    void evaluateDirectly(final RecordPathEvaluationContext context, final List<FieldValue> selectedFields) {
+        for (final FieldValue parentField : evaluateParentDirectly(context)) {
+            selectedFields.add(getChild(parentField));
+        }
+    }
+
+    private static class ResolvedField {
+        private final RecordSchema schema;
+        private final RecordField field;
+
+        ResolvedField(final RecordSchema schema, final RecordField field) {
+            this.schema = schema;
+            this.field = field;
+        }
+    }
 }
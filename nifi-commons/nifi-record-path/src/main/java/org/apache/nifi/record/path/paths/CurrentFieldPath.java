@@ -17,6 +17,7 @@
 
 package org.apache.nifi.record.path.paths;
 
+import java.util.List;
 import java.util.stream.Stream;
 
 import org.apache.nifi.record.path.FieldValue;
@@ -43,4 +44,20 @@ public class CurrentFieldPath extends RecordPathSegment {
         }
     }
 
+    @Override
+    boolean isDirectlyEvaluable() {
+        final RecordPathSegment parentPath = getParentPath();
+        return parentPath == null || parentPath.isDirectlyEvaluable();
+    }
+
+    @Override
+    void evaluateDirectly(final RecordPathEvaluationContext context, final List<FieldValue> selectedFields) {
+        final FieldValue contextNode = context.getContextNode();
+        if (contextNode != null || getParentPath() == null) {
+            selectedFields.add(contextNode);
+        } else {
+            getParentPath().evaluateDirectly(context, selectedFields);
+        }
+    }
+
 }
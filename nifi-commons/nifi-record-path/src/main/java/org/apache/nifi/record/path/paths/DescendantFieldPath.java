@@ -46,6 +46,18 @@ public class DescendantFieldPath extends RecordPathSegment {
             .flatMap(recordFieldVal -> findDescendants(recordFieldVal).stream());
     }
 
+    @Override
+    boolean isDirectlyEvaluable() {
+        return getParentPath().isDirectlyEvaluable();
+    }
+
+    @Override
+    void evaluateDirectly(final RecordPathEvaluationContext context, final List<FieldValue> selectedFields) {
+        for (final FieldValue parentField : evaluateParentDirectly(context)) {
+            selectedFields.addAll(findDescendants(parentField));
+        }
+    }
+
     private List<FieldValue> findDescendants(final FieldValue fieldValue) {
         if (fieldValue == null || fieldValue.getValue() == null) {
             return Collections.emptyList();
@@ -17,6 +17,7 @@
 
 package org.apache.nifi.record.path.paths;
 
+import java.util.List;
 import java.util.stream.Stream;
 
 import org.apache.nifi.record.path.FieldValue;
@@ -56,4 +57,24 @@ public class PredicatePath extends RecordPathSegment {
             }
         });
     }
+
+    @Override
+    boolean isDirectlyEvaluable() {
+        return getParentPath().isDirectlyEvaluable();
+    }
+
+    @Override
+    void evaluateDirectly(final RecordPathEvaluationContext context, final List<FieldValue> selectedFields) {
+        for (final FieldValue parentField : evaluateParentDirectly(context)) {
+            final FieldValue previousContextNode = context.getContextNode();
+            context.setContextNode(parentField);
+            try {
+                if (filter.filter(context, false).iterator().hasNext()) {
+                    selectedFields.add(parentField);
+                }
+            } finally {
+                context.setContextNode(previousContextNode);
+            }
+        }
+    }
 }
@@ -17,6 +17,8 @@
 
 package org.apache.nifi.record.path.paths;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Objects;
 import java.util.stream.Stream;
 
@@ -25,12 +27,14 @@ import org.apache.nifi.record.path.RecordPath;
 import org.apache.nifi.record.path.RecordPathEvaluationContext;
 import org.apache.nifi.record.path.RecordPathResult;
 import org.apache.nifi.record.path.StandardRecordPathEvaluationContext;
+import org.apache.nifi.record.path.StandardRecordPathResult;
 import org.apache.nifi.serialization.record.Record;
 
 public abstract class RecordPathSegment implements RecordPath {
     private final String path;
     private final RecordPathSegment parentPath;
     private final boolean absolute;
+    private volatile Boolean directlyEvaluable;
 
     public RecordPathSegment(final String path, final RecordPathSegment parentPath, final boolean absolute) {
         this.path = path;
@@ -81,38 +85,65 @@ public abstract class RecordPathSegment implements RecordPath {
     @Override
     public final RecordPathResult evaluate(final Record record) {
         final RecordPathEvaluationContext context = new StandardRecordPathEvaluationContext(record);
-        final Stream<FieldValue> selectedFields = evaluate(context);
-
-        return new RecordPathResult() {
-            @Override
-            public String getPath() {
-                return RecordPathSegment.this.getPath();
-            }
-
-            @Override
-            public Stream<FieldValue> getSelectedFields() {
-                return selectedFields;
-            }
-        };
+        return new StandardRecordPathResult(getPath(), evaluateSelectedFields(context));
     }
 
     @Override
     public final RecordPathResult evaluate(final Record record, final FieldValue contextNode) {
         final RecordPathEvaluationContext context = new StandardRecordPathEvaluationContext(record);
         context.setContextNode(contextNode);
-        final Stream<FieldValue> selectedFields = evaluate(context);
-
-        return new RecordPathResult() {
-            @Override
-            public String getPath() {
-                return RecordPathSegment.this.getPath();
-            }
-
-            @Override
-            public Stream<FieldValue> getSelectedFields() {
-                return selectedFields;
-            }
-        };
+        return new StandardRecordPathResult(getPath(), evaluateSelectedFields(context));
+    }
+
+    private Stream<FieldValue> evaluateSelectedFields(final RecordPathEvaluationContext context) {
+        Boolean direct = directlyEvaluable;
+        if (direct == null) {
+            direct = isDirectlyEvaluable();
+            directlyEvaluable = direct;
+        }
+
+        if (!direct) {
+            return evaluate(context);
+        }
+
+        // A directly evaluable path is evaluated eagerly: every matching FieldValue is found before the Stream is returned, rather than as the
+        // Stream is consumed. Such paths select few values and have no side effects, so this costs far less than building a Stream per segment.
+        final List<FieldValue> selectedFields = new ArrayList<>(1);
+        evaluateDirectly(context, selectedFields);
+        return selectedFields.stream();
+    }
+
+    /**
+     * Indicates whether or not this path, including all of its parent paths, can be evaluated by {@link #evaluateDirectly(RecordPathEvaluationContext, List)}.
+     * This is the case for paths made up of simple child, descendant, array index, map key, and predicate segments, which select values without
+     * needing a Stream for each segment. Other paths, such as those that call functions, are evaluated by {@link #evaluate(RecordPathEvaluationContext)}.
+     *
+     * @return <code>true</code> if this path can be evaluated directly, <code>false</code> otherwise
+     */
+    boolean isDirectlyEvaluable() {
+        return false;
+    }
+
+    /**
+     * Evaluates this path against the given context, adding each matching FieldValue to the given List, in the same order
+     * in which {@link #evaluate(RecordPathEvaluationContext)} would return them. Unlike {@link #evaluate(RecordPathEvaluationContext)}, the path is
+     * evaluated eagerly. Segments that are directly evaluable override this method; by default, the path is evaluated by
+     * {@link #evaluate(RecordPathEvaluationContext)} and the resulting Stream is collected into the List.
+     *
+     * @param context the evaluation context
+     * @param selectedFields the List to add the matching FieldValues to
+     */
+    void evaluateDirectly(final RecordPathEvaluationContext context, final List<FieldValue> selectedFields) {
+        evaluate(context).forEach(selectedFields::add);
+    }
+
+    /**
+     * @return the FieldValues that match the parent path, evaluated directly
+     */
+    List<FieldValue> evaluateParentDirectly(final RecordPathEvaluationContext context) {
+        final List<FieldValue> parentFields = new ArrayList<>(1);
+        getParentPath().evaluateDirectly(context, parentFields);
+        return parentFields;
     }
 
     public abstract Stream<FieldValue> evaluate(RecordPathEvaluationContext context);
@@ -17,6 +17,7 @@
 
 package org.apache.nifi.record.path.paths;
 
+import java.util.List;
 import java.util.stream.Stream;
 
 import org.apache.nifi.record.path.FieldValue;
@@ -34,8 +35,21 @@ public class RootPath extends RecordPathSegment {
 
     @Override
     public Stream<FieldValue> evaluate(final RecordPathEvaluationContext context) {
+        return Stream.of(getRootFieldValue(context));
+    }
+
+    @Override
+    boolean isDirectlyEvaluable() {
+        return true;
+    }
+
+    @Override
+    void evaluateDirectly(final RecordPathEvaluationContext context, final List<FieldValue> selectedFields) {
+        selectedFields.add(getRootFieldValue(context));
+    }
+
+    private FieldValue getRootFieldValue(final RecordPathEvaluationContext context) {
         final RecordField field = new RecordField("root", RecordFieldType.RECORD.getRecordDataType(context.getRecord().getSchema()));
-        final FieldValue fieldValue = new StandardFieldValue(context.getRecord(), field, null);
-        return Stream.of(fieldValue);
+        return new StandardFieldValue(context.getRecord(), field, null);
     }
 }
@@ -17,6 +17,7 @@
 
 package org.apache.nifi.record.path.paths;
 
+import java.util.List;
 import java.util.Map;
 import java.util.stream.Stream;
 
@@ -43,11 +44,27 @@ public class SingularMapKeyPath extends RecordPathSegment {
 
         return parentResult
             .filter(Filters.fieldTypeFilter(RecordFieldType.MAP))
-            .map(fieldValue -> {
-                final DataType valueType = ((MapDataType) fieldValue.getField().getDataType()).getValueType();
-                final RecordField elementField = new RecordField(fieldValue.getField().getFieldName(), valueType);
-                return new MapEntryFieldValue(getMapValue(fieldValue), elementField, fieldValue, mapKey);
-            });
+            .map(this::getMapEntry);
+    }
+
+    @Override
+    boolean isDirectlyEvaluable() {
+        return getParentPath().isDirectlyEvaluable();
+    }
+
+    @Override
+    void evaluateDirectly(final RecordPathEvaluationContext context, final List<FieldValue> selectedFields) {
+        for (final FieldValue parentField : evaluateParentDirectly(context)) {
+            if (parentField.getField().getDataType().getFieldType() == RecordFieldType.MAP) {
+                selectedFields.add(getMapEntry(parentField));
+            }
+        }
+    }
+
+    private FieldValue getMapEntry(final FieldValue fieldValue) {
+        final DataType valueType = ((MapDataType) fieldValue.getField().getDataType()).getValueType();
+        final RecordField elementField = new RecordField(fieldValue.getField().getFieldName(), valueType);
+        return new MapEntryFieldValue(getMapValue(fieldValue), elementField, fieldValue, mapKey);
     }
 
     private Object getMapValue(final FieldValue fieldValue) {
@@ -21,16 +21,39 @@ import com.github.benmanes.caffeine.cache.Caffeine;
 import com.github.benmanes.caffeine.cache.LoadingCache;
 import org.apache.nifi.record.path.RecordPath;
 
+/**
+ * A cache of compiled RecordPaths. Compiled RecordPaths are immutable and thread-safe, so in addition to the
+ * paths held by each instance, paths are compiled through a single cache that is shared by all instances
+ * (and by {@link #getSharedCompiled(String)}), so that a path that is used by many components or
+ * validated repeatedly is compiled only once.
+ */
 public class RecordPathCache {
+    private static final int SHARED_CACHE_SIZE = 1000;
+
+    private static final LoadingCache<String, RecordPath> sharedCompiledRecordPaths = Caffeine.newBuilder()
+            .maximumSize(SHARED_CACHE_SIZE)
+            .build(RecordPath::compile);
+
     private final LoadingCache<String, RecordPath> compiledRecordPaths;
 
     public RecordPathCache(final int cacheSize) {
         compiledRecordPaths = Caffeine.newBuilder()
                 .maximumSize(cacheSize)
-                .build(RecordPath::compile);
+                .build(RecordPathCache::getSharedCompiled);
     }
 
     public RecordPath getCompiled(final String path) {
         return compiledRecordPaths.get(path);
     }
+
+    /**
+     * Returns the compiled form of the given RecordPath from the cache that is shared by all instances, compiling it if necessary
+     *
+     * @param path the textual representation of the RecordPath
+     * @return the compiled RecordPath
+     * @throws org.apache.nifi.record.path.exception.RecordPathException if the given text is not a valid RecordPath
+     */
+    public static RecordPath getSharedCompiled(final String path) {
+        return sharedCompiledRecordPaths.get(path);
+    }
 }
@@ -20,15 +20,15 @@ package org.apache.nifi.record.path.validation;
 import org.apache.nifi.components.ValidationContext;
 import org.apache.nifi.components.ValidationResult;
 import org.apache.nifi.components.Validator;
-import org.apache.nifi.record.path.RecordPath;
 import org.apache.nifi.record.path.exception.RecordPathException;
+import org.apache.nifi.record.path.util.RecordPathCache;
 
 public class RecordPathPropertyNameValidator implements Validator {
 
     @Override
     public ValidationResult validate(final String subject, final String input, final ValidationContext context) {
         try {
-            RecordPath.compile(subject);
+            RecordPathCache.getSharedCompiled(subject);
             return new ValidationResult.Builder()
                 .input(input)
                 .subject(subject)
@@ -20,8 +20,8 @@ package org.apache.nifi.record.path.validation;
 import org.apache.nifi.components.ValidationContext;
 import org.apache.nifi.components.ValidationResult;
 import org.apache.nifi.components.Validator;
-import org.apache.nifi.record.path.RecordPath;
 import org.apache.nifi.record.path.exception.RecordPathException;
+import org.apache.nifi.record.path.util.RecordPathCache;
 
 public class RecordPathValidator implements Validator {
 
@@ -37,7 +37,7 @@ public class RecordPathValidator implements Validator {
         }
 
         try {
-            RecordPath.compile(input);
+            RecordPathCache.getSharedCompiled(input);
             return new ValidationResult.Builder()
                 .input(input)
                 .subject(subject)
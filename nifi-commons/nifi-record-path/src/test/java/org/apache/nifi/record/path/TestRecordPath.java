@@ -18,6 +18,8 @@
 package org.apache.nifi.record.path;
 
 import org.apache.nifi.record.path.exception.RecordPathException;
+import org.apache.nifi.record.path.paths.RecordPathSegment;
+import org.apache.nifi.record.path.util.RecordPathCache;
 import org.apache.nifi.serialization.SimpleRecordSchema;
 import org.apache.nifi.serialization.record.DataType;
 import org.apache.nifi.serialization.record.MapRecord;
@@ -26,6 +28,7 @@ import org.apache.nifi.serialization.record.RecordField;
 import org.apache.nifi.serialization.record.RecordFieldType;
 import org.apache.nifi.serialization.record.RecordSchema;
 import org.apache.nifi.serialization.record.util.DataTypeUtils;
+import org.junit.Assert;
 import org.junit.Test;
 
 import java.nio.charset.IllegalCharsetNameException;
@@ -36,6 +39,7 @@ import java.text.ParseException;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Base64;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -45,6 +49,7 @@ import java.util.stream.IntStream;
 
 import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 
 public class TestRecordPath {
@@ -1496,6 +1501,72 @@ public class TestRecordPath {
         });
     }
 
+    @Test
+    public void testDirectEvaluationSameAsStreamEvaluation() {
+        final Map<String, Object> accountValues = new HashMap<>();
+        accountValues.put("id", 1);
+        accountValues.put("balance", 123.45D);
+        final Record accountRecord = new MapRecord(getAccountSchema(), accountValues);
+
+        final Map<String, String> attributes = new HashMap<>();
+        attributes.put("city", "New York");
+
+        final RecordSchema schema = new SimpleRecordSchema(getDefaultFields());
+        final Map<String, Object> values = new HashMap<>();
+        values.put("id", 48);
+        values.put("name", "John Doe");
+        values.put("attributes", attributes);
+        values.put("mainAccount", accountRecord);
+        values.put("numbers", new Object[] {1, 2, 3});
+        values.put("accounts", new Object[] {accountRecord});
+        final Record record = new MapRecord(schema, values);
+
+        final List<String> paths = Arrays.asList("/", "/id", "/name", "/missing", "/mainAccount/balance", "/mainAccount/missing", "//id", "/numbers[1]",
+            "/numbers[-1]", "/numbers[8]", "/accounts[0]/id", "/attributes['city']", "/attributes['state']", "/name/id", ".",
+            "/mainAccount[./balance > 100]/id", "/mainAccount[./balance > 200]/id", "/numbers[0][. = 1]", "/*[. = 'John Doe']");
+
+        for (final String path : paths) {
+            final RecordPathSegment recordPath = (RecordPathSegment) RecordPath.compile(path);
+            final List<FieldValue> expected = recordPath.evaluate(new StandardRecordPathEvaluationContext(record)).collect(Collectors.toList());
+            final List<FieldValue> actual = recordPath.evaluate(record).getSelectedFields().collect(Collectors.toList());
+            assertEquals(path, expected, actual);
+        }
+    }
+
+    @Test
+    public void testChildFieldWithDifferentSchemas() {
+        final RecordPath recordPath = RecordPath.compile("/name");
+
+        final Record record = createSimpleRecord();
+        assertEquals("John Doe", recordPath.evaluate(record).getSelectedFields().findFirst().get().getValue());
+
+        final List<RecordField> fields = new ArrayList<>();
+        fields.add(new RecordField("fullName", RecordFieldType.STRING.getDataType(), Collections.singleton("name")));
+        final Map<String, Object> values = new HashMap<>();
+        values.put("fullName", "Jane Doe");
+        final Record otherRecord = new MapRecord(new SimpleRecordSchema(fields), values);
+
+        final FieldValue fieldValue = recordPath.evaluate(otherRecord).getSelectedFields().findFirst().get();
+        assertEquals("Jane Doe", fieldValue.getValue());
+        assertEquals("fullName", fieldValue.getField().getFieldName());
+
+        assertEquals("John Doe", recordPath.evaluate(record).getSelectedFields().findFirst().get().getValue());
+    }
+
+    @Test
+    public void testSharedCache() {
+        final RecordPath recordPath = RecordPathCache.getSharedCompiled("/name");
+        assertSame(recordPath, RecordPathCache.getSharedCompiled("/name"));
+        assertSame(recordPath, new RecordPathCache(10).getCompiled("/name"));
+
+        try {
+            RecordPathCache.getSharedCompiled("/name[");
+            Assert.fail("Was able to compile an invalid RecordPath");
+        } catch (final RecordPathException expected) {
+            // expected
+        }
+    }
+
     private List<RecordField> getDefaultFields() {
         final List<RecordField> fields = new ArrayList<>();
         fields.add(new RecordField("id", RecordFieldType.INT.getDataType()));
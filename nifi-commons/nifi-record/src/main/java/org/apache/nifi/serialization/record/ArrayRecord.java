@@ -0,0 +1,497 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.nifi.serialization.record;
+
+import org.apache.nifi.serialization.SchemaValidationException;
+import org.apache.nifi.serialization.SimpleRecordSchema;
+import org.apache.nifi.serialization.record.type.ArrayDataType;
+import org.apache.nifi.serialization.record.type.MapDataType;
+import org.apache.nifi.serialization.record.util.DataTypeUtils;
+import org.apache.nifi.serialization.record.util.IllegalTypeConversionException;
+
+import java.nio.charset.StandardCharsets;
+import java.text.DateFormat;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Supplier;
+
+/**
+ * <p>
+ * A Record whose values are held in an array, in the order of the fields in its schema, so that a value can be found by the position
+ * of its field rather than by hashing the field's name. This makes the record cheaper to create and to read than a {@link MapRecord}
+ * when a value is known for each field of the schema, as is the case for most record readers.
+ * </p>
+ *
+ * <p>
+ * Each field of the schema is considered to have been given a value, even if that value is <code>null</code>. Values for fields that
+ * are not part of the schema are held separately and behave as they do for a MapRecord.
+ * </p>
+ */
+public class ArrayRecord implements Record {
+    private RecordSchema schema;
+    private Object[] values;
+    private Map<String, Object> unknownFieldValues = null;
+    private Optional<SerializedForm> serializedForm;
+    private final boolean checkTypes;
+    private final boolean dropUnknownFields;
+    private Set<RecordField> inactiveFields = null;
+
+    /**
+     * @param schema the schema of the record
+     * @param values the values of the record, one for each field of the schema, in the same order as the schema's fields. The array is
+     *            used by the record directly, so it must not be modified by the caller afterward.
+     */
+    public ArrayRecord(final RecordSchema schema, final Object[] values) {
+        this(schema, values, null, false, false);
+    }
+
+    public ArrayRecord(final RecordSchema schema, final Object[] values, final boolean checkTypes, final boolean dropUnknownFields) {
+        this(schema, values, null, checkTypes, dropUnknownFields);
+    }
+
+    public ArrayRecord(final RecordSchema schema, final Object[] values, final SerializedForm serializedForm, final boolean checkTypes, final boolean dropUnknownFields) {
+        this.schema = Objects.requireNonNull(schema);
+        Objects.requireNonNull(values);
+        if (values.length != schema.getFieldCount()) {
+            throw new IllegalArgumentException("Record Schema has " + schema.getFieldCount() + " fields but " + values.length + " values were given");
+        }
+
+        this.values = checkTypes ? checkTypes(values, schema) : values;
+        this.serializedForm = Optional.ofNullable(serializedForm);
+        this.checkTypes = checkTypes;
+        this.dropUnknownFields = dropUnknownFields;
+    }
+
+    private static Object[] checkTypes(final Object[] values, final RecordSchema schema) {
+        for (int i = 0; i < values.length; i++) {
+            final RecordField field = schema.getField(i);
+            final Object value = values[i];
+
+            if (value == null) {
+                if (field.isNullable() || field.getDefaultValue() != null) {
+                    continue;
+                }
+
+                throw new SchemaValidationException("Field " + field.getFieldName() + " cannot be null");
+            }
+
+            if (!DataTypeUtils.isCompatibleDataType(value, field.getDataType())) {
+                throw new SchemaValidationException("Field " + field.getFieldName() + " has a value of " + value
+                    + ", which cannot be coerced into the appropriate data type of " + field.getDataType());
+            }
+        }
+
+        return values;
+    }
+
+    @Override
+    public boolean isDropUnknownFields() {
+        return dropUnknownFields;
+    }
+
+    @Override
+    public boolean isTypeChecked() {
+        return checkTypes;
+    }
+
+    @Override
+    public RecordSchema getSchema() {
+        return schema;
+    }
+
+    @Override
+    public Object[] getValues() {
+        final Object[] copy = Arrays.copyOf(values, values.length);
+        for (int i = 0; i < copy.length; i++) {
+            if (copy[i] == null) {
+                copy[i] = schema.getField(i).getDefaultValue();
+            }
+        }
+        return copy;
+    }
+
+    @Override
+    public Object getValue(final String fieldName) {
+        final int index = schema.getFieldIndex(fieldName);
+        if (index >= 0) {
+            return getValue(index, schema.getField(index));
+        }
+
+        if (dropUnknownFields || unknownFieldValues == null) {
+            return null;
+        }
+
+        return unknownFieldValues.get(fieldName);
+    }
+
+    @Override
+    public Object getValue(final RecordField field) {
+        final int index = getFieldIndex(field);
+        if (index >= 0) {
+            return getValue(index, field);
+        }
+
+        if (unknownFieldValues != null) {
+            final Object value = getUnknownFieldValue(field);
+            if (value != null) {
+                return value;
+            }
+        }
+
+        return field.getDefaultValue();
+    }
+
+    private Object getValue(final int index, final RecordField field) {
+        final Object value = values[index];
+        if (value != null) {
+            return value;
+        }
+
+        final Object defaultValue = field.getDefaultValue();
+        if (defaultValue != null) {
+            return defaultValue;
+        }
+
+        return schema.getField(index).getDefaultValue();
+    }
+
+    /**
+     * @return the position within the schema of the field with the given field's name or, failing that, one of its aliases; or -1
+     */
+    private int getFieldIndex(final RecordField field) {
+        final int index = schema.getFieldIndex(field.getFieldName());
+        if (index >= 0) {
+            return index;
+        }
+
+        for (final String alias : field.getAliases()) {
+            final int aliasIndex = schema.getFieldIndex(alias);
+            if (aliasIndex >= 0) {
+                return aliasIndex;
+            }
+        }
+
+        return -1;
+    }
+
+    private Object getUnknownFieldValue(final RecordField field) {
+        final Object value = unknownFieldValues.get(field.getFieldName());
+        if (value != null) {
+            return value;
+        }
+
+        for (final String alias : field.getAliases()) {
+            final Object aliasValue = unknownFieldValues.get(alias);
+            if (aliasValue != null) {
+                return aliasValue;
+            }
+        }
+
+        return null;
+    }
+
+    @Override
+    public String getAsString(final String fieldName) {
+        final Optional<DataType> dataTypeOption = schema.getDataType(fieldName);
+        if (dataTypeOption.isPresent()) {
+            return convertToString(getValue(fieldName), dataTypeOption.get().getFormat());
+        }
+
+        return DataTypeUtils.toString(getValue(fieldName), (Supplier<DateFormat>) null);
+    }
+
+    @Override
+    public String getAsString(final String fieldName, final String format) {
+        return convertToString(getValue(fieldName), format);
+    }
+
+    @Override
+    public String getAsString(final RecordField field, final String format) {
+        return convertToString(getValue(field), format);
+    }
+
+    private String convertToString(final Object value, final String format) {
+        if (value == null) {
+            return null;
+        }
+
+        return DataTypeUtils.toString(value, format);
+    }
+
+    @Override
+    public Long getAsLong(final String fieldName) {
+        return DataTypeUtils.toLong(getValue(fieldName), fieldName);
+    }
+
+    @Override
+    public Integer getAsInt(final String fieldName) {
+        return DataTypeUtils.toInteger(getValue(fieldName), fieldName);
+    }
+
+    @Override
+    public Double getAsDouble(final String fieldName) {
+        return DataTypeUtils.toDouble(getValue(fieldName), fieldName);
+    }
+
+    @Override
+    public Float getAsFloat(final String fieldName) {
+        return DataTypeUtils.toFloat(getValue(fieldName), fieldName);
+    }
+
+    @Override
+    public Record getAsRecord(final String fieldName, final RecordSchema schema) {
+        return DataTypeUtils.toRecord(getValue(fieldName), schema, fieldName);
+    }
+
+    @Override
+    public Boolean getAsBoolean(final String fieldName) {
+        return DataTypeUtils.toBoolean(getValue(fieldName), fieldName);
+    }
+
+    @Override
+    public Date getAsDate(final String fieldName, final String format) {
+        return DataTypeUtils.toDate(getValue(fieldName), () -> DataTypeUtils.getCachedDateFormat(format), fieldName);
+    }
+
+    @Override
+    public Object[] getAsArray(final String fieldName) {
+        return DataTypeUtils.toArray(getValue(fieldName), fieldName, null, StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public int hashCode() {
+        return RecordEquality.hashCode(this);
+    }
+
+    @Override
+    public boolean equals(final Object obj) {
+        return RecordEquality.equals(this, obj);
+    }
+
+    @Override
+    public String toString() {
+        return "ArrayRecord[" + toMap() + "]";
+    }
+
+    @Override
+    public Optional<SerializedForm> getSerializedForm() {
+        return serializedForm;
+    }
+
+    @Override
+    public Map<String, Object> toMap() {
+        final Map<String, Object> map = new LinkedHashMap<>(values.length * 2);
+        for (int i = 0; i < values.length; i++) {
+            map.put(schema.getField(i).getFieldName(), values[i]);
+        }
+        if (unknownFieldValues != null) {
+            map.putAll(unknownFieldValues);
+        }
+        return Collections.unmodifiableMap(map);
+    }
+
+    @Override
+    public void setValue(final RecordField field, final Object value) {
+        final boolean existingField = setValueAndGetIndex(field.getFieldName(), value) >= 0;
+
+        if (!existingField) {
+            if (inactiveFields == null) {
+                inactiveFields = new LinkedHashSet<>();
+            }
+
+            inactiveFields.add(field);
+        }
+    }
+
+    @Override
+    public void setValue(final String fieldName, final Object value) {
+        setValueAndGetIndex(fieldName, value);
+    }
+
+    private int setValueAndGetIndex(final String fieldName, final Object value) {
+        final int index = schema.getFieldIndex(fieldName);
+        if (index < 0) {
+            if (dropUnknownFields) {
+                return index;
+            }
+
+            if (unknownFieldValues == null) {
+                unknownFieldValues = new LinkedHashMap<>();
+            }
+
+            final Object previousValue = unknownFieldValues.put(fieldName, value);
+            if (!Objects.equals(value, previousValue)) {
+                serializedForm = Optional.empty();
+            }
+
+            return index;
+        }
+
+        final Object coerced = isTypeChecked() ? DataTypeUtils.convertType(value, schema.getField(index).getDataType(), fieldName) : value;
+        final Object previousValue = values[index];
+        values[index] = coerced;
+        if (!Objects.equals(coerced, previousValue)) {
+            serializedForm = Optional.empty();
+        }
+
+        return index;
+    }
+
+    @Override
+    public void setArrayValue(final String fieldName, final int arrayIndex, final Object value) {
+        final int index = schema.getFieldIndex(fieldName);
+        if (index < 0) {
+            return;
+        }
+
+        final DataType dataType = schema.getField(index).getDataType();
+        if (dataType.getFieldType() != RecordFieldType.ARRAY) {
+            throw new IllegalTypeConversionException("Cannot set the value of an array index on Record because the field '" + fieldName
+                + "' is of type '" + dataType + "' and cannot be coerced into an ARRAY type");
+        }
+
+        final Object arrayObject = values[index];
+        if (!(arrayObject instanceof Object[])) {
+            return;
+        }
+
+        final Object[] array = (Object[]) arrayObject;
+        if (arrayIndex >= array.length) {
+            return;
+        }
+
+        final DataType elementType = ((ArrayDataType) dataType).getElementType();
+        final Object coerced = DataTypeUtils.convertType(value, elementType, fieldName);
+
+        final boolean update = !Objects.equals(coerced, array[arrayIndex]);
+        if (update) {
+            array[arrayIndex] = coerced;
+            serializedForm = Optional.empty();
+        }
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public void setMapValue(final String fieldName, final String mapKey, final Object value) {
+        final int index = schema.getFieldIndex(fieldName);
+        if (index < 0) {
+            return;
+        }
+
+        final DataType dataType = schema.getField(index).getDataType();
+        if (dataType.getFieldType() != RecordFieldType.MAP) {
+            throw new IllegalTypeConversionException("Cannot set the value of map entry on Record because the field '" + fieldName
+                + "' is of type '" + dataType + "' and cannot be coerced into an MAP type");
+        }
+
+        Object mapObject = values[index];
+        if (mapObject == null) {
+            mapObject = new HashMap<String, Object>();
+        }
+        if (!(mapObject instanceof Map)) {
+            return;
+        }
+
+        final Map<String, Object> map = (Map<String, Object>) mapObject;
+
+        final DataType valueDataType = ((MapDataType) dataType).getValueType();
+        final Object coerced = DataTypeUtils.convertType(value, valueDataType, fieldName);
+
+        final Object replaced = map.put(mapKey, coerced);
+        if (replaced == null || !replaced.equals(coerced)) {
+            serializedForm = Optional.empty();
+        }
+    }
+
+    @Override
+    public void incorporateSchema(final RecordSchema other) {
+        setSchema(DataTypeUtils.merge(this.schema, other));
+    }
+
+    @Override
+    public void incorporateInactiveFields() {
+        if (inactiveFields == null) {
+            return;
+        }
+
+        final List<RecordField> allFields = new ArrayList<>(schema.getFieldCount() + inactiveFields.size());
+        allFields.addAll(schema.getFields());
+
+        for (final RecordField field : inactiveFields) {
+            if (!allFields.contains(field)) {
+                allFields.add(field);
+            }
+        }
+
+        setSchema(new SimpleRecordSchema(allFields));
+    }
+
+    /**
+     * Changes the schema of this record, moving each value to the position of its field in the new schema. A value whose field is no
+     * longer part of the schema is kept with the values of unknown fields, and a value of an unknown field whose field is now part of
+     * the schema is moved into the array.
+     */
+    private void setSchema(final RecordSchema newSchema) {
+        final Object[] newValues = new Object[newSchema.getFieldCount()];
+        final boolean[] assigned = new boolean[values.length];
+
+        for (int i = 0; i < newValues.length; i++) {
+            final RecordField newField = newSchema.getField(i);
+            final int index = getFieldIndex(newField);
+            if (index >= 0) {
+                newValues[i] = values[index];
+                assigned[index] = true;
+            } else if (unknownFieldValues != null) {
+                newValues[i] = getUnknownFieldValue(newField);
+                unknownFieldValues.remove(newField.getFieldName());
+                newField.getAliases().forEach(unknownFieldValues::remove);
+            }
+        }
+
+        for (int i = 0; i < values.length; i++) {
+            if (!assigned[i] && values[i] != null) {
+                if (unknownFieldValues == null) {
+                    unknownFieldValues = new LinkedHashMap<>();
+                }
+                unknownFieldValues.put(schema.getField(i).getFieldName(), values[i]);
+            }
+        }
+
+        this.schema = newSchema;
+        this.values = newValues;
+    }
+
+    @Override
+    public Set<String> getRawFieldNames() {
+        final Set<String> fieldNames = new LinkedHashSet<>(schema.getFieldNames());
+        if (unknownFieldValues != null) {
+            fieldNames.addAll(unknownFieldValues.keySet());
+        }
+        return fieldNames;
+    }
+}
@@ -0,0 +1,73 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.nifi.serialization.record;
+
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Equality of Records that is shared by the Record implementations so that, for example, a {@link MapRecord} and an {@link ArrayRecord}
+ * with the same schema and the same values are equal to one another. A field whose value is <code>null</code> is considered the same as a
+ * field that has not been given a value, since an ArrayRecord holds a value, possibly <code>null</code>, for each field of its schema.
+ */
+final class RecordEquality {
+
+    private RecordEquality() {
+    }
+
+    static boolean equals(final Record record, final Object obj) {
+        if (obj == record) {
+            return true;
+        }
+        if (!(obj instanceof Record)) {
+            return false;
+        }
+
+        final Record other = (Record) obj;
+        if (!record.getSchema().equals(other.getSchema())) {
+            return false;
+        }
+
+        final Map<String, Object> values = record.toMap();
+        final Map<String, Object> otherValues = other.toMap();
+        return containsNonNullValues(values, otherValues) && containsNonNullValues(otherValues, values);
+    }
+
+    static int hashCode(final Record record) {
+        int valuesHash = 0;
+        for (final Map.Entry<String, Object> entry : record.toMap().entrySet()) {
+            final Object value = entry.getValue();
+            if (value != null) {
+                valuesHash += Objects.hashCode(entry.getKey()) ^ value.hashCode();
+            }
+        }
+
+        return 31 + 41 * valuesHash + 7 * record.getSchema().hashCode();
+    }
+
+    private static boolean containsNonNullValues(final Map<String, Object> container, final Map<String, Object> values) {
+        for (final Map.Entry<String, Object> entry : values.entrySet()) {
+            final Object value = entry.getValue();
+            if (value != null && !value.equals(container.get(entry.getKey()))) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+}
@@ -72,6 +72,15 @@ public interface RecordSchema {
      */
     Optional<RecordField> getField(String fieldName);
 
+    /**
+     * @param fieldName the name or an alias of the field
+     * @return the position of the field with the given name or alias within {@link #getFields()}, or -1 if there is no such field
+     */
+    default int getFieldIndex(final String fieldName) {
+        final Optional<RecordField> field = getField(fieldName);
+        return field.isPresent() ? getFields().indexOf(field.get()) : -1;
+    }
+
     /**
      * @return the SchemaIdentifier, which provides various attributes for identifying a schema
      */
@@ -43,7 +43,6 @@ import java.sql.Time;
 import java.sql.Timestamp;
 import java.text.DateFormat;
 import java.text.ParseException;
-import java.text.SimpleDateFormat;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
@@ -89,9 +88,13 @@ public class DataTypeUtils {
 
     private static final TimeZone gmt = TimeZone.getTimeZone("gmt");
 
-    private static final Supplier<DateFormat> DEFAULT_DATE_FORMAT = () -> getDateFormat(RecordFieldType.DATE.getDefaultFormat());
-    private static final Supplier<DateFormat> DEFAULT_TIME_FORMAT = () -> getDateFormat(RecordFieldType.TIME.getDefaultFormat());
-    private static final Supplier<DateFormat> DEFAULT_TIMESTAMP_FORMAT = () -> getDateFormat(RecordFieldType.TIMESTAMP.getDefaultFormat());
+    // SimpleDateFormat is expensive to create but is not thread-safe, so each thread keeps the formats that it has used, keyed by pattern
+    private static final int MAX_CACHED_DATE_FORMATS_PER_THREAD = 32;
+    private static final ThreadLocal<Map<String, DateFormat>> CACHED_DATE_FORMATS = ThreadLocal.withInitial(HashMap::new);
+
+    private static final Supplier<DateFormat> DEFAULT_DATE_FORMAT = () -> getCachedDateFormat(RecordFieldType.DATE.getDefaultFormat());
+    private static final Supplier<DateFormat> DEFAULT_TIME_FORMAT = () -> getCachedDateFormat(RecordFieldType.TIME.getDefaultFormat());
+    private static final Supplier<DateFormat> DEFAULT_TIMESTAMP_FORMAT = () -> getCachedDateFormat(RecordFieldType.TIMESTAMP.getDefaultFormat());
 
     public static Object convertType(final Object value, final DataType dataType, final String fieldName) {
         return convertType(value, dataType, fieldName, StandardCharsets.UTF_8);
@@ -816,16 +819,16 @@ public class DataTypeUtils {
         }
 
         if (value instanceof java.sql.Date) {
-            return getDateFormat(format).format((java.util.Date) value);
+            return getCachedDateFormat(format).format((java.util.Date) value);
         }
         if (value instanceof java.sql.Time) {
-            return getDateFormat(format).format((java.util.Date) value);
+            return getCachedDateFormat(format).format((java.util.Date) value);
         }
         if (value instanceof java.sql.Timestamp) {
-            return getDateFormat(format).format((java.util.Date) value);
+            return getCachedDateFormat(format).format((java.util.Date) value);
         }
         if (value instanceof java.util.Date) {
-            return getDateFormat(format).format((java.util.Date) value);
+            return getCachedDateFormat(format).format((java.util.Date) value);
         }
         if (value instanceof Blob) {
             Blob blob = (Blob) value;
@@ -931,7 +934,7 @@ public class DataTypeUtils {
             }
 
             try {
-                getDateFormat(format).parse((String) value);
+                getCachedDateFormat(format).parse((String) value);
                 return true;
             } catch (final ParseException e) {
                 return false;
@@ -995,13 +998,46 @@ public class DataTypeUtils {
         throw new IllegalTypeConversionException("Cannot convert value [" + value + "] of type " + value.getClass() + " to Time for field " + fieldName);
     }
 
+    /**
+     * Creates a new DateFormat for the given pattern, in the GMT time zone. The returned DateFormat is not thread-safe.
+     * Values in the default format of the DATE, TIME, or TIMESTAMP field type are parsed and formatted without the overhead
+     * of a general SimpleDateFormat.
+     *
+     * @param format the pattern, as accepted by SimpleDateFormat
+     * @return a new DateFormat, or <code>null</code> if the given pattern is <code>null</code>
+     */
     public static DateFormat getDateFormat(final String format) {
         if (format == null) {
             return null;
         }
-        final DateFormat df = new SimpleDateFormat(format);
-        df.setTimeZone(gmt);
-        return df;
+        return DefaultPatternDateFormat.create(format, gmt);
+    }
+
+    /**
+     * Provides a DateFormat for the given pattern, in the GMT time zone, that belongs to the current thread, so that a new one
+     * need not be created for each conversion. The DateFormat must be used only for the conversion at hand: it must not be
+     * modified, retained, or handed to another thread.
+     *
+     * @param format the pattern, as accepted by SimpleDateFormat
+     * @return the current thread's DateFormat for the pattern, or <code>null</code> if the given pattern is <code>null</code>
+     */
+    public static DateFormat getCachedDateFormat(final String format) {
+        if (format == null) {
+            return null;
+        }
+
+        final Map<String, DateFormat> dateFormats = CACHED_DATE_FORMATS.get();
+        DateFormat dateFormat = dateFormats.get(format);
+        if (dateFormat == null) {
+            if (dateFormats.size() >= MAX_CACHED_DATE_FORMATS_PER_THREAD) {
+                dateFormats.clear();
+            }
+
+            dateFormat = getDateFormat(format);
+            dateFormats.put(format, dateFormat);
+        }
+
+        return dateFormat;
     }
 
     public static boolean isTimeTypeCompatible(final Object value, final String format) {
@@ -0,0 +1,281 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.nifi.serialization.record.util;
+
+import java.text.FieldPosition;
+import java.text.NumberFormat;
+import java.text.ParsePosition;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.GregorianCalendar;
+import java.util.TimeZone;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.apache.nifi.serialization.record.RecordFieldType;
+
+/**
+ * <p>
+ * A SimpleDateFormat that parses and formats values in the GMT time zone using the default format of the DATE, TIME, or TIMESTAMP
+ * field type ({@code yyyy-MM-dd}, {@code HH:mm:ss}, or {@code yyyy-MM-dd HH:mm:ss}) directly, without the Calendar arithmetic
+ * that SimpleDateFormat performs. Only well-formed values between the years 1900 and 9999 are handled this way; anything else,
+ * including the values that SimpleDateFormat would parse leniently, is handed to SimpleDateFormat, so that the results are
+ * always the same as those of a plain SimpleDateFormat. Once the pattern, leniency, time zone, calendar, number format, or
+ * two-digit year start has been changed, every value is handed to SimpleDateFormat.
+ * </p>
+ *
+ * <p>
+ * As with any SimpleDateFormat, instances of this class are not thread-safe.
+ * </p>
+ */
+final class DefaultPatternDateFormat extends SimpleDateFormat {
+    private static final long serialVersionUID = 1L;
+
+    private static final long MILLIS_PER_SECOND = 1000L;
+    private static final long MILLIS_PER_DAY = 24L * 60L * 60L * MILLIS_PER_SECOND;
+
+    // 1900-01-01T00:00:00.000Z and 9999-12-31T23:59:59.999Z
+    private static final long MIN_MILLIS = -2208988800000L;
+    private static final long MAX_MILLIS = 253402300799999L;
+
+    private static final int DATE = 1;
+    private static final int TIME = 2;
+    private static final int TIMESTAMP = DATE | TIME;
+
+    // Whether or not each default pattern is formatted the same way by this class as by SimpleDateFormat in the default locale
+    private static final ConcurrentMap<String, Boolean> DEFAULT_LOCALE_SUPPORTED = new ConcurrentHashMap<>();
+
+    private final String defaultPattern;
+    private final String timeZoneId;
+    private final int fields;
+    private boolean customized = false;
+
+    private DefaultPatternDateFormat(final String pattern, final TimeZone gmt, final int fields) {
+        super(pattern);
+        setTimeZone(gmt);
+        this.defaultPattern = pattern;
+        this.timeZoneId = gmt.getID();
+        this.fields = fields;
+    }
+
+    /**
+     * Creates a SimpleDateFormat for the given pattern in the given GMT time zone
+     *
+     * @param pattern the pattern
+     * @param gmt the GMT time zone
+     * @return a DefaultPatternDateFormat if the pattern is the default format of the DATE, TIME, or TIMESTAMP field type and
+     *         the default locale formats numbers with ASCII digits, or a plain SimpleDateFormat otherwise
+     */
+    static SimpleDateFormat create(final String pattern, final TimeZone gmt) {
+        final int fields = getFields(pattern);
+        if (fields == 0 || !DEFAULT_LOCALE_SUPPORTED.computeIfAbsent(pattern, key -> isDefaultLocaleSupported(key, gmt, fields))) {
+            final SimpleDateFormat sdf = new SimpleDateFormat(pattern);
+            sdf.setTimeZone(gmt);
+            return sdf;
+        }
+
+        return new DefaultPatternDateFormat(pattern, gmt, fields);
+    }
+
+    private static int getFields(final String pattern) {
+        if (RecordFieldType.DATE.getDefaultFormat().equals(pattern)) {
+            return DATE;
+        }
+        if (RecordFieldType.TIME.getDefaultFormat().equals(pattern)) {
+            return TIME;
+        }
+        if (RecordFieldType.TIMESTAMP.getDefaultFormat().equals(pattern)) {
+            return TIMESTAMP;
+        }
+        return 0;
+    }
+
+    private static boolean isDefaultLocaleSupported(final String pattern, final TimeZone gmt, final int fields) {
+        // The default locale may use digits other than 0-9, in which case SimpleDateFormat must be used
+        final SimpleDateFormat sdf = new SimpleDateFormat(pattern);
+        sdf.setTimeZone(gmt);
+
+        final long sample = (fields & DATE) == 0 ? 45296000L : 1546391045000L;
+        final StringBuilder sb = new StringBuilder();
+        appendFields(sb, sample, fields);
+        return sb.toString().equals(sdf.format(new Date(sample)));
+    }
+
+    @Override
+    public StringBuffer format(final Date date, final StringBuffer toAppendTo, final FieldPosition pos) {
+        final long millis = date.getTime();
+        if (millis < MIN_MILLIS || millis > MAX_MILLIS || !isStandard() || pos.getField() != 0 || pos.getFieldAttribute() != null) {
+            return super.format(date, toAppendTo, pos);
+        }
+
+        final StringBuilder sb = new StringBuilder(19);
+        appendFields(sb, millis, fields);
+        return toAppendTo.append(sb);
+    }
+
+    @Override
+    public Date parse(final String source, final ParsePosition pos) {
+        final int index = pos.getIndex();
+        final int length = (fields == DATE ? 10 : 0) + (fields == TIME ? 8 : 0) + (fields == TIMESTAMP ? 19 : 0);
+        if (index != 0 || source.length() != length || !isStandard()) {
+            return super.parse(source, pos);
+        }
+
+        long millis = 0L;
+        int offset = 0;
+        if ((fields & DATE) != 0) {
+            final int year = parseDigits(source, 0, 4);
+            final int month = parseDigits(source, 5, 2);
+            final int day = parseDigits(source, 8, 2);
+            if (year < 1900 || month < 1 || month > 12 || day < 1 || day > daysInMonth(year, month) || source.charAt(4) != '-' || source.charAt(7) != '-') {
+                return super.parse(source, pos);
+            }
+
+            millis = daysSinceEpoch(year, month, day) * MILLIS_PER_DAY;
+            offset = 10;
+        }
+
+        if ((fields & TIME) != 0) {
+            if (offset > 0) {
+                if (source.charAt(offset) != ' ') {
+                    return super.parse(source, pos);
+                }
+                offset++;
+            }
+
+            final int hours = parseDigits(source, offset, 2);
+            final int minutes = parseDigits(source, offset + 3, 2);
+            final int seconds = parseDigits(source, offset + 6, 2);
+            if (hours < 0 || hours > 23 || minutes < 0 || minutes > 59 || seconds < 0 || seconds > 59
+                || source.charAt(offset + 2) != ':' || source.charAt(offset + 5) != ':') {
+                return super.parse(source, pos);
+            }
+
+            millis += ((hours * 60L + minutes) * 60L + seconds) * MILLIS_PER_SECOND;
+        }
+
+        pos.setIndex(length);
+        return new Date(millis);
+    }
+
+    @Override
+    public void set2DigitYearStart(final Date startDate) {
+        customized = true;
+        super.set2DigitYearStart(startDate);
+    }
+
+    @Override
+    public void setNumberFormat(final NumberFormat newNumberFormat) {
+        customized = true;
+        super.setNumberFormat(newNumberFormat);
+    }
+
+    /**
+     * @return <code>true</code> if the pattern, leniency, time zone, calendar, number format, and two-digit year start are still
+     *         those that this format was created with
+     */
+    private boolean isStandard() {
+        return !customized && calendar.getClass() == GregorianCalendar.class && timeZoneId.equals(calendar.getTimeZone().getID())
+            && calendar.isLenient() && defaultPattern.equals(toPattern());
+    }
+
+    private static int parseDigits(final String source, final int offset, final int count) {
+        int value = 0;
+        for (int i = offset; i < offset + count; i++) {
+            final char c = source.charAt(i);
+            if (c < '0' || c > '9') {
+                return -1;
+            }
+            value = value * 10 + (c - '0');
+        }
+        return value;
+    }
+
+    private static int daysInMonth(final int year, final int month) {
+        switch (month) {
+            case 2:
+                final boolean leapYear = (year % 4 == 0 && year % 100 != 0) || year % 400 == 0;
+                return leapYear ? 29 : 28;
+            case 4:
+            case 6:
+            case 9:
+            case 11:
+                return 30;
+            default:
+                return 31;
+        }
+    }
+
+    /**
+     * Computes the number of days from 1970-01-01 to the given date in the proleptic Gregorian calendar, which is the calendar
+     * that SimpleDateFormat uses for all dates after 1582
+     */
+    private static long daysSinceEpoch(final int year, final int month, final int day) {
+        final int adjustedYear = month <= 2 ? year - 1 : year;
+        final int era = adjustedYear / 400;
+        final int yearOfEra = adjustedYear - era * 400;
+        final int dayOfYear = (153 * (month > 2 ? month - 3 : month + 9) + 2) / 5 + day - 1;
+        final int dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+        return era * 146097L + dayOfEra - 719468L;
+    }
+
+    private static void appendFields(final StringBuilder sb, final long millis, final int fields) {
+        final long days = Math.floorDiv(millis, MILLIS_PER_DAY);
+        if ((fields & DATE) != 0) {
+            final long shiftedDays = days + 719468L;
+            final long era = shiftedDays / 146097L;
+            final long dayOfEra = shiftedDays - era * 146097L;
+            final long yearOfEra = (dayOfEra - dayOfEra / 1460L + dayOfEra / 36524L - dayOfEra / 146096L) / 365L;
+            final long dayOfYear = dayOfEra - (365L * yearOfEra + yearOfEra / 4L - yearOfEra / 100L);
+            final long shiftedMonth = (5L * dayOfYear + 2L) / 153L;
+            final long day = dayOfYear - (153L * shiftedMonth + 2L) / 5L + 1L;
+            final long month = shiftedMonth < 10L ? shiftedMonth + 3L : shiftedMonth - 9L;
+            final long year = yearOfEra + era * 400L + (month <= 2L ? 1L : 0L);
+
+            appendDigits(sb, year, 4);
+            sb.append('-');
+            appendDigits(sb, month, 2);
+            sb.append('-');
+            appendDigits(sb, day, 2);
+        }
+
+        if ((fields & TIME) != 0) {
+            if ((fields & DATE) != 0) {
+                sb.append(' ');
+            }
+
+            final long secondOfDay = (millis - days * MILLIS_PER_DAY) / MILLIS_PER_SECOND;
+            appendDigits(sb, secondOfDay / 3600L, 2);
+            sb.append(':');
+            appendDigits(sb, (secondOfDay / 60L) % 60L, 2);
+            sb.append(':');
+            appendDigits(sb, secondOfDay % 60L, 2);
+        }
+    }
+
+    private static void appendDigits(final StringBuilder sb, final long value, final int count) {
+        long divisor = 1L;
+        for (int i = 1; i < count; i++) {
+            divisor *= 10L;
+        }
+
+        for (; divisor > 0; divisor /= 10L) {
+            sb.append((char) ('0' + (value / divisor) % 10L));
+        }
+    }
+}
@@ -0,0 +1,198 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.nifi.serialization.record;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.nifi.serialization.SchemaValidationException;
+import org.apache.nifi.serialization.SimpleRecordSchema;
+import org.junit.Test;
+
+public class TestArrayRecord {
+
+    private static RecordSchema createSchema() {
+        final List<RecordField> fields = new ArrayList<>();
+        fields.add(new RecordField("id", RecordFieldType.INT.getDataType()));
+        fields.add(new RecordField("name", RecordFieldType.STRING.getDataType(), null, set("fullName")));
+        fields.add(new RecordField("greeting", RecordFieldType.STRING.getDataType(), "hello"));
+        return new SimpleRecordSchema(fields);
+    }
+
+    @Test
+    public void testGetValueByNameAndAlias() {
+        final Record record = new ArrayRecord(createSchema(), new Object[] {1, "John Doe", null});
+
+        assertEquals(1, record.getValue("id"));
+        assertEquals("John Doe", record.getValue("name"));
+        assertEquals("John Doe", record.getValue("fullName"));
+        assertEquals("hello", record.getValue("greeting"));
+        assertNull(record.getValue("other"));
+
+        final RecordField withAlias = new RecordField("other", RecordFieldType.STRING.getDataType(), null, set("fullName"));
+        assertEquals("John Doe", record.getValue(withAlias));
+        assertEquals("new", record.getValue(new RecordField("other", RecordFieldType.STRING.getDataType(), "new")));
+
+        assertArrayEquals(new Object[] {1, "John Doe", "hello"}, record.getValues());
+        assertEquals(new HashSet<>(Arrays.asList("id", "name", "greeting")), record.getRawFieldNames());
+    }
+
+    @Test
+    public void testSameAsMapRecord() {
+        final RecordSchema schema = createSchema();
+        final Map<String, Object> values = new LinkedHashMap<>();
+        values.put("id", 1);
+        values.put("name", "John Doe");
+        values.put("greeting", null);
+
+        final Record mapRecord = new MapRecord(schema, values);
+        final Record arrayRecord = new ArrayRecord(schema, new Object[] {1, "John Doe", null});
+
+        for (final String fieldName : Arrays.asList("id", "name", "fullName", "greeting", "other")) {
+            assertEquals(mapRecord.getValue(fieldName), arrayRecord.getValue(fieldName));
+            assertEquals(mapRecord.getAsString(fieldName), arrayRecord.getAsString(fieldName));
+        }
+
+        assertArrayEquals(mapRecord.getValues(), arrayRecord.getValues());
+        assertEquals(mapRecord.toMap(), arrayRecord.toMap());
+    }
+
+    @Test
+    public void testSetValue() {
+        final Record record = new ArrayRecord(createSchema(), new Object[] {1, "John Doe", null}, true, false);
+
+        record.setValue("id", "2");
+        assertEquals(2, record.getValue("id"));
+
+        record.setValue("fullName", "Jane Doe");
+        assertEquals("Jane Doe", record.getValue("name"));
+
+        record.setValue("other", "value");
+        assertEquals("value", record.getValue("other"));
+        assertTrue(record.getRawFieldNames().contains("other"));
+        assertFalse(record.getSchema().getField("other").isPresent());
+    }
+
+    @Test
+    public void testSetValueDropUnknownFields() {
+        final Record record = new ArrayRecord(createSchema(), new Object[] {1, "John Doe", null}, false, true);
+
+        record.setValue("other", "value");
+        assertNull(record.getValue("other"));
+        assertFalse(record.getRawFieldNames().contains("other"));
+    }
+
+    @Test
+    public void testSetValueClearsSerializedForm() {
+        final Record record = new ArrayRecord(createSchema(), new Object[] {1, "John Doe", null}, SerializedForm.of("1,John Doe,", "text/csv"), false, false);
+        assertTrue(record.getSerializedForm().isPresent());
+
+        record.setValue("id", 1);
+        assertTrue(record.getSerializedForm().isPresent());
+
+        record.setValue("id", 2);
+        assertFalse(record.getSerializedForm().isPresent());
+    }
+
+    @Test(expected = SchemaValidationException.class)
+    public void testCheckTypes() {
+        final List<RecordField> fields = new ArrayList<>();
+        fields.add(new RecordField("id", RecordFieldType.INT.getDataType(), false));
+        new ArrayRecord(new SimpleRecordSchema(fields), new Object[] {null}, true, false);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testWrongNumberOfValues() {
+        new ArrayRecord(createSchema(), new Object[] {1, "John Doe"});
+    }
+
+    @Test
+    public void testIncorporateInactiveFields() {
+        final Record record = new ArrayRecord(createSchema(), new Object[] {1, "John Doe", null});
+        record.setValue(new RecordField("age", RecordFieldType.INT.getDataType()), 42);
+        record.incorporateInactiveFields();
+
+        final RecordSchema schema = record.getSchema();
+        assertEquals(Arrays.asList("id", "name", "greeting", "age"), schema.getFieldNames());
+        assertEquals(1, record.getValue("id"));
+        assertEquals("John Doe", record.getValue("name"));
+        assertEquals(42, record.getValue("age"));
+        assertArrayEquals(new Object[] {1, "John Doe", "hello", 42}, record.getValues());
+    }
+
+    @Test
+    public void testEquals() {
+        final RecordSchema schema = createSchema();
+        final Record record = new ArrayRecord(schema, new Object[] {1, "John Doe", null});
+
+        assertEquals(record, new ArrayRecord(schema, new Object[] {1, "John Doe", null}));
+        assertEquals(record.hashCode(), new ArrayRecord(schema, new Object[] {1, "John Doe", null}).hashCode());
+        assertFalse(record.equals(new ArrayRecord(schema, new Object[] {2, "John Doe", null})));
+    }
+
+    @Test
+    public void testEqualsMapRecord() {
+        final RecordSchema schema = createSchema();
+        final Record arrayRecord = new ArrayRecord(schema, new Object[] {1, "John Doe", null});
+
+        final Map<String, Object> values = new HashMap<>();
+        values.put("name", "John Doe");
+        values.put("id", 1);
+        final Record mapRecord = new MapRecord(schema, values);
+
+        assertEquals(arrayRecord, mapRecord);
+        assertEquals(mapRecord, arrayRecord);
+        assertEquals(arrayRecord.hashCode(), mapRecord.hashCode());
+
+        values.put("greeting", null);
+        assertEquals(arrayRecord, mapRecord);
+        assertEquals(arrayRecord.hashCode(), mapRecord.hashCode());
+
+        values.put("greeting", "hi");
+        assertFalse(arrayRecord.equals(mapRecord));
+        assertFalse(mapRecord.equals(arrayRecord));
+
+        arrayRecord.setValue("greeting", "hi");
+        assertEquals(arrayRecord, mapRecord);
+        assertEquals(arrayRecord.hashCode(), mapRecord.hashCode());
+
+        arrayRecord.setValue("other", "value");
+        assertFalse(arrayRecord.equals(mapRecord));
+        assertFalse(mapRecord.equals(arrayRecord));
+    }
+
+    private static Set<String> set(final String... values) {
+        final Set<String> set = new HashSet<>();
+        for (final String value : values) {
+            set.add(value);
+        }
+        return set;
+    }
+}
@@ -23,11 +23,18 @@ import org.junit.Test;
 
 import java.nio.charset.StandardCharsets;
 import java.sql.Timestamp;
+import java.text.DateFormat;
+import java.text.DecimalFormat;
+import java.text.DecimalFormatSymbols;
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Random;
+import java.util.TimeZone;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
@@ -252,4 +259,97 @@ public class TestDataTypeUtils {
             }
         }
     }
+
+    @Test
+    public void testDefaultDateFormatsMatchSimpleDateFormat() {
+        final Random random = new Random(42L);
+        for (final RecordFieldType fieldType : new RecordFieldType[] {RecordFieldType.DATE, RecordFieldType.TIME, RecordFieldType.TIMESTAMP}) {
+            final String pattern = fieldType.getDefaultFormat();
+            final DateFormat dateFormat = DataTypeUtils.getDateFormat(pattern);
+            final SimpleDateFormat simpleDateFormat = new SimpleDateFormat(pattern);
+            simpleDateFormat.setTimeZone(TimeZone.getTimeZone("gmt"));
+
+            final List<Long> millisValues = new ArrayList<>(Arrays.asList(0L, -1L, 951782400000L, 951868799999L, -2208988800000L, -2208988800001L, 253402300799999L));
+            for (int i = 0; i < 10000; i++) {
+                millisValues.add((long) (random.nextDouble() * 20000000000000L) - 10000000000000L);
+            }
+
+            for (final long millis : millisValues) {
+                final java.util.Date date = new java.util.Date(millis);
+                final String expected = simpleDateFormat.format(date);
+                assertEquals(expected, dateFormat.format(date));
+                assertEquals(parse(simpleDateFormat, expected), parse(dateFormat, expected));
+            }
+        }
+
+        final String[] dates = {"2000-02-29", "2019-02-29", "1900-02-29", "2019-13-01", "2019-00-10", "2019-1-5", "1899-12-31", "2019-01-01x", "2019/01/01", "20190101", "abcd-ef-gh"};
+        verifyParsedSame(RecordFieldType.DATE.getDefaultFormat(), dates);
+
+        final String[] times = {"00:00:00", "23:59:59", "24:00:00", "12:60:00", "12:00:60", "1:2:3", "12-00-00", "12:00:00 PM"};
+        verifyParsedSame(RecordFieldType.TIME.getDefaultFormat(), times);
+
+        final String[] timestamps = {"2019-01-01 00:00:00", "2019-12-31 23:59:59", "2019-02-29 12:00:00", "2019-01-01T00:00:00", "2019-01-01 25:00:00", "2019-01-01  0:00:00"};
+        verifyParsedSame(RecordFieldType.TIMESTAMP.getDefaultFormat(), timestamps);
+    }
+
+    private void verifyParsedSame(final String pattern, final String[] values) {
+        final SimpleDateFormat simpleDateFormat = new SimpleDateFormat(pattern);
+        simpleDateFormat.setTimeZone(TimeZone.getTimeZone("gmt"));
+        final DateFormat dateFormat = DataTypeUtils.getDateFormat(pattern);
+
+        for (final String value : values) {
+            assertEquals(value, parse(simpleDateFormat, value), parse(dateFormat, value));
+        }
+    }
+
+    private Object parse(final DateFormat dateFormat, final String value) {
+        try {
+            return dateFormat.parse(value);
+        } catch (final ParseException pe) {
+            return pe.getMessage();
+        }
+    }
+
+    @Test
+    public void testDefaultDateFormatAfterTimeZoneChanged() throws ParseException {
+        final DateFormat dateFormat = DataTypeUtils.getDateFormat(RecordFieldType.TIMESTAMP.getDefaultFormat());
+        dateFormat.setTimeZone(TimeZone.getTimeZone("GMT+01:00"));
+        assertEquals(0L, dateFormat.parse("1970-01-01 01:00:00").getTime());
+        assertEquals("1970-01-01 01:00:00", dateFormat.format(new java.util.Date(0L)));
+    }
+
+    @Test
+    public void testDefaultDateFormatAfterSettingsChanged() throws ParseException {
+        final String pattern = RecordFieldType.DATE.getDefaultFormat();
+
+        final SimpleDateFormat strictFormat = (SimpleDateFormat) DataTypeUtils.getDateFormat(pattern);
+        strictFormat.setLenient(false);
+        final SimpleDateFormat strictSimpleDateFormat = new SimpleDateFormat(pattern);
+        strictSimpleDateFormat.setTimeZone(TimeZone.getTimeZone("gmt"));
+        strictSimpleDateFormat.setLenient(false);
+        for (final String value : new String[] {"1970-01-01", "1970-01-32", "1899-12-31", "2019-02-29"}) {
+            assertEquals(value, parse(strictSimpleDateFormat, value), parse(strictFormat, value));
+        }
+
+        final SimpleDateFormat patternFormat = (SimpleDateFormat) DataTypeUtils.getDateFormat(pattern);
+        patternFormat.applyPattern("yyyy-dd-MM");
+        assertEquals("1970-31-01", patternFormat.format(new java.util.Date(30L * 24L * 60L * 60L * 1000L)));
+
+        // SimpleDateFormat formats each field with the number format, so digits other than 0-9 must be used once it is changed
+        final DecimalFormatSymbols arabicIndicSymbols = new DecimalFormatSymbols();
+        arabicIndicSymbols.setZeroDigit('\u0660');
+        final SimpleDateFormat numberFormat = (SimpleDateFormat) DataTypeUtils.getDateFormat(pattern);
+        numberFormat.setNumberFormat(new DecimalFormat("0", arabicIndicSymbols));
+        assertEquals("\u0661\u0669\u0667\u0660-\u0660\u0661-\u0660\u0661", numberFormat.format(new java.util.Date(0L)));
+    }
+
+    @Test
+    public void testConvertTypeWithDefaultFormats() {
+        assertEquals(new java.sql.Date(1546300800000L), DataTypeUtils.convertType("2019-01-01", RecordFieldType.DATE.getDataType(), "date"));
+        assertEquals(new java.sql.Time(45296000L), DataTypeUtils.convertType("12:34:56", RecordFieldType.TIME.getDataType(), "time"));
+        assertEquals(new Timestamp(1546346096000L), DataTypeUtils.convertType("2019-01-01 12:34:56", RecordFieldType.TIMESTAMP.getDataType(), "timestamp"));
+        assertEquals("2019-01-01 12:34:56", DataTypeUtils.toString(new Timestamp(1546346096000L), RecordFieldType.TIMESTAMP.getDefaultFormat()));
+        assertTrue(DataTypeUtils.isDateTypeCompatible("2019-01-01", RecordFieldType.DATE.getDefaultFormat()));
+        assertFalse(DataTypeUtils.isDateTypeCompatible("not a date", RecordFieldType.DATE.getDefaultFormat()));
+    }
 }
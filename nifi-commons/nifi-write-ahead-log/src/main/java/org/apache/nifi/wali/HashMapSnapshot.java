@@ -25,6 +25,8 @@ import org.wali.UpdateType;
 
 import java.io.BufferedInputStream;
 import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.DataInputStream;
 import java.io.DataOutputStream;
 import java.io.EOFException;
@@ -42,19 +44,66 @@ import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
-
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * <p>
+ * A Snapshot that keeps the latest version of every record in a ConcurrentHashMap and writes them all out on checkpoint.
+ * </p>
+ *
+ * <p>
+ * Since version 2 of the encoding, the serde header is written with its length, and the records are written in blocks, each
+ * preceded by the number of records and bytes that it holds. This allows the blocks to be deserialized in parallel on
+ * recovery, with a SerDe per block, while a single thread reads the file. Earlier versions of NiFi cannot read version 2,
+ * so snapshots are written with version 1 unless block encoding is enabled. Snapshots of either version are recovered.
+ * </p>
+ */
 public class HashMapSnapshot<T> implements WriteAheadSnapshot<T>, RecordLookup<T> {
     private static final Logger logger = LoggerFactory.getLogger(HashMapSnapshot.class);
-    private static final int ENCODING_VERSION = 1;
+    private static final int ENCODING_VERSION = 2;
+    private static final int RECORD_ENCODING_VERSION = 1;
+    private static final int BLOCK_ENCODING_VERSION = 2;
+    private static final int RECORDS_PER_BLOCK = 1000;
+    private static final long PROGRESS_LOG_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(10L);
 
     private final ConcurrentMap<Object, T> recordMap = new ConcurrentHashMap<>();
     private final SerDeFactory<T> serdeFactory;
     private final Set<String> swapLocations = Collections.synchronizedSet(new HashSet<>());
     private final File storageDirectory;
+    private final int recoveryThreadCount;
+    private final boolean blockEncoding;
 
     public HashMapSnapshot(final File storageDirectory, final SerDeFactory<T> serdeFactory) {
+        this(storageDirectory, serdeFactory, false);
+    }
+
+    public HashMapSnapshot(final File storageDirectory, final SerDeFactory<T> serdeFactory, final boolean blockEncoding) {
+        this(storageDirectory, serdeFactory, Runtime.getRuntime().availableProcessors(), blockEncoding);
+    }
+
+    /**
+     * @param storageDirectory the directory to write the snapshot to
+     * @param serdeFactory the factory for the SerDes that serialize and deserialize the records
+     * @param recoveryThreadCount the number of threads to use for deserializing the records on recovery
+     * @param blockEncoding whether snapshots are written in blocks of records (version 2), which cannot be read by earlier
+     *            versions of NiFi, rather than one record at a time (version 1)
+     */
+    public HashMapSnapshot(final File storageDirectory, final SerDeFactory<T> serdeFactory, final int recoveryThreadCount, final boolean blockEncoding) {
+        if (recoveryThreadCount < 1) {
+            throw new IllegalArgumentException("Recovery Thread Count must be at least 1");
+        }
+
         this.serdeFactory = serdeFactory;
         this.storageDirectory = storageDirectory;
+        this.recoveryThreadCount = recoveryThreadCount;
+        this.blockEncoding = blockEncoding;
     }
 
     private SnapshotHeader validateHeader(final DataInputStream dataIn) throws IOException {
@@ -84,10 +133,27 @@ public class HashMapSnapshot<T> implements WriteAheadSnapshot<T>, RecordLookup<T
         final int numRecords = dataIn.readInt();
         logger.debug("Number of Records for Snapshot at {} is {}", storageDirectory, numRecords);
 
+        if (snapshotVersion < BLOCK_ENCODING_VERSION) {
+            final SerDe<T> serde = serdeFactory.createSerDe(serdeEncoding);
+            serde.readHeader(dataIn);
+            return new SnapshotHeader(snapshotVersion, serdeEncoding, null, serde, serdeVersion, maxTransactionId, numRecords);
+        }
+
+        // Keep the serde header so that a SerDe can be created for each block of records.
+        final byte[] serdeHeader = new byte[dataIn.readInt()];
+        dataIn.readFully(serdeHeader);
+
+        final SerDe<T> serde = createSerDe(serdeEncoding, serdeHeader);
+        return new SnapshotHeader(snapshotVersion, serdeEncoding, serdeHeader, serde, serdeVersion, maxTransactionId, numRecords);
+    }
+
+    private SerDe<T> createSerDe(final String serdeEncoding, final byte[] serdeHeader) throws IOException {
         final SerDe<T> serde = serdeFactory.createSerDe(serdeEncoding);
-        serde.readHeader(dataIn);
+        try (final DataInputStream headerIn = new DataInputStream(new ByteArrayInputStream(serdeHeader))) {
+            serde.readHeader(headerIn);
+        }
 
-        return new SnapshotHeader(serde, serdeVersion, maxTransactionId, numRecords);
+        return serde;
     }
 
     @Override
@@ -125,26 +191,14 @@ public class HashMapSnapshot<T> implements WriteAheadSnapshot<T>, RecordLookup<T
             // Ensure that the header contains the information that we expect and retrieve the relevant information from the header.
             final SnapshotHeader header = validateHeader(dataIn);
 
-            final SerDe<T> serde = header.getSerDe();
-            final int serdeVersion = header.getSerDeVersion();
             final int numRecords = header.getNumRecords();
             final long maxTransactionId = header.getMaxTransactionId();
 
             // Read all of the records that we expect to receive.
-            for (int i = 0; i < numRecords; i++) {
-                final T record = serde.deserializeRecord(dataIn, serdeVersion);
-                if (record == null) {
-                    throw new EOFException();
-                }
-
-                final UpdateType updateType = serde.getUpdateType(record);
-                if (updateType == UpdateType.DELETE) {
-                    logger.warn("While recovering from snapshot, found record with type 'DELETE'; this record will not be restored");
-                    continue;
-                }
-
-                logger.trace("Recovered from snapshot: {}", record);
-                recordMap.put(serde.getRecordIdentifier(record), record);
+            if (header.getSnapshotVersion() < BLOCK_ENCODING_VERSION) {
+                recoverRecords(header.getSerDe(), dataIn, header.getSerDeVersion(), numRecords);
+            } else {
+                recoverRecordBlocks(dataIn, header);
             }
 
             // Determine the location of any swap files.
@@ -162,6 +216,85 @@ public class HashMapSnapshot<T> implements WriteAheadSnapshot<T>, RecordLookup<T
         }
     }
 
+    private void recoverRecords(final SerDe<T> serde, final DataInputStream in, final int serdeVersion, final int numRecords) throws IOException {
+        for (int i = 0; i < numRecords; i++) {
+            final T record = serde.deserializeRecord(in, serdeVersion);
+            if (record == null) {
+                throw new EOFException();
+            }
+
+            final UpdateType updateType = serde.getUpdateType(record);
+            if (updateType == UpdateType.DELETE) {
+                logger.warn("While recovering from snapshot, found record with type 'DELETE'; this record will not be restored");
+                continue;
+            }
+
+            logger.trace("Recovered from snapshot: {}", record);
+            recordMap.put(serde.getRecordIdentifier(record), record);
+        }
+    }
+
+    private void recoverRecordBlocks(final DataInputStream dataIn, final SnapshotHeader header) throws IOException {
+        final int numRecords = header.getNumRecords();
+        final AtomicLong recoveredCount = new AtomicLong(0L);
+        final AtomicReference<Throwable> failure = new AtomicReference<>();
+
+        // Limit the number of blocks that have been read but not yet deserialized so that the blocks do not fill the heap
+        // when the threads cannot keep up with the disk.
+        final Semaphore blockPermits = new Semaphore(recoveryThreadCount * 2);
+        final ExecutorService executor = Executors.newFixedThreadPool(recoveryThreadCount, new RecoveryThreadFactory());
+
+        try {
+            long nextProgressLog = System.nanoTime() + PROGRESS_LOG_INTERVAL_NANOS;
+            int recordsRead = 0;
+            while (recordsRead < numRecords && failure.get() == null) {
+                final int blockRecordCount = dataIn.readInt();
+                final byte[] block = new byte[dataIn.readInt()];
+                dataIn.readFully(block);
+                recordsRead += blockRecordCount;
+
+                blockPermits.acquire();
+                executor.submit(() -> {
+                    try {
+                        final SerDe<T> serde = createSerDe(header.getSerDeEncoding(), header.getSerDeHeader());
+                        try (final DataInputStream blockIn = new DataInputStream(new ByteArrayInputStream(block))) {
+                            recoverRecords(serde, blockIn, header.getSerDeVersion(), blockRecordCount);
+                        }
+
+                        recoveredCount.addAndGet(blockRecordCount);
+                    } catch (final Throwable t) {
+                        failure.compareAndSet(null, t);
+                    } finally {
+                        blockPermits.release();
+                    }
+                });
+
+                if (System.nanoTime() > nextProgressLog) {
+                    logger.info("{} has recovered {} of {} Records from Snapshot", this, recoveredCount.get(), numRecords);
+                    nextProgressLog = System.nanoTime() + PROGRESS_LOG_INTERVAL_NANOS;
+                }
+            }
+
+            executor.shutdown();
+            while (!executor.awaitTermination(PROGRESS_LOG_INTERVAL_NANOS, TimeUnit.NANOSECONDS)) {
+                logger.info("{} has recovered {} of {} Records from Snapshot", this, recoveredCount.get(), numRecords);
+            }
+        } catch (final InterruptedException ie) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while recovering Snapshot at " + storageDirectory, ie);
+        } finally {
+            executor.shutdownNow();
+        }
+
+        final Throwable t = failure.get();
+        if (t instanceof IOException) {
+            throw (IOException) t;
+        }
+        if (t != null) {
+            throw new IOException("Failed to recover Snapshot at " + storageDirectory, t);
+        }
+    }
+
     @Override
     public void update(final Collection<T> records) {
         // This implementation of Snapshot keeps a ConcurrentHashMap of all 'active' records
@@ -270,17 +403,22 @@ public class HashMapSnapshot<T> implements WriteAheadSnapshot<T>, RecordLookup<T
 
             // Write out the header
             dataOut.writeUTF(HashMapSnapshot.class.getName());
-            dataOut.writeInt(getVersion());
+            dataOut.writeInt(blockEncoding ? BLOCK_ENCODING_VERSION : RECORD_ENCODING_VERSION);
             dataOut.writeUTF(serde.getClass().getName());
             dataOut.writeInt(serde.getVersion());
             dataOut.writeLong(snapshot.getMaxTransactionId());
             dataOut.writeInt(snapshot.getRecords().size());
-            serde.writeHeader(dataOut);
 
-            // Serialize each record
-            for (final T record : snapshot.getRecords().values()) {
-                logger.trace("Checkpointing {}", record);
-                serde.serializeRecord(record, dataOut);
+            if (blockEncoding) {
+                writeRecordBlocks(snapshot, serde, dataOut);
+            } else {
+                serde.writeHeader(dataOut);
+
+                // Serialize each record
+                for (final T record : snapshot.getRecords().values()) {
+                    logger.trace("Checkpointing {}", record);
+                    serde.serializeRecord(record, dataOut);
+                }
             }
 
             // Write out the number of swap locations, followed by the swap locations themselves.
@@ -309,6 +447,39 @@ public class HashMapSnapshot<T> implements WriteAheadSnapshot<T>, RecordLookup<T
         }
     }
 
+    private void writeRecordBlocks(final SnapshotCapture<T> snapshot, final SerDe<T> serde, final DataOutputStream dataOut) throws IOException {
+        final ByteArrayOutputStream bufferOut = new ByteArrayOutputStream();
+        final DataOutputStream bufferDataOut = new DataOutputStream(bufferOut);
+        serde.writeHeader(bufferDataOut);
+        bufferDataOut.flush();
+        dataOut.writeInt(bufferOut.size());
+        bufferOut.writeTo(dataOut);
+        bufferOut.reset();
+
+        // Serialize the records in blocks, so that they can be deserialized in parallel
+        int blockRecordCount = 0;
+        for (final T record : snapshot.getRecords().values()) {
+            logger.trace("Checkpointing {}", record);
+            serde.serializeRecord(record, bufferDataOut);
+
+            if (++blockRecordCount == RECORDS_PER_BLOCK) {
+                writeBlock(bufferDataOut, bufferOut, blockRecordCount, dataOut);
+                blockRecordCount = 0;
+            }
+        }
+
+        if (blockRecordCount > 0) {
+            writeBlock(bufferDataOut, bufferOut, blockRecordCount, dataOut);
+        }
+    }
+
+    private void writeBlock(final DataOutputStream bufferDataOut, final ByteArrayOutputStream bufferOut, final int recordCount, final DataOutputStream dataOut) throws IOException {
+        bufferDataOut.flush();
+        dataOut.writeInt(recordCount);
+        dataOut.writeInt(bufferOut.size());
+        bufferOut.writeTo(dataOut);
+        bufferOut.reset();
+    }
 
     public class Snapshot implements SnapshotCapture<T> {
         private final Map<Object, T> records;
@@ -338,18 +509,37 @@ public class HashMapSnapshot<T> implements WriteAheadSnapshot<T>, RecordLookup<T
     }
 
     private class SnapshotHeader {
+        private final int snapshotVersion;
+        private final String serdeEncoding;
+        private final byte[] serdeHeader;
         private final SerDe<T> serde;
         private final int serdeVersion;
         private final int numRecords;
         private final long maxTransactionId;
 
-        public SnapshotHeader(final SerDe<T> serde, final int serdeVersion, final long maxTransactionId, final int numRecords) {
+        public SnapshotHeader(final int snapshotVersion, final String serdeEncoding, final byte[] serdeHeader, final SerDe<T> serde,
+                              final int serdeVersion, final long maxTransactionId, final int numRecords) {
+            this.snapshotVersion = snapshotVersion;
+            this.serdeEncoding = serdeEncoding;
+            this.serdeHeader = serdeHeader;
             this.serde = serde;
             this.serdeVersion = serdeVersion;
             this.maxTransactionId = maxTransactionId;
             this.numRecords = numRecords;
         }
 
+        public int getSnapshotVersion() {
+            return snapshotVersion;
+        }
+
+        public String getSerDeEncoding() {
+            return serdeEncoding;
+        }
+
+        public byte[] getSerDeHeader() {
+            return serdeHeader;
+        }
+
         public SerDe<T> getSerDe() {
             return serde;
         }
@@ -367,4 +557,16 @@ public class HashMapSnapshot<T> implements WriteAheadSnapshot<T>, RecordLookup<T
         }
     }
 
+    private static class RecoveryThreadFactory implements ThreadFactory {
+        private final AtomicInteger threadCount = new AtomicInteger(0);
+
+        @Override
+        public Thread newThread(final Runnable r) {
+            final Thread thread = Executors.defaultThreadFactory().newThread(r);
+            thread.setName("Recover Snapshot Thread-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+
 }
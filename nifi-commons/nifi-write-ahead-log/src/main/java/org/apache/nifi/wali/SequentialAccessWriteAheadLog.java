@@ -34,6 +34,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReadWriteLock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
@@ -54,6 +55,15 @@ import java.util.regex.Pattern;
  * that records are recovered correctly if two threads simultaneously update the write-ahead log
  * with updates for the same record.
  * </p>
+ *
+ * <p>
+ * Updates that must be synchronized to disk are group-committed: while one thread forces the journal
+ * to disk, any other threads that have written their updates wait for it and then, if their updates
+ * were written before it started, return without a sync of their own; otherwise one of them forces
+ * the journal again on behalf of all of them. A sync window may also be configured, in which case a
+ * thread that is about to sync first waits that long for other updates to be written, trading a small
+ * amount of latency for far fewer syncs when many threads update the repository concurrently.
+ * </p>
  */
 public class SequentialAccessWriteAheadLog<T> implements WriteAheadRepository<T> {
     private static final int PARTITION_INDEX = 0;
@@ -67,6 +77,7 @@ public class SequentialAccessWriteAheadLog<T> implements WriteAheadRepository<T>
     private final SerDeFactory<T> serdeFactory;
     private final SyncListener syncListener;
     private final Set<String> recoveredSwapLocations = new HashSet<>();
+    private final long syncWindowNanos;
 
     private final ReadWriteLock journalRWLock = new ReentrantReadWriteLock();
     private final Lock journalReadLock = journalRWLock.readLock();
@@ -84,11 +95,39 @@ public class SequentialAccessWriteAheadLog<T> implements WriteAheadRepository<T>
     private WriteAheadJournal<T> journal;
     private volatile long nextTransactionId = 0L;
 
+    // Group commit state, guarded by syncMonitor. Each update that must be synced takes the next sync ticket after it has been
+    // written to the journal, so a sync that begins after a ticket was taken covers that ticket's update.
+    private final Object syncMonitor = new Object();
+    private long lastSyncTicket = 0L;
+    private long syncedTicket = 0L;
+    private boolean syncInProgress = false;
+
     public SequentialAccessWriteAheadLog(final File storageDirectory, final SerDeFactory<T> serdeFactory) throws IOException {
         this(storageDirectory, serdeFactory, SyncListener.NOP_SYNC_LISTENER);
     }
 
     public SequentialAccessWriteAheadLog(final File storageDirectory, final SerDeFactory<T> serdeFactory, final SyncListener syncListener) throws IOException {
+        this(storageDirectory, serdeFactory, syncListener, 0L, TimeUnit.NANOSECONDS);
+    }
+
+    public SequentialAccessWriteAheadLog(final File storageDirectory, final SerDeFactory<T> serdeFactory, final SyncListener syncListener,
+                                         final long syncWindow, final TimeUnit syncWindowUnit) throws IOException {
+        this(storageDirectory, serdeFactory, syncListener, syncWindow, syncWindowUnit, false);
+    }
+
+    /**
+     * @param storageDirectory the directory to write the snapshot and journals to
+     * @param serdeFactory the factory for the serializer/deserializer of records
+     * @param syncListener the listener to notify when the journal is synchronized to disk
+     * @param syncWindow how long a thread that must sync the journal waits for other threads' updates, so that a single sync
+     *            covers all of them. If 0, threads do not wait, but updates that are written while a sync is in progress still share the next one.
+     * @param syncWindowUnit the unit of the sync window
+     * @param blockEncodedSnapshots whether snapshots are written in blocks of records that can be recovered in parallel. Such snapshots
+     *            cannot be read by earlier versions of NiFi.
+     * @throws IOException if unable to create the storage directory
+     */
+    public SequentialAccessWriteAheadLog(final File storageDirectory, final SerDeFactory<T> serdeFactory, final SyncListener syncListener,
+                                         final long syncWindow, final TimeUnit syncWindowUnit, final boolean blockEncodedSnapshots) throws IOException {
         if (!storageDirectory.exists() && !storageDirectory.mkdirs()) {
             throw new IOException("Directory " + storageDirectory + " does not exist and cannot be created");
         }
@@ -96,7 +135,7 @@ public class SequentialAccessWriteAheadLog<T> implements WriteAheadRepository<T>
             throw new IOException("File " + storageDirectory + " is a regular file and not a directory");
         }
 
-        final HashMapSnapshot<T> hashMapSnapshot = new HashMapSnapshot<>(storageDirectory, serdeFactory);
+        final HashMapSnapshot<T> hashMapSnapshot = new HashMapSnapshot<>(storageDirectory, serdeFactory, blockEncodedSnapshots);
         this.snapshot = hashMapSnapshot;
         this.recordLookup = hashMapSnapshot;
 
@@ -110,6 +149,7 @@ public class SequentialAccessWriteAheadLog<T> implements WriteAheadRepository<T>
 
         this.serdeFactory = serdeFactory;
         this.syncListener = (syncListener == null) ? SyncListener.NOP_SYNC_LISTENER : syncListener;
+        this.syncWindowNanos = syncWindowUnit.toNanos(syncWindow);
     }
 
     @Override
@@ -123,8 +163,7 @@ public class SequentialAccessWriteAheadLog<T> implements WriteAheadRepository<T>
             journal.update(records, recordLookup);
 
             if (forceSync) {
-                journal.fsync();
-                syncListener.onSync(PARTITION_INDEX);
+                groupSync();
             }
 
             snapshot.update(records);
@@ -135,6 +174,63 @@ public class SequentialAccessWriteAheadLog<T> implements WriteAheadRepository<T>
         return PARTITION_INDEX;
     }
 
+    /**
+     * Waits until the journal has been synchronized to disk at some point after this thread's update was written to it, either by
+     * another thread or by this one. This method MUST be called with the journal read lock held, so that the journal cannot be
+     * replaced by a checkpoint in the meantime.
+     */
+    private void groupSync() throws IOException {
+        final long ticket;
+        synchronized (syncMonitor) {
+            ticket = ++lastSyncTicket;
+
+            while (syncInProgress) {
+                try {
+                    syncMonitor.wait();
+                } catch (final InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    throw new IOException("Interrupted while waiting for the Write-Ahead Log's journal to be synchronized to disk", ie);
+                }
+
+                if (syncedTicket >= ticket) {
+                    return;
+                }
+            }
+
+            syncInProgress = true;
+        }
+
+        boolean synced = false;
+        long coveredTicket = ticket;
+        try {
+            if (syncWindowNanos > 0L) {
+                // Give other threads a chance to write their updates so that this sync covers them as well
+                LockSupport.parkNanos(syncWindowNanos);
+            }
+
+            synchronized (syncMonitor) {
+                coveredTicket = lastSyncTicket;
+            }
+
+            journal.fsync();
+            if (!journal.isHealthy()) {
+                throw new IOException("Failed to synchronize the Write-Ahead Log's journal to disk at " + storageDirectory);
+            }
+
+            synced = true;
+            syncListener.onSync(PARTITION_INDEX);
+        } finally {
+            synchronized (syncMonitor) {
+                syncInProgress = false;
+                if (synced) {
+                    syncedTicket = Math.max(syncedTicket, coveredTicket);
+                }
+
+                syncMonitor.notifyAll();
+            }
+        }
+    }
+
     @Override
     public synchronized Collection<T> recoverRecords() throws IOException {
         if (recovered) {
@@ -21,7 +21,11 @@ import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertTrue;
 
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
 import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.util.Collections;
@@ -213,4 +217,87 @@ public class TestHashMapSnapshot {
         assertTrue(swapLocations.contains("SwapLocation-1"));
     }
 
+    @Test
+    public void testRoundTripWithManyBlocks() throws IOException {
+        final HashMapSnapshot<DummyRecord> snapshot = new HashMapSnapshot<>(storageDirectory, serdeFactory, 4, true);
+
+        // Write enough records to fill several blocks, the last of which is only partially full.
+        for (int i = 0; i < 10_500; i++) {
+            final DummyRecord record = new DummyRecord(String.valueOf(i), UpdateType.CREATE);
+            record.setProperty("key", String.valueOf(i));
+            snapshot.update(Collections.singleton(record));
+        }
+
+        final DummyRecord swapOutRecord = new DummyRecord("10", UpdateType.SWAP_OUT);
+        swapOutRecord.setSwapLocation("SwapLocation-1");
+        snapshot.update(Collections.singleton(swapOutRecord));
+
+        final SnapshotCapture<DummyRecord> capture = snapshot.prepareSnapshot(500L);
+        snapshot.writeSnapshot(capture);
+
+        // Block-encoded snapshots must be recovered whether or not block encoding is enabled for writing
+        final HashMapSnapshot<DummyRecord> recovered = new HashMapSnapshot<>(storageDirectory, serdeFactory, 4, false);
+        final SnapshotRecovery<DummyRecord> recovery = recovered.recover();
+        assertEquals(500L, recovery.getMaxTransactionId());
+        assertEquals(Collections.singleton("SwapLocation-1"), recovery.getRecoveredSwapLocations());
+        assertEquals(capture.getRecords(), recovery.getRecords());
+        assertEquals(10_499, recovered.getRecordCount());
+    }
+
+    @Test
+    public void testVersion1WrittenByDefault() throws IOException {
+        final HashMapSnapshot<DummyRecord> snapshot = new HashMapSnapshot<>(storageDirectory, serdeFactory);
+        for (int i = 0; i < 3; i++) {
+            final DummyRecord record = new DummyRecord(String.valueOf(i), UpdateType.CREATE);
+            record.setProperty("key", String.valueOf(i));
+            snapshot.update(Collections.singleton(record));
+        }
+
+        snapshot.writeSnapshot(snapshot.prepareSnapshot(42L));
+
+        // Snapshots must remain readable by earlier versions of NiFi unless block encoding is enabled
+        try (final DataInputStream in = new DataInputStream(new FileInputStream(new File(storageDirectory, "checkpoint")))) {
+            assertEquals(HashMapSnapshot.class.getName(), in.readUTF());
+            assertEquals(1, in.readInt());
+        }
+
+        final SnapshotRecovery<DummyRecord> recovery = new HashMapSnapshot<>(storageDirectory, serdeFactory, true).recover();
+        assertEquals(42L, recovery.getMaxTransactionId());
+        assertEquals(3, recovery.getRecords().size());
+    }
+
+    @Test
+    public void testRecoverVersion1Snapshot() throws IOException {
+        // Version 1 of the encoding wrote the serde header and the records directly after the snapshot header.
+        try (final DataOutputStream out = new DataOutputStream(new FileOutputStream(new File(storageDirectory, "checkpoint")))) {
+            out.writeUTF(HashMapSnapshot.class.getName());
+            out.writeInt(1);
+            out.writeUTF(DummyRecordSerde.class.getName());
+            out.writeInt(serde.getVersion());
+            out.writeLong(42L);
+            out.writeInt(3);
+            serde.writeHeader(out);
+
+            for (int i = 0; i < 3; i++) {
+                final DummyRecord record = new DummyRecord(String.valueOf(i), UpdateType.CREATE);
+                record.setProperty("key", String.valueOf(i));
+                serde.serializeRecord(record, out);
+            }
+
+            out.writeInt(1);
+            out.writeUTF("SwapLocation-1");
+        }
+
+        final HashMapSnapshot<DummyRecord> snapshot = new HashMapSnapshot<>(storageDirectory, serdeFactory);
+        final SnapshotRecovery<DummyRecord> recovery = snapshot.recover();
+        assertEquals(42L, recovery.getMaxTransactionId());
+        assertEquals(Collections.singleton("SwapLocation-1"), recovery.getRecoveredSwapLocations());
+
+        final Map<Object, DummyRecord> recordMap = recovery.getRecords();
+        assertEquals(3, recordMap.size());
+        for (int i = 0; i < 3; i++) {
+            assertEquals(String.valueOf(i), recordMap.get(String.valueOf(i)).getProperties().get("key"));
+        }
+    }
+
 }
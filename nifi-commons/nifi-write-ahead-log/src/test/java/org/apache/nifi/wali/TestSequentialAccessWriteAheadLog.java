@@ -26,6 +26,7 @@ import org.wali.DummyRecord;
 import org.wali.DummyRecordSerde;
 import org.wali.SerDeFactory;
 import org.wali.SingletonSerDeFactory;
+import org.wali.SyncListener;
 import org.wali.UpdateType;
 import org.wali.WriteAheadRepository;
 
@@ -42,6 +43,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 
@@ -307,6 +309,59 @@ public class TestSequentialAccessWriteAheadLog {
         recoveryRepo.shutdown();
     }
 
+    @Test(timeout = 30000)
+    public void testSyncedUpdatesAreGroupCommitted() throws IOException, InterruptedException {
+        final File storageDir = new File("target", testName.getMethodName());
+        deleteRecursively(storageDir);
+        assertTrue(storageDir.mkdirs());
+
+        final AtomicInteger syncCount = new AtomicInteger(0);
+        final SyncListener syncListener = new SyncListener() {
+            @Override
+            public void onSync(final int partitionIndex) {
+                syncCount.incrementAndGet();
+            }
+
+            @Override
+            public void onGlobalSync() {
+            }
+        };
+
+        final SerDeFactory<DummyRecord> serdeFactory = new SingletonSerDeFactory<>(new DummyRecordSerde());
+        final SequentialAccessWriteAheadLog<DummyRecord> repo = new SequentialAccessWriteAheadLog<>(storageDir, serdeFactory, syncListener, 5, TimeUnit.MILLISECONDS);
+        assertTrue(repo.recoverRecords().isEmpty());
+
+        final int numThreads = 8;
+        final int updatesPerThread = 50;
+        final AtomicInteger failures = new AtomicInteger(0);
+        final List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < numThreads; t++) {
+            final int threadIndex = t;
+            threads.add(new Thread(() -> {
+                for (int i = 0; i < updatesPerThread; i++) {
+                    try {
+                        repo.update(Collections.singleton(new DummyRecord(threadIndex + "-" + i, UpdateType.CREATE)), true);
+                    } catch (final IOException ioe) {
+                        failures.incrementAndGet();
+                    }
+                }
+            }));
+        }
+
+        threads.forEach(Thread::start);
+        for (final Thread thread : threads) {
+            thread.join();
+        }
+
+        assertEquals(0, failures.get());
+        assertTrue(syncCount.get() > 0);
+        assertTrue("Expected concurrent updates to share syncs but there were " + syncCount.get() + " syncs", syncCount.get() < numThreads * updatesPerThread);
+        repo.shutdown();
+
+        final SequentialAccessWriteAheadLog<DummyRecord> recoveryRepo = createRecoveryRepo();
+        assertEquals(numThreads * updatesPerThread, recoveryRepo.recoverRecords().size());
+        recoveryRepo.shutdown();
+    }
 
     @Test
     @Ignore("For manual performance testing")
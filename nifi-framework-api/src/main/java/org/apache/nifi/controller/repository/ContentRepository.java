@@ -260,6 +260,35 @@ public interface ContentRepository {
      */
     OutputStream write(ContentClaim claim) throws IOException;
 
+    /**
+     * Checks whether the repository already holds a claim whose content is identical to that of the given claim, which
+     * must have been fully written. If so, the claimant count of the existing claim is incremented and the existing claim
+     * is returned, so that the caller can reference it instead of the given claim, whose claimant count is unchanged.
+     * Otherwise, the given claim is returned. Repositories that do not deduplicate content always return the given claim.
+     *
+     * @param claim the claim whose content was just written
+     * @return a claim with the same content as the given claim
+     * @throws IOException if unable to read the content of the given claim
+     */
+    default ContentClaim deduplicate(ContentClaim claim) throws IOException {
+        return claim;
+    }
+
+    /**
+     * Ensures that the content of the given claim, which must have been fully written, is durably stored before a
+     * FlowFile that references it is persisted in the FlowFile Repository. Repositories that hold some content only in
+     * memory copy such content to durable storage, increment the claimant count of the durable claim and return it, so
+     * that the caller can reference it instead of the given claim, whose claimant count is unchanged. Otherwise, the
+     * given claim is returned. Repositories that always store content durably always return the given claim.
+     *
+     * @param claim the claim whose content is about to be referenced by the FlowFile Repository
+     * @return a durable claim with the same content as the given claim
+     * @throws IOException if unable to store the content of the given claim durably
+     */
+    default ContentClaim persist(ContentClaim claim) throws IOException {
+        return claim;
+    }
+
     /**
      * Purges the contents of the repository, as if the repository were newly
      * created.
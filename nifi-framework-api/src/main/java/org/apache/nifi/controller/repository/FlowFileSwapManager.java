@@ -80,6 +80,19 @@ public interface FlowFileSwapManager {
      */
     SwapContents swapIn(String swapLocation, FlowFileQueue flowFileQueue) throws IncompleteSwapFileException, IOException;
 
+    /**
+     * Indicates that the FlowFiles in the swap file that lives at the given location are expected to be
+     * swapped in soon, giving the Swap Manager the chance to begin reading them in the background so that
+     * the subsequent call to {@link #swapIn(String, FlowFileQueue)} does not have to wait for them to be read.
+     * This method must return quickly, as it may be called while the queue is locked. The swap file remains in
+     * its location and the FlowFile Repository is not updated until the FlowFiles are swapped in.
+     *
+     * @param swapLocation the location of the swap file
+     * @param flowFileQueue the queue to which the FlowFiles belong
+     */
+    default void prefetch(String swapLocation, FlowFileQueue flowFileQueue) {
+    }
+
     /**
      * Determines swap files that exist for the given FlowFileQueue
      *
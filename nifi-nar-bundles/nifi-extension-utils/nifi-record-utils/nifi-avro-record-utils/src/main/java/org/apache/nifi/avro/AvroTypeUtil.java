@@ -518,7 +518,7 @@ public class AvroTypeUtil {
      * @param recordField - The field of the record to be mapped
      * @return Pair with the LHS being the field name and RHS being the mapped field from the schema
      */
-    protected static Pair<String, Field> lookupField(final Schema avroSchema, final RecordField recordField) {
+    public static Pair<String, Field> lookupField(final Schema avroSchema, final RecordField recordField) {
         String fieldName = recordField.getFieldName();
 
         // Attempt to locate the field as is in a true 1:1 mapping with the same name
@@ -637,8 +637,13 @@ public class AvroTypeUtil {
         return t.getTime();
     }
 
+    /**
+     * Convert a raw value to an Avro object to serialize in Avro type system, using the provided character set when necessary
+     * and the given field name when reporting a value that cannot be converted.
+     * The counter-part method which reads an Avro object back to a raw value is {@link #normalizeValue(Object, Schema, String)}.
+     */
     @SuppressWarnings("unchecked")
-    private static Object convertToAvroObject(final Object rawValue, final Schema fieldSchema, final String fieldName, final Charset charset) {
+    public static Object convertToAvroObject(final Object rawValue, final Schema fieldSchema, final String fieldName, final Charset charset) {
         if (rawValue == null) {
             return null;
         }
@@ -835,39 +840,72 @@ public class AvroTypeUtil {
         final Map<String, Object> values = new HashMap<>(recordSchema.getFieldCount());
 
         for (final RecordField recordField : recordSchema.getFields()) {
+            values.put(recordField.getFieldName(), convertAvroField(avroRecord, recordField, charset));
+        }
 
-            Object value = avroRecord.get(recordField.getFieldName());
-            if (value == null) {
-                for (final String alias : recordField.getAliases()) {
-                    value = avroRecord.get(alias);
-                    if (value != null) {
-                        break;
-                    }
+        return values;
+    }
+
+    /**
+     * Converts the given Avro Record into the values of a Record with the given schema, in the order of the schema's fields, as
+     * expected by {@link org.apache.nifi.serialization.record.ArrayRecord}
+     *
+     * @param avroRecord the Avro Record to convert
+     * @param recordSchema the schema of the Record
+     * @param charset the character set to use when converting bytes to Strings
+     * @return the value of each field of the schema
+     */
+    public static Object[] convertAvroRecordToArray(final GenericRecord avroRecord, final RecordSchema recordSchema, final Charset charset) {
+        final List<RecordField> recordFields = recordSchema.getFields();
+        final Object[] values = new Object[recordFields.size()];
+
+        for (int i = 0; i < values.length; i++) {
+            values[i] = convertAvroField(avroRecord, recordFields.get(i), charset);
+        }
+
+        return values;
+    }
+
+    private static Object convertAvroField(final GenericRecord avroRecord, final RecordField recordField, final Charset charset) {
+        Object value = avroRecord.get(recordField.getFieldName());
+        if (value == null) {
+            for (final String alias : recordField.getAliases()) {
+                value = avroRecord.get(alias);
+                if (value != null) {
+                    break;
                 }
             }
+        }
 
-            final String fieldName = recordField.getFieldName();
-            try {
-            final Field avroField = avroRecord.getSchema().getField(fieldName);
-            if (avroField == null) {
-                values.put(fieldName, null);
-                continue;
-            }
+        final Field avroField = avroRecord.getSchema().getField(recordField.getFieldName());
+        if (avroField == null) {
+            return null;
+        }
+
+        return convertAvroFieldValue(value, avroField.schema(), recordField, charset);
+    }
 
-            final Schema fieldSchema = avroField.schema();
+    /**
+     * Converts a value that was read from an Avro field with the given schema into the value of the given Record field. The value
+     * is copied where necessary, so the Avro objects that it was read into may be reused afterwards.
+     *
+     * @param value the value read from the Avro field
+     * @param fieldSchema the schema of the Avro field
+     * @param recordField the Record field that the value is converted for
+     * @param charset the character set to use when converting bytes to Strings
+     * @return the converted value
+     */
+    public static Object convertAvroFieldValue(final Object value, final Schema fieldSchema, final RecordField recordField, final Charset charset) {
+        final String fieldName = recordField.getFieldName();
+        try {
             final Object rawValue = normalizeValue(value, fieldSchema, fieldName);
 
             final DataType desiredType = recordField.getDataType();
-            final Object coercedValue = DataTypeUtils.convertType(rawValue, desiredType, fieldName, charset);
-
-            values.put(fieldName, coercedValue);
-            } catch (Exception ex) {
-                logger.debug("fail to convert field " + fieldName, ex );
-                throw ex;
-            }
+            return DataTypeUtils.convertType(rawValue, desiredType, fieldName, charset);
+        } catch (Exception ex) {
+            logger.debug("fail to convert field " + fieldName, ex );
+            throw ex;
         }
-
-        return values;
     }
 
     /**
@@ -1011,7 +1049,14 @@ public class AvroTypeUtil {
                 if (logicalType != null && LOGICAL_TYPE_DECIMAL.equals(logicalType.getName())) {
                     return new Conversions.DecimalConversion().fromBytes(bb, avroSchema, logicalType);
                 }
-                return AvroTypeUtil.convertByteArray(bb.array());
+                if (bb.hasArray() && bb.arrayOffset() == 0 && bb.position() == 0 && bb.limit() == bb.array().length) {
+                    return AvroTypeUtil.convertByteArray(bb.array());
+                }
+
+                // a reused buffer may be backed by an array that is larger than the value it currently holds
+                final byte[] bytes = new byte[bb.remaining()];
+                bb.duplicate().get(bytes);
+                return AvroTypeUtil.convertByteArray(bytes);
             case FIXED:
                 final GenericFixed fixed = (GenericFixed) value;
                 return AvroTypeUtil.convertByteArray(fixed.bytes());
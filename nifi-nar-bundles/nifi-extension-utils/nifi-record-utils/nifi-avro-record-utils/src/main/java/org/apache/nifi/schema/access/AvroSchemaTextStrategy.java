@@ -24,6 +24,7 @@ import org.apache.nifi.serialization.record.RecordSchema;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.IOException;
 import java.io.InputStream;
 import java.util.EnumSet;
 import java.util.Map;
@@ -34,13 +35,19 @@ public class AvroSchemaTextStrategy implements SchemaAccessStrategy {
 
     private static final Logger logger = LoggerFactory.getLogger(AvroSchemaTextStrategy.class);
     private final PropertyValue schemaTextPropertyValue;
+    private final SchemaResolutionCache schemaCache;
 
     public AvroSchemaTextStrategy(final PropertyValue schemaTextPropertyValue) {
+        this(schemaTextPropertyValue, SchemaResolutionCache.DISABLED);
+    }
+
+    public AvroSchemaTextStrategy(final PropertyValue schemaTextPropertyValue, final SchemaResolutionCache schemaCache) {
         this.schemaTextPropertyValue = schemaTextPropertyValue;
+        this.schemaCache = schemaCache;
     }
 
     @Override
-    public RecordSchema getSchema(Map<String, String> variables, InputStream contentStream, RecordSchema readSchema) throws SchemaNotFoundException {
+    public RecordSchema getSchema(Map<String, String> variables, InputStream contentStream, RecordSchema readSchema) throws SchemaNotFoundException, IOException {
         final String schemaText;
         schemaText = schemaTextPropertyValue.evaluateAttributeExpressions(variables).getValue();
         if (schemaText == null || schemaText.trim().isEmpty()) {
@@ -49,12 +56,14 @@ public class AvroSchemaTextStrategy implements SchemaAccessStrategy {
 
         logger.debug("For {} found schema text {}", variables, schemaText);
 
-        try {
-            final Schema avroSchema = new Schema.Parser().parse(schemaText);
-            return AvroTypeUtil.createSchema(avroSchema);
-        } catch (final Exception e) {
-            throw new SchemaNotFoundException("Failed to create schema from the Schema Text after evaluating FlowFile Attributes", e);
-        }
+        return schemaCache.getSchema(schemaText, () -> {
+            try {
+                final Schema avroSchema = new Schema.Parser().parse(schemaText);
+                return AvroTypeUtil.createSchema(avroSchema);
+            } catch (final Exception e) {
+                throw new SchemaNotFoundException("Failed to create schema from the Schema Text after evaluating FlowFile Attributes", e);
+            }
+        });
     }
 
     @Override
@@ -161,21 +161,26 @@ public class SchemaAccessUtils {
 
 
     public static SchemaAccessStrategy getSchemaAccessStrategy(final String allowableValue, final SchemaRegistry schemaRegistry, final PropertyContext context) {
+        return getSchemaAccessStrategy(allowableValue, schemaRegistry, context, SchemaResolutionCache.DISABLED);
+    }
+
+    public static SchemaAccessStrategy getSchemaAccessStrategy(final String allowableValue, final SchemaRegistry schemaRegistry, final PropertyContext context,
+                                                               final SchemaResolutionCache schemaCache) {
         if (allowableValue.equalsIgnoreCase(SCHEMA_NAME_PROPERTY.getValue())) {
             final PropertyValue schemaName = context.getProperty(SCHEMA_NAME);
             final PropertyValue schemaBranchName = context.getProperty(SCHEMA_BRANCH_NAME);
             final PropertyValue schemaVersion = context.getProperty(SCHEMA_VERSION);
-            return new SchemaNamePropertyStrategy(schemaRegistry, schemaName, schemaBranchName, schemaVersion);
+            return new SchemaNamePropertyStrategy(schemaRegistry, schemaName, schemaBranchName, schemaVersion, schemaCache);
         } else if (allowableValue.equalsIgnoreCase(INHERIT_RECORD_SCHEMA.getValue())) {
             return new InheritSchemaFromRecord();
         } else if (allowableValue.equalsIgnoreCase(SCHEMA_TEXT_PROPERTY.getValue())) {
-            return new AvroSchemaTextStrategy(context.getProperty(SCHEMA_TEXT));
+            return new AvroSchemaTextStrategy(context.getProperty(SCHEMA_TEXT), schemaCache);
         } else if (allowableValue.equalsIgnoreCase(HWX_CONTENT_ENCODED_SCHEMA.getValue())) {
-            return new HortonworksEncodedSchemaReferenceStrategy(schemaRegistry);
+            return new HortonworksEncodedSchemaReferenceStrategy(schemaRegistry, schemaCache);
         } else if (allowableValue.equalsIgnoreCase(HWX_SCHEMA_REF_ATTRIBUTES.getValue())) {
-            return new HortonworksAttributeSchemaReferenceStrategy(schemaRegistry);
+            return new HortonworksAttributeSchemaReferenceStrategy(schemaRegistry, schemaCache);
         } else if (allowableValue.equalsIgnoreCase(CONFLUENT_ENCODED_SCHEMA.getValue())) {
-            return new ConfluentSchemaRegistryStrategy(schemaRegistry);
+            return new ConfluentSchemaRegistryStrategy(schemaRegistry, schemaCache);
         }
 
         return null;
@@ -70,9 +70,9 @@ public class JsonInferenceSchemaRegistryService extends SchemaRegistryService {
             final PropertyValue schemaName = context.getProperty(SCHEMA_NAME);
             final PropertyValue schemaBranchName = context.getProperty(SCHEMA_BRANCH_NAME);
             final PropertyValue schemaVersion = context.getProperty(SCHEMA_VERSION);
-            return new SchemaNamePropertyStrategy(schemaRegistry, schemaName, schemaBranchName, schemaVersion);
+            return new SchemaNamePropertyStrategy(schemaRegistry, schemaName, schemaBranchName, schemaVersion, getSchemaCache());
         } else if (strategy.equalsIgnoreCase(SCHEMA_TEXT_PROPERTY.getValue())) {
-            return new AvroSchemaTextStrategy(context.getProperty(SCHEMA_TEXT));
+            return new AvroSchemaTextStrategy(context.getProperty(SCHEMA_TEXT), getSchemaCache());
         } else if (strategy.equalsIgnoreCase(INFER_SCHEMA.getValue())) {
             return new InferenceSchemaStrategy();
         }
@@ -17,6 +17,7 @@
 
 package org.apache.nifi.serialization;
 
+import org.apache.nifi.annotation.lifecycle.OnDisabled;
 import org.apache.nifi.annotation.lifecycle.OnEnabled;
 import org.apache.nifi.components.AllowableValue;
 import org.apache.nifi.components.PropertyDescriptor;
@@ -29,6 +30,7 @@ import org.apache.nifi.schema.access.SchemaAccessStrategy;
 import org.apache.nifi.schema.access.SchemaAccessUtils;
 import org.apache.nifi.schema.access.SchemaField;
 import org.apache.nifi.schema.access.SchemaNotFoundException;
+import org.apache.nifi.schema.access.SchemaResolutionCache;
 import org.apache.nifi.schemaregistry.services.SchemaRegistry;
 import org.apache.nifi.serialization.record.RecordSchema;
 
@@ -60,6 +62,7 @@ public abstract class SchemaRegistryService extends AbstractControllerService {
 
     private volatile ConfigurationContext configurationContext;
     protected volatile SchemaAccessStrategy schemaAccessStrategy;
+    private volatile SchemaResolutionCache schemaCache = SchemaResolutionCache.DISABLED;
     private static InputStream EMPTY_INPUT_STREAM = new ByteArrayInputStream(new byte[0]);
 
     private final List<AllowableValue> strategyList = Collections.unmodifiableList(Arrays.asList(
@@ -100,6 +103,7 @@ public abstract class SchemaRegistryService extends AbstractControllerService {
     @OnEnabled
     public void storeSchemaAccessStrategy(final ConfigurationContext context) {
         this.configurationContext = context;
+        this.schemaCache = new SchemaResolutionCache(SchemaResolutionCache.DEFAULT_MAXIMUM_SIZE);
 
         final SchemaRegistry schemaRegistry = context.getProperty(SCHEMA_REGISTRY).asControllerService(SchemaRegistry.class);
 
@@ -108,6 +112,14 @@ public abstract class SchemaRegistryService extends AbstractControllerService {
         this.schemaAccessStrategy = getSchemaAccessStrategy(schemaAccess, schemaRegistry, context);
     }
 
+    @OnDisabled
+    public void logSchemaCacheStatistics() {
+        final SchemaResolutionCache cache = schemaCache;
+        getLogger().debug("Schema resolution cache was hit {} times and missed {} times, and evicted {} schemas",
+            new Object[] {cache.getHitCount(), cache.getMissCount(), cache.getEvictionCount()});
+        schemaCache = SchemaResolutionCache.DISABLED;
+    }
+
     @Override
     protected ConfigurationContext getConfigurationContext() {
         return configurationContext;
@@ -117,6 +129,13 @@ public abstract class SchemaRegistryService extends AbstractControllerService {
         return schemaAccessStrategy;
     }
 
+    /**
+     * @return the cache of the schemas that the Schema Access Strategy of this service has resolved since it was enabled
+     */
+    protected SchemaResolutionCache getSchemaCache() {
+        return schemaCache;
+    }
+
     public final RecordSchema getSchema(final Map<String, String> variables, final InputStream contentStream, final RecordSchema readSchema) throws SchemaNotFoundException, IOException {
         final SchemaAccessStrategy accessStrategy = getSchemaAccessStrategy();
         if (accessStrategy == null) {
@@ -156,7 +175,7 @@ public abstract class SchemaRegistryService extends AbstractControllerService {
         if (allowableValue == null) {
             return null;
         }
-        return SchemaAccessUtils.getSchemaAccessStrategy(allowableValue, schemaRegistry, context);
+        return SchemaAccessUtils.getSchemaAccessStrategy(allowableValue, schemaRegistry, context, getSchemaCache());
     }
 
 }
@@ -455,6 +455,18 @@ public class TestAvroTypeUtil {
         assertEquals("Hello", o);
     }
 
+    @Test
+    public void testConvertBytesFieldOfReusedBuffer() {
+        // a buffer that Avro decoded a shorter value into, after a longer one
+        final ByteBuffer bb = ByteBuffer.wrap(new byte[] {1, 2, 3, 4, 5});
+        bb.limit(2);
+
+        final RecordField recordField = new RecordField("bytes", RecordFieldType.ARRAY.getArrayDataType(RecordFieldType.BYTE.getDataType()));
+        final Object converted = AvroTypeUtil.convertAvroFieldValue(bb, Schema.create(Type.BYTES), recordField, StandardCharsets.UTF_8);
+        assertArrayEquals(new Object[] {(byte) 1, (byte) 2}, (Object[]) converted);
+        assertEquals(0, bb.position());
+    }
+
     @Test
     public void testAliasCreatedForInvalidField() {
         final List<RecordField> fields = new ArrayList<>();
@@ -33,9 +33,15 @@ import java.util.Set;
 public class ConfluentSchemaRegistryStrategy implements SchemaAccessStrategy {
     private final Set<SchemaField> schemaFields;
     private final SchemaRegistry schemaRegistry;
+    private final SchemaResolutionCache schemaCache;
 
     public ConfluentSchemaRegistryStrategy(final SchemaRegistry schemaRegistry) {
+        this(schemaRegistry, SchemaResolutionCache.DISABLED);
+    }
+
+    public ConfluentSchemaRegistryStrategy(final SchemaRegistry schemaRegistry, final SchemaResolutionCache schemaCache) {
         this.schemaRegistry = schemaRegistry;
+        this.schemaCache = schemaCache;
 
         schemaFields = new HashSet<>();
         schemaFields.add(SchemaField.SCHEMA_IDENTIFIER);
@@ -71,7 +77,7 @@ public class ConfluentSchemaRegistryStrategy implements SchemaAccessStrategy {
                 .version(1)
                 .build();
 
-        return schemaRegistry.retrieveSchema(schemaIdentifier);
+        return schemaCache.getSchema(schemaIdentifier, () -> schemaRegistry.retrieveSchema(schemaIdentifier));
     }
 
     @Override
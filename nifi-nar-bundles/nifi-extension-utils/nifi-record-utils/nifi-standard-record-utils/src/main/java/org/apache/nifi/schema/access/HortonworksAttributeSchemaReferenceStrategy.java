@@ -37,10 +37,16 @@ public class HortonworksAttributeSchemaReferenceStrategy implements SchemaAccess
 
 
     private final SchemaRegistry schemaRegistry;
+    private final SchemaResolutionCache schemaCache;
 
 
     public HortonworksAttributeSchemaReferenceStrategy(final SchemaRegistry schemaRegistry) {
+        this(schemaRegistry, SchemaResolutionCache.DISABLED);
+    }
+
+    public HortonworksAttributeSchemaReferenceStrategy(final SchemaRegistry schemaRegistry, final SchemaResolutionCache schemaCache) {
         this.schemaRegistry = schemaRegistry;
+        this.schemaCache = schemaCache;
 
         schemaFields = new HashSet<>();
         schemaFields.add(SchemaField.SCHEMA_IDENTIFIER);
@@ -87,7 +93,7 @@ public class HortonworksAttributeSchemaReferenceStrategy implements SchemaAccess
         final int version = Integer.parseInt(schemaVersion);
 
         final SchemaIdentifier identifier = SchemaIdentifier.builder().id(schemaId).version(version).build();
-        final RecordSchema schema = schemaRegistry.retrieveSchema(identifier);
+        final RecordSchema schema = schemaCache.getSchema(identifier, () -> schemaRegistry.retrieveSchema(identifier));
         if (schema == null) {
             throw new SchemaNotFoundException("Could not find a Schema in the Schema Registry with Schema Identifier '" + schemaId + "' and Version '" + version + "'");
         }
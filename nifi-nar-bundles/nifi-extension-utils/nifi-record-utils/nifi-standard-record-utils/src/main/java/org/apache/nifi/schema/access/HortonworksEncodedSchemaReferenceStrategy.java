@@ -35,9 +35,15 @@ public class HortonworksEncodedSchemaReferenceStrategy implements SchemaAccessSt
 
     private final Set<SchemaField> schemaFields;
     private final SchemaRegistry schemaRegistry;
+    private final SchemaResolutionCache schemaCache;
 
     public HortonworksEncodedSchemaReferenceStrategy(final SchemaRegistry schemaRegistry) {
+        this(schemaRegistry, SchemaResolutionCache.DISABLED);
+    }
+
+    public HortonworksEncodedSchemaReferenceStrategy(final SchemaRegistry schemaRegistry, final SchemaResolutionCache schemaCache) {
         this.schemaRegistry = schemaRegistry;
+        this.schemaCache = schemaCache;
 
         schemaFields = new HashSet<>();
         schemaFields.add(SchemaField.SCHEMA_IDENTIFIER);
@@ -68,7 +74,7 @@ public class HortonworksEncodedSchemaReferenceStrategy implements SchemaAccessSt
         final int schemaVersion = bb.getInt();
 
         final SchemaIdentifier schemaIdentifier = SchemaIdentifier.builder().id(schemaId).version(schemaVersion).build();
-        return schemaRegistry.retrieveSchema(schemaIdentifier);
+        return schemaCache.getSchema(schemaIdentifier, () -> schemaRegistry.retrieveSchema(schemaIdentifier));
     }
 
     @Override
@@ -36,15 +36,25 @@ public class SchemaNamePropertyStrategy implements SchemaAccessStrategy {
     private final PropertyValue schemaNamePropertyValue;
     private final PropertyValue schemaBranchNamePropertyValue;
     private final PropertyValue schemaVersionPropertyValue;
+    private final SchemaResolutionCache schemaCache;
 
     public SchemaNamePropertyStrategy(final SchemaRegistry schemaRegistry,
                                       final PropertyValue schemaNamePropertyValue,
                                       final PropertyValue schemaBranchNamePropertyValue,
                                       final PropertyValue schemaVersionPropertyValue) {
+        this(schemaRegistry, schemaNamePropertyValue, schemaBranchNamePropertyValue, schemaVersionPropertyValue, SchemaResolutionCache.DISABLED);
+    }
+
+    public SchemaNamePropertyStrategy(final SchemaRegistry schemaRegistry,
+                                      final PropertyValue schemaNamePropertyValue,
+                                      final PropertyValue schemaBranchNamePropertyValue,
+                                      final PropertyValue schemaVersionPropertyValue,
+                                      final SchemaResolutionCache schemaCache) {
         this.schemaRegistry = schemaRegistry;
         this.schemaNamePropertyValue = schemaNamePropertyValue;
         this.schemaBranchNamePropertyValue = schemaBranchNamePropertyValue;
         this.schemaVersionPropertyValue = schemaVersionPropertyValue;
+        this.schemaCache = schemaCache;
 
         schemaFields = new HashSet<>();
         schemaFields.add(SchemaField.SCHEMA_NAME);
@@ -78,7 +88,11 @@ public class SchemaNamePropertyStrategy implements SchemaAccessStrategy {
                 }
             }
 
-            final RecordSchema recordSchema = schemaRegistry.retrieveSchema(identifierBuilder.build());
+            // Only a specific version of a schema never changes, the latest version of a schema or branch must be looked up every time
+            final SchemaIdentifier schemaIdentifier = identifierBuilder.build();
+            final RecordSchema recordSchema = schemaIdentifier.getVersion().isPresent()
+                ? schemaCache.getSchema(schemaIdentifier, () -> schemaRegistry.retrieveSchema(schemaIdentifier))
+                : schemaRegistry.retrieveSchema(schemaIdentifier);
             if (recordSchema == null) {
                 throw new SchemaNotFoundException("Could not find a schema with name '" + schemaName + "' in the configured Schema Registry");
             }
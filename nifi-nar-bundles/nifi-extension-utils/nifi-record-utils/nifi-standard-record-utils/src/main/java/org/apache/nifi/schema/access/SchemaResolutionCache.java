@@ -0,0 +1,137 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nifi.schema.access;
+
+import org.apache.nifi.serialization.record.RecordSchema;
+
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A bounded cache of the RecordSchemas that a {@link SchemaAccessStrategy} has resolved, keyed by whatever uniquely and permanently
+ * identifies a schema for that strategy, such as the schema text or a schema identifier with a version. Once the cache is full,
+ * the schema that was used least recently is evicted. Lookups and evictions are counted so that the effectiveness of the cache can be reported.
+ */
+public class SchemaResolutionCache {
+    public static final int DEFAULT_MAXIMUM_SIZE = 1000;
+
+    /**
+     * A cache that holds no schemas, so that every lookup resolves the schema
+     */
+    public static final SchemaResolutionCache DISABLED = new SchemaResolutionCache(0);
+
+    private final int maximumSize;
+    private final Map<Object, RecordSchema> cache;
+    private final AtomicLong hitCount = new AtomicLong(0L);
+    private final AtomicLong missCount = new AtomicLong(0L);
+    private final AtomicLong evictionCount = new AtomicLong(0L);
+
+    public SchemaResolutionCache(final int maximumSize) {
+        this.maximumSize = maximumSize;
+        this.cache = maximumSize > 0 ? new LinkedHashMap<Object, RecordSchema>(16, 0.75F, true) {
+            @Override
+            protected boolean removeEldestEntry(final Map.Entry<Object, RecordSchema> eldest) {
+                if (size() > SchemaResolutionCache.this.maximumSize) {
+                    evictionCount.incrementAndGet();
+                    return true;
+                }
+
+                return false;
+            }
+        } : null;
+    }
+
+    /**
+     * Returns the cached schema for the given key or, if there is none, resolves and caches it. Schemas that cannot be
+     * resolved are not cached. The schema is resolved without holding the cache's lock, so a schema registry that is slow
+     * to respond does not hold up lookups of other schemas.
+     *
+     * @param key the key that identifies the schema
+     * @param resolver resolves the schema if it is not cached
+     * @return the schema, or <code>null</code> if the resolver returned <code>null</code>
+     */
+    public RecordSchema getSchema(final Object key, final SchemaResolver resolver) throws SchemaNotFoundException, IOException {
+        if (cache == null) {
+            return resolver.resolve();
+        }
+
+        final RecordSchema cached;
+        synchronized (cache) {
+            cached = cache.get(key);
+        }
+
+        if (cached != null) {
+            hitCount.incrementAndGet();
+            return cached;
+        }
+
+        missCount.incrementAndGet();
+        final RecordSchema schema = resolver.resolve();
+        if (schema != null) {
+            synchronized (cache) {
+                cache.put(key, schema);
+            }
+        }
+        return schema;
+    }
+
+    /**
+     * @return the number of lookups that found a cached schema
+     */
+    public long getHitCount() {
+        return hitCount.get();
+    }
+
+    /**
+     * @return the number of lookups that had to resolve the schema
+     */
+    public long getMissCount() {
+        return missCount.get();
+    }
+
+    /**
+     * @return the number of schemas that were removed from the cache to make room for others
+     */
+    public long getEvictionCount() {
+        return evictionCount.get();
+    }
+
+    public int getSize() {
+        if (cache == null) {
+            return 0;
+        }
+
+        synchronized (cache) {
+            return cache.size();
+        }
+    }
+
+    public void clear() {
+        if (cache != null) {
+            synchronized (cache) {
+                cache.clear();
+            }
+        }
+    }
+
+    @FunctionalInterface
+    public interface SchemaResolver {
+        RecordSchema resolve() throws SchemaNotFoundException, IOException;
+    }
+}
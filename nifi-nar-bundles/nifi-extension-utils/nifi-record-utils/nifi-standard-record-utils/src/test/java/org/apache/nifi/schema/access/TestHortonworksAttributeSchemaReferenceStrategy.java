@@ -25,8 +25,13 @@ import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.fail;
+import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.argThat;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 public class TestHortonworksAttributeSchemaReferenceStrategy extends AbstractSchemaAccessStrategyTest {
@@ -56,6 +61,52 @@ public class TestHortonworksAttributeSchemaReferenceStrategy extends AbstractSch
         assertNotNull(retrievedSchema);
     }
 
+    @Test
+    public void testGetSchemaIsCachedByIdentifierAndVersion() throws IOException, SchemaNotFoundException {
+        final SchemaResolutionCache schemaCache = new SchemaResolutionCache(10);
+        final SchemaAccessStrategy schemaAccessStrategy = new HortonworksAttributeSchemaReferenceStrategy(schemaRegistry, schemaCache);
+
+        when(schemaRegistry.retrieveSchema(any(SchemaIdentifier.class))).thenReturn(recordSchema);
+
+        schemaAccessStrategy.getSchema(createAttributes(1, 1), null, recordSchema);
+        schemaAccessStrategy.getSchema(createAttributes(1, 1), null, recordSchema);
+        schemaAccessStrategy.getSchema(createAttributes(1, 2), null, recordSchema);
+
+        verify(schemaRegistry, times(2)).retrieveSchema(any(SchemaIdentifier.class));
+        assertEquals(1, schemaCache.getHitCount());
+        assertEquals(2, schemaCache.getMissCount());
+
+        schemaCache.clear();
+        schemaAccessStrategy.getSchema(createAttributes(1, 1), null, recordSchema);
+        verify(schemaRegistry, times(3)).retrieveSchema(any(SchemaIdentifier.class));
+    }
+
+    @Test
+    public void testSchemaNotFoundIsNotCached() throws IOException, SchemaNotFoundException {
+        final SchemaResolutionCache schemaCache = new SchemaResolutionCache(10);
+        final SchemaAccessStrategy schemaAccessStrategy = new HortonworksAttributeSchemaReferenceStrategy(schemaRegistry, schemaCache);
+
+        when(schemaRegistry.retrieveSchema(any(SchemaIdentifier.class))).thenReturn(null).thenReturn(recordSchema);
+
+        try {
+            schemaAccessStrategy.getSchema(createAttributes(1, 1), null, recordSchema);
+            fail("Expected SchemaNotFoundException");
+        } catch (final SchemaNotFoundException expected) {
+            // the schema is not in the registry yet
+        }
+
+        assertNotNull(schemaAccessStrategy.getSchema(createAttributes(1, 1), null, recordSchema));
+        verify(schemaRegistry, times(2)).retrieveSchema(any(SchemaIdentifier.class));
+    }
+
+    private static Map<String, String> createAttributes(final long schemaId, final int version) {
+        final Map<String,String> attributes = new HashMap<>();
+        attributes.put(HortonworksAttributeSchemaReferenceStrategy.SCHEMA_ID_ATTRIBUTE, String.valueOf(schemaId));
+        attributes.put(HortonworksAttributeSchemaReferenceStrategy.SCHEMA_VERSION_ATTRIBUTE, String.valueOf(version));
+        attributes.put(HortonworksAttributeSchemaReferenceStrategy.SCHEMA_PROTOCOL_VERSION_ATTRIBUTE, "1");
+        return attributes;
+    }
+
     @Test(expected = SchemaNotFoundException.class)
     public void testGetSchemaMissingAttributes() throws IOException, SchemaNotFoundException {
         final SchemaAccessStrategy schemaAccessStrategy = new HortonworksAttributeSchemaReferenceStrategy(schemaRegistry);
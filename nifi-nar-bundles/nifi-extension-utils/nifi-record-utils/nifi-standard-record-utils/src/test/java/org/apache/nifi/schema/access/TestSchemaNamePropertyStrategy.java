@@ -25,8 +25,13 @@ import org.junit.Test;
 import java.io.IOException;
 import java.util.Collections;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertSame;
+import static org.mockito.Mockito.any;
 import static org.mockito.Mockito.argThat;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 public class TestSchemaNamePropertyStrategy extends AbstractSchemaAccessStrategyTest {
@@ -72,6 +77,47 @@ public class TestSchemaNamePropertyStrategy extends AbstractSchemaAccessStrategy
         assertNotNull(retrievedSchema);
     }
 
+    @Test
+    public void testNameAndVersionIsCached() throws SchemaNotFoundException, IOException {
+        final PropertyValue nameValue = new MockPropertyValue("person");
+        final PropertyValue branchValue = new MockPropertyValue(null);
+        final PropertyValue versionValue = new MockPropertyValue("1");
+
+        final SchemaResolutionCache schemaCache = new SchemaResolutionCache(10);
+        final SchemaNamePropertyStrategy schemaNamePropertyStrategy = new SchemaNamePropertyStrategy(
+                schemaRegistry, nameValue, branchValue, versionValue, schemaCache);
+
+        when(schemaRegistry.retrieveSchema(any(SchemaIdentifier.class))).thenReturn(recordSchema);
+
+        for (int i = 0; i < 3; i++) {
+            assertSame(recordSchema, schemaNamePropertyStrategy.getSchema(Collections.emptyMap(), null, recordSchema));
+        }
+
+        verify(schemaRegistry, times(1)).retrieveSchema(any(SchemaIdentifier.class));
+        assertEquals(2, schemaCache.getHitCount());
+        assertEquals(1, schemaCache.getMissCount());
+    }
+
+    @Test
+    public void testNameOnlyIsNotCached() throws SchemaNotFoundException, IOException {
+        final PropertyValue nameValue = new MockPropertyValue("person");
+        final PropertyValue branchValue = new MockPropertyValue(null);
+        final PropertyValue versionValue = new MockPropertyValue(null);
+
+        final SchemaResolutionCache schemaCache = new SchemaResolutionCache(10);
+        final SchemaNamePropertyStrategy schemaNamePropertyStrategy = new SchemaNamePropertyStrategy(
+                schemaRegistry, nameValue, branchValue, versionValue, schemaCache);
+
+        when(schemaRegistry.retrieveSchema(any(SchemaIdentifier.class))).thenReturn(recordSchema);
+
+        // the latest version of the schema may change at any time, so it must be retrieved from the registry every time
+        schemaNamePropertyStrategy.getSchema(Collections.emptyMap(), null, recordSchema);
+        schemaNamePropertyStrategy.getSchema(Collections.emptyMap(), null, recordSchema);
+
+        verify(schemaRegistry, times(2)).retrieveSchema(any(SchemaIdentifier.class));
+        assertEquals(0, schemaCache.getHitCount() + schemaCache.getMissCount());
+    }
+
     @Test
     public void testNameAndBlankVersion() throws SchemaNotFoundException, IOException {
         final PropertyValue nameValue = new MockPropertyValue("person");
@@ -0,0 +1,88 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nifi.schema.access;
+
+import org.apache.nifi.serialization.record.RecordSchema;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.mockito.Mockito.mock;
+
+public class TestSchemaResolutionCache {
+
+    @Test
+    public void testLeastRecentlyUsedSchemaEvicted() throws IOException, SchemaNotFoundException {
+        final SchemaResolutionCache cache = new SchemaResolutionCache(2);
+        final RecordSchema schemaA = mock(RecordSchema.class);
+        final RecordSchema schemaB = mock(RecordSchema.class);
+        final RecordSchema schemaC = mock(RecordSchema.class);
+        final AtomicInteger resolutions = new AtomicInteger(0);
+
+        assertSame(schemaA, cache.getSchema("a", () -> resolve(schemaA, resolutions)));
+        assertSame(schemaB, cache.getSchema("b", () -> resolve(schemaB, resolutions)));
+
+        // use "a" so that "b" is the least recently used schema when "c" is added
+        assertSame(schemaA, cache.getSchema("a", () -> resolve(schemaA, resolutions)));
+        assertSame(schemaC, cache.getSchema("c", () -> resolve(schemaC, resolutions)));
+        assertEquals(3, resolutions.get());
+        assertEquals(2, cache.getSize());
+        assertEquals(1, cache.getEvictionCount());
+
+        assertSame(schemaA, cache.getSchema("a", () -> resolve(schemaA, resolutions)));
+        assertEquals(3, resolutions.get());
+
+        assertSame(schemaB, cache.getSchema("b", () -> resolve(schemaB, resolutions)));
+        assertEquals(4, resolutions.get());
+
+        assertEquals(2, cache.getHitCount());
+        assertEquals(4, cache.getMissCount());
+        assertEquals(2, cache.getEvictionCount());
+    }
+
+    @Test
+    public void testUnresolvedSchemaNotCached() throws IOException, SchemaNotFoundException {
+        final SchemaResolutionCache cache = new SchemaResolutionCache(2);
+        final AtomicInteger resolutions = new AtomicInteger(0);
+
+        assertNull(cache.getSchema("a", () -> resolve(null, resolutions)));
+        assertNull(cache.getSchema("a", () -> resolve(null, resolutions)));
+        assertEquals(2, resolutions.get());
+        assertEquals(0, cache.getSize());
+        assertEquals(2, cache.getMissCount());
+    }
+
+    @Test
+    public void testDisabledCacheAlwaysResolves() throws IOException, SchemaNotFoundException {
+        final RecordSchema schema = mock(RecordSchema.class);
+        final AtomicInteger resolutions = new AtomicInteger(0);
+
+        assertSame(schema, SchemaResolutionCache.DISABLED.getSchema("a", () -> resolve(schema, resolutions)));
+        assertSame(schema, SchemaResolutionCache.DISABLED.getSchema("a", () -> resolve(schema, resolutions)));
+        assertEquals(2, resolutions.get());
+        assertEquals(0, SchemaResolutionCache.DISABLED.getHitCount() + SchemaResolutionCache.DISABLED.getMissCount());
+    }
+
+    private static RecordSchema resolve(final RecordSchema schema, final AtomicInteger resolutions) {
+        resolutions.incrementAndGet();
+        return schema;
+    }
+}
@@ -73,6 +73,7 @@ public final class StandardConnection implements Connection, ConnectionEventList
     private final ProcessScheduler scheduler;
     private final FlowFileQueueFactory flowFileQueueFactory;
     private final boolean clustered;
+    private final boolean adaptiveScheduling;
     private final int hashCode;
 
     private volatile FlowFileQueue flowFileQueue;
@@ -88,6 +89,7 @@ public final class StandardConnection implements Connection, ConnectionEventList
         scheduler = builder.scheduler;
         flowFileQueueFactory = builder.flowFileQueueFactory;
         clustered = builder.clustered;
+        adaptiveScheduling = builder.adaptiveScheduling;
 
         flowFileQueue = flowFileQueueFactory.createFlowFileQueue(LoadBalanceStrategy.DO_NOT_LOAD_BALANCE, null, this);
         hashCode = new HashCodeBuilder(7, 67).append(id).toHashCode();
@@ -151,7 +153,10 @@ public final class StandardConnection implements Connection, ConnectionEventList
 
     @Override
     public void triggerDestinationEvent() {
-        if (getDestination().getSchedulingStrategy() == SchedulingStrategy.EVENT_DRIVEN) {
+        // When adaptive scheduling is enabled, Timer-Driven components are notified as well so that the scheduling agent
+        // can resume scheduling them if they were idle
+        final SchedulingStrategy schedulingStrategy = getDestination().getSchedulingStrategy();
+        if (schedulingStrategy == SchedulingStrategy.EVENT_DRIVEN || (adaptiveScheduling && schedulingStrategy == SchedulingStrategy.TIMER_DRIVEN)) {
             scheduler.registerEvent(getDestination());
         }
     }
@@ -404,6 +409,7 @@ public final class StandardConnection implements Connection, ConnectionEventList
         private Collection<Relationship> relationships;
         private FlowFileQueueFactory flowFileQueueFactory;
         private boolean clustered = false;
+        private boolean adaptiveScheduling = false;
 
         public Builder(final ProcessScheduler scheduler) {
             this.scheduler = scheduler;
@@ -460,6 +466,11 @@ public final class StandardConnection implements Connection, ConnectionEventList
             return this;
         }
 
+        public Builder adaptiveScheduling(final boolean adaptiveScheduling) {
+            this.adaptiveScheduling = adaptiveScheduling;
+            return this;
+        }
+
         public StandardConnection build() {
             if (source == null) {
                 throw new IllegalStateException("Cannot build a Connection without a Source");
@@ -25,6 +25,8 @@ import org.apache.nifi.controller.repository.SwapContents;
 import org.apache.nifi.controller.repository.SwapManagerInitializationContext;
 import org.apache.nifi.controller.repository.SwapSummary;
 import org.apache.nifi.controller.repository.claim.ResourceClaimManager;
+import org.apache.nifi.controller.swap.ColumnarSwapDeserializer;
+import org.apache.nifi.controller.swap.ColumnarSwapSerializer;
 import org.apache.nifi.controller.swap.SchemaSwapDeserializer;
 import org.apache.nifi.controller.swap.SchemaSwapSerializer;
 import org.apache.nifi.controller.swap.SimpleSwapDeserializer;
@@ -62,6 +64,15 @@ import java.util.List;
 import java.util.Objects;
 import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
@@ -81,7 +92,29 @@ public class FileSystemSwapManager implements FlowFileSwapManager {
     public static final String EVENT_CATEGORY = "Swap FlowFiles";
     private static final Logger logger = LoggerFactory.getLogger(FileSystemSwapManager.class);
 
+    // Swap files in the columnar format cannot be read by versions of NiFi that predate it, so it must be enabled explicitly
+    public static final String COLUMNAR_FORMAT_ENABLED_PROPERTY = "nifi.swap.columnar.format.enabled";
+    public static final String COMPRESSION_ENABLED_PROPERTY = "nifi.swap.compression.enabled";
+    public static final String PREFETCH_ENABLED_PROPERTY = "nifi.swap.prefetch.enabled";
+    public static final String DEFAULT_COLUMNAR_FORMAT_ENABLED = "false";
+    public static final String DEFAULT_COMPRESSION_ENABLED = "false";
+    public static final String DEFAULT_PREFETCH_ENABLED = "true";
+
+    // a queue only ever swaps in its oldest swap file, so there is no benefit to reading further ahead than this
+    private static final int MAX_PREFETCHED_SWAP_FILES = 2;
+
+    // There is a Swap Manager for each Connection, so all of them share one bounded pool of threads for prefetching. Prefetching
+    // is only an optimization, so a swap file that cannot be queued for prefetching is simply read when it is swapped in.
+    private static final int PREFETCH_THREAD_COUNT = Math.max(1, Math.min(4, Runtime.getRuntime().availableProcessors() / 2));
+    private static final int MAX_QUEUED_PREFETCHES = 64;
+    private static final ThreadPoolExecutor prefetchExecutor = createPrefetchExecutor();
+
     private final File storageDirectory;
+    private final boolean columnarSwapFiles;
+    private final boolean compressSwapFiles;
+    private final boolean prefetchEnabled;
+
+    private final ConcurrentMap<String, FutureTask<SwapContents>> prefetchedSwapContents = new ConcurrentHashMap<>();
 
     // effectively final
     private FlowFileRepository flowFileRepository;
@@ -95,13 +128,33 @@ public class FileSystemSwapManager implements FlowFileSwapManager {
      */
     public FileSystemSwapManager() {
         storageDirectory = null;
+        columnarSwapFiles = false;
+        compressSwapFiles = false;
+        prefetchEnabled = false;
     }
 
     public FileSystemSwapManager(final NiFiProperties nifiProperties) {
-        this(nifiProperties.getFlowFileRepositoryPath());
+        this(nifiProperties.getFlowFileRepositoryPath(),
+            Boolean.parseBoolean(nifiProperties.getProperty(COLUMNAR_FORMAT_ENABLED_PROPERTY, DEFAULT_COLUMNAR_FORMAT_ENABLED)),
+            Boolean.parseBoolean(nifiProperties.getProperty(COMPRESSION_ENABLED_PROPERTY, DEFAULT_COMPRESSION_ENABLED)),
+            Boolean.parseBoolean(nifiProperties.getProperty(PREFETCH_ENABLED_PROPERTY, DEFAULT_PREFETCH_ENABLED)));
     }
 
     public FileSystemSwapManager(final Path flowFileRepoPath) {
+        this(flowFileRepoPath, Boolean.parseBoolean(DEFAULT_COLUMNAR_FORMAT_ENABLED), Boolean.parseBoolean(DEFAULT_COMPRESSION_ENABLED),
+            Boolean.parseBoolean(DEFAULT_PREFETCH_ENABLED));
+    }
+
+    /**
+     * @param flowFileRepoPath the path of the FlowFile Repository, within which swap files are stored
+     * @param columnarSwapFiles whether swap files are written in the columnar format rather than the schema-based format
+     * @param compressSwapFiles whether swap files are compressed; this applies only to the columnar format
+     * @param prefetchEnabled whether swap files are read in the background before they are swapped in
+     */
+    public FileSystemSwapManager(final Path flowFileRepoPath, final boolean columnarSwapFiles, final boolean compressSwapFiles, final boolean prefetchEnabled) {
+        this.columnarSwapFiles = columnarSwapFiles;
+        this.compressSwapFiles = compressSwapFiles;
+        this.prefetchEnabled = prefetchEnabled;
         this.storageDirectory = flowFileRepoPath.resolve("swap").toFile();
         if (!storageDirectory.exists() && !storageDirectory.mkdirs()) {
             throw new RuntimeException("Cannot create Swap Storage directory " + storageDirectory.getAbsolutePath());
@@ -131,7 +184,7 @@ public class FileSystemSwapManager implements FlowFileSwapManager {
         final File swapTempFile = new File(swapFile.getParentFile(), swapFile.getName() + ".part");
         final String swapLocation = swapFile.getAbsolutePath();
 
-        final SwapSerializer serializer = new SchemaSwapSerializer();
+        final SwapSerializer serializer = columnarSwapFiles ? new ColumnarSwapSerializer(compressSwapFiles) : new SchemaSwapSerializer();
         try (final FileOutputStream fos = new FileOutputStream(swapTempFile);
             final OutputStream out = new BufferedOutputStream(fos)) {
             out.write(MAGIC_HEADER);
@@ -168,16 +221,96 @@ public class FileSystemSwapManager implements FlowFileSwapManager {
             return new StandardSwapContents(swapSummary, Collections.emptyList());
         }
 
-        final SwapContents swapContents = peek(swapLocation, flowFileQueue);
+        final long start = System.nanoTime();
+        final SwapContents swapContents = getPrefetchedContents(swapLocation, flowFileQueue);
         flowFileRepository.swapFlowFilesIn(swapFile.getAbsolutePath(), swapContents.getFlowFiles(), flowFileQueue);
 
         if (!swapFile.delete()) {
             warn("Swapped in FlowFiles from file " + swapFile.getAbsolutePath() + " but failed to delete the file; this file should be cleaned up manually");
         }
 
+        final long nanos = System.nanoTime() - start;
+        logger.debug("Swapped in {} FlowFiles from {} in {} millis", swapContents.getFlowFiles().size(), swapLocation, TimeUnit.NANOSECONDS.toMillis(nanos));
+
         return swapContents;
     }
 
+    @Override
+    public void prefetch(final String swapLocation, final FlowFileQueue flowFileQueue) {
+        if (!prefetchEnabled || prefetchedSwapContents.containsKey(swapLocation)) {
+            return;
+        }
+
+        if (prefetchedSwapContents.size() >= MAX_PREFETCHED_SWAP_FILES) {
+            // Discard anything prefetched from a swap file that has since been removed without being swapped in
+            for (final String prefetchedLocation : new ArrayList<>(prefetchedSwapContents.keySet())) {
+                if (!new File(prefetchedLocation).exists()) {
+                    discardPrefetchedContents(prefetchedLocation);
+                }
+            }
+
+            if (prefetchedSwapContents.size() >= MAX_PREFETCHED_SWAP_FILES) {
+                return;
+            }
+        }
+
+        try {
+            prefetchedSwapContents.computeIfAbsent(swapLocation, location -> {
+                final FutureTask<SwapContents> prefetchTask = new FutureTask<>(() -> peek(location, flowFileQueue));
+                prefetchExecutor.execute(prefetchTask);
+                return prefetchTask;
+            });
+        } catch (final RejectedExecutionException ree) {
+            logger.debug("Too many swap files are already queued to be prefetched, so will not prefetch {}", swapLocation);
+        }
+    }
+
+    private SwapContents getPrefetchedContents(final String swapLocation, final FlowFileQueue flowFileQueue) throws IOException {
+        final FutureTask<SwapContents> prefetchTask = prefetchedSwapContents.remove(swapLocation);
+        if (prefetchTask == null) {
+            return peek(swapLocation, flowFileQueue);
+        }
+
+        // The caller may hold the queue's lock, so wait only for a prefetch that is already reading the file. One that has not
+        // started yet is taken off the executor's queue and the file is read directly.
+        if (!prefetchTask.isDone() && prefetchExecutor.remove(prefetchTask)) {
+            prefetchTask.cancel(false);
+            return peek(swapLocation, flowFileQueue);
+        }
+
+        try {
+            return prefetchTask.get();
+        } catch (final InterruptedException ie) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while waiting for FlowFiles to be read from swap file " + swapLocation, ie);
+        } catch (final ExecutionException ee) {
+            // An IncompleteSwapFileException, in particular, must reach the caller, so read the file again rather than wrapping the cause
+            logger.debug("Failed to prefetch FlowFiles from swap file {}; will read the file again", swapLocation, ee.getCause());
+            return peek(swapLocation, flowFileQueue);
+        }
+    }
+
+    private static ThreadPoolExecutor createPrefetchExecutor() {
+        final AtomicInteger threadIndex = new AtomicInteger(0);
+        final ThreadPoolExecutor executor = new ThreadPoolExecutor(PREFETCH_THREAD_COUNT, PREFETCH_THREAD_COUNT, 60L, TimeUnit.SECONDS,
+            new ArrayBlockingQueue<>(MAX_QUEUED_PREFETCHES), runnable -> {
+                final Thread thread = new Thread(runnable, "Swap Prefetch Thread-" + threadIndex.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+
+        // no threads are kept while nothing is being prefetched
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    private void discardPrefetchedContents(final String swapLocation) {
+        final FutureTask<SwapContents> prefetchTask = prefetchedSwapContents.remove(swapLocation);
+        if (prefetchTask != null) {
+            prefetchTask.cancel(false);
+        }
+    }
+
     @Override
     public SwapContents peek(final String swapLocation, final FlowFileQueue flowFileQueue) throws IOException {
         final File swapFile = new File(swapLocation);
@@ -196,6 +329,10 @@ public class FileSystemSwapManager implements FlowFileSwapManager {
 
     @Override
     public void purge() {
+        for (final String swapLocation : new ArrayList<>(prefetchedSwapContents.keySet())) {
+            discardPrefetchedContents(swapLocation);
+        }
+
         final File[] swapFiles = storageDirectory.listFiles(new FilenameFilter() {
             @Override
             public boolean accept(final File dir, final String name) {
@@ -364,6 +501,9 @@ public class FileSystemSwapManager implements FlowFileSwapManager {
 
         if (Arrays.equals(magicHeader, MAGIC_HEADER)) {
             final String serializationName = dis.readUTF();
+            if (serializationName.equals(ColumnarSwapDeserializer.getSerializationName())) {
+                return new ColumnarSwapDeserializer();
+            }
             if (serializationName.equals(SchemaSwapDeserializer.getSerializationName())) {
                 return new SchemaSwapDeserializer();
             }
@@ -459,6 +599,8 @@ public class FileSystemSwapManager implements FlowFileSwapManager {
             newFilename = existingFilename.substring(0, dotIndex) + "." + newPartitionName + ".swap";
         }
 
+        discardPrefetchedContents(swapLocation);
+
         final File newFile = new File(existingFile.getParentFile(), newFilename);
         // Use Files.move and convert to Path's instead of File.rename so that we get an IOException on failure that describes why we failed.
         Files.move(existingFile.toPath(), newFile.toPath());
@@ -1794,6 +1794,8 @@ public class FlowController implements ReportingTaskProvider, Authorizable, Node
             .source(requireNonNull(source))
             .destination(destination)
             .flowFileQueueFactory(flowFileQueueFactory)
+            .adaptiveScheduling(Boolean.parseBoolean(nifiProperties.getProperty(TimerDrivenSchedulingAgent.ADAPTIVE_SCHEDULING_ENABLED,
+                TimerDrivenSchedulingAgent.DEFAULT_ADAPTIVE_SCHEDULING_ENABLED)))
             .build();
 
         return connection;
@@ -0,0 +1,204 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.nifi.controller.queue;
+
+import org.apache.nifi.controller.repository.FlowFileRecord;
+
+import java.util.AbstractQueue;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.ListIterator;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The active queue of a {@link SwappablePriorityQueue} that has no prioritizers. FlowFiles are polled in the order in which
+ * they were added, and any number of threads may add and poll concurrently without locking. The exception is penalized
+ * FlowFiles, which are set aside, ordered by the time at which their penalty expires, until they can be polled again.
+ * <p>
+ * Iteration is weakly consistent, so that it can be done while other threads add and poll, and {@link Iterator#remove()}
+ * is not supported.
+ */
+class FifoActiveQueue extends AbstractQueue<FlowFileRecord> {
+    private final ConcurrentLinkedDeque<FlowFileRecord> ready = new ConcurrentLinkedDeque<>();
+    private final PriorityQueue<FlowFileRecord> penalized = new PriorityQueue<>(20, new QueuePrioritizer(Collections.emptyList())); // guarded by itself
+    private final AtomicInteger penalizedCount = new AtomicInteger(0);
+
+    // ConcurrentLinkedDeque.size() has to traverse the entire deque, so the size is tracked separately.
+    private final AtomicInteger size = new AtomicInteger(0);
+
+    @Override
+    public boolean offer(final FlowFileRecord flowFile) {
+        size.incrementAndGet();
+        enqueue(flowFile);
+        return true;
+    }
+
+    /**
+     * Adds the given FlowFiles only if doing so leaves no more than <code>maxSize</code> FlowFiles in the queue. The check and
+     * the add are atomic with respect to every other add, so concurrent callers can never take the queue past <code>maxSize</code>.
+     *
+     * @return <code>true</code> if the FlowFiles were added, <code>false</code> if the queue was left unchanged
+     */
+    boolean offerAllIfNotExceeding(final Collection<FlowFileRecord> flowFiles, final int maxSize) {
+        final int count = flowFiles.size();
+
+        int current;
+        do {
+            current = size.get();
+            if (current + count > maxSize) {
+                return false;
+            }
+        } while (!size.compareAndSet(current, current + count));
+
+        for (final FlowFileRecord flowFile : flowFiles) {
+            enqueue(flowFile);
+        }
+
+        return true;
+    }
+
+    private void enqueue(final FlowFileRecord flowFile) {
+        if (flowFile.isPenalized()) {
+            addPenalized(flowFile);
+        } else {
+            ready.offerLast(flowFile);
+        }
+    }
+
+    /**
+     * Adds the given FlowFiles to the head of the queue, so that they are polled before any other FlowFile that is not
+     * penalized, in the order given.
+     */
+    void requeue(final List<FlowFileRecord> flowFiles) {
+        final ListIterator<FlowFileRecord> itr = flowFiles.listIterator(flowFiles.size());
+        while (itr.hasPrevious()) {
+            final FlowFileRecord flowFile = itr.previous();
+            if (flowFile.isPenalized()) {
+                addPenalized(flowFile);
+            } else {
+                ready.offerFirst(flowFile);
+            }
+
+            size.incrementAndGet();
+        }
+    }
+
+    private void addPenalized(final FlowFileRecord flowFile) {
+        synchronized (penalized) {
+            penalized.add(flowFile);
+        }
+
+        penalizedCount.incrementAndGet();
+    }
+
+    @Override
+    public FlowFileRecord poll() {
+        // A FlowFile whose penalty has expired has been waiting longer than those that are ready, so it goes first.
+        if (penalizedCount.get() > 0) {
+            final FlowFileRecord expired = pollExpiredPenalty();
+            if (expired != null) {
+                size.decrementAndGet();
+                return expired;
+            }
+        }
+
+        final FlowFileRecord flowFile = ready.pollFirst();
+        if (flowFile != null) {
+            size.decrementAndGet();
+        }
+
+        return flowFile;
+    }
+
+    private FlowFileRecord pollExpiredPenalty() {
+        synchronized (penalized) {
+            final FlowFileRecord head = penalized.peek();
+            if (head == null || head.isPenalized()) {
+                return null;
+            }
+
+            penalized.poll();
+            penalizedCount.decrementAndGet();
+            return head;
+        }
+    }
+
+    /**
+     * Returns the FlowFile that would be polled next or, if every FlowFile is penalized, the one whose penalty expires
+     * first, so that as with a {@link PriorityQueue} the head is penalized only if all FlowFiles are.
+     */
+    @Override
+    public FlowFileRecord peek() {
+        if (penalizedCount.get() > 0) {
+            synchronized (penalized) {
+                final FlowFileRecord head = penalized.peek();
+                if (head != null && !head.isPenalized()) {
+                    return head;
+                }
+
+                final FlowFileRecord first = ready.peekFirst();
+                return first == null ? head : first;
+            }
+        }
+
+        return ready.peekFirst();
+    }
+
+    @Override
+    public Iterator<FlowFileRecord> iterator() {
+        final List<FlowFileRecord> penalizedSnapshot;
+        synchronized (penalized) {
+            penalizedSnapshot = penalized.isEmpty() ? Collections.emptyList() : new ArrayList<>(penalized);
+        }
+
+        final Iterator<FlowFileRecord> readyItr = ready.iterator();
+        final Iterator<FlowFileRecord> penalizedItr = penalizedSnapshot.iterator();
+        return new Iterator<FlowFileRecord>() {
+            @Override
+            public boolean hasNext() {
+                return readyItr.hasNext() || penalizedItr.hasNext();
+            }
+
+            @Override
+            public FlowFileRecord next() {
+                return readyItr.hasNext() ? readyItr.next() : penalizedItr.next();
+            }
+        };
+    }
+
+    @Override
+    public void clear() {
+        ready.clear();
+        synchronized (penalized) {
+            penalized.clear();
+        }
+
+        penalizedCount.set(0);
+        size.set(0);
+    }
+
+    @Override
+    public int size() {
+        return size.get();
+    }
+}
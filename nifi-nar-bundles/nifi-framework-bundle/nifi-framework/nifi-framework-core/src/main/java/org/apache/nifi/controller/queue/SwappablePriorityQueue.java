@@ -77,8 +77,11 @@ public class SwappablePriorityQueue {
     // active queue, then we would end up processing the newer FlowFile before the swapped FlowFile. By
     // keeping these separate, we are able to guarantee that FlowFiles are swapped in in the same order
     // that they are swapped out.
+    // If there are no prioritizers, the active queue is a FifoActiveQueue, which is safe for concurrent use, so that
+    // FlowFiles can be put and polled while holding only the read lock as long as nothing is being swapped. Otherwise
+    // it is a PriorityQueue, which is guarded by the write lock.
     // Guarded by lock.
-    private PriorityQueue<FlowFileRecord> activeQueue;
+    private Queue<FlowFileRecord> activeQueue;
     private ArrayList<FlowFileRecord> swapQueue;
     private boolean swapMode = false;
 
@@ -87,7 +90,7 @@ public class SwappablePriorityQueue {
         this.swapManager = swapManager;
         this.swapThreshold = swapThreshold;
 
-        this.activeQueue = new PriorityQueue<>(20, new QueuePrioritizer(Collections.emptyList()));
+        this.activeQueue = new FifoActiveQueue();
         this.swapQueue = new ArrayList<>();
         this.eventReporter = eventReporter;
         this.flowFileQueue = flowFileQueue;
@@ -118,8 +121,19 @@ public class SwappablePriorityQueue {
             priorities.clear();
             priorities.addAll(newPriorities);
 
-            final PriorityQueue<FlowFileRecord> newQueue = new PriorityQueue<>(Math.max(20, activeQueue.size()), new QueuePrioritizer(newPriorities));
-            newQueue.addAll(activeQueue);
+            final Queue<FlowFileRecord> newQueue;
+            if (newPriorities.isEmpty()) {
+                // Keep the FlowFiles in the order in which they would have been polled
+                newQueue = new FifoActiveQueue();
+                FlowFileRecord flowFile;
+                while ((flowFile = activeQueue.poll()) != null) {
+                    newQueue.add(flowFile);
+                }
+            } else {
+                newQueue = new PriorityQueue<>(Math.max(20, activeQueue.size()), new QueuePrioritizer(newPriorities));
+                newQueue.addAll(activeQueue);
+            }
+
             activeQueue = newQueue;
         } finally {
             writeLock.unlock("setPriorities");
@@ -228,13 +242,17 @@ public class SwappablePriorityQueue {
 
         // replace the contents of the active queue, since we've merged it with the swap queue.
         activeQueue.clear();
-        FlowFileRecord toRequeue;
+        final List<FlowFileRecord> toRequeue = new ArrayList<>(tempQueue.size());
         long activeQueueBytes = 0L;
-        while ((toRequeue = tempQueue.poll()) != null) {
-            activeQueue.offer(toRequeue);
-            activeQueueBytes += toRequeue.getSize();
+        FlowFileRecord record;
+        while ((record = tempQueue.poll()) != null) {
+            toRequeue.add(record);
+            activeQueueBytes += record.getSize();
         }
 
+        Collections.reverse(toRequeue); // currently ordered in reverse priority order, which matters if the active queue is FIFO
+        activeQueue.addAll(toRequeue);
+
         boolean updated = false;
         while (!updated) {
             final FlowFileQueueSize originalSize = getFlowFileQueueSize();
@@ -285,6 +303,12 @@ public class SwappablePriorityQueue {
 
         final int activeQueueSize = activeQueue.size();
         if (activeQueueSize > 0 && activeQueueSize > swapThreshold - SWAP_RECORD_POLL_SIZE) {
+            // Once the active queue is within half a swap file of needing the next swap file, let the swap manager start reading it
+            // so that it is ready by the time that we swap it in.
+            if (!swapLocations.isEmpty() && activeQueueSize <= swapThreshold - SWAP_RECORD_POLL_SIZE / 2) {
+                swapManager.prefetch(swapLocations.get(0), flowFileQueue);
+            }
+
             return;
         }
 
@@ -423,6 +447,24 @@ public class SwappablePriorityQueue {
 
 
     public void put(final FlowFileRecord flowFile) {
+        readLock.lock();
+        try {
+            // Reserving room in the active queue and adding to it is a single atomic step, so that concurrent puts cannot
+            // together go past the swap threshold. If there is no room, the decision to swap is made under the write lock.
+            // The size is incremented first so that a concurrent poll can never take it below zero.
+            if (isFifoWithoutSwapping()) {
+                incrementActiveQueueSize(1, flowFile.getSize());
+                if (((FifoActiveQueue) activeQueue).offerAllIfNotExceeding(Collections.singletonList(flowFile), swapThreshold)) {
+                    logger.debug("{} put to {}", flowFile, this);
+                    return;
+                }
+
+                incrementActiveQueueSize(-1, -flowFile.getSize());
+            }
+        } finally {
+            readLock.unlock("put(FlowFileRecord)");
+        }
+
         writeLock.lock();
         try {
             if (swapMode || activeQueue.size() >= swapThreshold) {
@@ -448,6 +490,23 @@ public class SwappablePriorityQueue {
             bytes += flowFile.getSize();
         }
 
+        readLock.lock();
+        try {
+            // As in put(FlowFileRecord), the threshold check and the add are a single atomic step. The write lock path below
+            // swaps once the active queue would reach the threshold, so the same limit is used here.
+            if (isFifoWithoutSwapping()) {
+                incrementActiveQueueSize(numFiles, bytes);
+                if (((FifoActiveQueue) activeQueue).offerAllIfNotExceeding(flowFiles, swapThreshold - 1)) {
+                    logger.debug("{} put to {}", flowFiles, this);
+                    return;
+                }
+
+                incrementActiveQueueSize(-numFiles, -bytes);
+            }
+        } finally {
+            readLock.unlock("putAll");
+        }
+
         writeLock.lock();
         try {
             if (swapMode || activeQueue.size() >= swapThreshold - numFiles) {
@@ -469,6 +528,22 @@ public class SwappablePriorityQueue {
     public FlowFileRecord poll(final Set<FlowFileRecord> expiredRecords, final long expirationMillis) {
         FlowFileRecord flowFile;
 
+        readLock.lock();
+        try {
+            if (isFifoWithoutSwapping()) {
+                flowFile = pollActiveQueue(expiredRecords, expirationMillis);
+
+                if (flowFile != null) {
+                    logger.debug("{} poll() returning {}", this, flowFile);
+                    incrementUnacknowledgedQueueSize(1, flowFile.getSize());
+                }
+
+                return flowFile;
+            }
+        } finally {
+            readLock.unlock("poll(Set)");
+        }
+
         // First check if we have any records Pre-Fetched.
         writeLock.lock();
         try {
@@ -486,12 +561,21 @@ public class SwappablePriorityQueue {
     }
 
 
+    /**
+     * This method MUST be called with the write lock held
+     */
     private FlowFileRecord doPoll(final Set<FlowFileRecord> expiredRecords, final long expirationMillis) {
+        migrateSwapToActive();
+        return pollActiveQueue(expiredRecords, expirationMillis);
+    }
+
+    /**
+     * This method MUST be called with the write lock held, or with the read lock held if {@link #isFifoWithoutSwapping()}
+     */
+    private FlowFileRecord pollActiveQueue(final Set<FlowFileRecord> expiredRecords, final long expirationMillis) {
         FlowFileRecord flowFile;
         boolean isExpired;
 
-        migrateSwapToActive();
-
         long expiredBytes = 0L;
         do {
             flowFile = this.activeQueue.poll();
@@ -526,12 +610,25 @@ public class SwappablePriorityQueue {
     public List<FlowFileRecord> poll(int maxResults, final Set<FlowFileRecord> expiredRecords, final long expirationMillis) {
         final List<FlowFileRecord> records = new ArrayList<>(Math.min(1, maxResults));
 
-        // First check if we have any records Pre-Fetched.
-        writeLock.lock();
+        boolean polled = false;
+        readLock.lock();
         try {
-            doPoll(records, maxResults, expiredRecords, expirationMillis);
+            if (isFifoWithoutSwapping()) {
+                drainActiveQueue(records, maxResults, expiredRecords, expirationMillis);
+                polled = true;
+            }
         } finally {
-            writeLock.unlock("poll(int, Set)");
+            readLock.unlock("poll(int, Set)");
+        }
+
+        if (!polled) {
+            // First check if we have any records Pre-Fetched.
+            writeLock.lock();
+            try {
+                doPoll(records, maxResults, expiredRecords, expirationMillis);
+            } finally {
+                writeLock.unlock("poll(int, Set)");
+            }
         }
 
         if (!records.isEmpty()) {
@@ -590,7 +687,12 @@ public class SwappablePriorityQueue {
                 }
             }
 
-            this.activeQueue.addAll(unselected);
+            if (activeQueue instanceof FifoActiveQueue) {
+                // put them back at the head of the queue, where they came from
+                ((FifoActiveQueue) activeQueue).requeue(unselected);
+            } else {
+                this.activeQueue.addAll(unselected);
+            }
             incrementActiveQueueSize(-flowFilesPulled, -bytesPulled);
 
             if (!selectedFlowFiles.isEmpty()) {
@@ -603,9 +705,18 @@ public class SwappablePriorityQueue {
         }
     }
 
+    /**
+     * This method MUST be called with the write lock held
+     */
     private void doPoll(final List<FlowFileRecord> records, int maxResults, final Set<FlowFileRecord> expiredRecords, final long expirationMillis) {
         migrateSwapToActive();
+        drainActiveQueue(records, maxResults, expiredRecords, expirationMillis);
+    }
 
+    /**
+     * This method MUST be called with the write lock held, or with the read lock held if {@link #isFifoWithoutSwapping()}
+     */
+    private void drainActiveQueue(final List<FlowFileRecord> records, int maxResults, final Set<FlowFileRecord> expiredRecords, final long expirationMillis) {
         final long bytesDrained = drainQueue(activeQueue, records, maxResults, expiredRecords, expirationMillis);
 
         long expiredBytes = 0L;
@@ -618,6 +729,16 @@ public class SwappablePriorityQueue {
     }
 
 
+    /**
+     * Indicates whether FlowFiles can be put and polled while holding only the read lock: the active queue must be safe for
+     * concurrent use, and there must be nothing to swap in or out, as doing so would modify the swap queue and swap locations.
+     *
+     * This method MUST be called with the read lock or the write lock held.
+     */
+    private boolean isFifoWithoutSwapping() {
+        return activeQueue instanceof FifoActiveQueue && !swapMode && swapQueue.isEmpty() && swapLocations.isEmpty();
+    }
+
     protected boolean isExpired(final FlowFile flowFile, final long expirationMillis) {
         return isLaterThan(getExpirationDate(flowFile, expirationMillis));
     }
@@ -789,6 +789,7 @@ public class SocketLoadBalancedFlowFileQueue extends AbstractFlowFileQueue imple
                 // size has been updated to account for them and therefore we will not attempt to assign a negative queue size.
                 adjustSize(flowFiles.size(), flowFiles.stream().mapToLong(FlowFileRecord::getSize).sum());
                 localPartition.putAll(flowFiles);
+                eventListener.triggerDestinationEvent();
             }
         } finally {
             partitionReadLock.unlock();
@@ -271,6 +271,8 @@ public class StandardLoadBalanceProtocol implements LoadBalanceProtocol {
                 }
             }
 
+            contentClaim = persistContent(contentClaim, flowFilesReceived);
+
             // When the Content Claim is created initially, it has a Claimaint Count of 1. We then increment the Claimant Count for each FlowFile that we add to the Content Claim,
             // which means that the claimant count is currently 1 larger than it needs to be. So we will decrement the claimant count now. If that results in a count of 0, then
             // we can go ahead and remove the Content Claim, since we know it's not being referenced.
@@ -297,6 +299,42 @@ public class StandardLoadBalanceProtocol implements LoadBalanceProtocol {
         logger.debug("Successfully received {} FlowFiles from Peer {} to Load Balance for Connection {}", flowFilesReceived.size(), peerDescription, connectionId);
     }
 
+    /**
+     * Gives the Content Repository the chance to move the received content to durable storage, if it holds it only in memory,
+     * before the FlowFiles are persisted in the FlowFile Repository. If the content is moved, the received FlowFiles are updated
+     * to reference the durable Content Claim, which is returned with the Claimant Count of the given Content Claim.
+     */
+    private ContentClaim persistContent(final ContentClaim contentClaim, final List<RemoteFlowFileRecord> flowFilesReceived) throws IOException {
+        if (contentClaim == null) {
+            return null;
+        }
+
+        final ContentClaim persistedClaim = contentRepository.persist(contentClaim);
+        if (persistedClaim == contentClaim) {
+            return contentClaim;
+        }
+
+        for (int i = 0; i < flowFilesReceived.size(); i++) {
+            final RemoteFlowFileRecord remoteFlowFile = flowFilesReceived.get(i);
+            final FlowFileRecord flowFile = remoteFlowFile.getFlowFile();
+            if (flowFile.getContentClaim() != contentClaim) {
+                continue;
+            }
+
+            final FlowFileRecord persistedFlowFile = new StandardFlowFileRecord.Builder().fromFlowFile(flowFile).contentClaim(persistedClaim).build();
+            flowFilesReceived.set(i, new RemoteFlowFileRecord(remoteFlowFile.getRemoteUuid(), persistedFlowFile));
+
+            contentRepository.incrementClaimaintCount(persistedClaim);
+            contentRepository.decrementClaimantCount(contentClaim);
+        }
+
+        if (contentRepository.decrementClaimantCount(contentClaim) == 0) {
+            contentRepository.remove(contentClaim);
+        }
+
+        return persistedClaim;
+    }
+
     private void completeTransaction(final InputStream in, final OutputStream out, final String peerDescription, final List<RemoteFlowFileRecord> flowFilesReceived,
                                      final String connectionId, final long startTimestamp, final LoadBalancedFlowFileQueue flowFileQueue) throws IOException {
         final int completionIndicator = in.read();
@@ -17,19 +17,27 @@
 package org.apache.nifi.controller.repository;
 
 import java.io.ByteArrayInputStream;
+import java.io.EOFException;
 import java.io.File;
 import java.io.FileInputStream;
+import java.io.FileNotFoundException;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
 import java.nio.file.FileVisitResult;
 import java.nio.file.Files;
+import java.nio.file.CopyOption;
 import java.nio.file.NoSuchFileException;
 import java.nio.file.Path;
 import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardCopyOption;
 import java.nio.file.StandardOpenOption;
 import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
@@ -65,6 +73,7 @@ import org.apache.nifi.controller.repository.claim.ResourceClaim;
 import org.apache.nifi.controller.repository.claim.ResourceClaimManager;
 import org.apache.nifi.controller.repository.claim.StandardContentClaim;
 import org.apache.nifi.controller.repository.io.LimitedInputStream;
+import org.apache.nifi.controller.repository.io.MemoryMappedInputStream;
 import org.apache.nifi.engine.FlowEngine;
 import org.apache.nifi.processor.DataUnit;
 import org.apache.nifi.stream.io.ByteCountingOutputStream;
@@ -90,12 +99,29 @@ public class FileSystemRepository implements ContentRepository {
     // unnecessarily large resource claim files
     public static final String APPENDABLE_CLAIM_LENGTH_CAP = "100 MB";
     public static final Pattern MAX_ARCHIVE_SIZE_PATTERN = Pattern.compile("\\d{1,2}%");
+    public static final String MEMORY_MAPPED_READ_THRESHOLD = "nifi.content.repository.memory.mapped.read.threshold";
+    public static final String DEDUPLICATION_ENABLED = "nifi.content.repository.deduplication.enabled";
+    public static final String DEDUPLICATION_MIN_SIZE = "nifi.content.repository.deduplication.min.size";
+    public static final String DEFAULT_DEDUPLICATION_MIN_SIZE = "1 KB";
+    private static final int MAX_DEDUPLICATION_INDEX_SIZE = 100_000;
+    public static final String COLD_CONTAINERS = "nifi.content.repository.cold.containers";
+    public static final String COLD_MIGRATION_AGE = "nifi.content.repository.cold.migration.age";
+    public static final String DEFAULT_COLD_MIGRATION_AGE = "1 hour";
+    private static final String MIGRATION_SUFFIX = ".migrating";
+    // Ends with MIGRATION_SUFFIX, so that an incomplete copy left by a restart is removed like an incomplete migration
+    private static final String ARCHIVE_COPY_SUFFIX = ".archive" + MIGRATION_SUFFIX;
+    private static final int MAX_OPEN_ATTEMPTS = 5;
+    private static final long OPEN_RETRY_BACKOFF_MILLIS = 10L;
     private static final Logger LOG = LoggerFactory.getLogger(FileSystemRepository.class);
 
     private final Logger archiveExpirationLog = LoggerFactory.getLogger(FileSystemRepository.class.getName() + ".archive.expiration");
 
     private final Map<String, Path> containers;
     private final List<String> containerNames;
+    // Containers to which new Content Claims are written. If no cold containers are configured, this is all containers.
+    private final List<String> hotContainerNames;
+    // Containers to which Resource Claims are migrated once they reach a certain age, and to which content is archived
+    private final List<String> coldContainerNames;
     private final AtomicLong index;
 
     private final ScheduledExecutorService executor = new FlowEngine(4, "FileSystemRepository Workers", true);
@@ -121,7 +147,19 @@ public class FileSystemRepository implements ContentRepository {
     private final long maxArchiveMillis;
     private final Map<String, Long> minUsableContainerBytesForArchive = new HashMap<>();
     private final boolean alwaysSync;
+    // Content Claims at least this long are read by mapping them into memory; Long.MAX_VALUE if they never are
+    private final long memoryMappedReadThreshold;
+    // Content Claims at least this long are deduplicated; Long.MAX_VALUE if deduplication is disabled
+    private final long deduplicationMinSize;
+    // Digest of the content of each Content Claim that may be shared by FlowFiles that write the same content
+    private final ConcurrentMap<ContentDigest, ContentClaim> deduplicationIndex = new ConcurrentHashMap<>();
     private final ScheduledExecutorService containerCleanupExecutor;
+    private final long coldMigrationMillis;
+    // The location of each Resource Claim that has been migrated to a cold container during this run. After a restart, the
+    // location is found by looking for the Resource Claim in the cold containers when it no longer exists in its own container.
+    private final ConcurrentMap<ResourceClaim, Path> migratedClaimPaths = new ConcurrentHashMap<>();
+    // Guards moving a Resource Claim between containers against archiving or removing it at the same time
+    private final Object[] claimLocationLocks = new Object[256];
 
     private ResourceClaimManager resourceClaimManager; // effectively final
 
@@ -139,10 +177,15 @@ public class FileSystemRepository implements ContentRepository {
     public FileSystemRepository() {
         containers = null;
         containerNames = null;
+        hotContainerNames = null;
+        coldContainerNames = null;
+        coldMigrationMillis = 0L;
         index = null;
         archiveData = false;
         maxArchiveMillis = 0;
         alwaysSync = false;
+        memoryMappedReadThreshold = Long.MAX_VALUE;
+        deduplicationMinSize = Long.MAX_VALUE;
         containerCleanupExecutor = null;
         nifiProperties = null;
         maxAppendableClaimLength = 0;
@@ -176,6 +219,39 @@ public class FileSystemRepository implements ContentRepository {
         this.containerNames = new ArrayList<>(containers.keySet());
         index = new AtomicLong(0L);
 
+        this.coldContainerNames = new ArrayList<>();
+        final String coldContainers = nifiProperties.getProperty(COLD_CONTAINERS);
+        if (!StringUtils.isBlank(coldContainers)) {
+            for (final String coldContainer : coldContainers.split(",")) {
+                final String containerName = coldContainer.trim();
+                if (!containers.containsKey(containerName)) {
+                    throw new RuntimeException("Invalid value specified for the '" + COLD_CONTAINERS + "' property: there is no Content Repository container named '" + containerName + "'");
+                }
+                if (!coldContainerNames.contains(containerName)) {
+                    coldContainerNames.add(containerName);
+                }
+            }
+            Collections.sort(coldContainerNames);
+        }
+
+        this.hotContainerNames = new ArrayList<>(containerNames);
+        hotContainerNames.removeAll(coldContainerNames);
+        if (hotContainerNames.isEmpty()) {
+            throw new RuntimeException("Invalid value specified for the '" + COLD_CONTAINERS + "' property: at least one Content Repository container must not be cold");
+        }
+
+        if (coldContainerNames.isEmpty()) {
+            coldMigrationMillis = 0L;
+        } else {
+            final String migrationAge = nifiProperties.getProperty(COLD_MIGRATION_AGE, DEFAULT_COLD_MIGRATION_AGE);
+            coldMigrationMillis = FormatUtils.getTimeDuration(migrationAge.trim(), TimeUnit.MILLISECONDS);
+            LOG.info("New content will be written to containers {}; content will be migrated to containers {} after {} and archived there", hotContainerNames, coldContainerNames, migrationAge.trim());
+        }
+
+        for (int i = 0; i < claimLocationLocks.length; i++) {
+            claimLocationLocks[i] = new Object();
+        }
+
         for (final String containerName : containerNames) {
             reclaimable.put(containerName, new LinkedBlockingQueue<>(10000));
             archivedFiles.put(containerName, new LinkedBlockingQueue<>(100000));
@@ -248,6 +324,23 @@ public class FileSystemRepository implements ContentRepository {
 
         this.alwaysSync = Boolean.parseBoolean(nifiProperties.getProperty("nifi.content.repository.always.sync"));
         LOG.info("Initializing FileSystemRepository with 'Always Sync' set to {}", alwaysSync);
+
+        final String mappedReadThreshold = nifiProperties.getProperty(MEMORY_MAPPED_READ_THRESHOLD);
+        if (StringUtils.isBlank(mappedReadThreshold)) {
+            this.memoryMappedReadThreshold = Long.MAX_VALUE;
+        } else {
+            this.memoryMappedReadThreshold = DataUnit.parseDataSize(mappedReadThreshold.trim(), DataUnit.B).longValue();
+            LOG.info("Content Claims of {} or more will be read by mapping them into memory", mappedReadThreshold.trim());
+        }
+
+        if (Boolean.parseBoolean(nifiProperties.getProperty(DEDUPLICATION_ENABLED))) {
+            final String minSize = nifiProperties.getProperty(DEDUPLICATION_MIN_SIZE, DEFAULT_DEDUPLICATION_MIN_SIZE);
+            this.deduplicationMinSize = DataUnit.parseDataSize(minSize.trim(), DataUnit.B).longValue();
+            LOG.info("Content Claims of {} or more will be deduplicated", minSize.trim());
+        } else {
+            this.deduplicationMinSize = Long.MAX_VALUE;
+        }
+
         initializeRepository();
 
         containerCleanupExecutor = new FlowEngine(containers.size(), "Cleanup FileSystemRepository Container", true);
@@ -263,6 +356,12 @@ public class FileSystemRepository implements ContentRepository {
         for (int i = 0; i < fileRespositoryPaths.size(); i++) {
             executor.scheduleWithFixedDelay(new ArchiveOrDestroyDestructableClaims(), 1, 1, TimeUnit.SECONDS);
         }
+        if (deduplicationMinSize < Long.MAX_VALUE) {
+            executor.scheduleWithFixedDelay(this::removeUnreferencedDeduplicationEntries, 1, 1, TimeUnit.MINUTES);
+        }
+        if (!coldContainerNames.isEmpty()) {
+            executor.scheduleWithFixedDelay(new MigrateToColdContainers(), 1, 1, TimeUnit.MINUTES);
+        }
 
         final long cleanupMillis = this.determineCleanupInterval(nifiProperties);
 
@@ -483,12 +582,41 @@ public class FileSystemRepository implements ContentRepository {
         final String id = idPath.toFile().getName();
         final String sectionName = sectionPath.toFile().getName();
 
+        if (id.endsWith(MIGRATION_SUFFIX)) {
+            // an incomplete copy of a Resource Claim that was being migrated to a cold container
+            try {
+                Files.deleteIfExists(fileToRemove);
+            } catch (final IOException e) {
+                LOG.warn("Unable to remove incomplete copy {} from File System Repository due to {}", fileToRemove, e.toString());
+            }
+            return;
+        }
+
         final ResourceClaim resourceClaim = resourceClaimManager.newResourceClaim(containerName, sectionName, id, false, false);
-        if (resourceClaimManager.getClaimantCount(resourceClaim) == 0) {
+        if (resourceClaimManager.getClaimantCount(resourceClaim) == 0 && !isMigratedContent(containerName, sectionName, id)) {
             removeIncompleteContent(fileToRemove);
         }
     }
 
+    /**
+     * @return <code>true</code> if the given file in a cold container holds the content of a Resource Claim that belongs to
+     * another container and that was migrated to the cold container
+     */
+    private boolean isMigratedContent(final String containerName, final String sectionName, final String id) {
+        if (!coldContainerNames.contains(containerName)) {
+            return false;
+        }
+
+        for (final String hotContainerName : hotContainerNames) {
+            final ResourceClaim resourceClaim = resourceClaimManager.getResourceClaim(hotContainerName, sectionName, id);
+            if (resourceClaim != null && resourceClaimManager.getClaimantCount(resourceClaim) > 0) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
     private void removeIncompleteContent(final Path fileToRemove) {
         String fileDescription = null;
         try {
@@ -537,7 +665,7 @@ public class FileSystemRepository implements ContentRepository {
         }
 
         // Create the Path that points to the data
-        Path resolvedPath = containerPath.resolve(resourceClaim.getSection()).resolve(resourceClaim.getId());
+        Path resolvedPath = getCurrentPath(resourceClaim);
 
         // If the data does not exist, create a Path that points to where the data would exist in the archive directory.
         if (!Files.exists(resolvedPath)) {
@@ -550,6 +678,88 @@ public class FileSystemRepository implements ContentRepository {
         return resolvedPath;
     }
 
+    /**
+     * Returns the Path of the given Resource Claim outside of the archive. This is the Path within the Resource Claim's own
+     * container unless the Resource Claim has been migrated to a cold container.
+     */
+    private Path getCurrentPath(final ResourceClaim resourceClaim) {
+        final Path migratedPath = migratedClaimPaths.get(resourceClaim);
+        if (migratedPath != null) {
+            return migratedPath;
+        }
+
+        final Path path = getPath(resourceClaim);
+        if (path == null || coldContainerNames.isEmpty() || coldContainerNames.contains(resourceClaim.getContainer()) || Files.exists(path)) {
+            return path;
+        }
+
+        // The Resource Claim may have been migrated before a restart, or to a cold container that has since been reconfigured
+        final String preferredContainerName = getColdContainerName(resourceClaim);
+        final List<String> candidateContainerNames = new ArrayList<>(coldContainerNames);
+        candidateContainerNames.remove(preferredContainerName);
+        candidateContainerNames.add(0, preferredContainerName);
+        for (final String coldContainerName : candidateContainerNames) {
+            final Path coldPath = containers.get(coldContainerName).resolve(resourceClaim.getSection()).resolve(resourceClaim.getId());
+            if (Files.exists(coldPath)) {
+                migratedClaimPaths.put(resourceClaim, coldPath);
+                return coldPath;
+            }
+        }
+
+        return path;
+    }
+
+    /**
+     * @return the name of the cold container to which the given Resource Claim is migrated or archived. Each Resource Claim
+     * always maps to the same cold container, so that it can be found there without a search.
+     */
+    private String getColdContainerName(final ResourceClaim resourceClaim) {
+        return coldContainerNames.get(Math.floorMod(resourceClaim.getId().hashCode(), coldContainerNames.size()));
+    }
+
+    private boolean isMovedToColdContainer(final ResourceClaim resourceClaim) {
+        return !coldContainerNames.isEmpty() && !coldContainerNames.contains(resourceClaim.getContainer());
+    }
+
+    private Object getLocationLock(final ResourceClaim resourceClaim) {
+        return claimLocationLocks[Math.floorMod(resourceClaim.hashCode(), claimLocationLocks.length)];
+    }
+
+    /**
+     * Opens the content of the given claim for reading. If the Resource Claim is migrated or archived after its location
+     * is determined but before it is opened, its location is determined again, backing off a little longer each time, up
+     * to {@link #MAX_OPEN_ATTEMPTS} times. If the content no longer exists anywhere, a ContentNotFoundException is thrown.
+     */
+    private <T> T open(final ContentClaim claim, final ClaimOpener<T> opener) throws IOException {
+        for (int attempt = 1;; attempt++) {
+            final Path path = getPath(claim, true);
+            try {
+                return opener.open(path);
+            } catch (final NoSuchFileException | FileNotFoundException e) {
+                if (attempt >= MAX_OPEN_ATTEMPTS) {
+                    throw e;
+                }
+
+                LOG.debug("{} was moved after it was located at {}; will locate it again", claim, path);
+            }
+
+            try {
+                Thread.sleep(OPEN_RETRY_BACKOFF_MILLIS << (attempt - 1));
+            } catch (final InterruptedException ie) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Interrupted while waiting to read " + claim, ie);
+            }
+        }
+    }
+
+    private FileChannel openChannel(final ContentClaim claim) throws IOException {
+        return open(claim, path -> FileChannel.open(path, StandardOpenOption.READ));
+    }
+
+    private interface ClaimOpener<T> {
+        T open(Path path) throws IOException;
+    }
+
     @Override
     public ContentClaim create(final boolean lossTolerant) throws IOException {
         ResourceClaim resourceClaim;
@@ -562,9 +772,9 @@ public class FileSystemRepository implements ContentRepository {
             String containerName = null;
             boolean waitRequired = true;
             ContainerState containerState = null;
-            for (long containerIndex = currentIndex; containerIndex < currentIndex + containers.size(); containerIndex++) {
-                final long modulatedContainerIndex = containerIndex % containers.size();
-                containerName = containerNames.get((int) modulatedContainerIndex);
+            for (long containerIndex = currentIndex; containerIndex < currentIndex + hotContainerNames.size(); containerIndex++) {
+                final long modulatedContainerIndex = containerIndex % hotContainerNames.size();
+                containerName = hotContainerNames.get((int) modulatedContainerIndex);
 
                 containerState = containerStateMap.get(containerName);
                 if (!containerState.isWaitRequired()) {
@@ -657,12 +867,6 @@ public class FileSystemRepository implements ContentRepository {
             return false;
         }
 
-        Path path = null;
-        try {
-            path = getPath(claim);
-        } catch (final ContentNotFoundException cnfe) {
-        }
-
         // Ensure that we have no writable claim streams for this resource claim
         final ByteCountingOutputStream bcos = writableClaimStreams.remove(claim);
 
@@ -674,10 +878,15 @@ public class FileSystemRepository implements ContentRepository {
             }
         }
 
-        final File file = path.toFile();
-        if (!file.delete() && file.exists()) {
-            LOG.warn("Unable to delete {} at path {}", new Object[]{claim, path});
-            return false;
+        synchronized (getLocationLock(claim)) {
+            final Path path = getCurrentPath(claim);
+            migratedClaimPaths.remove(claim);
+
+            final File file = path.toFile();
+            if (!file.delete() && file.exists()) {
+                LOG.warn("Unable to delete {} at path {}", new Object[]{claim, path});
+                return false;
+            }
         }
 
         return true;
@@ -690,9 +899,9 @@ public class FileSystemRepository implements ContentRepository {
         }
 
         final ContentClaim newClaim = create(lossTolerant);
-        try (final InputStream in = read(original);
-                final OutputStream out = write(newClaim)) {
-            StreamUtils.copy(in, out);
+        try (final FileChannel in = openChannel(original);
+                final ContentRepositoryOutputStream out = write(newClaim, false)) {
+            out.transferFrom(in, original.getOffset(), size(original));
         } catch (final IOException ioe) {
             decrementClaimantCount(newClaim);
             remove(newClaim);
@@ -733,8 +942,9 @@ public class FileSystemRepository implements ContentRepository {
 
     @Override
     public long importFrom(final Path content, final ContentClaim claim) throws IOException {
-        try (final InputStream in = Files.newInputStream(content, StandardOpenOption.READ)) {
-            return importFrom(in, claim);
+        try (final FileChannel in = FileChannel.open(content, StandardOpenOption.READ);
+                final ContentRepositoryOutputStream out = write(claim, false)) {
+            return out.transferFrom(in, 0L, in.size());
         }
     }
 
@@ -755,9 +965,9 @@ public class FileSystemRepository implements ContentRepository {
             return 0L;
         }
 
-        try (final InputStream in = read(claim);
+        try (final FileChannel in = openChannel(claim);
                 final FileOutputStream fos = new FileOutputStream(destination.toFile(), append)) {
-            final long copied = StreamUtils.copy(in, fos);
+            final long copied = transfer(in, claim.getOffset(), size(claim), fos.getChannel());
             if (alwaysSync) {
                 fos.getFD().sync();
             }
@@ -784,12 +994,12 @@ public class FileSystemRepository implements ContentRepository {
 
         }
 
-        try (final InputStream in = read(claim);
+        try (final FileChannel in = openChannel(claim);
                 final FileOutputStream fos = new FileOutputStream(destination.toFile(), append)) {
-            if (offset > 0) {
-                StreamUtils.skip(in, offset);
+            final long copied = transfer(in, claim.getOffset() + offset, length, fos.getChannel());
+            if (copied < length) {
+                throw new EOFException("Expected to copy " + length + " bytes from " + claim + " but only " + copied + " bytes were available");
             }
-            StreamUtils.copy(in, fos, length);
             if (alwaysSync) {
                 fos.getFD().sync();
             }
@@ -852,8 +1062,11 @@ public class FileSystemRepository implements ContentRepository {
         if (claim == null) {
             return new ByteArrayInputStream(new byte[0]);
         }
-        final Path path = getPath(claim, true);
-        final FileInputStream fis = new FileInputStream(path.toFile());
+        if (claim.getLength() >= memoryMappedReadThreshold) {
+            return new MemoryMappedInputStream(openChannel(claim), claim.getOffset(), claim::getLength);
+        }
+
+        final FileInputStream fis = open(claim, path -> new FileInputStream(path.toFile()));
         if (claim.getOffset() > 0L) {
             try {
                 StreamUtils.skip(fis, claim.getOffset());
@@ -884,7 +1097,7 @@ public class FileSystemRepository implements ContentRepository {
         return write(claim, false);
     }
 
-    private OutputStream write(final ContentClaim claim, final boolean append) throws IOException {
+    private ContentRepositoryOutputStream write(final ContentClaim claim, final boolean append) throws IOException {
         if (claim == null) {
             throw new NullPointerException("ContentClaim cannot be null");
         }
@@ -903,139 +1116,7 @@ public class FileSystemRepository implements ContentRepository {
         ByteCountingOutputStream claimStream = writableClaimStreams.get(scc.getResourceClaim());
         final int initialLength = append ? (int) Math.max(0, scc.getLength()) : 0;
 
-        final ByteCountingOutputStream bcos = claimStream;
-        final OutputStream out = new OutputStream() {
-            private long bytesWritten = 0L;
-            private boolean recycle = true;
-            private boolean closed = false;
-
-            @Override
-            public String toString() {
-                return "FileSystemRepository Stream [" + scc + "]";
-            }
-
-            @Override
-            public synchronized void write(final int b) throws IOException {
-                if (closed) {
-                    throw new IOException("Stream is closed");
-                }
-
-                try {
-                    bcos.write(b);
-                } catch (final IOException ioe) {
-                    recycle = false;
-                    throw new IOException("Failed to write to " + this, ioe);
-                }
-
-                bytesWritten++;
-                scc.setLength(bytesWritten + initialLength);
-            }
-
-            @Override
-            public synchronized void write(final byte[] b) throws IOException {
-                if (closed) {
-                    throw new IOException("Stream is closed");
-                }
-
-                try {
-                    bcos.write(b);
-                } catch (final IOException ioe) {
-                    recycle = false;
-                    throw new IOException("Failed to write to " + this, ioe);
-                }
-
-                bytesWritten += b.length;
-                scc.setLength(bytesWritten + initialLength);
-            }
-
-            @Override
-            public synchronized void write(final byte[] b, final int off, final int len) throws IOException {
-                if (closed) {
-                    throw new IOException("Stream is closed");
-                }
-
-                try {
-                    bcos.write(b, off, len);
-                } catch (final IOException ioe) {
-                    recycle = false;
-                    throw new IOException("Failed to write to " + this, ioe);
-                }
-
-                bytesWritten += len;
-
-                scc.setLength(bytesWritten + initialLength);
-            }
-
-            @Override
-            public synchronized void flush() throws IOException {
-                if (closed) {
-                    throw new IOException("Stream is closed");
-                }
-
-                bcos.flush();
-            }
-
-            @Override
-            public synchronized void close() throws IOException {
-                closed = true;
-
-                if (alwaysSync) {
-                    ((FileOutputStream) bcos.getWrappedStream()).getFD().sync();
-                }
-
-                if (scc.getLength() < 0) {
-                    // If claim was not written to, set length to 0
-                    scc.setLength(0L);
-                }
-
-                // if we've not yet hit the threshold for appending to a resource claim, add the claim
-                // to the writableClaimQueue so that the Resource Claim can be used again when create()
-                // is called. In this case, we don't have to actually close the file stream. Instead, we
-                // can just add it onto the queue and continue to use it for the next content claim.
-                final long resourceClaimLength = scc.getOffset() + scc.getLength();
-                if (recycle && resourceClaimLength < maxAppendableClaimLength) {
-                    final ClaimLengthPair pair = new ClaimLengthPair(scc.getResourceClaim(), resourceClaimLength);
-
-                    // We are checking that writableClaimStreams contains the resource claim as a key, as a sanity check.
-                    // It should always be there. However, we have encountered a bug before where we archived content before
-                    // we should have. As a result, the Resource Claim and the associated OutputStream were removed from the
-                    // writableClaimStreams map, and this caused a NullPointerException. Worse, the call here to
-                    // writableClaimQueue.offer() means that the ResourceClaim was then reused, which resulted in an endless
-                    // loop of NullPointerException's being thrown. As a result, we simply ensure that the Resource Claim does
-                    // in fact have an OutputStream associated with it before adding it back to the writableClaimQueue.
-                    final boolean enqueued = writableClaimStreams.get(scc.getResourceClaim()) != null && writableClaimQueue.offer(pair);
-
-                    if (enqueued) {
-                        LOG.debug("Claim length less than max; Adding {} back to Writable Claim Queue", this);
-                    } else {
-                        writableClaimStreams.remove(scc.getResourceClaim());
-                        resourceClaimManager.freeze(scc.getResourceClaim());
-
-                        bcos.close();
-
-                        LOG.debug("Claim length less than max; Closing {} because could not add back to queue", this);
-                        if (LOG.isTraceEnabled()) {
-                            LOG.trace("Stack trace: ", new RuntimeException("Stack Trace for closing " + this));
-                        }
-                    }
-                } else {
-                    // we've reached the limit for this claim. Don't add it back to our queue.
-                    // Instead, just remove it and move on.
-
-                    // Mark the claim as no longer being able to be written to
-                    resourceClaimManager.freeze(scc.getResourceClaim());
-
-                    // ensure that the claim is no longer on the queue
-                    writableClaimQueue.remove(new ClaimLengthPair(scc.getResourceClaim(), resourceClaimLength));
-
-                    bcos.close();
-                    LOG.debug("Claim lenth >= max; Closing {}", this);
-                    if (LOG.isTraceEnabled()) {
-                        LOG.trace("Stack trace: ", new RuntimeException("Stack Trace for closing " + this));
-                    }
-                }
-            }
-        };
+        final ContentRepositoryOutputStream out = new ContentRepositoryOutputStream(scc, claimStream, initialLength);
 
         LOG.debug("Writing to {}", out);
         if (LOG.isTraceEnabled()) {
@@ -1045,6 +1126,27 @@ public class FileSystemRepository implements ContentRepository {
         return out;
     }
 
+    /**
+     * Copies the given number of bytes, starting at the given position, from the given FileChannel to the given Channel. When the
+     * operating system supports it, the bytes are copied by the kernel rather than through a buffer in the JVM's heap. Fewer bytes
+     * than requested are copied only if the end of the source is reached first.
+     *
+     * @return the number of bytes copied
+     */
+    private static long transfer(final FileChannel source, final long position, final long count, final WritableByteChannel target) throws IOException {
+        long transferred = 0L;
+        while (transferred < count) {
+            final long bytesTransferred = source.transferTo(position + transferred, count - transferred, target);
+            if (bytesTransferred <= 0) {
+                break;
+            }
+
+            transferred += bytesTransferred;
+        }
+
+        return transferred;
+    }
+
     @Override
     public void purge() {
         // delete all content from repositories
@@ -1076,9 +1178,65 @@ public class FileSystemRepository implements ContentRepository {
             }
         }
 
+        deduplicationIndex.clear();
         resourceClaimManager.purge();
     }
 
+    @Override
+    public ContentClaim deduplicate(final ContentClaim claim) throws IOException {
+        if (claim == null || claim.getLength() < deduplicationMinSize) {
+            return claim;
+        }
+
+        final ContentDigest digest;
+        try (final InputStream in = read(claim)) {
+            digest = ContentDigest.compute(in);
+        }
+
+        final ContentClaim existing = deduplicationIndex.get(digest);
+        if (existing != null && !existing.equals(claim)) {
+            if (incrementClaimantCountIfReferenced(existing.getResourceClaim())) {
+                LOG.debug("Content of {} is identical to that of {}; sharing {}", claim, existing, existing);
+                return existing;
+            }
+
+            deduplicationIndex.remove(digest, existing);
+        }
+
+        // The index is bounded, so if it is full, content is not deduplicated until unreferenced claims are removed from it
+        if (deduplicationIndex.size() < MAX_DEDUPLICATION_INDEX_SIZE) {
+            deduplicationIndex.putIfAbsent(digest, claim);
+        }
+
+        return claim;
+    }
+
+    /**
+     * Increments the claimant count of the given Resource Claim only if it is still referenced. Once the count has reached 0,
+     * the Resource Claim may already have been archived or destroyed, and if it is no longer writable, its count must never
+     * increase again.
+     */
+    private boolean incrementClaimantCountIfReferenced(final ResourceClaim resourceClaim) {
+        synchronized (resourceClaim) {
+            if (resourceClaimManager.getClaimantCount(resourceClaim) < 1) {
+                return false;
+            }
+
+            resourceClaimManager.incrementClaimantCount(resourceClaim);
+            return true;
+        }
+    }
+
+    private void removeUnreferencedDeduplicationEntries() {
+        try {
+            final int sizeBefore = deduplicationIndex.size();
+            deduplicationIndex.values().removeIf(claim -> resourceClaimManager.getClaimantCount(claim.getResourceClaim()) < 1);
+            LOG.debug("Removed {} unreferenced Content Claims from the deduplication index", sizeBefore - deduplicationIndex.size());
+        } catch (final Throwable t) {
+            LOG.error("Failed to remove unreferenced Content Claims from the deduplication index", t);
+        }
+    }
+
     private class BinDestructableClaims implements Runnable {
 
         @Override
@@ -1130,7 +1288,16 @@ public class FileSystemRepository implements ContentRepository {
         final String claimId = claim.getId();
         final Path containerPath = containers.get(claim.getContainer());
         final Path archivePath = containerPath.resolve(claim.getSection()).resolve(ARCHIVE_DIR_NAME).resolve(claimId);
-        return archivePath;
+        if (!isMovedToColdContainer(claim) || Files.exists(archivePath)) {
+            return archivePath;
+        }
+
+        return getColdArchivePath(claim);
+    }
+
+    private Path getColdArchivePath(final ResourceClaim claim) {
+        final Path coldContainerPath = containers.get(getColdContainerName(claim));
+        return coldContainerPath.resolve(claim.getSection()).resolve(ARCHIVE_DIR_NAME).resolve(claim.getId());
     }
 
     @Override
@@ -1143,7 +1310,7 @@ public class FileSystemRepository implements ContentRepository {
             return false;
         }
 
-        if (Files.exists(path)) {
+        if (Files.exists(getCurrentPath(contentClaim.getResourceClaim()))) {
             return true;
         }
 
@@ -1174,16 +1341,115 @@ public class FileSystemRepository implements ContentRepository {
             }
         }
 
-        final Path curPath = getPath(claim);
-        if (curPath == null) {
-            return false;
+        // Archived content is kept only in cold containers. As the cold container is usually on another file system, content
+        // that is still in its hot container is copied to the cold container before taking the lock, as this may take a while,
+        // so that only a rename and a delete are done while holding it.
+        Path copyPath = null;
+        final Path hotPath = getPath(claim);
+        if (isMovedToColdContainer(claim) && hotPath != null && !migratedClaimPaths.containsKey(claim)) {
+            final Path coldArchivePath = getColdArchivePath(claim);
+            copyPath = coldArchivePath.getParent().resolveSibling(claim.getId() + ARCHIVE_COPY_SUFFIX);
+            if (!copyToColdContainer(hotPath, copyPath)) {
+                copyPath = null;
+            }
+        }
+
+        final boolean archived;
+        try {
+            synchronized (getLocationLock(claim)) {
+                final Path curPath = getCurrentPath(claim);
+                if (curPath == null) {
+                    return false;
+                }
+
+                migratedClaimPaths.remove(claim);
+                if (isMovedToColdContainer(claim) && curPath.equals(hotPath)) {
+                    if (copyPath == null) {
+                        // The content could not be copied ahead of time, so it is moved now, replacing any incomplete copy
+                        archived = archive(curPath, getColdArchivePath(claim), StandardCopyOption.REPLACE_EXISTING);
+                    } else {
+                        archived = archive(copyPath, getColdArchivePath(claim), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                        if (archived) {
+                            copyPath = null;
+                            Files.delete(curPath);
+                        }
+                    }
+                } else {
+                    archived = archive(curPath);
+                }
+            }
+        } finally {
+            if (copyPath != null) {
+                Files.deleteIfExists(copyPath);
+            }
         }
 
-        final boolean archived = archive(curPath);
         LOG.debug("Successfully moved {} to archive", claim);
         return archived;
     }
 
+    /**
+     * @return the name of the container to whose archive the given Resource Claim is moved
+     */
+    private String getArchiveContainerName(final ResourceClaim claim) {
+        return isMovedToColdContainer(claim) ? getColdContainerName(claim) : claim.getContainer();
+    }
+
+    // visible for testing
+    boolean migrate(final ResourceClaim claim) throws IOException {
+        if (claim.isWritable() || !isMovedToColdContainer(claim)) {
+            return false;
+        }
+
+        final Path hotPath = getPath(claim);
+        final Path coldPath = containers.get(getColdContainerName(claim)).resolve(claim.getSection()).resolve(claim.getId());
+        final Path tempPath = coldPath.resolveSibling(claim.getId() + MIGRATION_SUFFIX);
+
+        // Copy the content before taking the lock, as this may take a while
+        if (!copyToColdContainer(hotPath, tempPath)) {
+            // the content was archived or removed in the meantime
+            return false;
+        }
+
+        synchronized (getLocationLock(claim)) {
+            // If the claim is no longer referenced, it is about to be archived or removed, so it need not be migrated.
+            // As the claim is not writable, its claimant count cannot increase again once it has reached 0.
+            if (resourceClaimManager.getClaimantCount(claim) < 1 || !Files.exists(hotPath)) {
+                Files.deleteIfExists(tempPath);
+                return false;
+            }
+
+            Files.move(tempPath, coldPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            migratedClaimPaths.put(claim, coldPath);
+            Files.delete(hotPath);
+        }
+
+        LOG.debug("Migrated {} to {}", claim, coldPath);
+        return true;
+    }
+
+    /**
+     * Copies the given hot file to the given path in a cold container, replacing any incomplete copy from a previous attempt.
+     * The copy is synced to disk because the original is deleted as soon as the copy takes its place.
+     *
+     * @return <code>false</code> if the hot file no longer exists
+     */
+    private boolean copyToColdContainer(final Path hotPath, final Path copyPath) throws IOException {
+        try {
+            Files.createDirectories(copyPath.getParent());
+            Files.copy(hotPath, copyPath, StandardCopyOption.REPLACE_EXISTING);
+        } catch (final NoSuchFileException nsfe) {
+            Files.deleteIfExists(copyPath);
+            return false;
+        }
+
+        try (final FileChannel channel = FileChannel.open(copyPath, StandardOpenOption.WRITE)) {
+            channel.force(true);
+        }
+
+        return true;
+    }
+
     protected int getOpenStreamCount() {
         return writableClaimStreams.size();
     }
@@ -1202,8 +1468,12 @@ public class FileSystemRepository implements ContentRepository {
             return false;
         }
 
+        return archive(curPath, archivePath);
+    }
+
+    private boolean archive(final Path curPath, final Path archivePath, final CopyOption... options) throws IOException {
         try {
-            Files.move(curPath, archivePath);
+            Files.move(curPath, archivePath, options);
             return true;
         } catch (final NoSuchFileException nsfee) {
             // If the current path exists, try to create archive path and do the move again.
@@ -1216,7 +1486,7 @@ public class FileSystemRepository implements ContentRepository {
                 // of the Exception being thrown in these cases, rather than have the overhead of checking
                 // for the existence of the directory continually.
                 Files.createDirectories(archivePath.getParent());
-                Files.move(curPath, archivePath);
+                Files.move(curPath, archivePath, options);
                 return true;
             }
 
@@ -1468,7 +1738,6 @@ public class FileSystemRepository implements ContentRepository {
                     for (final Map.Entry<String, BlockingQueue<ResourceClaim>> entry : reclaimable.entrySet()) {
                         // drain the queue of all ContentClaims that can be destroyed for the given container.
                         final String container = entry.getKey();
-                        final ContainerState containerState = containerStateMap.get(container);
 
                         toRemove.clear();
                         entry.getValue().drainTo(toRemove);
@@ -1482,7 +1751,7 @@ public class FileSystemRepository implements ContentRepository {
                             if (archiveData) {
                                 try {
                                     if (archive(claim)) {
-                                        containerState.incrementArchiveCount();
+                                        containerStateMap.get(getArchiveContainerName(claim)).incrementArchiveCount();
                                         successCount++;
                                     }
                                 } catch (final Exception e) {
@@ -1520,6 +1789,61 @@ public class FileSystemRepository implements ContentRepository {
         }
     }
 
+    private class MigrateToColdContainers implements Runnable {
+
+        @Override
+        public void run() {
+            final long migrationThreshold = System.currentTimeMillis() - coldMigrationMillis;
+            for (final String containerName : hotContainerNames) {
+                try {
+                    int migratedCount = 0;
+                    final long start = System.nanoTime();
+                    final Path containerPath = containers.get(containerName);
+                    for (int i = 0; i < SECTIONS_PER_CONTAINER; i++) {
+                        final String section = String.valueOf(i);
+                        final File[] files = containerPath.resolve(section).toFile().listFiles();
+                        if (files == null) {
+                            continue;
+                        }
+
+                        for (final File file : files) {
+                            if (file.isDirectory() || getLastModTime(file) > migrationThreshold) {
+                                continue;
+                            }
+
+                            // Resource Claims that are not referenced by any FlowFile are not known to the Resource Claim Manager
+                            final ResourceClaim claim = resourceClaimManager.getResourceClaim(containerName, section, file.getName());
+                            if (claim == null || resourceClaimManager.getClaimantCount(claim) < 1) {
+                                continue;
+                            }
+
+                            try {
+                                if (migrate(claim)) {
+                                    migratedCount++;
+                                }
+                            } catch (final IOException ioe) {
+                                LOG.warn("Failed to migrate {} to cold container {} due to {}", claim, getColdContainerName(claim), ioe.toString());
+                                if (LOG.isDebugEnabled()) {
+                                    LOG.warn("", ioe);
+                                }
+                            }
+                        }
+                    }
+
+                    if (migratedCount > 0) {
+                        final long millis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+                        LOG.info("Successfully migrated {} Resource Claims from Container {} to cold containers in {} millis", migratedCount, containerName, millis);
+                    }
+                } catch (final Throwable t) {
+                    LOG.error("Failed to migrate content from container {} to cold containers due to {}", containerName, t.toString());
+                    if (LOG.isDebugEnabled()) {
+                        LOG.error("", t);
+                    }
+                }
+            }
+        }
+    }
+
     private static class ArchiveInfo {
 
         private final Path containerPath;
@@ -1713,6 +2037,226 @@ public class FileSystemRepository implements ContentRepository {
         }
     }
 
+    private class ContentRepositoryOutputStream extends OutputStream {
+        private final StandardContentClaim scc;
+        private final ByteCountingOutputStream bcos;
+        private final int initialLength;
+        private long bytesWritten = 0L;
+        private boolean recycle = true;
+        private boolean closed = false;
+
+        private ContentRepositoryOutputStream(final StandardContentClaim scc, final ByteCountingOutputStream bcos, final int initialLength) {
+            this.scc = scc;
+            this.bcos = bcos;
+            this.initialLength = initialLength;
+        }
+
+        @Override
+        public String toString() {
+            return "FileSystemRepository Stream [" + scc + "]";
+        }
+
+        @Override
+        public synchronized void write(final int b) throws IOException {
+            if (closed) {
+                throw new IOException("Stream is closed");
+            }
+
+            try {
+                bcos.write(b);
+            } catch (final IOException ioe) {
+                recycle = false;
+                throw new IOException("Failed to write to " + this, ioe);
+            }
+
+            bytesWritten++;
+            scc.setLength(bytesWritten + initialLength);
+        }
+
+        @Override
+        public synchronized void write(final byte[] b) throws IOException {
+            if (closed) {
+                throw new IOException("Stream is closed");
+            }
+
+            try {
+                bcos.write(b);
+            } catch (final IOException ioe) {
+                recycle = false;
+                throw new IOException("Failed to write to " + this, ioe);
+            }
+
+            bytesWritten += b.length;
+            scc.setLength(bytesWritten + initialLength);
+        }
+
+        @Override
+        public synchronized void write(final byte[] b, final int off, final int len) throws IOException {
+            if (closed) {
+                throw new IOException("Stream is closed");
+            }
+
+            try {
+                bcos.write(b, off, len);
+            } catch (final IOException ioe) {
+                recycle = false;
+                throw new IOException("Failed to write to " + this, ioe);
+            }
+
+            bytesWritten += len;
+
+            scc.setLength(bytesWritten + initialLength);
+        }
+
+        /**
+         * Copies the given number of bytes, starting at the given position, from the given FileChannel to the end
+         * of the Resource Claim's file, without copying them into the JVM's heap.
+         */
+        synchronized long transferFrom(final FileChannel source, final long position, final long count) throws IOException {
+            if (closed) {
+                throw new IOException("Stream is closed");
+            }
+
+            final long transferred;
+            try {
+                // Hold the claim stream's lock, as its write methods do, so that nothing else is written to the file
+                // during the transfer. The stream's byte count is not updated because it is not used for claim streams.
+                synchronized (bcos) {
+                    final FileChannel target = ((FileOutputStream) bcos.getWrappedStream()).getChannel();
+                    transferred = transfer(source, position, count, target);
+                }
+            } catch (final IOException ioe) {
+                recycle = false;
+                throw new IOException("Failed to write to " + this, ioe);
+            }
+
+            bytesWritten += transferred;
+            scc.setLength(bytesWritten + initialLength);
+            return transferred;
+        }
+
+        @Override
+        public synchronized void flush() throws IOException {
+            if (closed) {
+                throw new IOException("Stream is closed");
+            }
+
+            bcos.flush();
+        }
+
+        @Override
+        public synchronized void close() throws IOException {
+            closed = true;
+
+            if (alwaysSync) {
+                ((FileOutputStream) bcos.getWrappedStream()).getFD().sync();
+            }
+
+            if (scc.getLength() < 0) {
+                // If claim was not written to, set length to 0
+                scc.setLength(0L);
+            }
+
+            // if we've not yet hit the threshold for appending to a resource claim, add the claim
+            // to the writableClaimQueue so that the Resource Claim can be used again when create()
+            // is called. In this case, we don't have to actually close the file stream. Instead, we
+            // can just add it onto the queue and continue to use it for the next content claim.
+            final long resourceClaimLength = scc.getOffset() + scc.getLength();
+            if (recycle && resourceClaimLength < maxAppendableClaimLength) {
+                final ClaimLengthPair pair = new ClaimLengthPair(scc.getResourceClaim(), resourceClaimLength);
+
+                // We are checking that writableClaimStreams contains the resource claim as a key, as a sanity check.
+                // It should always be there. However, we have encountered a bug before where we archived content before
+                // we should have. As a result, the Resource Claim and the associated OutputStream were removed from the
+                // writableClaimStreams map, and this caused a NullPointerException. Worse, the call here to
+                // writableClaimQueue.offer() means that the ResourceClaim was then reused, which resulted in an endless
+                // loop of NullPointerException's being thrown. As a result, we simply ensure that the Resource Claim does
+                // in fact have an OutputStream associated with it before adding it back to the writableClaimQueue.
+                final boolean enqueued = writableClaimStreams.get(scc.getResourceClaim()) != null && writableClaimQueue.offer(pair);
+
+                if (enqueued) {
+                    LOG.debug("Claim length less than max; Adding {} back to Writable Claim Queue", this);
+                } else {
+                    writableClaimStreams.remove(scc.getResourceClaim());
+                    resourceClaimManager.freeze(scc.getResourceClaim());
+
+                    bcos.close();
+
+                    LOG.debug("Claim length less than max; Closing {} because could not add back to queue", this);
+                    if (LOG.isTraceEnabled()) {
+                        LOG.trace("Stack trace: ", new RuntimeException("Stack Trace for closing " + this));
+                    }
+                }
+            } else {
+                // we've reached the limit for this claim. Don't add it back to our queue.
+                // Instead, just remove it and move on.
+
+                // Mark the claim as no longer being able to be written to
+                resourceClaimManager.freeze(scc.getResourceClaim());
+
+                // ensure that the claim is no longer on the queue
+                writableClaimQueue.remove(new ClaimLengthPair(scc.getResourceClaim(), resourceClaimLength));
+
+                bcos.close();
+                LOG.debug("Claim lenth >= max; Closing {}", this);
+                if (LOG.isTraceEnabled()) {
+                    LOG.trace("Stack trace: ", new RuntimeException("Stack Trace for closing " + this));
+                }
+            }
+        }
+    }
+
+    /**
+     * The SHA-256 digest and length of some content
+     */
+    private static class ContentDigest {
+        private final byte[] digest;
+        private final long length;
+
+        private ContentDigest(final byte[] digest, final long length) {
+            this.digest = digest;
+            this.length = length;
+        }
+
+        static ContentDigest compute(final InputStream in) throws IOException {
+            final MessageDigest messageDigest;
+            try {
+                messageDigest = MessageDigest.getInstance("SHA-256");
+            } catch (final NoSuchAlgorithmException e) {
+                throw new IOException("Unable to compute SHA-256 digest of content", e);
+            }
+
+            final byte[] buffer = new byte[8192];
+            long length = 0L;
+            int len;
+            while ((len = in.read(buffer)) > 0) {
+                messageDigest.update(buffer, 0, len);
+                length += len;
+            }
+
+            return new ContentDigest(messageDigest.digest(), length);
+        }
+
+        @Override
+        public int hashCode() {
+            // The digest is uniformly distributed, so its first 4 bytes make a good hash code
+            return (digest[0] << 24) | ((digest[1] & 0xFF) << 16) | ((digest[2] & 0xFF) << 8) | (digest[3] & 0xFF);
+        }
+
+        @Override
+        public boolean equals(final Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (!(obj instanceof ContentDigest)) {
+                return false;
+            }
+
+            final ContentDigest other = (ContentDigest) obj;
+            return length == other.length && MessageDigest.isEqual(digest, other.digest);
+        }
+    }
+
     private static class ClaimLengthPair {
 
         private final ResourceClaim claim;
@@ -0,0 +1,697 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nifi.controller.repository;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.nifi.controller.repository.claim.ContentClaim;
+import org.apache.nifi.controller.repository.claim.ResourceClaim;
+import org.apache.nifi.controller.repository.claim.ResourceClaimManager;
+import org.apache.nifi.controller.repository.claim.StandardContentClaim;
+import org.apache.nifi.controller.repository.io.DirectManagedOutputStream;
+import org.apache.nifi.controller.repository.io.DirectMemoryManager;
+import org.apache.nifi.processor.DataUnit;
+import org.apache.nifi.stream.io.StreamUtils;
+import org.apache.nifi.util.NiFiProperties;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * <p>
+ * A {@link ContentRepository} that keeps newly written content in a bounded pool of off-heap memory and stores it in a
+ * {@link FileSystemRepository} only when it has to. Every Content Claim is created in memory, in fixed-size blocks of
+ * direct memory, whose total size is configured via the <code>nifi.hybrid.content.repository.max.size</code> property
+ * and is allocated when the repository is created. The content of a claim is spilled to the
+ * FileSystemRepository, and all further access to it is transparently proxied there, when either:
+ * </p>
+ *
+ * <ul>
+ * <li>the memory pool is exhausted, or the claim grows beyond the size given by the
+ * <code>nifi.hybrid.content.repository.max.claim.size</code> property, or</li>
+ * <li>a FlowFile that references the claim is about to be persisted in the FlowFile Repository, at which point the
+ * caller asks for the content to be persisted via {@link #persist(ContentClaim)}.</li>
+ * </ul>
+ *
+ * <p>
+ * As a result, content that only lives within a single session, such as content that is overwritten, removed or
+ * rolled back before the session is committed, never touches the disk, while content that is committed is as
+ * durable as with the FileSystemRepository alone.
+ * </p>
+ */
+public class HybridContentRepository implements ContentRepository {
+
+    private static final Logger logger = LoggerFactory.getLogger(HybridContentRepository.class);
+    public static final String CONTAINER_NAME = "in-memory";
+
+    public static final String MAX_SIZE_PROPERTY = "nifi.hybrid.content.repository.max.size";
+    public static final String BLOCK_SIZE_PROPERTY = "nifi.hybrid.content.repository.block.size";
+    public static final String MAX_CLAIM_SIZE_PROPERTY = "nifi.hybrid.content.repository.max.claim.size";
+    public static final String DEFAULT_MAX_SIZE = "100 MB";
+    public static final String DEFAULT_BLOCK_SIZE = "4 KB";
+    public static final String DEFAULT_MAX_CLAIM_SIZE = "1 MB";
+
+    private final FileSystemRepository fileSystemRepository;
+    private final DirectMemoryManager memoryManager;
+    private final long maxBytes;
+    private final long maxClaimBytes;
+
+    private final ConcurrentMap<ResourceClaim, MemoryContent> memoryContentMap = new ConcurrentHashMap<>(256);
+    private final AtomicLong memoryUsed = new AtomicLong(0L);
+    private final AtomicLong idGenerator = new AtomicLong(0L);
+
+    private ResourceClaimManager claimManager; // effectively final
+
+    /**
+     * Default no args constructor for service loading only
+     */
+    public HybridContentRepository() {
+        fileSystemRepository = null;
+        memoryManager = null;
+        maxBytes = 0;
+        maxClaimBytes = 0;
+    }
+
+    public HybridContentRepository(final NiFiProperties nifiProperties) throws IOException {
+        this(new FileSystemRepository(nifiProperties), nifiProperties);
+    }
+
+    HybridContentRepository(final FileSystemRepository fileSystemRepository, final NiFiProperties nifiProperties) {
+        this.fileSystemRepository = fileSystemRepository;
+
+        maxBytes = DataUnit.parseDataSize(nifiProperties.getProperty(MAX_SIZE_PROPERTY, DEFAULT_MAX_SIZE), DataUnit.B).longValue();
+        maxClaimBytes = DataUnit.parseDataSize(nifiProperties.getProperty(MAX_CLAIM_SIZE_PROPERTY, DEFAULT_MAX_CLAIM_SIZE), DataUnit.B).longValue();
+        final int blockSize = DataUnit.parseDataSize(nifiProperties.getProperty(BLOCK_SIZE_PROPERTY, DEFAULT_BLOCK_SIZE), DataUnit.B).intValue();
+
+        if (fileSystemRepository.getContainerNames().contains(CONTAINER_NAME)) {
+            throw new RuntimeException("The Content Repository cannot have a container named " + CONTAINER_NAME + " because that name is used for content held in memory");
+        }
+
+        memoryManager = new DirectMemoryManager(maxBytes, blockSize);
+    }
+
+    @Override
+    public void initialize(final ResourceClaimManager claimManager) throws IOException {
+        this.claimManager = claimManager;
+        fileSystemRepository.initialize(new FileSystemClaimManager(claimManager));
+    }
+
+    @Override
+    public void shutdown() {
+        fileSystemRepository.shutdown();
+    }
+
+    private boolean isInMemory(final ContentClaim claim) {
+        return CONTAINER_NAME.equals(claim.getResourceClaim().getContainer());
+    }
+
+    private MemoryContent getMemoryContent(final ContentClaim claim) throws ContentNotFoundException {
+        final MemoryContent content = memoryContentMap.get(claim.getResourceClaim());
+        if (content == null) {
+            throw new ContentNotFoundException(claim);
+        }
+
+        return content;
+    }
+
+    @Override
+    public Set<String> getContainerNames() {
+        final Set<String> containerNames = new HashSet<>(fileSystemRepository.getContainerNames());
+        containerNames.add(CONTAINER_NAME);
+        return containerNames;
+    }
+
+    @Override
+    public long getContainerCapacity(final String containerName) throws IOException {
+        return CONTAINER_NAME.equals(containerName) ? maxBytes : fileSystemRepository.getContainerCapacity(containerName);
+    }
+
+    @Override
+    public long getContainerUsableSpace(final String containerName) throws IOException {
+        return CONTAINER_NAME.equals(containerName) ? maxBytes - memoryUsed.get() : fileSystemRepository.getContainerUsableSpace(containerName);
+    }
+
+    @Override
+    public String getContainerFileStoreName(final String containerName) {
+        return CONTAINER_NAME.equals(containerName) ? null : fileSystemRepository.getContainerFileStoreName(containerName);
+    }
+
+    @Override
+    public ContentClaim create(final boolean lossTolerant) throws IOException {
+        final long id = idGenerator.getAndIncrement();
+        final ResourceClaim resourceClaim = claimManager.newResourceClaim(CONTAINER_NAME, "section", String.valueOf(id), lossTolerant, false);
+        final StandardContentClaim claim = new StandardContentClaim(resourceClaim, 0L);
+        claimManager.incrementClaimantCount(resourceClaim, true);
+
+        memoryContentMap.put(resourceClaim, new MemoryContent(claim));
+        logger.debug("Created {} in memory", claim);
+        return claim;
+    }
+
+    @Override
+    public int incrementClaimaintCount(final ContentClaim claim) {
+        if (claim == null) {
+            return 0;
+        }
+
+        return isInMemory(claim) ? claimManager.incrementClaimantCount(claim.getResourceClaim()) : fileSystemRepository.incrementClaimaintCount(claim);
+    }
+
+    @Override
+    public int getClaimantCount(final ContentClaim claim) {
+        if (claim == null) {
+            return 0;
+        }
+
+        return isInMemory(claim) ? claimManager.getClaimantCount(claim.getResourceClaim()) : fileSystemRepository.getClaimantCount(claim);
+    }
+
+    @Override
+    public int decrementClaimantCount(final ContentClaim claim) {
+        if (claim == null) {
+            return 0;
+        }
+
+        return isInMemory(claim) ? claimManager.decrementClaimantCount(claim.getResourceClaim()) : fileSystemRepository.decrementClaimantCount(claim);
+    }
+
+    @Override
+    public boolean remove(final ContentClaim claim) {
+        if (claim == null) {
+            return false;
+        }
+
+        return isInMemory(claim) ? remove(claim.getResourceClaim()) : fileSystemRepository.remove(claim);
+    }
+
+    private boolean remove(final ResourceClaim claim) {
+        final MemoryContent content = memoryContentMap.remove(claim);
+        if (content == null) {
+            logger.debug("Removed {} from repo but it did not exist", claim);
+            return false;
+        }
+
+        content.destroy();
+        return true;
+    }
+
+    @Override
+    public ContentClaim clone(final ContentClaim original, final boolean lossTolerant) throws IOException {
+        if (original == null) {
+            return null;
+        }
+
+        final ContentClaim newClaim = create(lossTolerant);
+        try (final InputStream in = read(original);
+            final OutputStream out = write(newClaim)) {
+            StreamUtils.copy(in, out);
+        } catch (final IOException ioe) {
+            decrementClaimantCount(newClaim);
+            remove(newClaim);
+            throw ioe;
+        }
+
+        return newClaim;
+    }
+
+    @Override
+    public long merge(final Collection<ContentClaim> claims, final ContentClaim destination, final byte[] header, final byte[] footer, final byte[] demarcator) throws IOException {
+        if (claims.contains(destination)) {
+            throw new IllegalArgumentException("destination cannot be within claims");
+        }
+
+        long bytes = 0L;
+        try (final OutputStream out = write(destination)) {
+            if (header != null) {
+                out.write(header);
+                bytes += header.length;
+            }
+
+            final Iterator<ContentClaim> itr = claims.iterator();
+            while (itr.hasNext()) {
+                final ContentClaim readClaim = itr.next();
+                try (final InputStream in = read(readClaim)) {
+                    bytes += StreamUtils.copy(in, out);
+                }
+
+                if (itr.hasNext() && demarcator != null) {
+                    out.write(demarcator);
+                    bytes += demarcator.length;
+                }
+            }
+
+            if (footer != null) {
+                out.write(footer);
+                bytes += footer.length;
+            }
+        }
+
+        return bytes;
+    }
+
+    @Override
+    public long importFrom(final Path content, final ContentClaim claim) throws IOException {
+        if (!isInMemory(claim)) {
+            return fileSystemRepository.importFrom(content, claim);
+        }
+
+        try (final InputStream in = Files.newInputStream(content, StandardOpenOption.READ)) {
+            return importFrom(in, claim);
+        }
+    }
+
+    @Override
+    public long importFrom(final InputStream content, final ContentClaim claim) throws IOException {
+        if (!isInMemory(claim)) {
+            return fileSystemRepository.importFrom(content, claim);
+        }
+
+        try (final OutputStream out = write(claim)) {
+            return StreamUtils.copy(content, out);
+        }
+    }
+
+    @Override
+    public long exportTo(final ContentClaim claim, final Path destination, final boolean append) throws IOException {
+        if (claim != null && !isInMemory(claim)) {
+            return fileSystemRepository.exportTo(claim, destination, append);
+        }
+
+        return exportTo(claim, destination, append, 0L, size(claim));
+    }
+
+    @Override
+    public long exportTo(final ContentClaim claim, final Path destination, final boolean append, final long offset, final long length) throws IOException {
+        if (claim == null) {
+            if (append) {
+                return 0L;
+            }
+            Files.createFile(destination);
+            return 0L;
+        }
+
+        if (!isInMemory(claim)) {
+            return fileSystemRepository.exportTo(claim, destination, append, offset, length);
+        }
+
+        final StandardOpenOption openOption = append ? StandardOpenOption.APPEND : StandardOpenOption.CREATE;
+        try (final OutputStream out = Files.newOutputStream(destination, openOption)) {
+            return exportTo(claim, out, offset, length);
+        }
+    }
+
+    @Override
+    public long exportTo(final ContentClaim claim, final OutputStream destination) throws IOException {
+        if (claim != null && !isInMemory(claim)) {
+            return fileSystemRepository.exportTo(claim, destination);
+        }
+
+        try (final InputStream in = read(claim)) {
+            return StreamUtils.copy(in, destination);
+        }
+    }
+
+    @Override
+    public long exportTo(final ContentClaim claim, final OutputStream destination, final long offset, final long length) throws IOException {
+        if (claim != null && !isInMemory(claim)) {
+            return fileSystemRepository.exportTo(claim, destination, offset, length);
+        }
+
+        try (final InputStream in = read(claim)) {
+            StreamUtils.skip(in, offset);
+            StreamUtils.copy(in, destination, length);
+        }
+
+        return length;
+    }
+
+    @Override
+    public long size(final ContentClaim claim) throws IOException {
+        if (claim == null) {
+            return 0L;
+        }
+
+        return isInMemory(claim) ? getMemoryContent(claim).size() : fileSystemRepository.size(claim);
+    }
+
+    @Override
+    public InputStream read(final ContentClaim claim) throws IOException {
+        if (claim == null) {
+            return new ByteArrayInputStream(new byte[0]);
+        }
+
+        return isInMemory(claim) ? getMemoryContent(claim).read() : fileSystemRepository.read(claim);
+    }
+
+    @Override
+    public OutputStream write(final ContentClaim claim) throws IOException {
+        return isInMemory(claim) ? getMemoryContent(claim).write() : fileSystemRepository.write(claim);
+    }
+
+    @Override
+    public ContentClaim deduplicate(final ContentClaim claim) throws IOException {
+        return isInMemory(claim) ? claim : fileSystemRepository.deduplicate(claim);
+    }
+
+    /**
+     * Copies the content of the given claim to the FileSystemRepository, unless it has already been spilled there, and returns
+     * the claim in the FileSystemRepository. The claim in memory keeps referencing that claim, so that the content is copied
+     * only once even if several FlowFiles reference the claim in memory.
+     */
+    @Override
+    public ContentClaim persist(final ContentClaim claim) throws IOException {
+        if (claim == null || !isInMemory(claim)) {
+            return claim;
+        }
+
+        return getMemoryContent(claim).persist();
+    }
+
+    @Override
+    public void purge() {
+        for (final ResourceClaim claim : new ArrayList<>(memoryContentMap.keySet())) {
+            remove(claim);
+        }
+
+        fileSystemRepository.purge();
+    }
+
+    @Override
+    public void cleanup() {
+        fileSystemRepository.cleanup();
+    }
+
+    @Override
+    public boolean isAccessible(final ContentClaim contentClaim) throws IOException {
+        if (contentClaim == null) {
+            return false;
+        }
+
+        return isInMemory(contentClaim) ? memoryContentMap.containsKey(contentClaim.getResourceClaim()) : fileSystemRepository.isAccessible(contentClaim);
+    }
+
+    /**
+     * @return the number of bytes of the memory pool that are currently used by content
+     */
+    long getMemoryUsed() {
+        return memoryUsed.get();
+    }
+
+    /**
+     * @param claim a claim created by this repository
+     * @return whether the content of the given claim is held only in memory
+     */
+    boolean isHeldInMemory(final ContentClaim claim) {
+        final MemoryContent content = memoryContentMap.get(claim.getResourceClaim());
+        return content != null && content.isHeldInMemory();
+    }
+
+    /**
+     * The content of a single claim in memory, which is held in blocks of the memory pool until it is spilled to a claim
+     * in the FileSystemRepository. Once spilled, the claim in the FileSystemRepository is referenced by this content
+     * until the claim in memory is destroyed.
+     */
+    private class MemoryContent {
+        private final StandardContentClaim claim;
+        private DirectManagedOutputStream buffer;
+        private ContentClaim spilledClaim;
+        private OutputStream spilledOut;
+        private boolean writeClosed = false;
+
+        MemoryContent(final StandardContentClaim claim) {
+            this.claim = claim;
+            this.buffer = new DirectManagedOutputStream(memoryManager);
+        }
+
+        synchronized boolean isHeldInMemory() {
+            return spilledClaim == null;
+        }
+
+        synchronized long size() throws IOException {
+            return spilledClaim == null ? buffer.size() : fileSystemRepository.size(spilledClaim);
+        }
+
+        synchronized InputStream read() throws IOException {
+            if (spilledClaim == null) {
+                return buffer.newInputStream();
+            }
+
+            if (spilledOut != null) {
+                spilledOut.flush();
+            }
+            return fileSystemRepository.read(spilledClaim);
+        }
+
+        synchronized OutputStream write() {
+            writeClosed = false;
+
+            return new OutputStream() {
+                private boolean closed = false;
+
+                @Override
+                public void write(final int b) throws IOException {
+                    write(new byte[] {(byte) b}, 0, 1);
+                }
+
+                @Override
+                public void write(final byte[] b, final int off, final int len) throws IOException {
+                    if (closed) {
+                        throw new IOException("Stream is closed");
+                    }
+
+                    MemoryContent.this.write(b, off, len);
+                }
+
+                @Override
+                public void flush() throws IOException {
+                    MemoryContent.this.flush();
+                }
+
+                @Override
+                public void close() throws IOException {
+                    if (!closed) {
+                        closed = true;
+                        MemoryContent.this.close();
+                    }
+                }
+            };
+        }
+
+        private synchronized void write(final byte[] b, final int off, final int len) throws IOException {
+            if (spilledClaim == null) {
+                if (buffer.size() + len <= maxClaimBytes) {
+                    final int bufferLengthBefore = buffer.getBufferLength();
+                    try {
+                        buffer.write(b, off, len);
+                        memoryUsed.addAndGet(buffer.getBufferLength() - bufferLengthBefore);
+                        claim.setLength(buffer.size());
+                        return;
+                    } catch (final IOException e) {
+                        logger.debug("Memory pool is exhausted so spilling {} to the File System Repository", claim);
+                    }
+                } else {
+                    logger.debug("{} has grown too large to be held in memory so spilling it to the File System Repository", claim);
+                }
+
+                spill();
+            } else if (spilledOut == null) {
+                throw new IOException("Cannot write to " + claim + " because its content has already been persisted to the File System Repository");
+            }
+
+            spilledOut.write(b, off, len);
+            claim.setLength(spilledClaim.getLength());
+        }
+
+        private synchronized void flush() throws IOException {
+            if (spilledOut != null) {
+                spilledOut.flush();
+            }
+        }
+
+        private synchronized void close() throws IOException {
+            writeClosed = true;
+            if (spilledOut != null) {
+                final OutputStream out = spilledOut;
+                spilledOut = null;
+                out.close();
+            }
+        }
+
+        /**
+         * Copies the content held in memory to a new claim in the FileSystemRepository and releases the memory. If the
+         * content is still being written, the stream to the new claim is left open so that the writer can continue.
+         */
+        private void spill() throws IOException {
+            final ContentClaim fileSystemClaim = fileSystemRepository.create(false);
+            final OutputStream out;
+            try {
+                out = fileSystemRepository.write(fileSystemClaim);
+                buffer.writeTo(out);
+            } catch (final IOException ioe) {
+                releaseFileSystemClaim(fileSystemClaim);
+                throw ioe;
+            }
+
+            spilledClaim = fileSystemClaim;
+            spilledOut = out;
+            releaseBuffer();
+
+            if (writeClosed) {
+                close();
+            }
+        }
+
+        synchronized ContentClaim persist() throws IOException {
+            if (spilledClaim == null) {
+                spill();
+            } else {
+                flush();
+            }
+
+            fileSystemRepository.incrementClaimaintCount(spilledClaim);
+            return spilledClaim;
+        }
+
+        private void releaseBuffer() {
+            final int bufferLength = buffer.getBufferLength();
+            buffer.destroy();
+            memoryUsed.addAndGet(-bufferLength);
+        }
+
+        synchronized void destroy() {
+            if (spilledClaim == null) {
+                releaseBuffer();
+                return;
+            }
+
+            if (spilledOut != null) {
+                try {
+                    spilledOut.close();
+                } catch (final IOException ioe) {
+                    logger.warn("Failed to close stream to {} while destroying {}", spilledClaim, claim, ioe);
+                }
+                spilledOut = null;
+            }
+
+            releaseFileSystemClaim(spilledClaim);
+        }
+
+        private void releaseFileSystemClaim(final ContentClaim fileSystemClaim) {
+            final int count = fileSystemRepository.decrementClaimantCount(fileSystemClaim);
+            if (count <= 0 && !fileSystemClaim.getResourceClaim().isInUse()) {
+                claimManager.markDestructable(fileSystemClaim.getResourceClaim());
+            }
+        }
+    }
+
+    /**
+     * The ResourceClaimManager that the FileSystemRepository is initialized with. All Resource Claims are managed by the
+     * same ResourceClaimManager, so the destructable claims that it drains include those in memory, which the
+     * FileSystemRepository does not know of. These are destroyed here, and only the others are handed to the FileSystemRepository.
+     */
+    private class FileSystemClaimManager implements ResourceClaimManager {
+        private final ResourceClaimManager delegate;
+
+        FileSystemClaimManager(final ResourceClaimManager delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public ResourceClaim newResourceClaim(final String container, final String section, final String id, final boolean lossTolerant, final boolean writable) {
+            return delegate.newResourceClaim(container, section, id, lossTolerant, writable);
+        }
+
+        @Override
+        public ResourceClaim getResourceClaim(final String container, final String section, final String id) {
+            return delegate.getResourceClaim(container, section, id);
+        }
+
+        @Override
+        public int getClaimantCount(final ResourceClaim claim) {
+            return delegate.getClaimantCount(claim);
+        }
+
+        @Override
+        public int decrementClaimantCount(final ResourceClaim claim) {
+            return delegate.decrementClaimantCount(claim);
+        }
+
+        @Override
+        public int incrementClaimantCount(final ResourceClaim claim) {
+            return delegate.incrementClaimantCount(claim);
+        }
+
+        @Override
+        public int incrementClaimantCount(final ResourceClaim claim, final boolean newClaim) {
+            return delegate.incrementClaimantCount(claim, newClaim);
+        }
+
+        @Override
+        public void markDestructable(final ResourceClaim claim) {
+            delegate.markDestructable(claim);
+        }
+
+        @Override
+        public void drainDestructableClaims(final Collection<ResourceClaim> destination, final int maxElements) {
+            final List<ResourceClaim> drained = new ArrayList<>();
+            delegate.drainDestructableClaims(drained, maxElements);
+            routeDestructableClaims(drained, destination);
+        }
+
+        @Override
+        public void drainDestructableClaims(final Collection<ResourceClaim> destination, final int maxElements, final long timeout, final TimeUnit unit) {
+            final List<ResourceClaim> drained = new ArrayList<>();
+            delegate.drainDestructableClaims(drained, maxElements, timeout, unit);
+            routeDestructableClaims(drained, destination);
+        }
+
+        private void routeDestructableClaims(final List<ResourceClaim> drained, final Collection<ResourceClaim> destination) {
+            for (final ResourceClaim claim : drained) {
+                if (CONTAINER_NAME.equals(claim.getContainer())) {
+                    remove(claim);
+                } else {
+                    destination.add(claim);
+                }
+            }
+        }
+
+        @Override
+        public void purge() {
+            delegate.purge();
+        }
+
+        @Override
+        public void freeze(final ResourceClaim claim) {
+            delegate.freeze(claim);
+        }
+    }
+}
@@ -356,6 +356,9 @@ public final class StandardProcessSession implements ProcessSession, ProvenanceE
                 claimCache.reset();
             }
 
+            persistContent(checkpoint);
+            deduplicateContent(checkpoint);
+
             final long updateProvenanceStart = System.nanoTime();
             updateProvenanceRepo(checkpoint);
 
@@ -1124,6 +1127,81 @@ public final class StandardProcessSession implements ProcessSession, ProvenanceE
     }
 
 
+    /**
+     * Gives the Content Repository the chance to move the content written in this session to durable storage, if it holds
+     * some content only in memory. This must be done before the Provenance Repository and FlowFile Repository are updated,
+     * so that they never refer to content that would not survive a restart.
+     */
+    private void persistContent(final Checkpoint checkpoint) throws IOException {
+        final ContentRepository contentRepo = context.getContentRepository();
+        replaceContentClaims(checkpoint, contentRepo::persist);
+    }
+
+    /**
+     * Gives the Content Repository the chance to replace the content written in this session with identical content that
+     * it already holds, so that FlowFiles that repeatedly write the same content share a single copy of it. This must be
+     * done before the Provenance Repository and FlowFile Repository are updated, so that they refer to the shared claim.
+     */
+    private void deduplicateContent(final Checkpoint checkpoint) throws IOException {
+        final ContentRepository contentRepo = context.getContentRepository();
+        replaceContentClaims(checkpoint, claim -> {
+            try {
+                return contentRepo.deduplicate(claim);
+            } catch (final IOException ioe) {
+                LOG.warn("Failed to deduplicate {} so it will not be shared with other FlowFiles", claim, ioe);
+                return claim;
+            }
+        });
+    }
+
+    /**
+     * Replaces the claims that were written in this session with the claims returned by the given function. The function
+     * returns either the given claim or another claim with the same content, whose claimant count it has incremented.
+     */
+    private void replaceContentClaims(final Checkpoint checkpoint, final ContentClaimReplacement replacement) throws IOException {
+        final ContentRepository contentRepo = context.getContentRepository();
+        final Map<ContentClaim, ContentClaim> replacements = new HashMap<>();
+
+        for (final StandardRepositoryRecord record : checkpoint.records.values()) {
+            if (record.isMarkedForDelete() || record.isMarkedForAbort() || !record.isWorking()) {
+                continue;
+            }
+
+            final ContentClaim claim = record.getWorkingClaim();
+            if (claim == null || claim == record.getOriginalClaim()) {
+                continue;
+            }
+
+            // Several FlowFiles may reference the same new claim, e.g. if a FlowFile was cloned after it was written.
+            // The repository increments the count of the replacement claim once, for the first of them.
+            ContentClaim replacementClaim = replacements.get(claim);
+            if (replacementClaim == null) {
+                replacementClaim = replacement.replace(claim);
+                replacements.put(claim, replacementClaim);
+            } else if (replacementClaim != claim) {
+                contentRepo.incrementClaimaintCount(replacementClaim);
+            }
+
+            if (replacementClaim == claim) {
+                continue;
+            }
+
+            if (replacementClaim.equals(record.getOriginalClaim())) {
+                // The content was changed back to the FlowFile's original content. Keep the original claim, whose count
+                // the commit will then leave alone, rather than holding a second count on it.
+                decrementClaimCount(replacementClaim);
+                replacementClaim = record.getOriginalClaim();
+            }
+
+            final FlowFileRecord replaced = new StandardFlowFileRecord.Builder().fromFlowFile(record.getCurrent()).contentClaim(replacementClaim).build();
+            record.setWorking(replaced);
+
+            // No FlowFile references the new claim any longer, so let the FlowFile Repository clean it up, as for any transient claim.
+            decrementClaimCount(claim);
+            record.addTransientClaim(claim);
+        }
+    }
+
     private void decrementClaimCount(final ContentClaim claim) {
         if (claim == null) {
             return;
@@ -3363,6 +3441,15 @@ public final class StandardProcessSession implements ProcessSession, ProvenanceE
         List<FlowFileRecord> poll(Connection connection, Set<FlowFileRecord> expiredRecords);
     }
 
+    /**
+     * Callback interface used to replace a ContentClaim written in the session
+     * with another ContentClaim that has the same content
+     */
+    private static interface ContentClaimReplacement {
+
+        ContentClaim replace(ContentClaim claim) throws IOException;
+    }
+
     private static class Checkpoint {
 
         private long processingTime = 0L;
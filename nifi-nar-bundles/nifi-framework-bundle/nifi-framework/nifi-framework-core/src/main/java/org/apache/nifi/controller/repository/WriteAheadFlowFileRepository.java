@@ -81,16 +81,23 @@ import java.util.stream.Collectors;
 public class WriteAheadFlowFileRepository implements FlowFileRepository, SyncListener {
     private static final String FLOWFILE_REPOSITORY_DIRECTORY_PREFIX = "nifi.flowfile.repository.directory";
     private static final String WRITE_AHEAD_LOG_IMPL = "nifi.flowfile.repository.wal.implementation";
+    private static final String ALWAYS_SYNC_WINDOW = "nifi.flowfile.repository.always.sync.window";
+    private static final String DEFAULT_ALWAYS_SYNC_WINDOW = "0 millis";
+    // Block-encoded snapshots cannot be read by versions of NiFi that predate them, so they must be enabled explicitly
+    private static final String SNAPSHOT_BLOCK_ENCODING_ENABLED = "nifi.flowfile.repository.snapshot.block.encoding.enabled";
 
     private static final String SEQUENTIAL_ACCESS_WAL = "org.apache.nifi.wali.SequentialAccessWriteAheadLog";
     private static final String MINIMAL_LOCKING_WALI = "org.wali.MinimalLockingWriteAheadLog";
     private static final String DEFAULT_WAL_IMPLEMENTATION = SEQUENTIAL_ACCESS_WAL;
+    private static final int RECOVERY_ENQUEUE_BATCH_SIZE = 10_000;
 
     private final String walImplementation;
     private final NiFiProperties nifiProperties;
 
     private final AtomicLong flowFileSequenceGenerator = new AtomicLong(0L);
     private final boolean alwaysSync;
+    private final long alwaysSyncWindowNanos;
+    private final boolean blockEncodedSnapshots;
 
     private static final Logger logger = LoggerFactory.getLogger(WriteAheadFlowFileRepository.class);
     private volatile ScheduledFuture<?> checkpointFuture;
@@ -136,6 +143,8 @@ public class WriteAheadFlowFileRepository implements FlowFileRepository, SyncLis
      */
     public WriteAheadFlowFileRepository() {
         alwaysSync = false;
+        alwaysSyncWindowNanos = 0L;
+        blockEncodedSnapshots = false;
         checkpointDelayMillis = 0L;
         numPartitions = 0;
         checkpointExecutor = null;
@@ -145,6 +154,8 @@ public class WriteAheadFlowFileRepository implements FlowFileRepository, SyncLis
 
     public WriteAheadFlowFileRepository(final NiFiProperties nifiProperties) {
         alwaysSync = Boolean.parseBoolean(nifiProperties.getProperty(NiFiProperties.FLOWFILE_REPOSITORY_ALWAYS_SYNC, "false"));
+        alwaysSyncWindowNanos = FormatUtils.getTimeDuration(nifiProperties.getProperty(ALWAYS_SYNC_WINDOW, DEFAULT_ALWAYS_SYNC_WINDOW), TimeUnit.NANOSECONDS);
+        blockEncodedSnapshots = Boolean.parseBoolean(nifiProperties.getProperty(SNAPSHOT_BLOCK_ENCODING_ENABLED, "false"));
         this.nifiProperties = nifiProperties;
 
         // determine the database file path and ensure it exists
@@ -193,7 +204,8 @@ public class WriteAheadFlowFileRepository implements FlowFileRepository, SyncLis
         serdeFactory = new RepositoryRecordSerdeFactory(claimManager);
 
         if (walImplementation.equals(SEQUENTIAL_ACCESS_WAL)) {
-            wal = new SequentialAccessWriteAheadLog<>(flowFileRepositoryPaths.get(0), serdeFactory, this);
+            wal = new SequentialAccessWriteAheadLog<>(flowFileRepositoryPaths.get(0), serdeFactory, this, alwaysSyncWindowNanos, TimeUnit.NANOSECONDS,
+                blockEncodedSnapshots);
         } else if (walImplementation.equals(MINIMAL_LOCKING_WALI)) {
             final SortedSet<Path> paths = flowFileRepositoryPaths.stream()
                 .map(File::toPath)
@@ -622,17 +634,17 @@ public class WriteAheadFlowFileRepository implements FlowFileRepository, SyncLis
 
         serdeFactory.setQueueMap(null);
 
+        // Determine the next sequence number for FlowFiles. The FlowFiles are added to their queues in batches, rather than
+        // one at a time, so that restoring millions of FlowFiles does not require obtaining a queue's lock for each of them.
+        int numFlowFilesMissingQueue = 0;
+        long maxId = 0;
+        final Map<FlowFileQueue, List<FlowFileRecord>> flowFilesByQueue = new HashMap<>();
         for (final RepositoryRecord record : recordList) {
             final ContentClaim claim = record.getCurrentClaim();
             if (claim != null) {
                 claimManager.incrementClaimantCount(claim.getResourceClaim());
             }
-        }
 
-        // Determine the next sequence number for FlowFiles
-        int numFlowFilesMissingQueue = 0;
-        long maxId = 0;
-        for (final RepositoryRecord record : recordList) {
             final long recordId = serdeFactory.getRecordIdentifier(record);
             if (recordId > maxId) {
                 maxId = recordId;
@@ -643,10 +655,17 @@ public class WriteAheadFlowFileRepository implements FlowFileRepository, SyncLis
             if (queue == null) {
                 numFlowFilesMissingQueue++;
             } else {
-                queue.put(flowFile);
+                final List<FlowFileRecord> batch = flowFilesByQueue.computeIfAbsent(queue, key -> new ArrayList<>());
+                batch.add(flowFile);
+                if (batch.size() >= RECOVERY_ENQUEUE_BATCH_SIZE) {
+                    queue.putAll(batch);
+                    flowFilesByQueue.remove(queue);
+                }
             }
         }
 
+        flowFilesByQueue.forEach(FlowFileQueue::putAll);
+
         // Set the AtomicLong to 1 more than the max ID so that calls to #getNextFlowFileSequence() will
         // return the appropriate number.
         flowFileSequenceGenerator.set(maxId + 1);
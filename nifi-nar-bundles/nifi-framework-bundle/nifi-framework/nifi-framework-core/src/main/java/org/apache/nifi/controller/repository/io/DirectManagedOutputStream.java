@@ -0,0 +1,232 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nifi.controller.repository.io;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * An OutputStream that holds what is written to it in blocks of direct memory checked out from a {@link DirectMemoryManager},
+ * in the same way that {@link ArrayManagedOutputStream} does with blocks of the Java heap. The blocks are shared by every
+ * stream that uses the same DirectMemoryManager, so a block's position and limit are never changed; each access is made
+ * through a duplicate of the block instead.
+ */
+public class DirectManagedOutputStream extends OutputStream {
+
+    private final DirectMemoryManager memoryManager;
+
+    private final ReadWriteLock rwLock = new ReentrantReadWriteLock();
+    private final Lock readLock = rwLock.readLock();
+    private final Lock writeLock = rwLock.writeLock();
+
+    private final List<ByteBuffer> blocks = new ArrayList<>();
+    private int currentIndex;
+    private ByteBuffer currentBlock;
+    private long curSize;
+
+    public DirectManagedOutputStream(final DirectMemoryManager memoryManager) {
+        this.memoryManager = memoryManager;
+    }
+
+    @Override
+    public void write(final byte[] b, final int off, final int len) throws IOException {
+        if (len == 0) {
+            return;
+        }
+
+        writeLock.lock();
+        try {
+            final int bytesFreeThisBlock = currentBlock == null ? 0 : currentBlock.capacity() - currentIndex;
+            if (bytesFreeThisBlock >= len) {
+                put(currentBlock, currentIndex, b, off, len);
+                currentIndex += len;
+                curSize += len;
+
+                return;
+            }
+
+            // Try to get all of the blocks needed
+            final long bytesNeeded = len - bytesFreeThisBlock;
+            int blocksNeeded = (int) (bytesNeeded / memoryManager.getBlockSize());
+            if ((long) blocksNeeded * memoryManager.getBlockSize() < bytesNeeded) {
+                blocksNeeded++;
+            }
+
+            final List<ByteBuffer> newBlocks = new ArrayList<>(blocksNeeded);
+            for (int i = 0; i < blocksNeeded; i++) {
+                final ByteBuffer newBlock = memoryManager.checkOut();
+                if (newBlock == null) {
+                    memoryManager.checkIn(newBlocks);
+                    throw new IOException("No space left in Content Repository");
+                }
+
+                newBlocks.add(newBlock);
+            }
+
+            // we've successfully obtained the blocks needed. First fill the current block, then the new ones.
+            int bytesCopied = 0;
+            if (bytesFreeThisBlock > 0) {
+                put(currentBlock, currentIndex, b, off, bytesFreeThisBlock);
+                bytesCopied += bytesFreeThisBlock;
+            }
+
+            for (final ByteBuffer block : newBlocks) {
+                final int bytesToCopy = Math.min(len - bytesCopied, block.capacity());
+                put(block, 0, b, off + bytesCopied, bytesToCopy);
+                currentIndex = bytesToCopy;
+                currentBlock = block;
+                bytesCopied += bytesToCopy;
+            }
+
+            curSize += len;
+            blocks.addAll(newBlocks);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    private static void put(final ByteBuffer block, final int index, final byte[] b, final int off, final int len) {
+        final ByteBuffer view = block.duplicate();
+        view.position(index);
+        view.put(b, off, len);
+    }
+
+    private static void get(final ByteBuffer block, final int index, final byte[] b, final int off, final int len) {
+        final ByteBuffer view = block.duplicate();
+        view.position(index);
+        view.get(b, off, len);
+    }
+
+    @Override
+    public void write(final int b) throws IOException {
+        write(new byte[] {(byte) (b & 0xFF)}, 0, 1);
+    }
+
+    public void destroy() {
+        writeLock.lock();
+        try {
+            memoryManager.checkIn(blocks);
+            blocks.clear();
+            currentBlock = null;
+            currentIndex = 0;
+            curSize = 0L;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    public long size() {
+        readLock.lock();
+        try {
+            return curSize;
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    public void writeTo(final OutputStream out) throws IOException {
+        readLock.lock();
+        try {
+            final byte[] buffer = new byte[memoryManager.getBlockSize()];
+            for (int i = 0; i < blocks.size(); i++) {
+                final int length = i == blocks.size() - 1 ? currentIndex : buffer.length;
+                get(blocks.get(i), 0, buffer, 0, length);
+                out.write(buffer, 0, length);
+            }
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    public int getBufferLength() {
+        readLock.lock();
+        try {
+            // all blocks are same size
+            return blocks.size() * memoryManager.getBlockSize();
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    public InputStream newInputStream() {
+        final int blockSize;
+        final long totalSize;
+
+        readLock.lock();
+        try {
+            if (blocks.isEmpty()) {
+                return new ByteArrayInputStream(new byte[0]);
+            }
+
+            blockSize = memoryManager.getBlockSize();
+            totalSize = curSize;
+        } finally {
+            readLock.unlock();
+        }
+
+        return new InputStream() {
+            int blockIndex = 0;
+            int byteIndex = 0;
+
+            long bytesRead = 0L;
+
+            @Override
+            public int read() throws IOException {
+                final byte[] b = new byte[1];
+                return read(b, 0, 1) < 0 ? -1 : b[0] & 0xFF;
+            }
+
+            @Override
+            public int read(final byte[] b, final int off, final int len) throws IOException {
+                if (len == 0) {
+                    return 0;
+                }
+
+                readLock.lock();
+                try {
+                    if (bytesRead >= totalSize) {
+                        return -1;
+                    }
+
+                    if (byteIndex >= blockSize) {
+                        blockIndex++;
+                        byteIndex = 0;
+                    }
+
+                    final long bytesUnread = totalSize - bytesRead;
+                    final int bytesToCopy = (int) Math.min(bytesUnread, Math.min(len, blockSize - byteIndex));
+
+                    get(blocks.get(blockIndex), byteIndex, b, off, bytesToCopy);
+                    byteIndex += bytesToCopy;
+                    bytesRead += bytesToCopy;
+
+                    return bytesToCopy;
+                } finally {
+                    readLock.unlock();
+                }
+            }
+        };
+    }
+}
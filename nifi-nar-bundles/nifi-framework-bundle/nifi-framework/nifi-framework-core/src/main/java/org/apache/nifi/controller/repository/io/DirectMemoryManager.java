@@ -0,0 +1,66 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nifi.controller.repository.io;
+
+import java.nio.ByteBuffer;
+import java.util.Collection;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+
+/**
+ * A pool of fixed-size blocks of direct memory, outside of the Java heap, for use by a {@link DirectManagedOutputStream}.
+ * All of the memory is allocated up front, in chunks of at most {@link #MAX_CHUNK_SIZE} bytes that are sliced into blocks,
+ * so the JVM must be allowed at least that much direct memory via <code>-XX:MaxDirectMemorySize</code>.
+ */
+public class DirectMemoryManager {
+    private static final int MAX_CHUNK_SIZE = 64 * 1024 * 1024;
+
+    private final int blockSize;
+
+    private final BlockingQueue<ByteBuffer> queue;
+
+    public DirectMemoryManager(final long totalSize, final int blockSize) {
+        this.blockSize = blockSize;
+
+        final int numBlocks = (int) (totalSize / blockSize);
+        queue = new LinkedBlockingQueue<>(numBlocks);
+
+        final int blocksPerChunk = Math.max(1, MAX_CHUNK_SIZE / blockSize);
+        for (int allocated = 0; allocated < numBlocks; allocated += blocksPerChunk) {
+            final int chunkBlocks = Math.min(blocksPerChunk, numBlocks - allocated);
+            final ByteBuffer chunk = ByteBuffer.allocateDirect(chunkBlocks * blockSize);
+
+            for (int i = 0; i < chunkBlocks; i++) {
+                chunk.limit((i + 1) * blockSize);
+                chunk.position(i * blockSize);
+                queue.offer(chunk.slice());
+            }
+        }
+    }
+
+    ByteBuffer checkOut() {
+        return queue.poll();
+    }
+
+    void checkIn(final Collection<ByteBuffer> buffers) {
+        queue.addAll(buffers);
+    }
+
+    int getBlockSize() {
+        return blockSize;
+    }
+}
@@ -0,0 +1,176 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nifi.controller.repository.io;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Objects;
+import java.util.function.LongSupplier;
+
+/**
+ * An InputStream that reads a range of a file by mapping it into memory, so that the bytes are copied from the
+ * operating system's page cache straight into the caller's buffer rather than first into a buffer of the
+ * FileInputStream. The range is mapped in regions of at most {@link #DEFAULT_REGION_SIZE} bytes, each only when
+ * the previous one has been read, because a single mapping cannot exceed 2 GB. As with {@link LimitedInputStream},
+ * the length of the range is obtained from a LongSupplier whenever a new region is mapped, so that the stream can
+ * continue to read the range if it grows.
+ * <p>
+ * Java does not allow a mapped region to be released explicitly, so each region is released when it is garbage
+ * collected. The FileChannel is closed when this stream is closed.
+ */
+public class MemoryMappedInputStream extends InputStream {
+    public static final long DEFAULT_REGION_SIZE = 64L * 1024 * 1024;
+
+    private final FileChannel channel;
+    private final long rangeOffset;
+    private final LongSupplier lengthSupplier;
+    private final long regionSize;
+
+    private MappedByteBuffer region;
+    private long regionOffset = 0L;
+    private long markOffset = -1L;
+    private boolean closed = false;
+
+    public MemoryMappedInputStream(final FileChannel channel, final long rangeOffset, final LongSupplier lengthSupplier) {
+        this(channel, rangeOffset, lengthSupplier, DEFAULT_REGION_SIZE);
+    }
+
+    public MemoryMappedInputStream(final FileChannel channel, final long rangeOffset, final LongSupplier lengthSupplier, final long regionSize) {
+        this.channel = Objects.requireNonNull(channel);
+        this.rangeOffset = rangeOffset;
+        this.lengthSupplier = Objects.requireNonNull(lengthSupplier);
+        this.regionSize = regionSize;
+    }
+
+    /**
+     * @return the offset into the range of the next byte to be read
+     */
+    private long getPosition() {
+        return region == null ? regionOffset : regionOffset + region.position();
+    }
+
+    /**
+     * Ensures that there is a mapped region with bytes remaining, mapping the next region if necessary
+     *
+     * @return <code>true</code> if there are bytes remaining, <code>false</code> if the end of the range has been reached
+     */
+    private boolean mapRegionIfNecessary() throws IOException {
+        if (closed) {
+            throw new IOException("Stream is closed");
+        }
+
+        if (region != null && region.hasRemaining()) {
+            return true;
+        }
+
+        final long position = getPosition();
+        final long bytesRemaining = lengthSupplier.getAsLong() - position;
+        if (bytesRemaining <= 0) {
+            return false;
+        }
+
+        region = channel.map(FileChannel.MapMode.READ_ONLY, rangeOffset + position, Math.min(bytesRemaining, regionSize));
+        regionOffset = position;
+        return true;
+    }
+
+    @Override
+    public int read() throws IOException {
+        if (!mapRegionIfNecessary()) {
+            return -1;
+        }
+
+        return region.get() & 0xFF;
+    }
+
+    @Override
+    public int read(final byte[] b, final int off, final int len) throws IOException {
+        if (len == 0) {
+            return 0;
+        }
+        if (!mapRegionIfNecessary()) {
+            return -1;
+        }
+
+        final int bytesToRead = Math.min(len, region.remaining());
+        region.get(b, off, bytesToRead);
+        return bytesToRead;
+    }
+
+    @Override
+    public long skip(final long n) throws IOException {
+        if (closed) {
+            throw new IOException("Stream is closed");
+        }
+        if (n <= 0) {
+            return 0L;
+        }
+
+        final long position = getPosition();
+        final long bytesToSkip = Math.max(0L, Math.min(n, lengthSupplier.getAsLong() - position));
+        if (region != null && bytesToSkip <= region.remaining()) {
+            region.position(region.position() + (int) bytesToSkip);
+        } else {
+            region = null;
+            regionOffset = position + bytesToSkip;
+        }
+
+        return bytesToSkip;
+    }
+
+    @Override
+    public int available() throws IOException {
+        if (closed) {
+            throw new IOException("Stream is closed");
+        }
+
+        return (int) Math.min(Integer.MAX_VALUE, Math.max(0L, lengthSupplier.getAsLong() - getPosition()));
+    }
+
+    @Override
+    public boolean markSupported() {
+        return true;
+    }
+
+    @Override
+    public synchronized void mark(final int readlimit) {
+        markOffset = getPosition();
+    }
+
+    @Override
+    public synchronized void reset() throws IOException {
+        if (markOffset < 0) {
+            throw new IOException("Stream has not been marked");
+        }
+
+        if (region != null && markOffset >= regionOffset && markOffset <= regionOffset + region.limit()) {
+            region.position((int) (markOffset - regionOffset));
+        } else {
+            region = null;
+            regionOffset = markOffset;
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        closed = true;
+        region = null;
+        channel.close();
+    }
+}
@@ -18,6 +18,10 @@ package org.apache.nifi.controller.scheduling;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicReference;
@@ -30,6 +34,7 @@ import org.apache.nifi.controller.tasks.InvocationResult;
 import org.apache.nifi.controller.tasks.ReportingTaskWrapper;
 import org.apache.nifi.encrypt.StringEncryptor;
 import org.apache.nifi.engine.FlowEngine;
+import org.apache.nifi.util.Connectables;
 import org.apache.nifi.util.FormatUtils;
 import org.apache.nifi.util.NiFiProperties;
 import org.slf4j.Logger;
@@ -38,7 +43,18 @@ import org.slf4j.LoggerFactory;
 public class TimerDrivenSchedulingAgent extends AbstractSchedulingAgent {
 
     private static final Logger logger = LoggerFactory.getLogger(TimerDrivenSchedulingAgent.class);
+
+    public static final String ADAPTIVE_SCHEDULING_ENABLED = "nifi.timer.driven.adaptive.scheduling.enabled";
+    public static final String ADAPTIVE_SCHEDULING_SWEEP_PERIOD = "nifi.timer.driven.adaptive.scheduling.sweep.period";
+    public static final String DEFAULT_ADAPTIVE_SCHEDULING_ENABLED = "false";
+    public static final String DEFAULT_ADAPTIVE_SCHEDULING_SWEEP_PERIOD = "1 sec";
+
     private final long noWorkYieldNanos;
+    private final boolean adaptiveScheduling;
+
+    // Tasks of components that require incoming FlowFiles but have none. These tasks are not scheduled to run
+    // until FlowFiles are queued for the component and onEvent is called.
+    private final Map<Connectable, Queue<ParkedTask>> parkedTasks = new ConcurrentHashMap<>();
 
     private final FlowController flowController;
     private final RepositoryContextFactory contextFactory;
@@ -59,6 +75,21 @@ public class TimerDrivenSchedulingAgent extends AbstractSchedulingAgent {
         } catch (final IllegalArgumentException e) {
             throw new RuntimeException("Failed to create SchedulingAgent because the " + NiFiProperties.BORED_YIELD_DURATION + " property is set to an invalid time duration: " + boredYieldDuration);
         }
+
+        adaptiveScheduling = Boolean.parseBoolean(nifiProperties.getProperty(ADAPTIVE_SCHEDULING_ENABLED, DEFAULT_ADAPTIVE_SCHEDULING_ENABLED));
+        if (adaptiveScheduling) {
+            final String sweepPeriod = nifiProperties.getProperty(ADAPTIVE_SCHEDULING_SWEEP_PERIOD, DEFAULT_ADAPTIVE_SCHEDULING_SWEEP_PERIOD);
+            final long sweepNanos;
+            try {
+                sweepNanos = FormatUtils.getTimeDuration(sweepPeriod, TimeUnit.NANOSECONDS);
+            } catch (final IllegalArgumentException e) {
+                throw new RuntimeException("Failed to create SchedulingAgent because the " + ADAPTIVE_SCHEDULING_SWEEP_PERIOD + " property is set to an invalid time duration: " + sweepPeriod);
+            }
+
+            // FlowFiles can become available to a component without an event being triggered, such as when a connection is added to a running Funnel,
+            // so periodically check whether any parked component has FlowFiles queued. This is far cheaper than triggering each component.
+            flowEngine.scheduleWithFixedDelay(this::wakeParkedTasksWithWork, sweepNanos, sweepNanos, TimeUnit.NANOSECONDS);
+        }
     }
 
     @Override
@@ -123,7 +154,10 @@ public class TimerDrivenSchedulingAgent extends AbstractSchedulingAgent {
                 // after the yield has expired.
                 final long newYieldExpiration = connectable.getYieldExpiration();
                 final long now = System.currentTimeMillis();
-                if (newYieldExpiration > now) {
+                if (adaptiveScheduling && invocationResult == InvocationResult.NO_WORK && newYieldExpiration <= now) {
+                    // The component has nothing to do until FlowFiles are queued for it, so stop scheduling it until then.
+                    park(connectable, new ParkedTask(this, scheduleState, futureRef, connectable));
+                } else if (newYieldExpiration > now) {
                     final long yieldMillis = newYieldExpiration - now;
                     final long scheduleMillis = connectable.getSchedulingPeriod(TimeUnit.MILLISECONDS);
                     final ScheduledFuture<?> scheduledFuture = futureRef.get();
@@ -176,6 +210,41 @@ public class TimerDrivenSchedulingAgent extends AbstractSchedulingAgent {
         return yieldDetectionRunnable;
     }
 
+    private void park(final Connectable connectable, final ParkedTask parkedTask) {
+        final ScheduledFuture<?> scheduledFuture = parkedTask.futureRef.get();
+        if (scheduledFuture == null || !scheduledFuture.cancel(false)) {
+            return;
+        }
+
+        // Park the task while holding the lock so that it cannot be added after the component has been unscheduled
+        // and its parked tasks removed; otherwise, the entry would be kept for as long as the component exists.
+        synchronized (parkedTask.scheduleState) {
+            if (!parkedTask.scheduleState.isScheduled()) {
+                return;
+            }
+
+            parkedTasks.computeIfAbsent(connectable, key -> new ConcurrentLinkedQueue<>()).add(parkedTask);
+        }
+
+        // FlowFiles may have been queued after the task checked for work but before it was parked, in which case
+        // the event has already been triggered and will not be triggered again.
+        if (Connectables.flowFilesQueued(connectable)) {
+            onEvent(connectable);
+        }
+    }
+
+    private void wakeParkedTasksWithWork() {
+        try {
+            for (final Connectable connectable : parkedTasks.keySet()) {
+                if (Connectables.flowFilesQueued(connectable)) {
+                    onEvent(connectable);
+                }
+            }
+        } catch (final Throwable t) {
+            logger.error("Failed to determine whether any idle components have FlowFiles queued", t);
+        }
+    }
+
     @Override
     public void doUnschedule(final Connectable connectable, final LifecycleState scheduleState) {
         for (final ScheduledFuture<?> future : scheduleState.getFutures()) {
@@ -183,6 +252,10 @@ public class TimerDrivenSchedulingAgent extends AbstractSchedulingAgent {
             future.cancel(false);
         }
 
+        synchronized (scheduleState) {
+            parkedTasks.remove(connectable);
+        }
+
         logger.info("Stopped scheduling {} to run", connectable);
     }
 
@@ -213,6 +286,19 @@ public class TimerDrivenSchedulingAgent extends AbstractSchedulingAgent {
 
     @Override
     public void onEvent(final Connectable connectable) {
+        if (!adaptiveScheduling) {
+            return;
+        }
+
+        final Queue<ParkedTask> parked = parkedTasks.get(connectable);
+        if (parked == null) {
+            return;
+        }
+
+        ParkedTask parkedTask;
+        while ((parkedTask = parked.poll()) != null) {
+            parkedTask.unpark();
+        }
     }
 
     @Override
@@ -228,4 +314,36 @@ public class TimerDrivenSchedulingAgent extends AbstractSchedulingAgent {
 
         flowEngine.setCorePoolSize(corePoolSize + toAdd);
     }
+
+    /**
+     * A task of a component that is not scheduled to run because the component has no FlowFiles to process
+     */
+    private class ParkedTask {
+        private final Runnable trigger;
+        private final LifecycleState scheduleState;
+        private final AtomicReference<ScheduledFuture<?>> futureRef;
+        private final Connectable connectable;
+        private final ScheduledFuture<?> parkedFuture;
+
+        ParkedTask(final Runnable trigger, final LifecycleState scheduleState, final AtomicReference<ScheduledFuture<?>> futureRef, final Connectable connectable) {
+            this.trigger = trigger;
+            this.scheduleState = scheduleState;
+            this.futureRef = futureRef;
+            this.connectable = connectable;
+            this.parkedFuture = futureRef.get();
+        }
+
+        void unpark() {
+            synchronized (scheduleState) {
+                // If the component has been stopped, or stopped and started again, since the task was parked, the task must not run again.
+                if (!scheduleState.isScheduled() || !scheduleState.getFutures().contains(parkedFuture)) {
+                    return;
+                }
+
+                final ScheduledFuture<?> newFuture = flowEngine.scheduleWithFixedDelay(trigger, 0L, connectable.getSchedulingPeriod(TimeUnit.NANOSECONDS), TimeUnit.NANOSECONDS);
+                scheduleState.replaceFuture(parkedFuture, newFuture);
+                futureRef.set(newFuture);
+            }
+        }
+    }
 }
@@ -0,0 +1,259 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nifi.controller.swap;
+
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+
+import org.apache.nifi.controller.queue.FlowFileQueue;
+import org.apache.nifi.controller.queue.QueueSize;
+import org.apache.nifi.controller.repository.FlowFileRecord;
+import org.apache.nifi.controller.repository.StandardFlowFileRecord;
+import org.apache.nifi.controller.repository.SwapContents;
+import org.apache.nifi.controller.repository.SwapSummary;
+import org.apache.nifi.controller.repository.claim.ResourceClaim;
+import org.apache.nifi.controller.repository.claim.ResourceClaimManager;
+import org.apache.nifi.controller.repository.claim.StandardContentClaim;
+
+/**
+ * Deserializes swap files that were written by the {@link ColumnarSwapSerializer}
+ */
+public class ColumnarSwapDeserializer implements SwapDeserializer {
+
+    @Override
+    public SwapContents deserializeFlowFiles(final DataInputStream in, final String swapLocation, final FlowFileQueue queue, final ResourceClaimManager claimManager) throws IOException {
+        final String queueIdentifier = readHeader(in);
+        if (!queueIdentifier.equals(queue.getIdentifier())) {
+            throw new IllegalArgumentException("Cannot deserialize FlowFiles from Swap File at location " + swapLocation
+                + " because those FlowFiles belong to Connection with ID " + queueIdentifier + " and an attempt was made to swap them into a Connection with ID " + queue.getIdentifier());
+        }
+
+        final Inflater inflater = createInflater(in);
+        try {
+            final DataInputStream dataIn = inflater == null ? in : new DataInputStream(new InflaterInputStream(in, inflater, 65536));
+            return readFlowFiles(dataIn, claimManager);
+        } finally {
+            if (inflater != null) {
+                inflater.end();
+            }
+        }
+    }
+
+    @Override
+    public SwapSummary getSwapSummary(final DataInputStream in, final String swapLocation, final ResourceClaimManager claimManager) throws IOException {
+        readHeader(in);
+
+        final Inflater inflater = createInflater(in);
+        try {
+            final DataInputStream dataIn = inflater == null ? in : new DataInputStream(new InflaterInputStream(in, inflater, 65536));
+            return readSummary(dataIn, claimManager).summary;
+        } finally {
+            if (inflater != null) {
+                inflater.end();
+            }
+        }
+    }
+
+    private String readHeader(final DataInputStream in) throws IOException {
+        final int encodingVersion = in.readInt();
+        if (encodingVersion > ColumnarSwapSerializer.ENCODING_VERSION) {
+            throw new IOException("Swap File was written using encoding version " + encodingVersion + " of the " + ColumnarSwapSerializer.SERIALIZATION_NAME
+                + ", but this version of NiFi supports only up to version " + ColumnarSwapSerializer.ENCODING_VERSION);
+        }
+
+        return in.readUTF();
+    }
+
+    private Inflater createInflater(final DataInputStream in) throws IOException {
+        final int compression = in.readUnsignedByte();
+        switch (compression) {
+            case ColumnarSwapSerializer.COMPRESSION_NONE:
+                return null;
+            case ColumnarSwapSerializer.COMPRESSION_DEFLATE:
+                return new Inflater();
+            default:
+                throw new IOException("Swap File indicates an unknown compression type of " + compression);
+        }
+    }
+
+    private ColumnarSummary readSummary(final DataInputStream in, final ResourceClaimManager claimManager) throws IOException {
+        final int flowFileCount = (int) readVarLong(in);
+        final long contentSize = readVarLong(in);
+        final long maxFlowFileId = readVarLong(in);
+
+        final int resourceClaimCount = (int) readVarLong(in);
+        final ResourceClaim[] resourceClaims = new ResourceClaim[resourceClaimCount];
+        for (int i = 0; i < resourceClaimCount; i++) {
+            final String container = in.readUTF();
+            final String section = in.readUTF();
+            final String identifier = in.readUTF();
+            final boolean lossTolerant = in.readBoolean();
+
+            // Preserve the Resource Claim held by the Resource Claim Manager, if there is one, as SchemaSwapDeserializer does
+            ResourceClaim resourceClaim = claimManager.getResourceClaim(container, section, identifier);
+            if (resourceClaim == null) {
+                resourceClaim = claimManager.newResourceClaim(container, section, identifier, lossTolerant, false);
+            }
+
+            resourceClaims[i] = resourceClaim;
+        }
+
+        final int[] claimIndices = new int[flowFileCount];
+        final List<ResourceClaim> flowFileResourceClaims = new ArrayList<>(flowFileCount);
+        for (int i = 0; i < flowFileCount; i++) {
+            final int claimIndex = (int) readVarLong(in);
+            claimIndices[i] = claimIndex;
+            if (claimIndex > 0) {
+                flowFileResourceClaims.add(resourceClaims[claimIndex - 1]);
+            }
+        }
+
+        final QueueSize queueSize = new QueueSize(flowFileCount, contentSize);
+        final SwapSummary summary = new StandardSwapSummary(queueSize, maxFlowFileId < 0 ? null : maxFlowFileId, flowFileResourceClaims);
+        return new ColumnarSummary(summary, resourceClaims, claimIndices, flowFileResourceClaims.size());
+    }
+
+    private SwapContents readFlowFiles(final DataInputStream in, final ResourceClaimManager claimManager) throws IOException {
+        final ColumnarSummary columnarSummary = readSummary(in, claimManager);
+        final int flowFileCount = columnarSummary.claimIndices.length;
+
+        final long[] ids = readDeltaColumn(in, flowFileCount);
+        final long[] entryDates = readDeltaColumn(in, flowFileCount);
+        final long[] lineageStartDates = readDeltaColumn(in, flowFileCount);
+        final long[] lineageStartIndices = readDeltaColumn(in, flowFileCount);
+        final long[] lastQueueDates = readDeltaColumn(in, flowFileCount);
+        final long[] queueDateIndices = readDeltaColumn(in, flowFileCount);
+        final long[] sizes = readColumn(in, flowFileCount);
+
+        final int claimCount = columnarSummary.contentClaimCount;
+        final long[] resourceOffsets = readColumn(in, claimCount);
+        final long[] claimLengths = readColumn(in, claimCount);
+        final long[] contentClaimOffsets = readColumn(in, claimCount);
+
+        final int stringCount = (int) readVarLong(in);
+        final String[] strings = new String[stringCount];
+        for (int i = 0; i < stringCount; i++) {
+            final byte[] bytes = new byte[(int) readVarLong(in)];
+            in.readFully(bytes);
+            strings[i] = new String(bytes, StandardCharsets.UTF_8);
+        }
+
+        final List<FlowFileRecord> flowFiles = new ArrayList<>(flowFileCount);
+        int claimIndex = 0;
+        for (int i = 0; i < flowFileCount; i++) {
+            final int attributeCount = (int) readVarLong(in);
+            final Map<String, String> attributes = new HashMap<>(attributeCount * 2);
+            for (int j = 0; j < attributeCount; j++) {
+                final String key = strings[(int) readVarLong(in)];
+                final String value = strings[(int) readVarLong(in)];
+                attributes.put(key, value);
+            }
+
+            final StandardFlowFileRecord.Builder builder = new StandardFlowFileRecord.Builder()
+                .id(ids[i])
+                .entryDate(entryDates[i])
+                .lineageStart(lineageStartDates[i], lineageStartIndices[i])
+                .lastQueued(lastQueueDates[i], queueDateIndices[i])
+                .size(sizes[i])
+                .addAttributes(attributes);
+
+            final int resourceClaimIndex = columnarSummary.claimIndices[i];
+            if (resourceClaimIndex > 0) {
+                final StandardContentClaim contentClaim = new StandardContentClaim(columnarSummary.resourceClaims[resourceClaimIndex - 1], resourceOffsets[claimIndex]);
+                contentClaim.setLength(claimLengths[claimIndex]);
+                builder.contentClaim(contentClaim);
+                builder.contentClaimOffset(contentClaimOffsets[claimIndex]);
+                claimIndex++;
+            }
+
+            flowFiles.add(builder.build());
+        }
+
+        return new StandardSwapContents(columnarSummary.summary, flowFiles);
+    }
+
+    private static long[] readColumn(final DataInputStream in, final int count) throws IOException {
+        final long[] values = new long[count];
+        for (int i = 0; i < count; i++) {
+            values[i] = readVarLong(in);
+        }
+        return values;
+    }
+
+    private static long[] readDeltaColumn(final DataInputStream in, final int count) throws IOException {
+        final long[] values = new long[count];
+        long previous = 0L;
+        for (int i = 0; i < count; i++) {
+            previous += readVarLong(in);
+            values[i] = previous;
+        }
+        return values;
+    }
+
+    /**
+     * Reads a zig-zag encoded variable-length integer, as written by {@link ColumnarSwapSerializer#writeVarLong(long, java.io.DataOutputStream)}
+     */
+    static long readVarLong(final InputStream in) throws IOException {
+        long encoded = 0L;
+        int shift = 0;
+        while (true) {
+            final int b = in.read();
+            if (b < 0) {
+                throw new EOFException();
+            }
+
+            encoded |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                break;
+            }
+
+            shift += 7;
+            if (shift > 63) {
+                throw new IOException("Swap File contains a malformed variable-length integer");
+            }
+        }
+
+        return (encoded >>> 1) ^ -(encoded & 1);
+    }
+
+    public static String getSerializationName() {
+        return ColumnarSwapSerializer.SERIALIZATION_NAME;
+    }
+
+    private static class ColumnarSummary {
+        private final SwapSummary summary;
+        private final ResourceClaim[] resourceClaims;
+        private final int[] claimIndices;
+        private final int contentClaimCount;
+
+        ColumnarSummary(final SwapSummary summary, final ResourceClaim[] resourceClaims, final int[] claimIndices, final int contentClaimCount) {
+            this.summary = summary;
+            this.resourceClaims = resourceClaims;
+            this.claimIndices = claimIndices;
+            this.contentClaimCount = contentClaimCount;
+        }
+    }
+}
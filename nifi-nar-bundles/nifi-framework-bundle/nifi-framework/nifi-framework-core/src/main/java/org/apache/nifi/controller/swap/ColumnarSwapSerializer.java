@@ -0,0 +1,215 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nifi.controller.swap;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.ToLongFunction;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+
+import org.apache.nifi.controller.queue.FlowFileQueue;
+import org.apache.nifi.controller.repository.FlowFileRecord;
+import org.apache.nifi.controller.repository.claim.ContentClaim;
+import org.apache.nifi.controller.repository.claim.ResourceClaim;
+
+/**
+ * <p>
+ * Serializes FlowFiles to a swap file column by column rather than FlowFile by FlowFile, so that similar values are
+ * stored next to each other. Numeric values are written as variable-length integers, and those that tend to increase
+ * from one FlowFile to the next, such as identifiers and dates, are written as the difference from the previous
+ * FlowFile's value. Each distinct Resource Claim and each distinct attribute key or value is written only once, in
+ * a dictionary, and is then referenced by its index. Optionally, everything after the header is compressed.
+ * </p>
+ *
+ * <p>
+ * The summary of the swap file, including the Resource Claim of each FlowFile, is written before the remaining columns
+ * so that it can be read without reading the FlowFiles.
+ * </p>
+ */
+public class ColumnarSwapSerializer implements SwapSerializer {
+    static final String SERIALIZATION_NAME = "Columnar Swap Serialization";
+    static final int ENCODING_VERSION = 1;
+
+    static final int COMPRESSION_NONE = 0;
+    static final int COMPRESSION_DEFLATE = 1;
+
+    private final boolean compress;
+
+    public ColumnarSwapSerializer() {
+        this(false);
+    }
+
+    public ColumnarSwapSerializer(final boolean compress) {
+        this.compress = compress;
+    }
+
+    @Override
+    public void serializeFlowFiles(final List<FlowFileRecord> toSwap, final FlowFileQueue queue, final String swapLocation, final OutputStream destination) throws IOException {
+        final DataOutputStream headerOut = new DataOutputStream(destination);
+        headerOut.writeInt(ENCODING_VERSION);
+        headerOut.writeUTF(queue.getIdentifier());
+        headerOut.writeByte(compress ? COMPRESSION_DEFLATE : COMPRESSION_NONE);
+        headerOut.flush();
+
+        if (!compress) {
+            writeFlowFiles(toSwap, new DataOutputStream(destination));
+            return;
+        }
+
+        final Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        try {
+            final DeflaterOutputStream deflaterOut = new DeflaterOutputStream(destination, deflater, 65536);
+            writeFlowFiles(toSwap, new DataOutputStream(deflaterOut));
+            deflaterOut.finish();
+            deflaterOut.flush();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    private void writeFlowFiles(final List<FlowFileRecord> toSwap, final DataOutputStream out) throws IOException {
+        long contentSize = 0L;
+        long maxFlowFileId = -1L;
+        for (final FlowFileRecord flowFile : toSwap) {
+            if (flowFile.getLastQueueDate() == null) {
+                throw new IOException("Cannot swap out " + flowFile + " because it does not have a Queued Date");
+            }
+
+            contentSize += flowFile.getSize();
+            maxFlowFileId = Math.max(maxFlowFileId, flowFile.getId());
+        }
+
+        // Summary
+        writeVarLong(toSwap.size(), out);
+        writeVarLong(contentSize, out);
+        writeVarLong(maxFlowFileId, out);
+
+        final Map<ResourceClaim, Integer> resourceClaimIndices = new LinkedHashMap<>();
+        final List<FlowFileRecord> flowFilesWithClaims = new ArrayList<>(toSwap.size());
+        for (final FlowFileRecord flowFile : toSwap) {
+            final ContentClaim contentClaim = flowFile.getContentClaim();
+            if (contentClaim != null) {
+                resourceClaimIndices.putIfAbsent(contentClaim.getResourceClaim(), resourceClaimIndices.size());
+                flowFilesWithClaims.add(flowFile);
+            }
+        }
+
+        writeVarLong(resourceClaimIndices.size(), out);
+        for (final ResourceClaim resourceClaim : resourceClaimIndices.keySet()) {
+            out.writeUTF(resourceClaim.getContainer());
+            out.writeUTF(resourceClaim.getSection());
+            out.writeUTF(resourceClaim.getId());
+            out.writeBoolean(resourceClaim.isLossTolerant());
+        }
+
+        // The index of each FlowFile's Resource Claim, plus one, or 0 if the FlowFile has no content
+        for (final FlowFileRecord flowFile : toSwap) {
+            final ContentClaim contentClaim = flowFile.getContentClaim();
+            writeVarLong(contentClaim == null ? 0 : resourceClaimIndices.get(contentClaim.getResourceClaim()) + 1, out);
+        }
+
+        // FlowFile columns
+        writeDeltaColumn(toSwap, FlowFileRecord::getId, out);
+        writeDeltaColumn(toSwap, FlowFileRecord::getEntryDate, out);
+        writeDeltaColumn(toSwap, FlowFileRecord::getLineageStartDate, out);
+        writeDeltaColumn(toSwap, FlowFileRecord::getLineageStartIndex, out);
+        writeDeltaColumn(toSwap, FlowFileRecord::getLastQueueDate, out);
+        writeDeltaColumn(toSwap, FlowFileRecord::getQueueDateIndex, out);
+        writeColumn(toSwap, FlowFileRecord::getSize, out);
+
+        // Content Claim columns, only for the FlowFiles that have content
+        writeColumn(flowFilesWithClaims, flowFile -> flowFile.getContentClaim().getOffset(), out);
+        writeColumn(flowFilesWithClaims, flowFile -> flowFile.getContentClaim().getLength(), out);
+        writeColumn(flowFilesWithClaims, FlowFileRecord::getContentClaimOffset, out);
+
+        // Attributes
+        final Map<String, Integer> stringIndices = new HashMap<>();
+        final List<String> strings = new ArrayList<>();
+        for (final FlowFileRecord flowFile : toSwap) {
+            for (final Map.Entry<String, String> entry : flowFile.getAttributes().entrySet()) {
+                addString(entry.getKey(), stringIndices, strings);
+                addString(entry.getValue(), stringIndices, strings);
+            }
+        }
+
+        writeVarLong(strings.size(), out);
+        for (final String value : strings) {
+            final byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            writeVarLong(bytes.length, out);
+            out.write(bytes);
+        }
+
+        for (final FlowFileRecord flowFile : toSwap) {
+            final Map<String, String> attributes = flowFile.getAttributes();
+            writeVarLong(attributes.size(), out);
+            for (final Map.Entry<String, String> entry : attributes.entrySet()) {
+                writeVarLong(stringIndices.get(entry.getKey()), out);
+                writeVarLong(stringIndices.get(entry.getValue()), out);
+            }
+        }
+
+        out.flush();
+    }
+
+    private static void addString(final String value, final Map<String, Integer> stringIndices, final List<String> strings) {
+        if (!stringIndices.containsKey(value)) {
+            stringIndices.put(value, strings.size());
+            strings.add(value);
+        }
+    }
+
+    private static void writeColumn(final List<FlowFileRecord> flowFiles, final ToLongFunction<FlowFileRecord> field, final DataOutputStream out) throws IOException {
+        for (final FlowFileRecord flowFile : flowFiles) {
+            writeVarLong(field.applyAsLong(flowFile), out);
+        }
+    }
+
+    private static void writeDeltaColumn(final List<FlowFileRecord> flowFiles, final ToLongFunction<FlowFileRecord> field, final DataOutputStream out) throws IOException {
+        long previous = 0L;
+        for (final FlowFileRecord flowFile : flowFiles) {
+            final long value = field.applyAsLong(flowFile);
+            writeVarLong(value - previous, out);
+            previous = value;
+        }
+    }
+
+    /**
+     * Writes the given value as a zig-zag encoded variable-length integer, so that values of small magnitude, whether
+     * positive or negative, take few bytes
+     */
+    static void writeVarLong(final long value, final DataOutputStream out) throws IOException {
+        long encoded = (value << 1) ^ (value >> 63);
+        while ((encoded & ~0x7FL) != 0) {
+            out.writeByte((int) ((encoded & 0x7F) | 0x80));
+            encoded >>>= 7;
+        }
+        out.writeByte((int) encoded);
+    }
+
+    @Override
+    public String getSerializationName() {
+        return SERIALIZATION_NAME;
+    }
+}
@@ -165,7 +165,7 @@ public class ConnectableTask {
 
         // Make sure processor has work to do.
         if (!isWorkToDo()) {
-            return InvocationResult.yield("No work to do");
+            return InvocationResult.NO_WORK;
         }
 
         if (numRelationships > 0) {
@@ -35,6 +35,12 @@ public interface InvocationResult {
         }
     };
 
+    /**
+     * Indicates that the component was not triggered because it requires incoming FlowFiles and there are none queued.
+     * The component should be yielded, but it will have no work to do until FlowFiles are queued for it.
+     */
+    public static InvocationResult NO_WORK = yield("No work to do");
+
     public static InvocationResult yield(final String explanation) {
         return new InvocationResult() {
             @Override
@@ -21,8 +21,12 @@ import org.apache.nifi.controller.repository.FlowFileRecord;
 import org.apache.nifi.controller.repository.FlowFileRepository;
 import org.apache.nifi.controller.repository.SwapContents;
 import org.apache.nifi.controller.repository.SwapManagerInitializationContext;
+import org.apache.nifi.controller.repository.claim.ContentClaim;
 import org.apache.nifi.controller.repository.claim.ResourceClaim;
 import org.apache.nifi.controller.repository.claim.ResourceClaimManager;
+import org.apache.nifi.controller.swap.ColumnarSwapDeserializer;
+import org.apache.nifi.controller.swap.MockFlowFile;
+import org.apache.nifi.controller.swap.SchemaSwapDeserializer;
 import org.apache.nifi.events.EventReporter;
 import org.apache.nifi.stream.io.StreamUtils;
 import org.junit.Assert;
@@ -40,10 +44,13 @@ import java.io.OutputStream;
 import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
 import java.util.concurrent.TimeUnit;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.mockito.Matchers.anyCollection;
 import static org.mockito.Matchers.anyString;
 import static org.mockito.Mockito.when;
@@ -146,13 +153,73 @@ public class TestFileSystemSwapManager {
         assertEquals(10000, contents.getFlowFiles().size());
     }
 
+    @Test
+    public void testSchemaFormatUnlessColumnarEnabled() throws IOException {
+        final FlowFileQueue flowFileQueue = Mockito.mock(FlowFileQueue.class);
+        when(flowFileQueue.getIdentifier()).thenReturn("87bb99fe-412c-49f6-a441-d1b0af4e20b4");
+
+        final FlowFileRepository flowFileRepo = Mockito.mock(FlowFileRepository.class);
+        final List<FlowFileRecord> flowFileRecords = Collections.singletonList(new MockFlowFile(new HashMap<>(), 1L, (ContentClaim) null));
+
+        // Swap files must remain readable by earlier versions of NiFi unless the columnar format is enabled
+        final FileSystemSwapManager defaultSwapManager = initialize(new FileSystemSwapManager(Paths.get("target")), flowFileRepo);
+        assertEquals(SchemaSwapDeserializer.getSerializationName(), getSerializationName(defaultSwapManager.swapOut(flowFileRecords, flowFileQueue, null)));
+
+        final FileSystemSwapManager columnarSwapManager = initialize(new FileSystemSwapManager(Paths.get("target"), true, false, false), flowFileRepo);
+        assertEquals(ColumnarSwapDeserializer.getSerializationName(), getSerializationName(columnarSwapManager.swapOut(flowFileRecords, flowFileQueue, null)));
+
+        defaultSwapManager.purge();
+    }
+
+    private String getSerializationName(final String swapLocation) throws IOException {
+        try (final DataInputStream in = new DataInputStream(new FileInputStream(swapLocation))) {
+            StreamUtils.skip(in, 4); // magic header
+            return in.readUTF();
+        }
+    }
+
+    @Test
+    public void testCompressedSwapFilePrefetched() throws IOException {
+        final FlowFileQueue flowFileQueue = Mockito.mock(FlowFileQueue.class);
+        when(flowFileQueue.getIdentifier()).thenReturn("87bb99fe-412c-49f6-a441-d1b0af4e20b4");
+
+        final FlowFileRepository flowFileRepo = Mockito.mock(FlowFileRepository.class);
+        when(flowFileRepo.isValidSwapLocationSuffix(anyString())).thenReturn(true);
+
+        final FileSystemSwapManager swapManager = initialize(new FileSystemSwapManager(Paths.get("target"), true, true, true), flowFileRepo);
+
+        final List<FlowFileRecord> flowFileRecords = new ArrayList<>();
+        for (int i = 0; i < 10000; i++) {
+            flowFileRecords.add(new MockFlowFile(new HashMap<>(), i, (ContentClaim) null));
+        }
+
+        final String firstLocation = swapManager.swapOut(flowFileRecords, flowFileQueue, null);
+        final String secondLocation = swapManager.swapOut(flowFileRecords, flowFileQueue, null);
+
+        swapManager.prefetch(firstLocation, flowFileQueue);
+        final SwapContents firstContents = swapManager.swapIn(firstLocation, flowFileQueue);
+        assertEquals(10000, firstContents.getFlowFiles().size());
+        assertFalse(new File(firstLocation).exists());
+
+        final SwapContents secondContents = swapManager.swapIn(secondLocation, flowFileQueue);
+        assertEquals(10000, secondContents.getFlowFiles().size());
+
+        for (int i = 0; i < flowFileRecords.size(); i++) {
+            assertEquals(flowFileRecords.get(i).getId(), secondContents.getFlowFiles().get(i).getId());
+            assertEquals(flowFileRecords.get(i).getAttributes(), secondContents.getFlowFiles().get(i).getAttributes());
+        }
+    }
+
     private FileSystemSwapManager createSwapManager() {
         final FlowFileRepository flowFileRepo = Mockito.mock(FlowFileRepository.class);
         return createSwapManager(flowFileRepo);
     }
 
     private FileSystemSwapManager createSwapManager(final FlowFileRepository flowFileRepo) {
-        final FileSystemSwapManager swapManager = new FileSystemSwapManager();
+        return initialize(new FileSystemSwapManager(), flowFileRepo);
+    }
+
+    private FileSystemSwapManager initialize(final FileSystemSwapManager swapManager, final FlowFileRepository flowFileRepo) {
         final ResourceClaimManager resourceClaimManager = new NopResourceClaimManager();
         swapManager.initialize(new SwapManagerInitializationContext() {
             @Override
@@ -1342,6 +1342,8 @@ public class LoadBalancedQueueIT {
             }
         }).when(contentRepo).read(any(ContentClaim.class));
 
+        Mockito.doAnswer(invocation -> invocation.getArgumentAt(0, ContentClaim.class)).when(contentRepo).persist(any(ContentClaim.class));
+
         return contentRepo;
     }
 }
@@ -27,6 +27,7 @@ import org.apache.nifi.controller.queue.SwappablePriorityQueue;
 import org.apache.nifi.controller.repository.FlowFileRecord;
 import org.apache.nifi.events.EventReporter;
 import org.apache.nifi.flowfile.FlowFilePrioritizer;
+import org.apache.nifi.processor.FlowFileFilter.FlowFileFilterResult;
 import org.apache.nifi.reporting.Severity;
 import org.apache.nifi.util.MockFlowFile;
 import org.junit.Assert;
@@ -495,4 +496,147 @@ public class TestSwappablePriorityQueue {
 
         assertTrue(swapManager.swappedOut.isEmpty());
     }
+
+    @Test
+    public void testFifoWithoutPrioritizers() {
+        // Without prioritizers, FlowFiles come back in the order in which they were added, regardless of ID or content claim
+        for (int i = 0; i < 5000; i++) {
+            queue.put(new MockFlowFile(5000 - i));
+        }
+
+        final Set<FlowFileRecord> expiredRecords = new HashSet<>();
+        for (int i = 0; i < 2500; i++) {
+            assertEquals(5000 - i, queue.poll(expiredRecords, 500000L).getId());
+        }
+
+        final List<FlowFileRecord> polled = queue.poll(Integer.MAX_VALUE, expiredRecords, 500000L);
+        assertEquals(2500, polled.size());
+        for (int i = 0; i < 2500; i++) {
+            assertEquals(2500 - i, polled.get(i).getId());
+        }
+
+        // FlowFiles that are not selected by a filter keep their place in line
+        for (int i = 0; i < 10; i++) {
+            queue.put(new MockFlowFile(i));
+        }
+        final List<FlowFileRecord> even = queue.poll(flowFile -> flowFile.getId() % 2 == 0 ? FlowFileFilterResult.ACCEPT_AND_CONTINUE : FlowFileFilterResult.REJECT_AND_CONTINUE,
+            expiredRecords, 500000L);
+        assertEquals(5, even.size());
+        for (int i = 1; i < 10; i += 2) {
+            assertEquals(i, queue.poll(expiredRecords, 500000L).getId());
+        }
+
+        assertTrue(expiredRecords.isEmpty());
+        assertEquals(5010, queue.size().getObjectCount()); // all unacknowledged
+    }
+
+    @Test
+    public void testPenalizedFlowFileWithoutPrioritizers() {
+        final FlowFileRecord penalized = mock(FlowFileRecord.class);
+        when(penalized.getEntryDate()).thenReturn(System.currentTimeMillis());
+        when(penalized.isPenalized()).thenReturn(true);
+        queue.put(penalized);
+
+        final FlowFileRecord unpenalized = new MockFlowFile(1);
+        queue.put(unpenalized);
+
+        final Set<FlowFileRecord> expiredRecords = new HashSet<>();
+        assertSame(unpenalized, queue.poll(expiredRecords, 500000L));
+        assertNull(queue.poll(expiredRecords, 500000L));
+        assertTrue(queue.getQueueDiagnostics().isAllActiveFlowFilesPenalized());
+        assertEquals(1, queue.getActiveFlowFiles().size());
+
+        // Once the penalty expires, the FlowFile goes ahead of those that were added after it
+        final FlowFileRecord later = new MockFlowFile(2);
+        queue.put(later);
+        when(penalized.isPenalized()).thenReturn(false);
+        assertSame(penalized, queue.poll(expiredRecords, 500000L));
+        assertSame(later, queue.poll(expiredRecords, 500000L));
+    }
+
+    @Test
+    public void testPrioritizersRemovedKeepsOrder() {
+        final FlowFilePrioritizer reversePrioritizer = (o1, o2) -> Long.compare(o2.getId(), o1.getId());
+        queue.setPriorities(Collections.singletonList(reversePrioritizer));
+        for (int i = 0; i < 100; i++) {
+            queue.put(new MockFlowFile(i));
+        }
+
+        queue.setPriorities(Collections.emptyList());
+        queue.put(new MockFlowFile(1000));
+
+        final List<FlowFileRecord> polled = queue.poll(Integer.MAX_VALUE, new HashSet<>(), 500000L);
+        assertEquals(101, polled.size());
+        for (int i = 0; i < 100; i++) {
+            assertEquals(99 - i, polled.get(i).getId());
+        }
+        assertEquals(1000, polled.get(100).getId());
+    }
+
+    @Test(timeout = 30000)
+    public void testConcurrentPutsDoNotExceedSwapThreshold() throws InterruptedException {
+        final int threads = 8;
+        final int flowFilesPerThread = 2500; // twice the swap threshold in total
+
+        final List<Thread> producers = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            final int offset = t * flowFilesPerThread;
+            producers.add(new Thread(() -> {
+                for (int i = 0; i < flowFilesPerThread; i += 2) {
+                    queue.put(new MockFlowFile(offset + i));
+                    queue.putAll(Collections.singletonList(new MockFlowFile(offset + i + 1)));
+                }
+            }));
+        }
+
+        producers.forEach(Thread::start);
+        for (final Thread thread : producers) {
+            thread.join();
+        }
+
+        assertEquals(threads * flowFilesPerThread, queue.size().getObjectCount());
+        assertTrue(queue.getFlowFileQueueSize().getActiveCount() <= 10000);
+        assertEquals(queue.getFlowFileQueueSize().getActiveCount(), queue.getActiveFlowFiles().size());
+    }
+
+    @Test(timeout = 30000)
+    public void testConcurrentPutAndPollWithoutPrioritizers() throws InterruptedException {
+        final int threads = 4;
+        final int flowFilesPerThread = 25000; // enough to go in and out of swap mode
+        final Set<Long> polledIds = Collections.synchronizedSet(new HashSet<>());
+
+        final List<Thread> producers = new ArrayList<>();
+        final List<Thread> consumers = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            final int offset = t * flowFilesPerThread;
+            producers.add(new Thread(() -> {
+                for (int i = 0; i < flowFilesPerThread; i++) {
+                    queue.put(new MockFlowFile(offset + i));
+                }
+            }));
+            consumers.add(new Thread(() -> {
+                final Set<FlowFileRecord> expiredRecords = new HashSet<>();
+                while (polledIds.size() < threads * flowFilesPerThread) {
+                    final FlowFileRecord flowFile = queue.poll(expiredRecords, 500000L);
+                    if (flowFile != null) {
+                        assertTrue(polledIds.add(flowFile.getId()));
+                        queue.acknowledge(flowFile);
+                    }
+                }
+            }));
+        }
+
+        producers.forEach(Thread::start);
+        consumers.forEach(Thread::start);
+        for (final Thread thread : producers) {
+            thread.join();
+        }
+        for (final Thread thread : consumers) {
+            thread.join();
+        }
+
+        assertEquals(threads * flowFilesPerThread, polledIds.size());
+        assertTrue(queue.isEmpty());
+        assertEquals(0, queue.size().getByteCount());
+    }
 }
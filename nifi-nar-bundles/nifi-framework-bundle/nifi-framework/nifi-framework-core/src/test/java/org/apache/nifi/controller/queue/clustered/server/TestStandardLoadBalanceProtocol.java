@@ -134,6 +134,9 @@ public class TestStandardLoadBalanceProtocol {
             }
         }).when(contentRepo).write(Mockito.any(ContentClaim.class));
 
+        // the content is already durable, so persisting it returns the same claim
+        Mockito.doAnswer(invocation -> invocation.getArgumentAt(0, ContentClaim.class)).when(contentRepo).persist(Mockito.any(ContentClaim.class));
+
         final Connection connection = Mockito.mock(Connection.class);
         final FlowManager flowManager = Mockito.mock(FlowManager.class);
         when(flowManager.getConnection(Mockito.anyString())).thenReturn(connection);
@@ -290,6 +293,56 @@ public class TestStandardLoadBalanceProtocol {
     }
 
 
+    @Test
+    public void testContentPersistedBeforeFlowFileRepositoryUpdated() throws IOException {
+        final ContentClaim persistedClaim = Mockito.mock(ContentClaim.class);
+        when(persistedClaim.getResourceClaim()).thenReturn(Mockito.mock(ResourceClaim.class));
+        Mockito.doReturn(persistedClaim).when(contentRepo).persist(Mockito.any(ContentClaim.class));
+
+        final StandardLoadBalanceProtocol protocol = new StandardLoadBalanceProtocol(flowFileRepo, contentRepo, provenanceRepo, flowController, ALWAYS_AUTHORIZED);
+
+        final PipedInputStream serverInput = new PipedInputStream();
+        final PipedOutputStream serverContentSource = new PipedOutputStream();
+        serverInput.connect(serverContentSource);
+
+        final ByteArrayOutputStream serverOutput = new ByteArrayOutputStream();
+
+        final Checksum checksum = new CRC32();
+        final OutputStream checkedOutput = new CheckedOutputStream(serverContentSource, checksum);
+        final DataOutputStream dos = new DataOutputStream(checkedOutput);
+        dos.writeUTF("unit-test-connection-id");
+
+        dos.write(CHECK_SPACE);
+        dos.write(MORE_FLOWFILES);
+        writeAttributes(Collections.singletonMap("uuid", "unit-test-id"), dos);
+        writeContent("hello".getBytes(), dos);
+
+        dos.write(MORE_FLOWFILES);
+        writeAttributes(Collections.singletonMap("uuid", "unit-test-id-2"), dos);
+        writeContent("greetings".getBytes(), dos);
+
+        dos.write(NO_MORE_FLOWFILES);
+
+        dos.writeLong(checksum.getValue());
+        dos.write(COMPLETE_TRANSACTION);
+
+        protocol.receiveFlowFiles(serverInput, serverOutput, "Unit Test", 1);
+
+        assertEquals(2, flowFileRepoUpdateRecords.size());
+        assertTrue(flowFileRepoUpdateRecords.stream().allMatch(record -> record.getCurrentClaim() == persistedClaim));
+        assertEquals(2, flowFileQueueReceiveRecords.size());
+        assertTrue(flowFileQueueReceiveRecords.stream().allMatch(flowFile -> flowFile.getContentClaim() == persistedClaim));
+        assertEquals(5L, flowFileQueueReceiveRecords.get(1).getContentClaimOffset());
+
+        // the received claim is released once for each FlowFile and once for its creation, and the persisted claim is
+        // incremented once for each FlowFile and then released once to account for its creation
+        final ContentClaim receivedClaim = claimContents.keySet().iterator().next();
+        Mockito.verify(contentRepo, times(3)).decrementClaimantCount(receivedClaim);
+        Mockito.verify(contentRepo, times(1)).remove(receivedClaim);
+        Mockito.verify(contentRepo, times(2)).incrementClaimaintCount(persistedClaim);
+        Mockito.verify(contentRepo, times(1)).decrementClaimantCount(persistedClaim);
+    }
+
     @Test
     public void testMultipleFlowFilesWithoutCheckingSpace() throws IOException {
         final StandardLoadBalanceProtocol protocol = new StandardLoadBalanceProtocol(flowFileRepo, contentRepo, provenanceRepo, flowController, ALWAYS_AUTHORIZED);
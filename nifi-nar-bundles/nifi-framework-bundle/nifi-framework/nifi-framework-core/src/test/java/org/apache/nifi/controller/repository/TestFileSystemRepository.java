@@ -21,9 +21,11 @@ import ch.qos.logback.classic.Logger;
 import ch.qos.logback.classic.spi.ILoggingEvent;
 import ch.qos.logback.core.read.ListAppender;
 import org.apache.nifi.controller.repository.claim.ContentClaim;
+import org.apache.nifi.controller.repository.claim.ResourceClaim;
 import org.apache.nifi.controller.repository.claim.StandardContentClaim;
 import org.apache.nifi.controller.repository.claim.StandardResourceClaim;
 import org.apache.nifi.controller.repository.claim.StandardResourceClaimManager;
+import org.apache.nifi.controller.repository.io.MemoryMappedInputStream;
 import org.apache.nifi.controller.repository.util.DiskUtils;
 import org.apache.nifi.processor.DataUnit;
 import org.apache.nifi.stream.io.StreamUtils;
@@ -55,12 +57,14 @@ import java.util.Locale;
 import java.util.Map;
 import java.util.Random;
 import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
 
 import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assume.assumeFalse;
 
@@ -73,6 +77,7 @@ public class TestFileSystemRepository {
     private FileSystemRepository repository = null;
     private StandardResourceClaimManager claimManager = null;
     private final File rootFile = new File("target/content_repository");
+    private final File coldRootFile = new File("target/content_repository_cold");
     private NiFiProperties nifiProperties;
 
     @Before
@@ -423,6 +428,306 @@ public class TestFileSystemRepository {
         assertTrue(Arrays.equals(doubleExpected, Files.readAllBytes(outPath)));
     }
 
+    @Test
+    public void testImportFromFileAfterOtherClaimInSameResourceClaim() throws IOException {
+        final byte[] expected = Files.readAllBytes(helloWorldFile.toPath());
+
+        final ContentClaim claim1 = repository.create(false);
+        try (final OutputStream out = repository.write(claim1)) {
+            out.write("abc".getBytes());
+        }
+
+        final ContentClaim claim2 = repository.create(false);
+        assertEquals(claim1.getResourceClaim(), claim2.getResourceClaim());
+        assertEquals(expected.length, repository.importFrom(helloWorldFile.toPath(), claim2));
+        assertEquals(3L, claim2.getOffset());
+        assertEquals(expected.length, claim2.getLength());
+
+        try (final InputStream in = repository.read(claim1)) {
+            assertArrayEquals("abc".getBytes(), readFully(in, 3));
+        }
+        try (final InputStream in = repository.read(claim2)) {
+            assertArrayEquals(expected, readFully(in, expected.length));
+        }
+    }
+
+    @Test
+    public void testExportToFileWithOffsetAndLength() throws IOException {
+        final ContentClaim previousClaim = repository.create(true);
+        try (final OutputStream out = repository.write(previousClaim)) {
+            out.write("abc".getBytes());
+        }
+
+        final ContentClaim claim = repository.create(true);
+        try (final OutputStream out = repository.write(claim)) {
+            out.write("The quick brown fox jumps over the lazy dog".getBytes());
+        }
+
+        final Path outPath = new File("target/testExportToFileWithOffsetAndLength").toPath();
+        Files.deleteIfExists(outPath);
+
+        assertEquals(5L, repository.exportTo(claim, outPath, false, 4, 5));
+        assertEquals("quick", new String(Files.readAllBytes(outPath)));
+
+        repository.exportTo(claim, outPath, true, 40, 3);
+        assertEquals("quickdog", new String(Files.readAllBytes(outPath)));
+    }
+
+    @Test
+    public void testClone() throws IOException {
+        final ContentClaim previousClaim = repository.create(true);
+        try (final OutputStream out = repository.write(previousClaim)) {
+            out.write("abc".getBytes());
+        }
+
+        final ContentClaim original = repository.create(true);
+        final byte[] data = "The quick brown fox jumps over the lazy dog".getBytes();
+        try (final OutputStream out = repository.write(original)) {
+            out.write(data);
+        }
+
+        final ContentClaim clone = repository.clone(original, true);
+        assertNotSame(original, clone);
+        assertEquals(data.length, clone.getLength());
+        try (final InputStream in = repository.read(clone)) {
+            assertArrayEquals(data, readFully(in, data.length));
+        }
+    }
+
+    @Test
+    public void testReadMemoryMapped() throws IOException {
+        // We are going to construct our own repository using different properties, so
+        // we need to shutdown the existing one.
+        shutdown();
+
+        final Map<String, String> addProps = new HashMap<>();
+        addProps.put(FileSystemRepository.MEMORY_MAPPED_READ_THRESHOLD, "10 B");
+        repository = new FileSystemRepository(NiFiProperties.createBasicNiFiProperties(null, addProps));
+        repository.initialize(new StandardResourceClaimManager());
+        repository.purge();
+
+        final ContentClaim smallClaim = repository.create(true);
+        try (final OutputStream out = repository.write(smallClaim)) {
+            out.write("abc".getBytes());
+        }
+
+        final ContentClaim largeClaim = repository.create(true);
+        final byte[] data = "The quick brown fox jumps over the lazy dog".getBytes();
+        try (final OutputStream out = repository.write(largeClaim)) {
+            out.write(data);
+        }
+
+        try (final InputStream in = repository.read(largeClaim)) {
+            assertTrue(in instanceof MemoryMappedInputStream);
+            assertArrayEquals(data, readFully(in, data.length));
+        }
+        try (final InputStream in = repository.read(smallClaim)) {
+            assertFalse(in instanceof MemoryMappedInputStream);
+            assertArrayEquals("abc".getBytes(), readFully(in, 3));
+        }
+    }
+
+    @Test
+    public void testDeduplicate() throws IOException {
+        // We are going to construct our own repository using different properties, so
+        // we need to shutdown the existing one.
+        shutdown();
+
+        final Map<String, String> addProps = new HashMap<>();
+        addProps.put(FileSystemRepository.DEDUPLICATION_ENABLED, "true");
+        addProps.put(FileSystemRepository.DEDUPLICATION_MIN_SIZE, "10 B");
+        repository = new FileSystemRepository(NiFiProperties.createBasicNiFiProperties(null, addProps));
+        repository.initialize(new StandardResourceClaimManager());
+        repository.purge();
+
+        final byte[] data = "The quick brown fox jumps over the lazy dog".getBytes();
+        final ContentClaim firstClaim = writeClaim(data);
+        assertSame(firstClaim, repository.deduplicate(firstClaim));
+
+        final ContentClaim duplicateClaim = writeClaim(data);
+        final int claimantCount = repository.getClaimantCount(firstClaim);
+        assertSame(firstClaim, repository.deduplicate(duplicateClaim));
+        assertEquals(claimantCount + 1, repository.getClaimantCount(firstClaim));
+
+        final ContentClaim otherClaim = writeClaim("The quick brown fox jumps over the lazy cat".getBytes());
+        assertSame(otherClaim, repository.deduplicate(otherClaim));
+
+        final ContentClaim smallClaim = writeClaim("abc".getBytes());
+        final ContentClaim smallDuplicateClaim = writeClaim("abc".getBytes());
+        assertSame(smallClaim, repository.deduplicate(smallClaim));
+        assertSame(smallDuplicateClaim, repository.deduplicate(smallDuplicateClaim));
+    }
+
+    @Test
+    public void testDeduplicateDoesNotShareUnreferencedClaim() throws IOException {
+        shutdown();
+
+        final Map<String, String> addProps = new HashMap<>();
+        addProps.put(FileSystemRepository.DEDUPLICATION_ENABLED, "true");
+        addProps.put(FileSystemRepository.DEDUPLICATION_MIN_SIZE, "10 B");
+        // Ensure that each claim is written to its own Resource Claim
+        addProps.put(NiFiProperties.MAX_APPENDABLE_CLAIM_SIZE, "1 B");
+        repository = new FileSystemRepository(NiFiProperties.createBasicNiFiProperties(null, addProps));
+        repository.initialize(new StandardResourceClaimManager());
+        repository.purge();
+
+        final byte[] data = "The quick brown fox jumps over the lazy dog".getBytes();
+        final ContentClaim firstClaim = writeClaim(data);
+        assertSame(firstClaim, repository.deduplicate(firstClaim));
+        while (repository.getClaimantCount(firstClaim) > 0) {
+            repository.decrementClaimantCount(firstClaim);
+        }
+
+        final ContentClaim secondClaim = writeClaim(data);
+        assertNotSame(firstClaim.getResourceClaim(), secondClaim.getResourceClaim());
+        assertSame(secondClaim, repository.deduplicate(secondClaim));
+        assertEquals(0, repository.getClaimantCount(firstClaim));
+    }
+
+    @Test
+    public void testDeduplicateDisabledByDefault() throws IOException {
+        final byte[] data = "The quick brown fox jumps over the lazy dog".getBytes();
+        final ContentClaim firstClaim = writeClaim(data);
+        final ContentClaim duplicateClaim = writeClaim(data);
+
+        assertSame(firstClaim, repository.deduplicate(firstClaim));
+        assertSame(duplicateClaim, repository.deduplicate(duplicateClaim));
+    }
+
+    private ContentClaim writeClaim(final byte[] data) throws IOException {
+        final ContentClaim claim = repository.create(true);
+        try (final OutputStream out = repository.write(claim)) {
+            out.write(data);
+        }
+        return claim;
+    }
+
+    private FileSystemRepository createTieredRepository(final StandardResourceClaimManager claimManager, final boolean archive) throws IOException {
+        final Map<String, String> addProps = new HashMap<>();
+        addProps.put(NiFiProperties.REPOSITORY_CONTENT_PREFIX + "cold", coldRootFile.getPath());
+        addProps.put(FileSystemRepository.COLD_CONTAINERS, "cold");
+        // Ensure that each claim is written to its own Resource Claim, which can no longer be written to once it is closed
+        addProps.put(NiFiProperties.MAX_APPENDABLE_CLAIM_SIZE, "1 B");
+        if (archive) {
+            addProps.put(NiFiProperties.CONTENT_ARCHIVE_ENABLED, "true");
+            addProps.put(NiFiProperties.CONTENT_ARCHIVE_MAX_USAGE_PERCENTAGE, "99%");
+        }
+
+        final FileSystemRepository tieredRepository = new FileSystemRepository(NiFiProperties.createBasicNiFiProperties(null, addProps));
+        tieredRepository.initialize(claimManager);
+        return tieredRepository;
+    }
+
+    private Path getColdPath(final ResourceClaim resourceClaim) {
+        return coldRootFile.toPath().resolve(resourceClaim.getSection()).resolve(resourceClaim.getId());
+    }
+
+    @Test
+    public void testTieredContainerMigration() throws IOException {
+        shutdown();
+        DiskUtils.deleteRecursively(coldRootFile);
+        repository = createTieredRepository(claimManager, false);
+        repository.purge();
+
+        final byte[] data = "The quick brown fox jumps over the lazy dog".getBytes();
+        final ContentClaim claim = writeClaim(data);
+        final ResourceClaim resourceClaim = claim.getResourceClaim();
+        assertEquals("default", resourceClaim.getContainer());
+
+        final Path hotPath = getPath(claim);
+        final Path coldPath = getColdPath(resourceClaim);
+        assertTrue(Files.exists(hotPath));
+
+        assertTrue(repository.migrate(resourceClaim));
+        assertFalse(Files.exists(hotPath));
+        assertTrue(Files.exists(coldPath));
+        assertTrue(repository.isAccessible(claim));
+        try (final InputStream in = repository.read(claim)) {
+            assertArrayEquals(data, readFully(in, data.length));
+        }
+
+        final ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        repository.exportTo(claim, baos);
+        assertArrayEquals(data, baos.toByteArray());
+
+        // Once the claim is no longer referenced, it is removed from the cold container
+        assertEquals(0, repository.decrementClaimantCount(claim));
+        assertFalse(repository.migrate(resourceClaim));
+        assertTrue(repository.remove(claim));
+        assertFalse(Files.exists(coldPath));
+    }
+
+    @Test
+    public void testTieredContainerMigrationSkipsUnreferencedClaim() throws IOException {
+        shutdown();
+        DiskUtils.deleteRecursively(coldRootFile);
+        repository = createTieredRepository(claimManager, false);
+        repository.purge();
+
+        final ContentClaim claim = writeClaim("The quick brown fox jumps over the lazy dog".getBytes());
+        assertEquals(0, repository.decrementClaimantCount(claim));
+
+        assertFalse(repository.migrate(claim.getResourceClaim()));
+        assertTrue(Files.exists(getPath(claim)));
+        assertFalse(Files.exists(getColdPath(claim.getResourceClaim())));
+    }
+
+    @Test
+    public void testTieredContainerMigratedContentFoundAfterRestart() throws IOException {
+        shutdown();
+        DiskUtils.deleteRecursively(coldRootFile);
+        repository = createTieredRepository(claimManager, false);
+        repository.purge();
+
+        final byte[] data = "The quick brown fox jumps over the lazy dog".getBytes();
+        final ContentClaim claim = writeClaim(data);
+        assertTrue(repository.migrate(claim.getResourceClaim()));
+        repository.shutdown();
+
+        // Restore the claimant count, as the FlowFile Repository would upon restart
+        final StandardResourceClaimManager restoredClaimManager = new StandardResourceClaimManager();
+        final ResourceClaim restoredResourceClaim = restoredClaimManager.newResourceClaim(claim.getResourceClaim().getContainer(),
+            claim.getResourceClaim().getSection(), claim.getResourceClaim().getId(), false, false);
+        restoredClaimManager.incrementClaimantCount(restoredResourceClaim);
+        final StandardContentClaim restoredClaim = new StandardContentClaim(restoredResourceClaim, claim.getOffset());
+        restoredClaim.setLength(claim.getLength());
+
+        repository = createTieredRepository(restoredClaimManager, false);
+        repository.cleanup();
+
+        assertTrue(Files.exists(getColdPath(restoredResourceClaim)));
+        try (final InputStream in = repository.read(restoredClaim)) {
+            assertArrayEquals(data, readFully(in, data.length));
+        }
+    }
+
+    @Test
+    public void testTieredContainerArchivesToColdContainer() throws IOException {
+        shutdown();
+        DiskUtils.deleteRecursively(coldRootFile);
+        repository = createTieredRepository(claimManager, true);
+        repository.purge();
+
+        final byte[] data = "The quick brown fox jumps over the lazy dog".getBytes();
+        final ContentClaim claim = writeClaim(data);
+        final ResourceClaim resourceClaim = claim.getResourceClaim();
+        assertEquals(0, repository.decrementClaimantCount(claim));
+
+        assertTrue(repository.archive(resourceClaim));
+        assertFalse(Files.exists(getPath(claim)));
+        assertFalse(Files.exists(FileSystemRepository.getArchivePath(getPath(claim))));
+        assertTrue(Files.exists(FileSystemRepository.getArchivePath(getColdPath(resourceClaim))));
+        // the copy made before the content is renamed into the archive is not left behind
+        try (final Stream<Path> coldFiles = Files.list(getColdPath(resourceClaim).getParent())) {
+            assertFalse(coldFiles.anyMatch(path -> path.getFileName().toString().startsWith(resourceClaim.getId())));
+        }
+
+        assertTrue(repository.isAccessible(claim));
+        try (final InputStream in = repository.read(claim)) {
+            assertArrayEquals(data, readFully(in, data.length));
+        }
+    }
+
     @Test
     public void testSize() throws IOException {
         final ContentClaim claim = repository.create(true);
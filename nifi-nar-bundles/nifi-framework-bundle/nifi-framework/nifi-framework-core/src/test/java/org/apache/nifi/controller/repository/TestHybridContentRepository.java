@@ -0,0 +1,193 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nifi.controller.repository;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.apache.nifi.controller.repository.claim.ContentClaim;
+import org.apache.nifi.controller.repository.claim.StandardResourceClaimManager;
+import org.apache.nifi.controller.repository.util.DiskUtils;
+import org.apache.nifi.stream.io.StreamUtils;
+import org.apache.nifi.util.NiFiProperties;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class TestHybridContentRepository {
+
+    private final File rootFile = new File("target/content_repository");
+    private StandardResourceClaimManager claimManager;
+    private HybridContentRepository repository;
+
+    @Before
+    public void setup() {
+        System.setProperty(NiFiProperties.PROPERTIES_FILE_PATH, TestHybridContentRepository.class.getResource("/conf/nifi.properties").getFile());
+        if (rootFile.exists()) {
+            DiskUtils.deleteRecursively(rootFile);
+        }
+        claimManager = new StandardResourceClaimManager();
+    }
+
+    @After
+    public void shutdown() {
+        if (repository != null) {
+            repository.shutdown();
+        }
+    }
+
+    private HybridContentRepository createRepository(final String maxSize, final String maxClaimSize) throws IOException {
+        final Map<String, String> addProps = new HashMap<>();
+        addProps.put(HybridContentRepository.MAX_SIZE_PROPERTY, maxSize);
+        addProps.put(HybridContentRepository.BLOCK_SIZE_PROPERTY, "1 KB");
+        addProps.put(HybridContentRepository.MAX_CLAIM_SIZE_PROPERTY, maxClaimSize);
+        final NiFiProperties nifiProperties = NiFiProperties.createBasicNiFiProperties(null, addProps);
+
+        repository = new HybridContentRepository(nifiProperties);
+        repository.initialize(claimManager);
+        repository.purge();
+        return repository;
+    }
+
+    private ContentClaim writeClaim(final byte[] content) throws IOException {
+        final ContentClaim claim = repository.create(false);
+        try (final OutputStream out = repository.write(claim)) {
+            out.write(content);
+        }
+        return claim;
+    }
+
+    private byte[] readClaim(final ContentClaim claim) throws IOException {
+        final ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        try (final InputStream in = repository.read(claim)) {
+            StreamUtils.copy(in, baos);
+        }
+        return baos.toByteArray();
+    }
+
+    private byte[] createContent(final int length) {
+        final byte[] content = new byte[length];
+        for (int i = 0; i < length; i++) {
+            content[i] = (byte) i;
+        }
+        return content;
+    }
+
+    @Test
+    public void testSmallContentHeldInMemory() throws IOException {
+        createRepository("10 KB", "4 KB");
+
+        final byte[] content = createContent(100);
+        final ContentClaim claim = writeClaim(content);
+
+        assertEquals(HybridContentRepository.CONTAINER_NAME, claim.getResourceClaim().getContainer());
+        assertTrue(repository.isHeldInMemory(claim));
+        assertEquals(1024L, repository.getMemoryUsed());
+        assertEquals(100L, repository.size(claim));
+        assertEquals(100L, claim.getLength());
+        assertArrayEquals(content, readClaim(claim));
+    }
+
+    @Test
+    public void testSpillsContentLargerThanMaxClaimSize() throws IOException {
+        createRepository("10 KB", "4 KB");
+
+        final byte[] content = createContent(5000);
+        final ContentClaim claim = writeClaim(content);
+
+        assertFalse(repository.isHeldInMemory(claim));
+        assertEquals(0L, repository.getMemoryUsed());
+        assertEquals(5000L, repository.size(claim));
+        assertArrayEquals(content, readClaim(claim));
+    }
+
+    @Test
+    public void testSpillsWhenMemoryExhausted() throws IOException {
+        createRepository("4 KB", "4 KB");
+
+        final byte[] firstContent = createContent(4096);
+        final ContentClaim firstClaim = writeClaim(firstContent);
+        assertTrue(repository.isHeldInMemory(firstClaim));
+
+        final byte[] secondContent = createContent(10);
+        final ContentClaim secondClaim = writeClaim(secondContent);
+        assertFalse(repository.isHeldInMemory(secondClaim));
+
+        assertArrayEquals(firstContent, readClaim(firstClaim));
+        assertArrayEquals(secondContent, readClaim(secondClaim));
+
+        // once the memory is released, new content is held in memory again
+        repository.decrementClaimantCount(firstClaim);
+        assertTrue(repository.remove(firstClaim));
+        assertEquals(0L, repository.getMemoryUsed());
+        assertTrue(repository.isHeldInMemory(writeClaim(secondContent)));
+    }
+
+    @Test
+    public void testPersist() throws IOException {
+        createRepository("10 KB", "4 KB");
+
+        final byte[] content = createContent(100);
+        final ContentClaim claim = writeClaim(content);
+
+        final ContentClaim persisted = repository.persist(claim);
+        assertNotEquals(HybridContentRepository.CONTAINER_NAME, persisted.getResourceClaim().getContainer());
+        assertArrayEquals(content, readClaim(persisted));
+        assertArrayEquals(content, readClaim(claim));
+        assertFalse(repository.isHeldInMemory(claim));
+        assertEquals(0L, repository.getMemoryUsed());
+
+        // the content is persisted only once, and the persisted claim is referenced by the caller and the claim in memory
+        assertSame(persisted, repository.persist(claim));
+        assertEquals(3, repository.getClaimantCount(persisted));
+        assertSame(persisted, repository.persist(persisted));
+
+        // destroying the claim in memory releases its reference to the persisted claim
+        assertEquals(0, repository.decrementClaimantCount(claim));
+        assertTrue(repository.remove(claim));
+        assertFalse(repository.isAccessible(claim));
+        assertEquals(2, repository.getClaimantCount(persisted));
+        assertArrayEquals(content, readClaim(persisted));
+    }
+
+    @Test(timeout = 10000)
+    public void testDestructableClaimsRemoved() throws IOException, InterruptedException {
+        createRepository("10 KB", "4 KB");
+
+        final ContentClaim claim = writeClaim(createContent(100));
+        assertEquals(0, repository.decrementClaimantCount(claim));
+        claimManager.markDestructable(claim.getResourceClaim());
+
+        while (repository.isAccessible(claim)) {
+            Thread.sleep(50L);
+        }
+
+        assertEquals(0L, repository.getMemoryUsed());
+    }
+}
@@ -603,6 +603,14 @@ public class TestWriteAheadFlowFileRepository {
                 return null;
             }
         }).when(queue).put(any(FlowFileRecord.class));
+        doAnswer(new Answer<Object>() {
+            @Override
+            @SuppressWarnings("unchecked")
+            public Object answer(final InvocationOnMock invocation) throws Throwable {
+                flowFileCollection.addAll((Collection<FlowFileRecord>) invocation.getArguments()[0]);
+                return null;
+            }
+        }).when(queue).putAll(any(Collection.class));
 
         when(connection.getFlowFileQueue()).thenReturn(queue);
 
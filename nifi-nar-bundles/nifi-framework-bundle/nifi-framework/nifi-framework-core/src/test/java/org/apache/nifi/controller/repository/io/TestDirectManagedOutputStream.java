@@ -0,0 +1,88 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nifi.controller.repository.io;
+
+import org.apache.nifi.stream.io.StreamUtils;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+public class TestDirectManagedOutputStream {
+
+    @Test
+    public void testWriteAndRead() throws IOException {
+        final DirectMemoryManager memoryManager = new DirectMemoryManager(1024, 16);
+        final DirectManagedOutputStream out = new DirectManagedOutputStream(memoryManager);
+
+        final byte[] data = new byte[100];
+        new Random(1L).nextBytes(data);
+        out.write(data, 0, 10);
+        out.write(data[10]);
+        out.write(data, 11, 89);
+
+        assertEquals(100, out.size());
+        assertEquals(112, out.getBufferLength());
+
+        final ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        out.writeTo(baos);
+        assertArrayEquals(data, baos.toByteArray());
+
+        try (final InputStream in = out.newInputStream()) {
+            final ByteArrayOutputStream read = new ByteArrayOutputStream();
+            StreamUtils.copy(in, read);
+            assertArrayEquals(data, read.toByteArray());
+        }
+
+        try (final InputStream in = out.newInputStream()) {
+            for (int i = 0; i < data.length; i++) {
+                assertEquals(data[i] & 0xFF, in.read());
+            }
+            assertEquals(-1, in.read());
+        }
+    }
+
+    @Test
+    public void testBlocksReturnedToPool() throws IOException {
+        final DirectMemoryManager memoryManager = new DirectMemoryManager(64, 16);
+        final DirectManagedOutputStream first = new DirectManagedOutputStream(memoryManager);
+        first.write(new byte[64]);
+
+        final DirectManagedOutputStream second = new DirectManagedOutputStream(memoryManager);
+        try {
+            second.write(new byte[1]);
+            fail("Expected pool to be exhausted");
+        } catch (final IOException expected) {
+        }
+
+        first.destroy();
+        assertEquals(0, first.size());
+
+        // the blocks that were released by the first stream can now be used by the second
+        final byte[] data = "The quick brown fox jumps over the lazy dog".getBytes();
+        second.write(data);
+        final ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        second.writeTo(baos);
+        assertArrayEquals(data, baos.toByteArray());
+    }
+}
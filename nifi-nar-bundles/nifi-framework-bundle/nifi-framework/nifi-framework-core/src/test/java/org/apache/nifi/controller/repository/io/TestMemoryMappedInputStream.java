@@ -0,0 +1,119 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nifi.controller.repository.io;
+
+import org.apache.nifi.stream.io.StreamUtils;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+public class TestMemoryMappedInputStream {
+
+    private final File file = new File("target/TestMemoryMappedInputStream.bin");
+    private final byte[] data = new byte[100];
+
+    @Before
+    public void setup() throws IOException {
+        for (int i = 0; i < data.length; i++) {
+            data[i] = (byte) i;
+        }
+
+        Files.write(file.toPath(), data);
+    }
+
+    private InputStream createStream(final long offset, final long length, final long regionSize) throws IOException {
+        return new MemoryMappedInputStream(FileChannel.open(file.toPath(), StandardOpenOption.READ), offset, () -> length, regionSize);
+    }
+
+    @Test
+    public void testReadAcrossRegions() throws IOException {
+        try (final InputStream in = createStream(10, 75, 8)) {
+            final ByteArrayOutputStream baos = new ByteArrayOutputStream();
+            StreamUtils.copy(in, baos);
+            assertArrayEquals(Arrays.copyOfRange(data, 10, 85), baos.toByteArray());
+            assertEquals(-1, in.read());
+        }
+    }
+
+    @Test
+    public void testSingleByteRead() throws IOException {
+        try (final InputStream in = createStream(98, 2, 8)) {
+            assertEquals(98, in.read());
+            assertEquals(99, in.read());
+            assertEquals(-1, in.read());
+        }
+    }
+
+    @Test
+    public void testSkipAndAvailable() throws IOException {
+        try (final InputStream in = createStream(0, 50, 8)) {
+            assertEquals(50, in.available());
+            assertEquals(3, in.skip(3));
+            assertEquals(3, in.read());
+
+            // skip past the end of the current region
+            assertEquals(20, in.skip(20));
+            assertEquals(24, in.read());
+            assertEquals(25, in.available());
+
+            assertEquals(25, in.skip(100));
+            assertEquals(-1, in.read());
+        }
+    }
+
+    @Test
+    public void testMarkAndReset() throws IOException {
+        try (final InputStream in = createStream(0, 50, 8)) {
+            StreamUtils.skip(in, 6);
+            in.mark(100);
+
+            final byte[] buffer = new byte[10];
+            StreamUtils.fillBuffer(in, buffer);
+            assertArrayEquals(Arrays.copyOfRange(data, 6, 16), buffer);
+
+            in.reset();
+            assertEquals(6, in.read());
+        }
+    }
+
+    @Test
+    public void testLengthGrows() throws IOException {
+        final AtomicLong length = new AtomicLong(4L);
+        try (final InputStream in = new MemoryMappedInputStream(FileChannel.open(file.toPath(), StandardOpenOption.READ), 0, length::get, 8)) {
+            final byte[] buffer = new byte[10];
+            assertEquals(4, in.read(buffer));
+            assertEquals(-1, in.read(buffer));
+
+            length.set(6L);
+            assertEquals(2, in.read(buffer));
+            assertEquals(4, buffer[0]);
+            assertEquals(5, buffer[1]);
+        }
+    }
+}
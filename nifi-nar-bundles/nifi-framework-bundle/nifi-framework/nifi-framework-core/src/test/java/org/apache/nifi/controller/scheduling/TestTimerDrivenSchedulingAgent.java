@@ -0,0 +1,208 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nifi.controller.scheduling;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.nifi.components.state.StateManagerProvider;
+import org.apache.nifi.connectable.Connectable;
+import org.apache.nifi.connectable.ConnectableType;
+import org.apache.nifi.connectable.Connection;
+import org.apache.nifi.controller.FlowController;
+import org.apache.nifi.controller.ScheduledState;
+import org.apache.nifi.controller.queue.FlowFileQueue;
+import org.apache.nifi.controller.repository.FlowFileEventRepository;
+import org.apache.nifi.controller.repository.RepositoryContext;
+import org.apache.nifi.encrypt.StringEncryptor;
+import org.apache.nifi.engine.FlowEngine;
+import org.apache.nifi.nar.ExtensionManager;
+import org.apache.nifi.processor.ProcessContext;
+import org.apache.nifi.processor.ProcessSessionFactory;
+import org.apache.nifi.processor.Processor;
+import org.apache.nifi.util.NiFiProperties;
+import org.junit.After;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+public class TestTimerDrivenSchedulingAgent {
+
+    private final String propsFile = TestTimerDrivenSchedulingAgent.class.getResource("/standardprocessschedulertest.nifi.properties").getFile();
+
+    private TimerDrivenSchedulingAgent agent;
+
+    @After
+    public void shutdown() {
+        if (agent != null) {
+            agent.shutdown();
+        }
+    }
+
+    private TimerDrivenSchedulingAgent createAgent(final boolean adaptive, final String sweepPeriod, final int threads) {
+        final Map<String, String> overrideProperties = new HashMap<>();
+        overrideProperties.put(NiFiProperties.BORED_YIELD_DURATION, "10 millis");
+        overrideProperties.put(TimerDrivenSchedulingAgent.ADAPTIVE_SCHEDULING_ENABLED, String.valueOf(adaptive));
+        overrideProperties.put(TimerDrivenSchedulingAgent.ADAPTIVE_SCHEDULING_SWEEP_PERIOD, sweepPeriod);
+        final NiFiProperties nifiProperties = NiFiProperties.createBasicNiFiProperties(propsFile, overrideProperties);
+
+        final FlowController flowController = Mockito.mock(FlowController.class);
+        Mockito.when(flowController.getStateManagerProvider()).thenReturn(Mockito.mock(StateManagerProvider.class));
+        Mockito.when(flowController.getExtensionManager()).thenReturn(Mockito.mock(ExtensionManager.class));
+
+        final RepositoryContext repoContext = Mockito.mock(RepositoryContext.class);
+        Mockito.when(repoContext.getFlowFileEventRepository()).thenReturn(Mockito.mock(FlowFileEventRepository.class));
+
+        final RepositoryContextFactory contextFactory = Mockito.mock(RepositoryContextFactory.class);
+        Mockito.when(contextFactory.newProcessContext(Mockito.any(Connectable.class), Mockito.any(AtomicLong.class))).thenReturn(repoContext);
+
+        final FlowEngine flowEngine = new FlowEngine(threads, "Unit Test", true);
+        agent = new TimerDrivenSchedulingAgent(flowController, flowEngine, contextFactory, Mockito.mock(StringEncryptor.class), nifiProperties);
+        return agent;
+    }
+
+    @Test(timeout = 10000)
+    public void testIdleComponentNotScheduledUntilEvent() throws InterruptedException {
+        createAgent(true, "1 hour", 2);
+
+        final MockComponent component = new MockComponent("1");
+        agent.schedule(component.connectable, component.scheduleState);
+
+        while (component.workChecks.get() == 0) {
+            Thread.sleep(10L);
+        }
+
+        // once parked, the component is no longer checked for work
+        Thread.sleep(100L);
+        final long workChecks = component.workChecks.get();
+        Thread.sleep(200L);
+        assertEquals(workChecks, component.workChecks.get());
+
+        component.queueFlowFile();
+        agent.onEvent(component.connectable);
+
+        while (component.triggers.get() == 0) {
+            Thread.sleep(10L);
+        }
+
+        agent.unschedule(component.connectable, component.scheduleState);
+    }
+
+    @Test(timeout = 10000)
+    public void testIdleComponentWokenBySweep() throws InterruptedException {
+        createAgent(true, "50 millis", 2);
+
+        final MockComponent component = new MockComponent("1");
+        agent.schedule(component.connectable, component.scheduleState);
+
+        while (component.workChecks.get() == 0) {
+            Thread.sleep(10L);
+        }
+
+        // no event is triggered, but the component should still be woken up
+        component.queueFlowFile();
+        while (component.triggers.get() == 0) {
+            Thread.sleep(10L);
+        }
+
+        agent.unschedule(component.connectable, component.scheduleState);
+    }
+
+    @Test(timeout = 10000)
+    public void testUnscheduledComponentNotWoken() throws InterruptedException {
+        createAgent(true, "1 hour", 2);
+
+        final MockComponent component = new MockComponent("1");
+        agent.schedule(component.connectable, component.scheduleState);
+
+        while (component.workChecks.get() == 0) {
+            Thread.sleep(10L);
+        }
+
+        agent.unschedule(component.connectable, component.scheduleState);
+        Thread.sleep(50L);
+
+        component.queueFlowFile();
+        agent.onEvent(component.connectable);
+        Thread.sleep(100L);
+        assertEquals(0, component.triggers.get());
+    }
+
+    @Test(timeout = 10000)
+    public void testIdleComponentPolledWhenNotAdaptive() throws InterruptedException {
+        createAgent(false, "1 hour", 2);
+
+        final MockComponent component = new MockComponent("1");
+        agent.schedule(component.connectable, component.scheduleState);
+
+        while (component.workChecks.get() < 5) {
+            Thread.sleep(10L);
+        }
+
+        agent.unschedule(component.connectable, component.scheduleState);
+        assertTrue(component.workChecks.get() >= 5);
+    }
+
+    private static class MockComponent {
+        // stub-only mocks do not record their invocations, which would otherwise exhaust the heap
+        private final Connectable connectable = Mockito.mock(Connectable.class, Mockito.withSettings().stubOnly());
+        private final LifecycleState scheduleState = new LifecycleState();
+        private final AtomicBoolean flowFileQueued = new AtomicBoolean(false);
+        private final AtomicLong workChecks = new AtomicLong(0L);
+        private final AtomicLong triggers = new AtomicLong(0L);
+
+        MockComponent(final String id) {
+            final FlowFileQueue queue = Mockito.mock(FlowFileQueue.class, Mockito.withSettings().stubOnly());
+            Mockito.when(queue.isActiveQueueEmpty()).thenAnswer(invocation -> {
+                workChecks.incrementAndGet();
+                return !flowFileQueued.get();
+            });
+
+            final Connection connection = Mockito.mock(Connection.class, Mockito.withSettings().stubOnly());
+            Mockito.when(connection.getSource()).thenReturn(Mockito.mock(Connectable.class));
+            Mockito.when(connection.getDestination()).thenReturn(connectable);
+            Mockito.when(connection.getFlowFileQueue()).thenReturn(queue);
+
+            Mockito.when(connectable.getIdentifier()).thenReturn(id);
+            Mockito.when(connectable.getConnectableType()).thenReturn(ConnectableType.PROCESSOR);
+            Mockito.when(connectable.getRunnableComponent()).thenReturn(Mockito.mock(Processor.class));
+            Mockito.when(connectable.getRelationships()).thenReturn(Collections.emptySet());
+            Mockito.when(connectable.getScheduledState()).thenReturn(ScheduledState.RUNNING);
+            Mockito.when(connectable.getMaxConcurrentTasks()).thenReturn(1);
+            Mockito.when(connectable.getSchedulingPeriod(Mockito.any(TimeUnit.class)))
+                .thenAnswer(invocation -> invocation.getArgumentAt(0, TimeUnit.class).convert(1L, TimeUnit.MILLISECONDS));
+            Mockito.when(connectable.hasIncomingConnection()).thenReturn(true);
+            Mockito.when(connectable.getIncomingConnections()).thenReturn(Collections.singletonList(connection));
+
+            Mockito.doAnswer(invocation -> {
+                flowFileQueued.set(false);
+                triggers.incrementAndGet();
+                return null;
+            }).when(connectable).onTrigger(Mockito.any(ProcessContext.class), Mockito.any(ProcessSessionFactory.class));
+        }
+
+        void queueFlowFile() {
+            flowFileQueued.set(true);
+        }
+    }
+}
@@ -0,0 +1,175 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nifi.controller.swap;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import org.apache.nifi.controller.queue.FlowFileQueue;
+import org.apache.nifi.controller.repository.FlowFileRecord;
+import org.apache.nifi.controller.repository.SwapContents;
+import org.apache.nifi.controller.repository.SwapSummary;
+import org.apache.nifi.controller.repository.claim.ContentClaim;
+import org.apache.nifi.controller.repository.claim.ResourceClaim;
+import org.apache.nifi.controller.repository.claim.ResourceClaimManager;
+import org.apache.nifi.controller.repository.claim.StandardResourceClaimManager;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+public class TestColumnarSwapSerializerDeserializer {
+
+    private static final String QUEUE_IDENTIFIER = "87bb99fe-412c-49f6-a441-d1b0af4e20b4";
+
+    private ResourceClaimManager resourceClaimManager;
+    private FlowFileQueue flowFileQueue;
+
+    @Before
+    public void setup() {
+        MockFlowFile.resetIdGenerator();
+        resourceClaimManager = new StandardResourceClaimManager();
+        flowFileQueue = Mockito.mock(FlowFileQueue.class);
+        Mockito.when(flowFileQueue.getIdentifier()).thenReturn(QUEUE_IDENTIFIER);
+    }
+
+    private List<FlowFileRecord> createFlowFiles(final int count) {
+        final List<FlowFileRecord> toSwap = new ArrayList<>(count);
+        final Map<String, String> attrs = new HashMap<>();
+        attrs.put("filename", "file.txt");
+        final ContentClaim firstClaim = MockFlowFile.createContentClaim("id", resourceClaimManager);
+        for (int i = 0; i < count; i++) {
+            attrs.put("i", String.valueOf(i));
+            final FlowFileRecord ff;
+            if (i < 2) {
+                ff = new MockFlowFile(attrs, i, firstClaim);
+            } else if (i == 2) {
+                ff = new MockFlowFile(attrs, i, (ContentClaim) null);
+            } else {
+                ff = new MockFlowFile(attrs, i, resourceClaimManager);
+            }
+            toSwap.add(ff);
+        }
+        return toSwap;
+    }
+
+    private byte[] serialize(final List<FlowFileRecord> toSwap, final boolean compress) throws IOException {
+        final ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        new ColumnarSwapSerializer(compress).serializeFlowFiles(toSwap, flowFileQueue, "target/testRoundTrip.swap", baos);
+        return baos.toByteArray();
+    }
+
+    @Test
+    public void testRoundTripSerializeDeserializeSummary() throws IOException {
+        final List<FlowFileRecord> toSwap = createFlowFiles(10000);
+        final long size = toSwap.stream().mapToLong(FlowFileRecord::getSize).sum();
+
+        final SwapSummary swapSummary;
+        try (final DataInputStream dis = new DataInputStream(new ByteArrayInputStream(serialize(toSwap, false)))) {
+            swapSummary = new ColumnarSwapDeserializer().getSwapSummary(dis, "target/testRoundTrip.swap", resourceClaimManager);
+        }
+
+        assertEquals(10000, swapSummary.getQueueSize().getObjectCount());
+        assertEquals(size, swapSummary.getQueueSize().getByteCount());
+        assertEquals(9999, swapSummary.getMaxFlowFileId().intValue());
+
+        final List<ResourceClaim> resourceClaims = swapSummary.getResourceClaims();
+        assertEquals(9999, resourceClaims.size());
+        assertFalse(resourceClaims.stream().anyMatch(claim -> claim == null));
+        assertEquals(2, resourceClaims.stream().filter(claim -> claim.getId().equals("id")).collect(Collectors.counting()).intValue());
+
+        final Set<ResourceClaim> uniqueClaims = new HashSet<>(resourceClaims);
+        assertEquals(9998, uniqueClaims.size());
+    }
+
+    @Test
+    public void testRoundTripSerializeDeserializeFullSwapFile() throws IOException {
+        verifyRoundTrip(false);
+    }
+
+    @Test
+    public void testRoundTripSerializeDeserializeCompressedSwapFile() throws IOException {
+        verifyRoundTrip(true);
+    }
+
+    @Test
+    public void testCompressionReducesSize() throws IOException {
+        final List<FlowFileRecord> toSwap = createFlowFiles(10000);
+        assertTrue(serialize(toSwap, true).length < serialize(toSwap, false).length);
+    }
+
+    @Test
+    public void testRoundTripEmptySwapFile() throws IOException {
+        final SwapContents contents;
+        try (final DataInputStream dis = new DataInputStream(new ByteArrayInputStream(serialize(new ArrayList<>(), true)))) {
+            contents = new ColumnarSwapDeserializer().deserializeFlowFiles(dis, "target/testRoundTrip.swap", flowFileQueue, resourceClaimManager);
+        }
+
+        assertEquals(0, contents.getSummary().getQueueSize().getObjectCount());
+        assertNull(contents.getSummary().getMaxFlowFileId());
+        assertTrue(contents.getFlowFiles().isEmpty());
+    }
+
+    private void verifyRoundTrip(final boolean compress) throws IOException {
+        final List<FlowFileRecord> toSwap = createFlowFiles(10000);
+        final long size = toSwap.stream().mapToLong(FlowFileRecord::getSize).sum();
+
+        final SwapContents contents;
+        try (final DataInputStream dis = new DataInputStream(new ByteArrayInputStream(serialize(toSwap, compress)))) {
+            contents = new ColumnarSwapDeserializer().deserializeFlowFiles(dis, "target/testRoundTrip.swap", flowFileQueue, resourceClaimManager);
+        }
+
+        final SwapSummary swapSummary = contents.getSummary();
+        assertEquals(10000, swapSummary.getQueueSize().getObjectCount());
+        assertEquals(size, swapSummary.getQueueSize().getByteCount());
+        assertEquals(9999, swapSummary.getMaxFlowFileId().intValue());
+        assertEquals(9999, swapSummary.getResourceClaims().size());
+
+        assertEquals(10000, contents.getFlowFiles().size());
+
+        int counter = 0;
+        for (final FlowFileRecord flowFile : contents.getFlowFiles()) {
+            final FlowFileRecord original = toSwap.get(counter++);
+            assertEquals(original.getId(), flowFile.getId());
+            assertEquals(original.getEntryDate(), flowFile.getEntryDate());
+            assertEquals(original.getLineageStartDate(), flowFile.getLineageStartDate());
+            assertEquals(original.getLastQueueDate(), flowFile.getLastQueueDate());
+            assertEquals(original.getSize(), flowFile.getSize());
+            assertEquals(original.getAttributes(), flowFile.getAttributes());
+            assertEquals(original.getContentClaim(), flowFile.getContentClaim());
+
+            if (original.getContentClaim() != null) {
+                assertEquals(original.getContentClaimOffset(), flowFile.getContentClaimOffset());
+                assertEquals(original.getContentClaim().getOffset(), flowFile.getContentClaim().getOffset());
+                assertEquals(original.getContentClaim().getLength(), flowFile.getContentClaim().getLength());
+            }
+        }
+    }
+}
@@ -0,0 +1,232 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nifi.controller.repository;
+
+import org.apache.nifi.flowfile.attributes.CoreAttributes;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.BiConsumer;
+
+/**
+ * <p>
+ * An immutable Map of FlowFile attributes that takes far less heap than a HashMap. The keys are held in an array, in the
+ * iteration order of the Map they were copied from, with a small hash index for lookups, and the values in a parallel array.
+ * As with the HashMap that it replaces, a key or value may be null. Because millions of FlowFiles may be queued at once and
+ * most of them have the same attribute names, and often the same values, the keys, the key arrays along with their index,
+ * and short values are de-duplicated so that FlowFiles with the same set of attributes, such as a parent and its children,
+ * share them.
+ * </p>
+ *
+ * <p>
+ * De-duplication uses fixed-size tables in which a newer String replaces an older one whose hash falls in the same slot.
+ * This means that a String is not always de-duplicated, but the tables never grow, need no locking, and do not keep
+ * unused Strings reachable for long.
+ * </p>
+ *
+ * <b>Immutable - Thread Safe</b>
+ */
+final class CompactAttributeMap extends AbstractMap<String, String> {
+    static final CompactAttributeMap EMPTY = new CompactAttributeMap(new Keys(new String[0]), new String[0]);
+
+    private static final int MAX_DEDUPLICATED_VALUE_LENGTH = 128;
+    private static final String[] keyTable = new String[4096];
+    // Keys objects, unlike Strings, are not safely published through a data race, so this table's slots are volatile
+    private static final AtomicReferenceArray<Keys> keysTable = new AtomicReferenceArray<>(1024);
+    private static final String[] valueTable = new String[16384];
+
+    private final Keys keys;
+    private final String[] values;
+
+    private CompactAttributeMap(final Keys keys, final String[] values) {
+        this.keys = keys;
+        this.values = values;
+    }
+
+    /**
+     * Creates a CompactAttributeMap with the same entries, in the same iteration order, as the given Map, or returns the
+     * given Map if it is already a CompactAttributeMap.
+     *
+     * @param attributes the attributes to copy
+     * @return a CompactAttributeMap with the given attributes
+     */
+    static CompactAttributeMap copyOf(final Map<String, String> attributes) {
+        if (attributes instanceof CompactAttributeMap) {
+            return (CompactAttributeMap) attributes;
+        }
+        if (attributes.isEmpty()) {
+            return EMPTY;
+        }
+
+        final String[] names = new String[attributes.size()];
+        final String[] values = new String[names.length];
+        int count = 0;
+        for (final Map.Entry<String, String> entry : attributes.entrySet()) {
+            final String name = entry.getKey();
+            final String value = entry.getValue();
+            names[count] = name;
+            values[count] = value == null || CoreAttributes.UUID.key().equals(name) ? value : deduplicateValue(value);
+            count++;
+        }
+
+        return new CompactAttributeMap(deduplicateKeys(names), values);
+    }
+
+    private static Keys deduplicateKeys(final String[] names) {
+        final int slot = slot(Arrays.hashCode(names), keysTable.length());
+        final Keys existing = keysTable.get(slot);
+        if (existing != null && Arrays.equals(names, existing.names)) {
+            return existing;
+        }
+
+        for (int i = 0; i < names.length; i++) {
+            if (names[i] != null) {
+                names[i] = deduplicate(names[i], keyTable);
+            }
+        }
+
+        final Keys keys = new Keys(names);
+        keysTable.set(slot, keys);
+        return keys;
+    }
+
+    private static String deduplicateValue(final String value) {
+        // Long values are rarely repeated and are costly to compare
+        return value.length() > MAX_DEDUPLICATED_VALUE_LENGTH ? value : deduplicate(value, valueTable);
+    }
+
+    private static String deduplicate(final String value, final String[] table) {
+        final int slot = slot(value.hashCode(), table.length);
+        final String existing = table[slot];
+        if (value.equals(existing)) {
+            return existing;
+        }
+
+        table[slot] = value;
+        return value;
+    }
+
+    private static int slot(final int hash, final int tableSize) {
+        return (hash ^ (hash >>> 16)) & (tableSize - 1);
+    }
+
+    /**
+     * The attribute names of a CompactAttributeMap, in iteration order, along with an open-addressing hash index into them.
+     * Instances are shared by every map that has the same names in the same order.
+     */
+    private static final class Keys {
+        private final String[] names;
+        private final int[] index; // each slot holds the position of a name plus one, or 0 if the slot is empty
+
+        private Keys(final String[] names) {
+            this.names = names;
+            this.index = new int[Math.max(2, Integer.highestOneBit(Math.max(1, names.length) * 2) * 2)];
+
+            for (int i = 0; i < names.length; i++) {
+                int slot = slot(Objects.hashCode(names[i]), index.length);
+                while (index[slot] != 0) {
+                    slot = (slot + 1) & (index.length - 1);
+                }
+                index[slot] = i + 1;
+            }
+        }
+
+        private int indexOf(final Object key) {
+            int slot = slot(Objects.hashCode(key), index.length);
+            int position;
+            while ((position = index[slot]) != 0) {
+                final String name = names[position - 1];
+                if (name == key || (name != null && name.equals(key))) {
+                    return position - 1;
+                }
+                slot = (slot + 1) & (index.length - 1);
+            }
+
+            return -1;
+        }
+    }
+
+    private int indexOf(final Object key) {
+        if (key != null && !(key instanceof String)) {
+            return -1;
+        }
+        return keys.indexOf(key);
+    }
+
+    @Override
+    public String get(final Object key) {
+        final int index = indexOf(key);
+        return index < 0 ? null : values[index];
+    }
+
+    @Override
+    public boolean containsKey(final Object key) {
+        return indexOf(key) >= 0;
+    }
+
+    @Override
+    public int size() {
+        return keys.names.length;
+    }
+
+    @Override
+    public void forEach(final BiConsumer<? super String, ? super String> action) {
+        for (int i = 0; i < keys.names.length; i++) {
+            action.accept(keys.names[i], values[i]);
+        }
+    }
+
+    @Override
+    public Set<Map.Entry<String, String>> entrySet() {
+        return new AbstractSet<Map.Entry<String, String>>() {
+            @Override
+            public Iterator<Map.Entry<String, String>> iterator() {
+                return new Iterator<Map.Entry<String, String>>() {
+                    private int index = 0;
+
+                    @Override
+                    public boolean hasNext() {
+                        return index < keys.names.length;
+                    }
+
+                    @Override
+                    public Map.Entry<String, String> next() {
+                        if (index >= keys.names.length) {
+                            throw new NoSuchElementException();
+                        }
+
+                        final Map.Entry<String, String> entry = new AbstractMap.SimpleImmutableEntry<>(keys.names[index], values[index]);
+                        index++;
+                        return entry;
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return keys.names.length;
+            }
+        };
+    }
+}
@@ -16,7 +16,6 @@
  */
 package org.apache.nifi.controller.repository;
 
-import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
@@ -57,7 +56,7 @@ public final class StandardFlowFileRecord implements FlowFile, FlowFileRecord {
 
     private StandardFlowFileRecord(final Builder builder) {
         this.id = builder.bId;
-        this.attributes = builder.bAttributes == null ? Collections.emptyMap() : builder.bAttributes;
+        this.attributes = builder.bAttributes == null ? CompactAttributeMap.EMPTY : CompactAttributeMap.copyOf(builder.bAttributes);
         this.entryDate = builder.bEntryDate;
         this.lineageStartDate = builder.bLineageStartDate;
         this.lineageStartIndex = builder.bLineageStartIndex;
@@ -106,7 +105,8 @@ public final class StandardFlowFileRecord implements FlowFile, FlowFileRecord {
 
     @Override
     public Map<String, String> getAttributes() {
-        return Collections.unmodifiableMap(this.attributes);
+        // The attributes are held in an immutable CompactAttributeMap, so there is no need to wrap them
+        return this.attributes;
     }
 
     @Override
@@ -319,12 +319,10 @@ public final class StandardFlowFileRecord implements FlowFile, FlowFileRecord {
             bLineageIdentifiers.clear();
             bPenaltyExpirationMs = specFlowFile.getPenaltyExpirationMillis();
             bSize = specFlowFile.getSize();
-            // If this is a StandardFlowFileRecord, access the attributes map directly. Do not use the
-            // getAttributes() method, because that will wrap the original in an UnmodifiableMap. As a result,
-            // a Processor that continually calls session.append() for instance will have a FlowFile whose attributes
-            // Map is wrapped thousands of times until it hits a StackOverflowError. We want the getter to return
-            // UnmodifiableMap, though, so that Processors cannot directly modify that Map.
-            bAttributes = specFlowFile instanceof StandardFlowFileRecord ? ((StandardFlowFileRecord) specFlowFile).attributes : specFlowFile.getAttributes();
+            // If this is a StandardFlowFileRecord, its attributes are an immutable CompactAttributeMap, which is shared with
+            // the new FlowFile unless the attributes are changed. Otherwise, they are copied into a CompactAttributeMap when
+            // the new FlowFile is built.
+            bAttributes = specFlowFile.getAttributes();
             bAttributesCopied = false;
             bClaim = specFlowFile.getContentClaim();
             bClaimOffset = specFlowFile.getContentClaimOffset();
@@ -0,0 +1,127 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nifi.controller.repository;
+
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class TestStandardFlowFileRecord {
+
+    @Test
+    public void testAttributes() {
+        final Map<String, String> attributes = new HashMap<>();
+        attributes.put("filename", "file.txt");
+        attributes.put("path", "./");
+        attributes.put("mime.type", "text/plain");
+
+        final FlowFileRecord flowFile = new StandardFlowFileRecord.Builder()
+            .addAttributes(attributes)
+            .addAttribute("uuid", UUID.randomUUID().toString())
+            .removeAttributes("path")
+            .build();
+
+        final Map<String, String> expected = new HashMap<>(attributes);
+        expected.remove("path");
+        expected.put("uuid", flowFile.getAttribute("uuid"));
+        assertEquals(expected, flowFile.getAttributes());
+        assertEquals(flowFile.getAttributes(), expected);
+        assertEquals(expected.hashCode(), flowFile.getAttributes().hashCode());
+        assertEquals("text/plain", flowFile.getAttribute("mime.type"));
+        assertNull(flowFile.getAttribute("path"));
+        assertFalse(flowFile.getAttributes().containsKey("path"));
+        assertTrue(new StandardFlowFileRecord.Builder().build().getAttributes().isEmpty());
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void testAttributesCannotBeModified() {
+        final FlowFileRecord flowFile = new StandardFlowFileRecord.Builder().addAttribute("filename", "file.txt").build();
+        flowFile.getAttributes().put("filename", "other.txt");
+    }
+
+    @Test
+    public void testAttributesShared() {
+        final FlowFileRecord parent = new StandardFlowFileRecord.Builder()
+            .addAttribute("uuid", UUID.randomUUID().toString())
+            .addAttribute("filename", "file.txt")
+            .build();
+
+        // A FlowFile whose attributes are not changed shares them with the FlowFile it was built from
+        final FlowFileRecord updated = new StandardFlowFileRecord.Builder().fromFlowFile(parent).size(10L).build();
+        assertSame(parent.getAttributes(), updated.getAttributes());
+
+        // FlowFiles built separately with equal short values share the String instances
+        final FlowFileRecord child = new StandardFlowFileRecord.Builder()
+            .addAttributes(parent.getAttributes())
+            .addAttribute("uuid", UUID.randomUUID().toString())
+            .addAttribute("mime.type", new String("text/plain"))
+            .build();
+        final FlowFileRecord sibling = new StandardFlowFileRecord.Builder()
+            .addAttributes(parent.getAttributes())
+            .addAttribute("uuid", UUID.randomUUID().toString())
+            .addAttribute("mime.type", new String("text/plain"))
+            .build();
+        assertSame(child.getAttribute("mime.type"), sibling.getAttribute("mime.type"));
+        assertSame(parent.getAttribute("filename"), child.getAttribute("filename"));
+    }
+
+    @Test
+    public void testAttributesKeepIterationOrder() {
+        final Map<String, String> attributes = new LinkedHashMap<>();
+        for (int i = 0; i < 50; i++) {
+            attributes.put("attribute." + (50 - i), String.valueOf(i));
+        }
+
+        final FlowFileRecord flowFile = new StandardFlowFileRecord.Builder().fromFlowFile(mockFlowFileRecord(attributes)).build();
+        assertEquals(new ArrayList<>(attributes.keySet()), new ArrayList<>(flowFile.getAttributes().keySet()));
+        assertEquals(new ArrayList<>(attributes.values()), new ArrayList<>(flowFile.getAttributes().values()));
+        for (int i = 0; i < 50; i++) {
+            assertEquals(String.valueOf(i), flowFile.getAttribute("attribute." + (50 - i)));
+        }
+    }
+
+    @Test
+    public void testNullValuedAttributesKept() {
+        // The Builder does not add null values itself, but a FlowFile that it copies may have them
+        final Map<String, String> attributes = new HashMap<>();
+        attributes.put("filename", "file.txt");
+        attributes.put("empty", null);
+
+        final FlowFileRecord flowFile = new StandardFlowFileRecord.Builder().fromFlowFile(mockFlowFileRecord(attributes)).build();
+        assertEquals(attributes, flowFile.getAttributes());
+        assertTrue(flowFile.getAttributes().containsKey("empty"));
+        assertNull(flowFile.getAttribute("empty"));
+        assertEquals(2, flowFile.getAttributes().size());
+    }
+
+    private static FlowFileRecord mockFlowFileRecord(final Map<String, String> attributes) {
+        final FlowFileRecord flowFile = Mockito.mock(FlowFileRecord.class);
+        Mockito.when(flowFile.getAttributes()).thenReturn(attributes);
+        return flowFile;
+    }
+}
@@ -52,6 +52,7 @@ import org.apache.nifi.processor.util.StandardValidators;
 import org.apache.nifi.stream.io.StreamUtils;
 
 import com.marklogic.client.datamovement.DataMovementManager;
+import com.marklogic.client.datamovement.WriteBatch;
 import com.marklogic.client.datamovement.WriteBatcher;
 import com.marklogic.client.datamovement.WriteEvent;
 import com.marklogic.client.datamovement.impl.WriteEventImpl;
@@ -242,27 +243,32 @@ public class PutMarkLogic extends AbstractMarkLogicProcessor {
         if(threadCount != null) {
             writeBatcher.withThreadCount(threadCount);
         }
-        this.writeBatcher.onBatchSuccess(writeBatch -> {
-            if (writeBatch.getItems().length > 0) {
-                ProcessSession session = getFlowFileInfoForWriteEvent(writeBatch.getItems()[0]).session;
-                String uriList = Stream.of(writeBatch.getItems()).map((item) -> {
-                    return item.getTargetUri();
-                }).collect(Collectors.joining(","));
-                FlowFile batchFlowFile = session.create();
-                session.putAttribute(batchFlowFile, "URIs", uriList);
-                synchronized(session) {
-                    session.transfer(batchFlowFile, BATCH_SUCCESS);
-                }
-                for(WriteEvent writeEvent : writeBatch.getItems()) {
-                    routeDocumentToRelationship(writeEvent, SUCCESS);
-                }
+        this.writeBatcher.onBatchSuccess(this::routeBatchSuccess)
+            .onBatchFailure(this::routeBatchFailure);
+        dataMovementManager.startJob(writeBatcher);
+    }
+
+    protected void routeBatchSuccess(WriteBatch writeBatch) {
+        if (writeBatch.getItems().length > 0) {
+            ProcessSession session = getFlowFileInfoForWriteEvent(writeBatch.getItems()[0]).session;
+            String uriList = Stream.of(writeBatch.getItems()).map((item) -> {
+                return item.getTargetUri();
+            }).collect(Collectors.joining(","));
+            FlowFile batchFlowFile = session.create();
+            session.putAttribute(batchFlowFile, "URIs", uriList);
+            synchronized(session) {
+                session.transfer(batchFlowFile, BATCH_SUCCESS);
             }
-        }).onBatchFailure((writeBatch, throwable) -> {
             for(WriteEvent writeEvent : writeBatch.getItems()) {
-                routeDocumentToRelationship(writeEvent, FAILURE);
+                routeDocumentToRelationship(writeEvent, SUCCESS);
             }
-        });
-        dataMovementManager.startJob(writeBatcher);
+        }
+    }
+
+    protected void routeBatchFailure(WriteBatch writeBatch, Throwable throwable) {
+        for(WriteEvent writeEvent : writeBatch.getItems()) {
+            routeDocumentToRelationship(writeEvent, FAILURE);
+        }
     }
 
     protected FlowFileInfo getFlowFileInfoForWriteEvent(WriteEvent writeEvent) {
@@ -331,6 +337,13 @@ public class PutMarkLogic extends AbstractMarkLogicProcessor {
         writeBatcher.flushAsync();
     }
 
+    /*
+     * Protected so that it can be overridden for unit testing purposes.
+     */
+    protected void flushWriteBatcherAndWait(WriteBatcher writeBatcher) {
+        writeBatcher.flushAndWait();
+    }
+
     /*
      * Protected so that it can be overridden for unit testing purposes.
      */
@@ -0,0 +1,344 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nifi.marklogic.processor;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.commons.compress.archivers.ArchiveEntry;
+import org.apache.commons.compress.archivers.ArchiveInputStream;
+import org.apache.commons.compress.archivers.tar.TarArchiveInputStream;
+import org.apache.commons.compress.archivers.zip.ZipArchiveInputStream;
+import org.apache.nifi.annotation.behavior.DynamicProperty;
+import org.apache.nifi.annotation.behavior.EventDriven;
+import org.apache.nifi.annotation.behavior.InputRequirement;
+import org.apache.nifi.annotation.behavior.SystemResource;
+import org.apache.nifi.annotation.behavior.SystemResourceConsideration;
+import org.apache.nifi.annotation.behavior.WritesAttribute;
+import org.apache.nifi.annotation.behavior.WritesAttributes;
+import org.apache.nifi.annotation.documentation.CapabilityDescription;
+import org.apache.nifi.annotation.documentation.SeeAlso;
+import org.apache.nifi.annotation.documentation.Tags;
+import org.apache.nifi.components.AllowableValue;
+import org.apache.nifi.components.PropertyDescriptor;
+import org.apache.nifi.expression.ExpressionLanguageScope;
+import org.apache.nifi.flowfile.FlowFile;
+import org.apache.nifi.flowfile.attributes.CoreAttributes;
+import org.apache.nifi.processor.ProcessContext;
+import org.apache.nifi.processor.ProcessSession;
+import org.apache.nifi.processor.ProcessorInitializationContext;
+import org.apache.nifi.processor.Relationship;
+import org.apache.nifi.processor.exception.ProcessException;
+import org.apache.nifi.stream.io.StreamUtils;
+import org.apache.nifi.util.FlowFileUnpackagerV3;
+
+import com.marklogic.client.DatabaseClient;
+import com.marklogic.client.datamovement.WriteBatch;
+import com.marklogic.client.datamovement.WriteEvent;
+import com.marklogic.client.datamovement.impl.WriteEventImpl;
+import com.marklogic.client.io.BytesHandle;
+import com.marklogic.client.io.DocumentMetadataHandle;
+import com.marklogic.client.io.Format;
+
+/**
+ * Writes each entry of an archive FlowFile as its own document, without first exploding the archive into one
+ * FlowFile per entry. Entries are streamed out of the archive one at a time and handed to the WriteBatcher, so the
+ * only FlowFiles created are the per-batch "batch_success" FlowFiles and one FlowFile per entry that fails to be
+ * written.
+ */
+@EventDriven
+@Tags({"MarkLogic", "Put", "Bulk", "Insert", "Archive", "Zip", "Tar", "FlowFile-Stream"})
+@InputRequirement(InputRequirement.Requirement.INPUT_REQUIRED)
+@CapabilityDescription("Reads the entries of a zip, tar or FlowFile-Stream-v3 archive and writes each entry as a document to " +
+    "a MarkLogic server using the MarkLogic Data Movement SDK (DMSDK). The URI of each document is derived from the entry name.")
+@SeeAlso(PutMarkLogic.class)
+@SystemResourceConsideration(resource = SystemResource.MEMORY)
+@DynamicProperty(name = "trans: Server transform parameter name, property: Property name to add, meta: Metadata name to add",
+    value = "trans: Value of the server transform parameter, property: Property value to add, meta: Metadata value to add",
+    description = "Depending on the property prefix, routes data to transform, metadata, or property.",
+    expressionLanguageScope = ExpressionLanguageScope.VARIABLE_REGISTRY)
+@WritesAttributes({
+    @WritesAttribute(attribute = "URIs", description = "On batch_success, writes successful URIs as coma-separated list."),
+    @WritesAttribute(attribute = "filename", description = "On failure, the name of the archive entry that could not be written.")
+})
+public class PutMarkLogicArchive extends PutMarkLogic {
+
+    public static final AllowableValue ZIP_FORMAT = new AllowableValue("zip", "zip",
+        "The incoming FlowFile is a zip archive; the name of each entry is used as the document URI");
+    public static final AllowableValue TAR_FORMAT = new AllowableValue("tar", "tar",
+        "The incoming FlowFile is a tar archive; the name of each entry is used as the document URI");
+    public static final AllowableValue FLOWFILE_STREAM_FORMAT_V3 = new AllowableValue("flowfile-stream-v3", "flowfile-stream-v3",
+        "The incoming FlowFile is a FlowFile-Stream-v3 package, as produced by MergeContent; the packaged 'filename' " +
+            "attribute of each entry is used as the document URI");
+
+    public static final PropertyDescriptor ARCHIVE_FORMAT = new PropertyDescriptor.Builder()
+        .name("Archive Format")
+        .displayName("Archive Format")
+        .description("The format of the incoming archive")
+        .required(true)
+        .allowableValues(ZIP_FORMAT, TAR_FORMAT, FLOWFILE_STREAM_FORMAT_V3)
+        .defaultValue(ZIP_FORMAT.getValue())
+        .build();
+
+    protected static final Relationship ORIGINAL = new Relationship.Builder()
+        .name("original")
+        .description("Original archive FlowFiles coming into PutMarkLogicArchive.")
+        .build();
+
+    // The largest byte array that a JVM will reliably allocate; an entry is read fully into memory before it is written
+    private static final long MAX_ENTRY_SIZE = Integer.MAX_VALUE - 8;
+
+    private final Map<String, ArchiveOutcome> pendingArchives = new ConcurrentHashMap<>();
+
+    @Override
+    public void init(ProcessorInitializationContext context) {
+        List<PropertyDescriptor> list = new ArrayList<>();
+        list.add(DATABASE_CLIENT_SERVICE);
+        list.add(BATCH_SIZE);
+        list.add(THREAD_COUNT);
+        list.add(ARCHIVE_FORMAT);
+        list.add(COLLECTIONS);
+        list.add(FORMAT);
+        list.add(JOB_ID);
+        list.add(JOB_NAME);
+        list.add(MIMETYPE);
+        list.add(PERMISSIONS);
+        list.add(TRANSFORM);
+        list.add(TEMPORAL_COLLECTION);
+        list.add(URI_PREFIX);
+        list.add(URI_SUFFIX);
+        properties = Collections.unmodifiableList(list);
+        Set<Relationship> set = new HashSet<>();
+        set.add(BATCH_SUCCESS);
+        set.add(ORIGINAL);
+        set.add(FAILURE);
+        relationships = Collections.unmodifiableSet(set);
+    }
+
+    /**
+     * Entries are read and handed to the WriteBatcher while the archive is open, but the session is not touched
+     * until the archive has been closed and the WriteBatcher has been flushed: the WriteBatcher callbacks only record
+     * what happened to each entry, and the batch_success and failure FlowFiles are created here, on the thread that
+     * owns the session. If the archive cannot be read to the end, the entries already handed over are still flushed
+     * and reported before the archive is routed to failure, so no callback outlives the session it reports against.
+     */
+    @Override
+    public void onTrigger(ProcessContext context, ProcessSession session) throws ProcessException {
+        final FlowFile flowFile = session.get();
+        if (flowFile == null) {
+            context.yield();
+            return;
+        }
+
+        final String archiveFormat = context.getProperty(ARCHIVE_FORMAT).getValue();
+        final String flowFileUUID = flowFile.getAttribute(CoreAttributes.UUID.key());
+        final ArchiveOutcome outcome = new ArchiveOutcome();
+        Exception readFailure = null;
+
+        pendingArchives.put(flowFileUUID, outcome);
+        try {
+            try (final InputStream inStream = new BufferedInputStream(session.read(flowFile))) {
+                if (FLOWFILE_STREAM_FORMAT_V3.getValue().equals(archiveFormat)) {
+                    addFlowFileStreamEntries(context, flowFile, inStream, outcome);
+                } else {
+                    addArchiveEntries(context, flowFile, inStream, archiveFormat, outcome);
+                }
+            } catch (IOException | RuntimeException e) {
+                // Entries added before the failure are still in the WriteBatcher, so their outcome must be collected below
+                readFailure = e;
+            }
+            if (outcome.added.get() > 0) {
+                flushWriteBatcherAndWait(writeBatcher);
+            }
+        } finally {
+            pendingArchives.remove(flowFileUUID);
+        }
+
+        for (String uriList : outcome.successfulBatches) {
+            FlowFile batchFlowFile = session.create(flowFile);
+            batchFlowFile = session.putAttribute(batchFlowFile, "URIs", uriList);
+            session.transfer(batchFlowFile, BATCH_SUCCESS);
+        }
+        for (WriteEvent writeEvent : outcome.failedEntries) {
+            final byte[] content = ((BytesHandle) writeEvent.getContent()).get();
+            FlowFile failedFlowFile = session.create(flowFile);
+            failedFlowFile = session.putAttribute(failedFlowFile, CoreAttributes.FILENAME.key(), writeEvent.getTargetUri());
+            failedFlowFile = session.write(failedFlowFile, out -> out.write(content));
+            session.transfer(failedFlowFile, FAILURE);
+        }
+
+        if (readFailure != null) {
+            getLogger().error("PutMarkLogicArchive failed to read archive {} after adding {} entries with error:",
+                new Object[]{flowFile, outcome.added.get()}, readFailure);
+            session.transfer(flowFile, FAILURE);
+            context.yield();
+        } else {
+            DatabaseClient client = getDatabaseClient(context);
+            String url = client != null
+                    ? client.getHost() + ":" + client.getPort()
+                    : "MarkLogic cluster";
+            session.getProvenanceReporter().send(flowFile, url, String.format("Added %d documents to MarkLogic.", outcome.added.get()));
+            session.transfer(flowFile, ORIGINAL);
+            getLogger().info("Inserted {} archive entries into MarkLogic", new Object[]{ outcome.added.get() });
+        }
+        session.commit();
+    }
+
+    private void addArchiveEntries(ProcessContext context, FlowFile flowFile, InputStream inStream,
+                                   String archiveFormat, ArchiveOutcome outcome) throws IOException {
+        try (final ArchiveInputStream archiveStream = TAR_FORMAT.getValue().equals(archiveFormat)
+                ? new TarArchiveInputStream(inStream) : new ZipArchiveInputStream(inStream)) {
+            ArchiveEntry entry;
+            while ((entry = archiveStream.getNextEntry()) != null) {
+                if (entry.isDirectory() || !archiveStream.canReadEntryData(entry)) {
+                    continue;
+                }
+                if (entry.getSize() > MAX_ENTRY_SIZE) {
+                    throw new IOException("Archive entry " + entry.getName() + " is " + entry.getSize() + " bytes, which is larger than the maximum of "
+                        + MAX_ENTRY_SIZE + " bytes that can be written as a single document");
+                }
+                final ByteArrayOutputStream baos = new ByteArrayOutputStream(entry.getSize() > 0 ? (int) entry.getSize() : 8192);
+                StreamUtils.copy(archiveStream, baos);
+                addWriteEvent(writeBatcher, buildWriteEvent(context, flowFile, entry.getName(), baos.toByteArray()));
+                outcome.added.incrementAndGet();
+            }
+        }
+    }
+
+    private void addFlowFileStreamEntries(ProcessContext context, FlowFile flowFile, InputStream inStream,
+                                          ArchiveOutcome outcome) throws IOException {
+        final FlowFileUnpackagerV3 unpackager = new FlowFileUnpackagerV3();
+        final ByteArrayOutputStream baos = new ByteArrayOutputStream(8192);
+        while (unpackager.hasMoreData()) {
+            baos.reset();
+            final Map<String, String> attributes = unpackager.unpackageFlowFile(inStream, baos);
+            if (attributes == null) {
+                break;
+            }
+            String entryName = attributes.get(CoreAttributes.FILENAME.key());
+            if (entryName == null) {
+                entryName = attributes.get(CoreAttributes.UUID.key());
+            }
+            addWriteEvent(writeBatcher, buildWriteEvent(context, flowFile, entryName, baos.toByteArray()));
+            outcome.added.incrementAndGet();
+        }
+    }
+
+    protected WriteEvent buildWriteEvent(
+            final ProcessContext context,
+            final FlowFile flowFile,
+            final String entryName,
+            final byte[] content
+    ) {
+        String uri = entryName;
+        final String prefix = context.getProperty(URI_PREFIX).evaluateAttributeExpressions(flowFile).getValue();
+        if (prefix != null) {
+            uri = prefix + uri;
+        }
+        final String suffix = context.getProperty(URI_SUFFIX).evaluateAttributeExpressions(flowFile).getValue();
+        if (suffix != null) {
+            uri += suffix;
+        }
+
+        DocumentMetadataHandle metadata = buildMetadataHandle(context, flowFile, context.getProperty(COLLECTIONS), context.getProperty(PERMISSIONS));
+        BytesHandle handle = new BytesHandle(content);
+
+        final String format = context.getProperty(FORMAT).getValue();
+        if (format != null) {
+            handle.withFormat(Format.valueOf(format));
+        } else {
+            addFormat(uri, handle);
+        }
+
+        final String mimetype = context.getProperty(MIMETYPE).getValue();
+        if (mimetype != null) {
+            handle.withMimetype(mimetype);
+        }
+
+        return new WriteEventImpl()
+            .withTargetUri(uri)
+            .withMetadata(metadata)
+            .withContent(handle);
+    }
+
+    private ArchiveOutcome getOutcomeForWriteEvent(WriteEvent writeEvent) {
+        DocumentMetadataHandle metadata = (DocumentMetadataHandle) writeEvent.getMetadata();
+        return pendingArchives.get(metadata.getMetadataValues().get("flowFileUUID"));
+    }
+
+    /**
+     * Every concurrent task shares the same WriteBatcher, so a batch may hold the entries of several archives. Each
+     * archive is credited with a URI list of only its own entries.
+     */
+    @Override
+    protected void routeBatchSuccess(WriteBatch writeBatch) {
+        final Map<ArchiveOutcome, StringBuilder> urisByOutcome = new LinkedHashMap<>();
+        for (WriteEvent writeEvent : writeBatch.getItems()) {
+            ArchiveOutcome outcome = getOutcomeForWriteEvent(writeEvent);
+            if (outcome == null) {
+                continue;
+            }
+            StringBuilder uris = urisByOutcome.get(outcome);
+            if (uris == null) {
+                urisByOutcome.put(outcome, new StringBuilder(writeEvent.getTargetUri()));
+            } else {
+                uris.append(',').append(writeEvent.getTargetUri());
+            }
+        }
+        urisByOutcome.forEach((outcome, uris) -> outcome.successfulBatches.add(uris.toString()));
+    }
+
+    /**
+     * Successfully written entries are reported through the batch_success FlowFile only; creating a FlowFile per
+     * entry would reintroduce the repository writes this processor exists to avoid. An entry that fails is routed to
+     * failure as a FlowFile of its own, carrying the entry content so that it can be retried; the FlowFile itself is
+     * created by onTrigger once the WriteBatcher has been flushed.
+     */
+    @Override
+    protected void routeDocumentToRelationship(WriteEvent writeEvent, Relationship relationship) {
+        ArchiveOutcome outcome = getOutcomeForWriteEvent(writeEvent);
+        if (outcome != null && !SUCCESS.equals(relationship)) {
+            outcome.failedEntries.add(writeEvent);
+        }
+        if (getLogger().isDebugEnabled()) {
+            getLogger().debug("Routing " + writeEvent.getTargetUri() + " to " + relationship.getName());
+        }
+    }
+
+    /**
+     * What the WriteBatcher callbacks reported for the entries of one archive, collected from the WriteBatcher
+     * threads and turned into FlowFiles by onTrigger.
+     */
+    private static class ArchiveOutcome {
+        private final AtomicInteger added = new AtomicInteger();
+        private final Queue<String> successfulBatches = new ConcurrentLinkedQueue<>();
+        private final Queue<WriteEvent> failedEntries = new ConcurrentLinkedQueue<>();
+    }
+}
@@ -16,9 +16,12 @@
  */
 package org.apache.nifi.marklogic.processor;
 
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashSet;
@@ -26,6 +29,11 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
 
 import org.apache.nifi.annotation.behavior.DynamicProperty;
 import org.apache.nifi.annotation.behavior.EventDriven;
@@ -35,6 +43,8 @@ import org.apache.nifi.annotation.behavior.SystemResourceConsideration;
 import org.apache.nifi.annotation.documentation.CapabilityDescription;
 import org.apache.nifi.annotation.documentation.Tags;
 import org.apache.nifi.annotation.lifecycle.OnScheduled;
+import org.apache.nifi.annotation.lifecycle.OnStopped;
+import org.apache.nifi.components.AllowableValue;
 import org.apache.nifi.components.PropertyDescriptor;
 import org.apache.nifi.components.Validator;
 import org.apache.nifi.expression.ExpressionLanguageScope;
@@ -44,7 +54,9 @@ import org.apache.nifi.processor.ProcessContext;
 import org.apache.nifi.processor.ProcessSession;
 import org.apache.nifi.processor.ProcessorInitializationContext;
 import org.apache.nifi.processor.Relationship;
+import org.apache.nifi.processor.DataUnit;
 import org.apache.nifi.processor.exception.ProcessException;
+import org.apache.nifi.processor.util.StandardValidators;
 import org.apache.nifi.schema.access.SchemaNotFoundException;
 import org.apache.nifi.serialization.MalformedRecordException;
 import org.apache.nifi.serialization.RecordReader;
@@ -66,7 +78,7 @@ import com.marklogic.client.io.Format;
 @Tags({"MarkLogic", "Put", "Bulk", "Insert"})
 @InputRequirement(InputRequirement.Requirement.INPUT_REQUIRED)
 @CapabilityDescription("Breaks down FlowFiles into batches of Records and inserts JSON documents to a MarkLogic server using the " +
-        "MarkLogic Data Movement SDK (DMSDK)")
+        "MarkLogic Data Movement SDK (DMSDK). Line-oriented content can be split into ranges of lines that are parsed in parallel.")
 @SystemResourceConsideration(resource = SystemResource.MEMORY)
 @DynamicProperty(name = "trans: Server transform parameter name, property: Property name to add, meta: Metadata name to add",
     value = "trans: Value of the server transform parameter, property: Property value to add, meta: Metadata value to add",
@@ -121,6 +133,47 @@ public class PutMarkLogicRecord extends PutMarkLogic {
         .defaultValue("true")
         .build();
 
+    public static final AllowableValue SPLIT_NONE = new AllowableValue("None", "None",
+        "Records are read sequentially by a single Record Reader");
+    public static final AllowableValue SPLIT_LINES = new AllowableValue("Lines", "Lines",
+        "Every line holds whole records, e.g. JSON Lines, or CSV without a header line and without quoted line breaks");
+    public static final AllowableValue SPLIT_LINES_WITH_HEADER = new AllowableValue("Lines with Header", "Lines with Header",
+        "As Lines, but the first line is a header, e.g. a CSV header line, which is given to the Record Reader of every range");
+
+    public static final PropertyDescriptor RECORD_SPLIT_STRATEGY = new PropertyDescriptor.Builder()
+        .name("Record Split Strategy")
+        .displayName("Record Split Strategy")
+        .required(true)
+        .description("How the content of a FlowFile may be split into ranges of lines, each of which is parsed by its own Record Reader " +
+            "on a pool of threads. If no URI Field Name is specified, document URIs are derived from the FlowFile UUID, the range and " +
+            "the position of the record within it, so that they do not depend on the order in which ranges are parsed.")
+        .allowableValues(SPLIT_NONE, SPLIT_LINES, SPLIT_LINES_WITH_HEADER)
+        .defaultValue(SPLIT_NONE.getValue())
+        .addValidator(Validator.VALID)
+        .build();
+
+    // A range is buffered in a byte array, so its size has to stay well below Integer.MAX_VALUE
+    private static final long MAX_RECORD_SPLIT_SIZE = 1024L * 1024 * 1024;
+
+    public static final PropertyDescriptor RECORD_SPLIT_SIZE = new PropertyDescriptor.Builder()
+        .name("Record Split Size")
+        .displayName("Record Split Size")
+        .required(true)
+        .description("The approximate size of each range of lines; a range always ends at the end of a line. "
+            + "Each range is held in memory while it is parsed, so the size may be at most 1 GB")
+        .defaultValue("1 MB")
+        .addValidator(StandardValidators.createDataSizeBoundsValidator(1, MAX_RECORD_SPLIT_SIZE))
+        .build();
+
+    public static final PropertyDescriptor RECORD_PARSE_THREAD_COUNT = new PropertyDescriptor.Builder()
+        .name("Record Parse Thread Count")
+        .displayName("Record Parse Thread Count")
+        .required(true)
+        .description("The number of threads that parse ranges of lines when a Record Split Strategy other than None is selected")
+        .defaultValue("4")
+        .addValidator(StandardValidators.POSITIVE_INTEGER_VALIDATOR)
+        .build();
+
     protected static final Relationship ORIGINAL = new Relationship.Builder()
             .name("original")
             .description("Original FlowFiles coming into PutMarkLogicRecord.")
@@ -139,6 +192,9 @@ public class PutMarkLogicRecord extends PutMarkLogic {
         list.add(RECORD_WRITER);
         list.add(RECORD_COERCE_TYPES);
         list.add(RECORD_DROP_UNKNOWN_FIELDS);
+        list.add(RECORD_SPLIT_STRATEGY);
+        list.add(RECORD_SPLIT_SIZE);
+        list.add(RECORD_PARSE_THREAD_COUNT);
         list.add(COLLECTIONS);
         list.add(FORMAT);
         list.add(JOB_ID);
@@ -161,6 +217,10 @@ public class PutMarkLogicRecord extends PutMarkLogic {
 
     private boolean coerceTypes;
     private boolean dropUnknownFields;
+    private String splitStrategy;
+    private int splitSize;
+    private int parseThreadCount;
+    private ExecutorService parseExecutor;
 
     @OnScheduled
     public void initializeFactories(ProcessContext context) {
@@ -168,6 +228,20 @@ public class PutMarkLogicRecord extends PutMarkLogic {
         recordSetWriterFactory = context.getProperty(RECORD_WRITER).asControllerService(RecordSetWriterFactory.class);
         coerceTypes = context.getProperty(RECORD_COERCE_TYPES).asBoolean();
         dropUnknownFields = context.getProperty(RECORD_DROP_UNKNOWN_FIELDS).asBoolean();
+        splitStrategy = context.getProperty(RECORD_SPLIT_STRATEGY).getValue();
+        splitSize = Math.toIntExact(context.getProperty(RECORD_SPLIT_SIZE).asDataSize(DataUnit.B).longValue());
+        parseThreadCount = context.getProperty(RECORD_PARSE_THREAD_COUNT).asInteger();
+        if (!SPLIT_NONE.getValue().equals(splitStrategy)) {
+            parseExecutor = Executors.newFixedThreadPool(parseThreadCount);
+        }
+    }
+
+    @OnStopped
+    public void shutdownParseExecutor() {
+        if (parseExecutor != null) {
+            parseExecutor.shutdownNow();
+            parseExecutor = null;
+        }
     }
 
 	@Override
@@ -183,25 +257,11 @@ public class PutMarkLogicRecord extends PutMarkLogic {
         int added   = 0;
         boolean error = false;
 
-        try (final InputStream inStream = session.read(flowFile);
-            final RecordReader reader = recordReaderFactory.createRecordReader(flowFile, inStream, getLogger())) {
-
-            final RecordSchema schema = recordSetWriterFactory.getSchema(flowFile.getAttributes(), reader.getSchema());
-            final ByteArrayOutputStream baos = new ByteArrayOutputStream(1024);
-            Record record;
-            while ((record = reader.nextRecord(coerceTypes, dropUnknownFields)) != null) {
-                baos.reset();
-                Map<String, String> additionalAttributes;
-                try (final RecordSetWriter writer = recordSetWriterFactory.createWriter(getLogger(), schema, baos)) {
-                    final WriteResult writeResult = writer.write(record);
-                    additionalAttributes = writeResult.getAttributes();
-                    writer.flush();
-                    BytesHandle bytesHandle = new BytesHandle().with(baos.toByteArray());
-                    final String uriKey = uriFieldName == null ? UUID.randomUUID().toString() : record.getAsString(uriFieldName);
-                    WriteEvent writeEvent = buildWriteEvent(context, session, flowFile, uriKey, bytesHandle, additionalAttributes);
-                    this.addWriteEvent(writeBatcher, writeEvent);
-                    added++;
-                }
+        try (final InputStream inStream = session.read(flowFile)) {
+            if (parseExecutor == null) {
+                added = putRecords(context, session, flowFile, inStream, uriFieldName);
+            } else {
+                added = putRecordsInParallel(context, session, flowFile, inStream, uriFieldName);
             }
         } catch (SchemaNotFoundException | IOException | MalformedRecordException e) {
             getLogger().error("PutMarkLogicRecord failed with error:", e);
@@ -214,7 +274,7 @@ public class PutMarkLogicRecord extends PutMarkLogic {
                 String url = client != null
                         ? client.getHost() + ":" + client.getPort()
                         : "MarkLogic cluster";
-                writeBatcher.flushAndWait();
+                flushWriteBatcherAndWait(writeBatcher);
                 session.getProvenanceReporter().send(flowFile, url, String.format("Added %d documents to MarkLogic.", added));
                 session.transfer(flowFile, ORIGINAL);
                 uriFlowFileMap.remove(flowFile.getAttribute(CoreAttributes.UUID.key()));
@@ -224,6 +284,141 @@ public class PutMarkLogicRecord extends PutMarkLogic {
         session.commit();
     }
 
+    private int putRecords(ProcessContext context, ProcessSession session, FlowFile flowFile, InputStream inStream,
+            String uriFieldName) throws SchemaNotFoundException, IOException, MalformedRecordException {
+        try (final RecordReader reader = recordReaderFactory.createRecordReader(flowFile, inStream, getLogger())) {
+            final RecordSchema schema = recordSetWriterFactory.getSchema(flowFile.getAttributes(), reader.getSchema());
+            final ByteArrayOutputStream baos = new ByteArrayOutputStream(1024);
+            int added = 0;
+            Record record;
+            while ((record = reader.nextRecord(coerceTypes, dropUnknownFields)) != null) {
+                final String uriKey = uriFieldName == null ? UUID.randomUUID().toString() : record.getAsString(uriFieldName);
+                addRecord(context, session, flowFile, schema, record, uriKey, baos);
+                added++;
+            }
+            return added;
+        }
+    }
+
+    /**
+     * Reads the content on the calling thread, cutting it into ranges of whole lines that are parsed by the parse
+     * executor. At most two ranges per parse thread are held in memory at a time.
+     */
+    private int putRecordsInParallel(ProcessContext context, ProcessSession session, FlowFile flowFile, InputStream inStream,
+            String uriFieldName) throws SchemaNotFoundException, IOException, MalformedRecordException {
+        final InputStream in = new BufferedInputStream(inStream);
+        final byte[] header = SPLIT_LINES_WITH_HEADER.getValue().equals(splitStrategy) ? readRange(in, 0) : new byte[0];
+        final Semaphore rangesInMemory = new Semaphore(parseThreadCount * 2);
+        final List<Future<Integer>> futures = new ArrayList<>();
+        boolean completed = false;
+        try {
+            byte[] range;
+            while ((range = readRange(in, splitSize)) != null) {
+                final int rangeIndex = futures.size();
+                final byte[] content;
+                if (header.length > 0) {
+                    content = new byte[header.length + range.length];
+                    System.arraycopy(header, 0, content, 0, header.length);
+                    System.arraycopy(range, 0, content, header.length, range.length);
+                } else {
+                    content = range;
+                }
+                rangesInMemory.acquire();
+                futures.add(parseExecutor.submit(() -> {
+                    try {
+                        return putRange(context, session, flowFile, content, rangeIndex, uriFieldName);
+                    } finally {
+                        rangesInMemory.release();
+                    }
+                }));
+            }
+
+            int added = 0;
+            for (Future<Integer> future : futures) {
+                added += future.get();
+            }
+            completed = true;
+            return added;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ProcessException("Interrupted while parsing records", e);
+        } catch (ExecutionException e) {
+            final Throwable cause = e.getCause();
+            if (cause instanceof SchemaNotFoundException) {
+                throw (SchemaNotFoundException) cause;
+            } else if (cause instanceof IOException) {
+                throw (IOException) cause;
+            } else if (cause instanceof MalformedRecordException) {
+                throw (MalformedRecordException) cause;
+            }
+            throw new ProcessException(cause);
+        } finally {
+            if (!completed) {
+                futures.forEach(future -> future.cancel(true));
+            }
+        }
+    }
+
+    private int putRange(ProcessContext context, ProcessSession session, FlowFile flowFile, byte[] content, int rangeIndex,
+            String uriFieldName) throws SchemaNotFoundException, IOException, MalformedRecordException {
+        final String flowFileUUID = flowFile.getAttribute(CoreAttributes.UUID.key());
+        try (final RecordReader reader = recordReaderFactory.createRecordReader(flowFile, new ByteArrayInputStream(content), getLogger())) {
+            final RecordSchema schema = recordSetWriterFactory.getSchema(flowFile.getAttributes(), reader.getSchema());
+            final ByteArrayOutputStream baos = new ByteArrayOutputStream(1024);
+            int recordIndex = 0;
+            Record record;
+            while ((record = reader.nextRecord(coerceTypes, dropUnknownFields)) != null) {
+                final String uriKey = uriFieldName == null
+                    ? UUID.nameUUIDFromBytes((flowFileUUID + "/" + rangeIndex + "/" + recordIndex).getBytes(StandardCharsets.UTF_8)).toString()
+                    : record.getAsString(uriFieldName);
+                addRecord(context, session, flowFile, schema, record, uriKey, baos);
+                recordIndex++;
+            }
+            return recordIndex;
+        }
+    }
+
+    private void addRecord(ProcessContext context, ProcessSession session, FlowFile flowFile, RecordSchema schema, Record record,
+            String uriKey, ByteArrayOutputStream baos) throws SchemaNotFoundException, IOException {
+        baos.reset();
+        try (final RecordSetWriter writer = recordSetWriterFactory.createWriter(getLogger(), schema, baos)) {
+            final WriteResult writeResult = writer.write(record);
+            writer.flush();
+            BytesHandle bytesHandle = new BytesHandle().with(baos.toByteArray());
+            WriteEvent writeEvent = buildWriteEvent(context, session, flowFile, uriKey, bytesHandle, writeResult.getAttributes());
+            this.addWriteEvent(writeBatcher, writeEvent);
+        }
+    }
+
+    /**
+     * Reads at least minSize bytes, unless the stream ends first, and then up to the end of the current line.
+     *
+     * @return the bytes read, or null if the stream has ended
+     */
+    static byte[] readRange(InputStream in, int minSize) throws IOException {
+        final ByteArrayOutputStream range = new ByteArrayOutputStream(minSize + 1024);
+        final byte[] buffer = new byte[8192];
+        int last = -1;
+        while (range.size() < minSize) {
+            final int len = in.read(buffer, 0, Math.min(buffer.length, minSize - range.size()));
+            if (len < 0) {
+                break;
+            }
+            range.write(buffer, 0, len);
+            last = buffer[len - 1];
+        }
+        if (last != '\n') {
+            int b;
+            while ((b = in.read()) != -1) {
+                range.write(b);
+                if (b == '\n') {
+                    break;
+                }
+            }
+        }
+        return range.size() == 0 ? null : range.toByteArray();
+    }
+
     @Override
     protected void routeDocumentToRelationship(WriteEvent writeEvent, Relationship relationship) {
         FlowFileInfo flowFileInfo = getFlowFileInfoForWriteEvent(writeEvent);
@@ -26,8 +26,10 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.regex.Pattern;
+import java.util.stream.Collectors;
 
 import org.apache.nifi.annotation.behavior.DynamicProperty;
 import org.apache.nifi.annotation.behavior.InputRequirement;
@@ -50,6 +52,7 @@ import org.apache.nifi.components.state.StateMap;
 import org.apache.nifi.expression.ExpressionLanguageScope;
 import org.apache.nifi.flowfile.FlowFile;
 import org.apache.nifi.flowfile.attributes.CoreAttributes;
+import org.apache.nifi.marklogic.processor.util.ForestPartitionCoordinator;
 import org.apache.nifi.marklogic.processor.util.RangeIndexQuery;
 import org.apache.nifi.processor.ProcessContext;
 import org.apache.nifi.processor.ProcessSession;
@@ -65,6 +68,7 @@ import com.google.gson.JsonObject;
 import com.marklogic.client.DatabaseClient;
 import com.marklogic.client.datamovement.DataMovementManager;
 import com.marklogic.client.datamovement.ExportListener;
+import com.marklogic.client.datamovement.ForestConfiguration;
 import com.marklogic.client.datamovement.JobReport;
 import com.marklogic.client.datamovement.QueryBatch;
 import com.marklogic.client.datamovement.QueryBatchListener;
@@ -100,7 +104,8 @@ import com.marklogic.client.util.EditableNamespaceContext;
     expressionLanguageScope = ExpressionLanguageScope.VARIABLE_REGISTRY)
 @WritesAttributes({
         @WritesAttribute(attribute = "filename", description = "The filename is set to the uri of the document retrieved from MarkLogic") })
-@Stateful(description = "Can keep state of a range index value to restrict future queries.", scopes = { Scope.CLUSTER })
+@Stateful(description = "Can keep state of a range index value to restrict future queries. When partitioned across nodes, "
+        + "also keeps the membership and progress of the nodes sharing the export.", scopes = { Scope.CLUSTER })
 public class QueryMarkLogic extends AbstractMarkLogicProcessor {
 
     public static final PropertyDescriptor CONSISTENT_SNAPSHOT = new PropertyDescriptor.Builder()
@@ -141,6 +146,28 @@ public class QueryMarkLogic extends AbstractMarkLogicProcessor {
                     "**Deprecated: Use Query Type and Query** Comma-separated list of collections to query from a MarkLogic server")
             .required(false).addValidator(Validator.VALID).build();
 
+    public static final PropertyDescriptor PARTITION_ACROSS_NODES = new PropertyDescriptor.Builder()
+            .name("Partition Across Nodes").displayName("Partition Across Nodes").defaultValue("false")
+            .description("When true, and the processor is scheduled on all nodes of a NiFi cluster, each node exports the documents "
+                    + "of a disjoint subset of the database's forests instead of the primary node exporting all of them. "
+                    + "Nodes coordinate through cluster state and start the next export only once every node has finished its share. "
+                    + "The first export after the processor is started is run entirely by the node that is triggered first; the other "
+                    + "nodes take their share from the second export on. "
+                    + "Only applies when the processor is not triggered by an incoming FlowFile.")
+            .required(true).allowableValues("true", "false").addValidator(StandardValidators.BOOLEAN_VALIDATOR).build();
+
+    public static final PropertyDescriptor PARTITION_NODE_IDENTIFIER = new PropertyDescriptor.Builder()
+            .name("Partition Node Identifier").displayName("Partition Node Identifier").defaultValue("${hostname(true)}")
+            .description("Identifies this NiFi node among the nodes sharing a partitioned export; must be unique within the cluster")
+            .required(true).expressionLanguageSupported(ExpressionLanguageScope.VARIABLE_REGISTRY)
+            .addValidator(StandardValidators.NON_BLANK_VALIDATOR).build();
+
+    public static final PropertyDescriptor PARTITION_NODE_TIMEOUT = new PropertyDescriptor.Builder()
+            .name("Partition Node Timeout").displayName("Partition Node Timeout").defaultValue("5 mins")
+            .description("How long a node sharing a partitioned export may go without reporting progress before its forests "
+                    + "are reassigned to the remaining nodes")
+            .required(true).addValidator(StandardValidators.TIME_PERIOD_VALIDATOR).build();
+
     protected static final Relationship SUCCESS = new Relationship.Builder().name("success")
             .description("All FlowFiles that are created from documents read from MarkLogic are routed to"
                     + " this success relationship.")
@@ -154,6 +181,8 @@ public class QueryMarkLogic extends AbstractMarkLogicProcessor {
     protected volatile AtomicLong serverTimestamp = new AtomicLong(0);
     protected volatile String queryState = null;
 
+    static final String QUERY_STATE_UPPER_BOUND = "queryStateUpperBound";
+
     @Override
     public void init(ProcessorInitializationContext context) {
         super.init(context);
@@ -167,6 +196,9 @@ public class QueryMarkLogic extends AbstractMarkLogicProcessor {
         list.add(STATE_INDEX);
         list.add(STATE_INDEX_TYPE);
         list.add(COLLECTIONS);
+        list.add(PARTITION_ACROSS_NODES);
+        list.add(PARTITION_NODE_IDENTIFIER);
+        list.add(PARTITION_NODE_TIMEOUT);
         properties = Collections.unmodifiableList(list);
         Set<Relationship> set = new HashSet<>();
         set.add(SUCCESS);
@@ -206,11 +238,61 @@ public class QueryMarkLogic extends AbstractMarkLogicProcessor {
                 input = null;
             }
 
-            StateMap stateMap = context.getStateManager().getState(Scope.CLUSTER);
+            final boolean hasStateIndex = context.getProperty(STATE_INDEX) != null && context.getProperty(STATE_INDEX).isSet();
             DatabaseClient client = getDatabaseClient(context);
+            final ForestPartitionCoordinator partitionCoordinator;
+            final ForestPartitionCoordinator.Assignment assignment;
+            if (input == null && context.getProperty(PARTITION_ACROSS_NODES).asBoolean()) {
+                // Every node of a round queries up to the same maximum state value, fixed when the round is opened, and
+                // that is the value stored as the query state once the round completes
+                partitionCoordinator = new ForestPartitionCoordinator(context.getStateManager(),
+                        context.getProperty(PARTITION_NODE_IDENTIFIER).evaluateAttributeExpressions().getValue(),
+                        context.getProperty(PARTITION_NODE_TIMEOUT).asTimePeriod(TimeUnit.MILLISECONDS),
+                        () -> hasStateIndex
+                                ? Collections.singletonMap(QUERY_STATE_UPPER_BOUND, queryMaxStateValue(context, client, null, 0L))
+                                : Collections.emptyMap());
+                assignment = partitionCoordinator.join();
+                if (assignment == null) {
+                    // This node has finished its share of the current export, or joined after it started
+                    context.yield();
+                    return;
+                }
+            } else {
+                partitionCoordinator = null;
+                assignment = null;
+            }
+            final String queryStateUpperBound = assignment != null ? assignment.getRoundValue(QUERY_STATE_UPPER_BOUND) : null;
+
+            StateMap stateMap = context.getStateManager().getState(Scope.CLUSTER);
             DataMovementManager dataMovementManager = client.newDataMovementManager();
+            final ForestConfiguration forestConfig;
+            if (assignment != null) {
+                forestConfig = assignment.filter(dataMovementManager.readForestConfig());
+                if (forestConfig.listForests().length == 0) {
+                    // There are more nodes than forests, so there is nothing for this node to export in this round
+                    getLogger().info("{} has no forests to export for {}", new Object[] { this, assignment });
+                    partitionCoordinator.complete(assignment, queryStateUpperBound != null
+                            ? Collections.singletonMap("queryState", queryStateUpperBound)
+                            : null);
+                    context.yield();
+                    return;
+                }
+            } else {
+                forestConfig = null;
+            }
             queryBatcher = createQueryBatcherWithQueryCriteria(context, session, input, getDatabaseClient(context),
-                    dataMovementManager);
+                    dataMovementManager, queryStateUpperBound);
+            if (assignment != null) {
+                getLogger().info("{} exporting forests for {}", new Object[] { this, assignment });
+                queryBatcher.withForestConfig(forestConfig);
+                queryBatcher.onUrisReady((batch) -> {
+                    try {
+                        partitionCoordinator.heartbeat();
+                    } catch (IOException e) {
+                        getLogger().warn("{} Failed to report progress of partitioned export", new Object[] { this }, e);
+                    }
+                });
+            }
             if (context.getProperty(BATCH_SIZE).asInteger() != null)
                 queryBatcher.withBatchSize(context.getProperty(BATCH_SIZE).asInteger());
             if (context.getProperty(THREAD_COUNT).asInteger() != null)
@@ -233,20 +315,28 @@ public class QueryMarkLogic extends AbstractMarkLogicProcessor {
                     getLogger().debug("ML Query Job Complete [Success Count=" + report.getSuccessEventsCount()
                             + "] [Failure Count=" + report.getFailureEventsCount() + "]");
                 }
-                if (report.getFailureBatchesCount() == 0 && context.getProperty(STATE_INDEX) != null
-                        && context.getProperty(STATE_INDEX).isSet()) {
-                    QueryManager queryMgr = client.newQueryManager();
-                    ValuesDefinition valuesDef = queryMgr.newValuesDefinition("state");
-                    RawCombinedQueryDefinition qDef = queryMgr.newRawCombinedQueryDefinition(
-                            handleForQuery(buildStateConstraintOptions(context, input), Format.JSON));
-                    valuesDef.setQueryDefinition(qDef);
-                    valuesDef.setAggregate("max");
-                    ValuesHandle valuesResult = new ValuesHandle();
-                    valuesResult.setPointInTimeQueryTimestamp(serverTimestamp.get());
-                    valuesResult.setQueryCriteria(valuesDef);
-                    valuesResult = queryMgr.values(valuesDef, valuesResult);
-                    AggregateResult result = valuesResult.getAggregate("max");
-                    queryState = result.getValue();
+                final boolean updateQueryState = report.getFailureBatchesCount() == 0 && hasStateIndex;
+                if (partitionCoordinator != null) {
+                    if (report.getFailureBatchesCount() > 0) {
+                        // Leave the round incomplete so that this node exports its forests again on its next trigger
+                        getLogger().warn("{} failed to export some batches of {}; it will be exported again",
+                                new Object[] { this, assignment });
+                        return;
+                    }
+                    try {
+                        // Only the last node to finish stores the query state, together with starting the next round
+                        final Map<String, String> stateOnAdvance = updateQueryState && queryStateUpperBound != null
+                                ? Collections.singletonMap("queryState", queryStateUpperBound)
+                                : null;
+                        if (partitionCoordinator.complete(assignment, stateOnAdvance)) {
+                            getLogger().info("{} completed partitioned export round {}",
+                                    new Object[] { this, assignment.getRound() });
+                        }
+                    } catch (IOException e) {
+                        getLogger().error("{} Failed to store state", new Object[] { this });
+                    }
+                } else if (updateQueryState) {
+                    queryState = queryMaxStateValue(context, client, input, serverTimestamp.get());
                     Map<String, String> alterMap = new HashMap<String, String>(stateMap.toMap());
                     alterMap.put("queryState", queryState);
                     try {
@@ -273,6 +363,22 @@ public class QueryMarkLogic extends AbstractMarkLogicProcessor {
         }
     }
 
+    private String queryMaxStateValue(final ProcessContext context, final DatabaseClient client, final FlowFile input,
+            final long pointInTimeQueryTimestamp) {
+        QueryManager queryMgr = client.newQueryManager();
+        ValuesDefinition valuesDef = queryMgr.newValuesDefinition("state");
+        RawCombinedQueryDefinition qDef = queryMgr.newRawCombinedQueryDefinition(
+                handleForQuery(buildStateConstraintOptions(context, input), Format.JSON));
+        valuesDef.setQueryDefinition(qDef);
+        valuesDef.setAggregate("max");
+        ValuesHandle valuesResult = new ValuesHandle();
+        valuesResult.setPointInTimeQueryTimestamp(pointInTimeQueryTimestamp);
+        valuesResult.setQueryCriteria(valuesDef);
+        valuesResult = queryMgr.values(valuesDef, valuesResult);
+        AggregateResult result = valuesResult.getAggregate("max");
+        return result != null ? result.getValue() : null;
+    }
+
     private String buildStateConstraintOptions(final ProcessContext context, final FlowFile flowFile) {
         JsonObject rootObject = new JsonObject();
         JsonObject searchObject = new JsonObject();
@@ -411,7 +517,8 @@ public class QueryMarkLogic extends AbstractMarkLogicProcessor {
     }
 
     private QueryBatcher createQueryBatcherWithQueryCriteria(ProcessContext context, ProcessSession session,
-            FlowFile flowFile, DatabaseClient databaseClient, DataMovementManager dataMovementManager) {
+            FlowFile flowFile, DatabaseClient databaseClient, DataMovementManager dataMovementManager,
+            String queryStateUpperBound) {
         final PropertyValue queryProperty = context.getProperty(QUERY);
         final String queryValue;
         final String queryTypeValue;
@@ -428,7 +535,7 @@ public class QueryMarkLogic extends AbstractMarkLogicProcessor {
         }
         final QueryManager queryManager = databaseClient.newQueryManager();
         StructuredQueryBuilder queryBuilder = queryManager.newStructuredQueryBuilder();
-        RangeIndexQuery stateQuery = null;
+        final List<RangeIndexQuery> stateQueries = new ArrayList<>();
         StateMap stateMap = null;
         try {
             stateMap = context.getStateManager().getState(Scope.CLUSTER);
@@ -436,9 +543,13 @@ public class QueryMarkLogic extends AbstractMarkLogicProcessor {
             getLogger().error("Failed to get state map", new Object[] { this }, e);
         }
         queryState = (stateMap != null) ? stateMap.get("queryState") : null;
-        if (!(queryState == null || "".equals(queryState)) && context.getProperty(STATE_INDEX) != null
-                && context.getProperty(STATE_INDEX).isSet()) {
-            stateQuery = buildStateQuery(queryBuilder, context, flowFile);
+        if (context.getProperty(STATE_INDEX) != null && context.getProperty(STATE_INDEX).isSet()) {
+            if (!(queryState == null || "".equals(queryState))) {
+                stateQueries.add(buildStateQuery(queryBuilder, context, flowFile));
+            }
+            if (queryStateUpperBound != null) {
+                stateQueries.add(buildStateQuery(queryBuilder, context, flowFile, Operator.LE, queryStateUpperBound));
+            }
         }
         Format format = Format.XML;
         if (queryValue != null) {
@@ -473,7 +584,7 @@ public class QueryMarkLogic extends AbstractMarkLogicProcessor {
                 throw new IllegalStateException("No valid Query type selected!");
             }
         }
-        if (stateQuery != null) {
+        if (!stateQueries.isEmpty()) {
             StringBuilder rawCombinedQueryBuilder = new StringBuilder();
             if (queryDef instanceof StructuredQueryDefinition || queryDef instanceof RawStructuredQueryDefinition) {
                 rawCombinedQueryBuilder.append((format == Format.JSON) ? "{ \"search\": { "
@@ -487,14 +598,14 @@ public class QueryMarkLogic extends AbstractMarkLogicProcessor {
                 if (format == Format.JSON) {
                     rawCombinedQueryBuilder
                         .append("\"query\": {\"queries\": [ ")
-                        .append(stateQuery.toStructuredQuery(format))
+                        .append(toStructuredQueries(stateQueries, format))
                         .append(",")
                         .append(queryBody)
                         .append("]}");
                 } else {
                     rawCombinedQueryBuilder
                         .append("<query>")
-                        .append(stateQuery.toStructuredQuery(format))
+                        .append(toStructuredQueries(stateQueries, format))
                         .append(queryBody)
                         .append("</query>");
                 }
@@ -504,12 +615,12 @@ public class QueryMarkLogic extends AbstractMarkLogicProcessor {
                     rawCombinedQueryBuilder
                         .append("<cts:and-query xmlns:cts=\"http://marklogic.com/cts\">")
                         .append(queryValue)
-                        .append(stateQuery.toCtsQuery(format))
+                        .append(toCtsQueries(stateQueries, format))
                         .append("</cts:and-query>");
                 } else {
                    rawCombinedQueryBuilder
                         .append("{\"ctsquery\": { \"andQuery\": { \"queries\": [ ")
-                        .append(stateQuery.toCtsQuery(format))
+                        .append(toCtsQueries(stateQueries, format))
                         .append(",")
                         .append(prepQueryToCombineJSON(queryValue))
                         .append("]}}}");
@@ -517,7 +628,7 @@ public class QueryMarkLogic extends AbstractMarkLogicProcessor {
             } else if (queryDef instanceof StringQueryDefinition) {
                 rawCombinedQueryBuilder
                     .append("<search  xmlns=\"http://marklogic.com/appservices/search\">")
-                    .append(stateQuery.toStructuredQuery(format))
+                    .append(toStructuredQueries(stateQueries, format))
                     .append("<qtext>").append(EscapeUtils.escapeHtml(queryValue))
                     .append("</qtext></search>");
             }
@@ -565,8 +676,23 @@ public class QueryMarkLogic extends AbstractMarkLogicProcessor {
         }
     }
 
+    private static String toStructuredQueries(List<RangeIndexQuery> queries, Format format) {
+        return queries.stream().map(query -> query.toStructuredQuery(format))
+                .collect(Collectors.joining(format == Format.JSON ? "," : ""));
+    }
+
+    private static String toCtsQueries(List<RangeIndexQuery> queries, Format format) {
+        return queries.stream().map(query -> query.toCtsQuery(format))
+                .collect(Collectors.joining(format == Format.JSON ? "," : ""));
+    }
+
     RangeIndexQuery buildStateQuery(StructuredQueryBuilder queryBuilder, final ProcessContext context,
             final FlowFile flowFile) {
+        return buildStateQuery(queryBuilder, context, flowFile, Operator.GT, queryState);
+    }
+
+    RangeIndexQuery buildStateQuery(StructuredQueryBuilder queryBuilder, final ProcessContext context,
+            final FlowFile flowFile, Operator operator, String value) {
         String stateIndexValue = context.getProperty(STATE_INDEX).evaluateAttributeExpressions(flowFile).getValue();
         String stateIndexTypeValue = context.getProperty(STATE_INDEX_TYPE).getValue();
         List<PropertyDescriptor> namespaceProperties = propertiesByPrefix.get("ns");
@@ -578,8 +704,7 @@ public class QueryMarkLogic extends AbstractMarkLogicProcessor {
             }
         }
         queryBuilder.setNamespaces(namespaces);
-        return new RangeIndexQuery(queryBuilder, stateIndexTypeValue, stateIndexValue, "xs:dateTime", Operator.GT,
-                queryState);
+        return new RangeIndexQuery(queryBuilder, stateIndexTypeValue, stateIndexValue, "xs:dateTime", operator, value);
     }
 
     QueryBatcher getQueryBatcher() {
@@ -0,0 +1,354 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nifi.marklogic.processor.util;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.nifi.components.state.Scope;
+import org.apache.nifi.components.state.StateManager;
+import org.apache.nifi.components.state.StateMap;
+
+import com.marklogic.client.datamovement.Forest;
+import com.marklogic.client.datamovement.ForestConfiguration;
+
+/**
+ * Divides the forests of a database between the NiFi nodes that run the same processor, using cluster state to
+ * agree on membership and on when every node has finished its share of an export.
+ * <p>
+ * Work proceeds in rounds. The members of a round are fixed when the round opens, as the nodes whose heartbeat is
+ * younger than the node timeout; a node that joins later waits for the next round. In particular, the first round
+ * after the processor is started has only the node that happened to call {@link #join()} first as its member, and the
+ * other nodes take their share from the second round on. Each member exports the forests whose position in the
+ * name-ordered forest list, modulo the member count, equals its own position in the member list; a member that is
+ * assigned no forests, because there are more members than forests, simply completes the round.
+ * <p>
+ * The node that opens a round also computes the round values, through the {@link RoundOpener}, and stores them with
+ * the membership; every member works against the same values (e.g. the upper bound of the query state), and they are
+ * what gets stored as state when the round completes. When the last member completes, the round is advanced and the
+ * supplied state is stored in the same update. If a member times out before completing, the round is advanced without
+ * applying the supplied state, so that the forests it was assigned are exported again by the remaining members.
+ * <p>
+ * Cluster state is only written when membership or progress changes, and otherwise at most once per quarter of the
+ * node timeout to refresh the heartbeat of the calling node.
+ */
+public class ForestPartitionCoordinator {
+
+    static final String ROUND_KEY = "partition.round";
+    static final String MEMBERS_KEY = "partition.members";
+    static final String HEARTBEAT_PREFIX = "partition.heartbeat.";
+    static final String COMPLETED_PREFIX = "partition.completed.";
+    static final String ROUND_VALUE_PREFIX = "partition.value.";
+
+    private final StateManager stateManager;
+    private final String nodeId;
+    private final long nodeTimeoutMillis;
+    private final RoundOpener roundOpener;
+    private volatile long lastHeartbeat = 0L;
+
+    public ForestPartitionCoordinator(StateManager stateManager, String nodeId, long nodeTimeoutMillis) {
+        this(stateManager, nodeId, nodeTimeoutMillis, Collections::emptyMap);
+    }
+
+    public ForestPartitionCoordinator(StateManager stateManager, String nodeId, long nodeTimeoutMillis, RoundOpener roundOpener) {
+        if (nodeId == null || nodeId.trim().isEmpty() || nodeId.contains(",")) {
+            throw new IllegalArgumentException("Partition node identifier must be non-empty and must not contain a comma: " + nodeId);
+        }
+        this.stateManager = stateManager;
+        this.nodeId = nodeId.trim();
+        this.nodeTimeoutMillis = nodeTimeoutMillis;
+        this.roundOpener = roundOpener;
+    }
+
+    /**
+     * Returns the share of the current round of this node, opening the round if needed. The heartbeat of this node is
+     * refreshed if it is due.
+     *
+     * @return the assignment of this node, or null if this node is not a member of the current round or has
+     * already completed it
+     */
+    public Assignment join() throws IOException {
+        Map<String, String> roundValues = null;
+        while (true) {
+            final StateMap stateMap = stateManager.getState(Scope.CLUSTER);
+            final Map<String, String> state = new HashMap<>(stateMap.toMap());
+            final long now = System.currentTimeMillis();
+            long heartbeat = getLong(state, HEARTBEAT_PREFIX + nodeId, -1L);
+            boolean changed = false;
+            if (heartbeat < 0 || now - heartbeat >= nodeTimeoutMillis / 4) {
+                heartbeat = now;
+                state.put(HEARTBEAT_PREFIX + nodeId, String.valueOf(heartbeat));
+                changed = true;
+            }
+
+            final boolean open;
+            if (getMembers(state).isEmpty()) {
+                state.put(MEMBERS_KEY, String.join(",", getLiveNodes(state, now)));
+                open = true;
+            } else if (getProgress(state, now) != Progress.IN_PROGRESS) {
+                // Every member that is still alive has completed, but some timed out before completing
+                advanceRound(state, now);
+                open = true;
+            } else {
+                open = false;
+            }
+            if (open) {
+                if (roundValues == null) {
+                    roundValues = roundOpener.open();
+                }
+                setRoundValues(state, roundValues);
+                changed = true;
+            }
+
+            if (!changed || updateState(stateMap, state)) {
+                lastHeartbeat = heartbeat;
+                final long round = getLong(state, ROUND_KEY, 0L);
+                final List<String> members = getMembers(state);
+                final int index = members.indexOf(nodeId);
+                if (index < 0 || getLong(state, COMPLETED_PREFIX + nodeId, -1L) >= round) {
+                    return null;
+                }
+                return new Assignment(round, index, members.size(), getRoundValues(state));
+            }
+        }
+    }
+
+    /**
+     * Refreshes the heartbeat of this node, at most once per quarter of the node timeout, so that a long running
+     * export is not mistaken for a failed node.
+     */
+    public void heartbeat() throws IOException {
+        final long now = System.currentTimeMillis();
+        if (now - lastHeartbeat < nodeTimeoutMillis / 4) {
+            return;
+        }
+        while (true) {
+            final StateMap stateMap = stateManager.getState(Scope.CLUSTER);
+            final Map<String, String> state = new HashMap<>(stateMap.toMap());
+            state.put(HEARTBEAT_PREFIX + nodeId, String.valueOf(now));
+            if (updateState(stateMap, state)) {
+                lastHeartbeat = now;
+                return;
+            }
+        }
+    }
+
+    /**
+     * Marks the given round as completed by this node. If every member of the round has now completed it, the round
+     * is advanced, the given state values are stored with it, and the values of the next round are computed.
+     *
+     * @param assignment the assignment returned by {@link #join()}
+     * @param stateOnAdvance state values to store if this node is the last member to complete the round
+     * @return true if this node completed the round last and the round was advanced
+     */
+    public boolean complete(Assignment assignment, Map<String, String> stateOnAdvance) throws IOException {
+        Map<String, String> roundValues = null;
+        while (true) {
+            final StateMap stateMap = stateManager.getState(Scope.CLUSTER);
+            final Map<String, String> state = new HashMap<>(stateMap.toMap());
+            final long now = System.currentTimeMillis();
+            final long round = getLong(state, ROUND_KEY, 0L);
+            if (round != assignment.getRound()) {
+                // The round was advanced without us, because we were considered timed out
+                return false;
+            }
+            state.put(HEARTBEAT_PREFIX + nodeId, String.valueOf(now));
+            state.put(COMPLETED_PREFIX + nodeId, String.valueOf(round));
+
+            final Progress progress = getProgress(state, now);
+            final boolean advance = progress != Progress.IN_PROGRESS;
+            if (advance) {
+                advanceRound(state, now);
+                if (progress == Progress.COMPLETED && stateOnAdvance != null) {
+                    state.putAll(stateOnAdvance);
+                }
+                if (roundValues == null) {
+                    roundValues = roundOpener.open();
+                }
+                setRoundValues(state, roundValues);
+            }
+
+            if (updateState(stateMap, state)) {
+                lastHeartbeat = now;
+                return advance;
+            }
+        }
+    }
+
+    private Progress getProgress(Map<String, String> state, long now) {
+        final long round = getLong(state, ROUND_KEY, 0L);
+        Progress progress = Progress.COMPLETED;
+        for (final String member : getMembers(state)) {
+            if (getLong(state, COMPLETED_PREFIX + member, -1L) < round) {
+                if (isLive(state, member, now)) {
+                    return Progress.IN_PROGRESS;
+                }
+                progress = Progress.ABANDONED;
+            }
+        }
+        return progress;
+    }
+
+    private void advanceRound(Map<String, String> state, long now) {
+        state.put(ROUND_KEY, String.valueOf(getLong(state, ROUND_KEY, 0L) + 1));
+        // Forget nodes that have timed out, then fix the members of the next round
+        final Iterator<Map.Entry<String, String>> entries = state.entrySet().iterator();
+        while (entries.hasNext()) {
+            final String key = entries.next().getKey();
+            if (key.startsWith(HEARTBEAT_PREFIX) && !isLive(state, key.substring(HEARTBEAT_PREFIX.length()), now)) {
+                entries.remove();
+                state.remove(COMPLETED_PREFIX + key.substring(HEARTBEAT_PREFIX.length()));
+            }
+        }
+        state.put(MEMBERS_KEY, String.join(",", getLiveNodes(state, now)));
+    }
+
+    private static void setRoundValues(Map<String, String> state, Map<String, String> roundValues) {
+        state.keySet().removeIf(key -> key.startsWith(ROUND_VALUE_PREFIX));
+        for (final Map.Entry<String, String> entry : roundValues.entrySet()) {
+            if (entry.getValue() != null) {
+                state.put(ROUND_VALUE_PREFIX + entry.getKey(), entry.getValue());
+            }
+        }
+    }
+
+    private static Map<String, String> getRoundValues(Map<String, String> state) {
+        final Map<String, String> roundValues = new HashMap<>();
+        for (final Map.Entry<String, String> entry : state.entrySet()) {
+            if (entry.getKey().startsWith(ROUND_VALUE_PREFIX)) {
+                roundValues.put(entry.getKey().substring(ROUND_VALUE_PREFIX.length()), entry.getValue());
+            }
+        }
+        return roundValues;
+    }
+
+    private boolean updateState(StateMap oldState, Map<String, String> newState) throws IOException {
+        if (oldState.getVersion() == -1L) {
+            stateManager.setState(newState, Scope.CLUSTER);
+            return true;
+        }
+        return stateManager.replace(oldState, newState, Scope.CLUSTER);
+    }
+
+    private boolean isLive(Map<String, String> state, String node, long now) {
+        return now - getLong(state, HEARTBEAT_PREFIX + node, 0L) <= nodeTimeoutMillis;
+    }
+
+    private List<String> getLiveNodes(Map<String, String> state, long now) {
+        final List<String> nodes = new ArrayList<>();
+        for (final String key : state.keySet()) {
+            if (key.startsWith(HEARTBEAT_PREFIX)) {
+                final String node = key.substring(HEARTBEAT_PREFIX.length());
+                if (isLive(state, node, now)) {
+                    nodes.add(node);
+                }
+            }
+        }
+        Collections.sort(nodes);
+        return nodes;
+    }
+
+    private static List<String> getMembers(Map<String, String> state) {
+        final String members = state.get(MEMBERS_KEY);
+        if (members == null || members.isEmpty()) {
+            return new ArrayList<>();
+        }
+        return new ArrayList<>(Arrays.asList(members.split(",")));
+    }
+
+    private static long getLong(Map<String, String> state, String key, long defaultValue) {
+        final String value = state.get(key);
+        return value == null ? defaultValue : Long.parseLong(value);
+    }
+
+    private enum Progress {
+        IN_PROGRESS, COMPLETED, ABANDONED
+    }
+
+    /**
+     * Computes the values that every member of a round works against. Called by the node that opens a round, before
+     * the round is stored.
+     */
+    public interface RoundOpener {
+        Map<String, String> open() throws IOException;
+    }
+
+    /**
+     * The share of a round assigned to one node.
+     */
+    public static class Assignment {
+        private final long round;
+        private final int nodeIndex;
+        private final int nodeCount;
+        private final Map<String, String> roundValues;
+
+        Assignment(long round, int nodeIndex, int nodeCount, Map<String, String> roundValues) {
+            this.round = round;
+            this.nodeIndex = nodeIndex;
+            this.nodeCount = nodeCount;
+            this.roundValues = roundValues;
+        }
+
+        public long getRound() {
+            return round;
+        }
+
+        public int getNodeIndex() {
+            return nodeIndex;
+        }
+
+        public int getNodeCount() {
+            return nodeCount;
+        }
+
+        /**
+         * @return the named value computed when the round was opened, or null if it has none
+         */
+        public String getRoundValue(String name) {
+            return roundValues.get(name);
+        }
+
+        /**
+         * @return the forests of the given configuration that are assigned to this node, which is empty if this
+         * node's position is beyond the number of forests
+         */
+        public ForestConfiguration filter(ForestConfiguration forestConfig) {
+            final Forest[] forests = forestConfig.listForests().clone();
+            Arrays.sort(forests, Comparator.comparing(Forest::getForestName));
+            final List<Forest> assigned = new ArrayList<>();
+            for (int i = 0; i < forests.length; i++) {
+                if (i % nodeCount == nodeIndex) {
+                    assigned.add(forests[i]);
+                }
+            }
+            final Forest[] assignedForests = assigned.toArray(new Forest[assigned.size()]);
+            return () -> assignedForests;
+        }
+
+        @Override
+        public String toString() {
+            return "Assignment[round=" + round + ", node=" + (nodeIndex + 1) + " of " + nodeCount + "]";
+        }
+    }
+}
@@ -0,0 +1,288 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nifi.marklogic.processor;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import org.apache.commons.compress.archivers.tar.TarArchiveEntry;
+import org.apache.commons.compress.archivers.tar.TarArchiveOutputStream;
+import org.apache.nifi.processor.ProcessContext;
+import org.apache.nifi.reporting.InitializationException;
+import org.apache.nifi.util.FlowFilePackagerV3;
+import org.apache.nifi.util.MockFlowFile;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.marklogic.client.DatabaseClient;
+import com.marklogic.client.datamovement.WriteBatcher;
+import com.marklogic.client.datamovement.WriteEvent;
+import com.marklogic.client.datamovement.impl.WriteBatchImpl;
+import com.marklogic.client.datamovement.impl.WriteEventImpl;
+import com.marklogic.client.io.BytesHandle;
+import com.marklogic.client.io.DocumentMetadataHandle;
+import com.marklogic.client.io.Format;
+
+public class PutMarkLogicArchiveTest extends AbstractMarkLogicProcessorTest {
+
+    private TestPutMarkLogicArchive processor;
+
+    @Before
+    public void setup() throws InitializationException {
+        processor = new TestPutMarkLogicArchive();
+        initialize(processor);
+    }
+
+    @After
+    public void reset() {
+        processor.writeEvents.clear();
+    }
+
+    @Test
+    public void putZipEntries() throws IOException {
+        processContext.setProperty(PutMarkLogicArchive.URI_PREFIX, "/archive/");
+        processor.initialize(initializationContext);
+
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        try (ZipOutputStream zip = new ZipOutputStream(baos)) {
+            zip.putNextEntry(new ZipEntry("dir/"));
+            zip.closeEntry();
+            zip.putNextEntry(new ZipEntry("dir/doc1.json"));
+            zip.write("{\"hello\":\"nifi rocks\"}".getBytes());
+            zip.closeEntry();
+            zip.putNextEntry(new ZipEntry("doc2.xml"));
+            zip.write("<test/>".getBytes());
+            zip.closeEntry();
+        }
+
+        addFlowFile(baos.toByteArray());
+        processor.onTrigger(processContext, processSession);
+
+        assertEquals("Directory entries should be skipped", 2, processor.writeEvents.size());
+
+        WriteEvent first = processor.writeEvents.get(0);
+        assertEquals("/archive/dir/doc1.json", first.getTargetUri());
+        assertEquals(Format.JSON, ((BytesHandle) first.getContent()).getFormat());
+        assertEquals("{\"hello\":\"nifi rocks\"}", new String(((BytesHandle) first.getContent()).get()));
+
+        WriteEvent second = processor.writeEvents.get(1);
+        assertEquals("/archive/doc2.xml", second.getTargetUri());
+        assertEquals(Format.XML, ((BytesHandle) second.getContent()).getFormat());
+
+        processSession.assertTransferCount(PutMarkLogicArchive.ORIGINAL, 1);
+        assertTrue(processor.flushAndWaitCalled);
+    }
+
+    @Test
+    public void putFlowFileStreamEntries() throws IOException {
+        processContext.setProperty(PutMarkLogicArchive.ARCHIVE_FORMAT, PutMarkLogicArchive.FLOWFILE_STREAM_FORMAT_V3.getValue());
+        processor.initialize(initializationContext);
+
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        FlowFilePackagerV3 packager = new FlowFilePackagerV3();
+        for (String filename : new String[]{"one.txt", "two.txt"}) {
+            Map<String, String> attributes = new HashMap<>();
+            attributes.put("filename", filename);
+            byte[] content = filename.getBytes();
+            packager.packageFlowFile(new ByteArrayInputStream(content), baos, attributes, content.length);
+        }
+
+        addFlowFile(baos.toByteArray());
+        processor.onTrigger(processContext, processSession);
+
+        assertEquals(2, processor.writeEvents.size());
+        assertEquals("one.txt", processor.writeEvents.get(0).getTargetUri());
+        assertEquals("two.txt", processor.writeEvents.get(1).getTargetUri());
+        assertEquals(Format.TEXT, ((BytesHandle) processor.writeEvents.get(1).getContent()).getFormat());
+        assertEquals("two.txt", new String(((BytesHandle) processor.writeEvents.get(1).getContent()).get()));
+
+        processSession.assertTransferCount(PutMarkLogicArchive.ORIGINAL, 1);
+    }
+
+    @Test
+    public void invalidArchive() {
+        processContext.setProperty(PutMarkLogicArchive.ARCHIVE_FORMAT, PutMarkLogicArchive.FLOWFILE_STREAM_FORMAT_V3.getValue());
+        processor.initialize(initializationContext);
+
+        addFlowFile("not a FlowFile package");
+        processor.onTrigger(processContext, processSession);
+
+        assertEquals(0, processor.writeEvents.size());
+        assertFalse(processor.flushAndWaitCalled);
+        processSession.assertTransferCount(PutMarkLogicArchive.FAILURE, 1);
+    }
+
+    @Test
+    public void putTarEntries() throws IOException {
+        processContext.setProperty(PutMarkLogicArchive.ARCHIVE_FORMAT, PutMarkLogicArchive.TAR_FORMAT.getValue());
+        processor.initialize(initializationContext);
+
+        addFlowFile(buildTar("doc1.json", "{\"hello\":\"nifi rocks\"}", "doc2.xml", "<test/>"));
+        processor.onTrigger(processContext, processSession);
+
+        assertEquals(2, processor.writeEvents.size());
+        assertEquals("doc1.json", processor.writeEvents.get(0).getTargetUri());
+        assertEquals(Format.JSON, ((BytesHandle) processor.writeEvents.get(0).getContent()).getFormat());
+        assertEquals("<test/>", new String(((BytesHandle) processor.writeEvents.get(1).getContent()).get()));
+
+        processSession.assertTransferCount(PutMarkLogicArchive.ORIGINAL, 1);
+        processSession.assertTransferCount(PutMarkLogicArchive.FAILURE, 0);
+        assertTrue(processor.flushAndWaitCalled);
+    }
+
+    @Test
+    public void truncatedArchive() throws IOException {
+        processContext.setProperty(PutMarkLogicArchive.ARCHIVE_FORMAT, PutMarkLogicArchive.TAR_FORMAT.getValue());
+        processor.initialize(initializationContext);
+
+        char[] large = new char[4096];
+        Arrays.fill(large, 'x');
+        byte[] tar = buildTar("doc1.txt", "first", "doc2.txt", new String(large));
+        // Cut the archive off in the middle of the second entry's content
+        addFlowFile(Arrays.copyOf(tar, 1024 + 512 + 2048));
+        processor.onTrigger(processContext, processSession);
+
+        assertEquals("The entry read before the archive ended should have been added", 1, processor.writeEvents.size());
+        assertTrue("Entries already added must be flushed before the archive is routed", processor.flushAndWaitCalled);
+        processSession.assertTransferCount(PutMarkLogicArchive.FAILURE, 1);
+        processSession.assertTransferCount(PutMarkLogicArchive.ORIGINAL, 0);
+    }
+
+    @Test
+    public void failedEntryRoutedToFailure() throws IOException {
+        processContext.setProperty(PutMarkLogicArchive.ARCHIVE_FORMAT, PutMarkLogicArchive.TAR_FORMAT.getValue());
+        processor.initialize(initializationContext);
+        processor.failOnFlush = true;
+
+        addFlowFile(buildTar("doc1.txt", "first", "doc2.txt", "second"));
+        processor.onTrigger(processContext, processSession);
+
+        processSession.assertTransferCount(PutMarkLogicArchive.ORIGINAL, 1);
+        processSession.assertTransferCount(PutMarkLogicArchive.FAILURE, 2);
+        List<MockFlowFile> failed = processSession.getFlowFilesForRelationship(PutMarkLogicArchive.FAILURE);
+        failed.get(0).assertAttributeEquals("filename", "doc1.txt");
+        failed.get(0).assertContentEquals("first");
+        failed.get(1).assertAttributeEquals("filename", "doc2.txt");
+        failed.get(1).assertContentEquals("second");
+    }
+
+    @Test
+    public void batchSuccessCreditsOnlyEntriesOfTheArchive() throws IOException {
+        processContext.setProperty(PutMarkLogicArchive.ARCHIVE_FORMAT, PutMarkLogicArchive.TAR_FORMAT.getValue());
+        processor.initialize(initializationContext);
+
+        // Another concurrent task's entry is written in the same batch as the entries of this archive
+        DocumentMetadataHandle otherMetadata = new DocumentMetadataHandle();
+        otherMetadata.withMetadataValue("flowFileUUID", "other-archive");
+        processor.otherArchiveEvent = new WriteEventImpl().withTargetUri("other.txt").withMetadata(otherMetadata)
+            .withContent(new BytesHandle("other".getBytes()));
+
+        addFlowFile(buildTar("doc1.txt", "first", "doc2.txt", "second"));
+        processor.onTrigger(processContext, processSession);
+
+        processSession.assertTransferCount(PutMarkLogicArchive.BATCH_SUCCESS, 1);
+        processSession.getFlowFilesForRelationship(PutMarkLogicArchive.BATCH_SUCCESS).get(0).assertAttributeEquals("URIs", "doc1.txt,doc2.txt");
+        processSession.assertTransferCount(PutMarkLogicArchive.ORIGINAL, 1);
+    }
+
+    @Test
+    public void oversizedEntryRoutedToFailure() throws IOException {
+        processContext.setProperty(PutMarkLogicArchive.ARCHIVE_FORMAT, PutMarkLogicArchive.TAR_FORMAT.getValue());
+        processor.initialize(initializationContext);
+
+        // The header of an entry larger than 2 GB follows the first entry; its content is never read
+        byte[] tar = buildTar("doc1.txt", "first");
+        TarArchiveEntry large = new TarArchiveEntry("large.bin");
+        large.setSize(3L * 1024 * 1024 * 1024);
+        byte[] header = new byte[512];
+        large.writeEntryHeader(header);
+        byte[] content = Arrays.copyOf(tar, 1024 + 512);
+        System.arraycopy(header, 0, content, 1024, 512);
+
+        addFlowFile(content);
+        processor.onTrigger(processContext, processSession);
+
+        assertEquals(1, processor.writeEvents.size());
+        assertTrue("Entries already added must be flushed before the archive is routed", processor.flushAndWaitCalled);
+        processSession.assertTransferCount(PutMarkLogicArchive.FAILURE, 1);
+        processSession.assertTransferCount(PutMarkLogicArchive.ORIGINAL, 0);
+    }
+
+    private byte[] buildTar(String... namesAndContents) throws IOException {
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        try (TarArchiveOutputStream tar = new TarArchiveOutputStream(baos)) {
+            for (int i = 0; i < namesAndContents.length; i += 2) {
+                byte[] content = namesAndContents[i + 1].getBytes();
+                TarArchiveEntry entry = new TarArchiveEntry(namesAndContents[i]);
+                entry.setSize(content.length);
+                tar.putArchiveEntry(entry);
+                tar.write(content);
+                tar.closeArchiveEntry();
+            }
+        }
+        return baos.toByteArray();
+    }
+
+    private void addFlowFile(byte[] content) {
+        sharedSessionState.getFlowFileQueue().offer(processSession.createFlowFile(content));
+    }
+}
+
+/**
+ * This subclass allows us to intercept the calls to WriteBatcher so that no calls are made to MarkLogic.
+ */
+class TestPutMarkLogicArchive extends PutMarkLogicArchive {
+
+    public boolean flushAndWaitCalled = false;
+    public boolean failOnFlush = false;
+    public WriteEvent otherArchiveEvent = null;
+    public List<WriteEvent> writeEvents = new ArrayList<WriteEvent>();
+
+    @Override
+    protected DatabaseClient getDatabaseClient(ProcessContext context) {
+        return null;
+    }
+
+    @Override
+    protected void flushWriteBatcherAndWait(WriteBatcher writeBatcher) {
+        flushAndWaitCalled = true;
+        if (failOnFlush) {
+            for (WriteEvent writeEvent : writeEvents) {
+                routeDocumentToRelationship(writeEvent, FAILURE);
+            }
+        }
+        if (otherArchiveEvent != null) {
+            List<WriteEvent> items = new ArrayList<>(writeEvents);
+            items.add(1, otherArchiveEvent);
+            routeBatchSuccess(new WriteBatchImpl().withItems(items.toArray(new WriteEvent[0])));
+        }
+    }
+
+    @Override
+    protected void addWriteEvent(WriteBatcher writeBatcher, WriteEvent writeEvent) {
+        this.writeEvents.add(writeEvent);
+    }
+}
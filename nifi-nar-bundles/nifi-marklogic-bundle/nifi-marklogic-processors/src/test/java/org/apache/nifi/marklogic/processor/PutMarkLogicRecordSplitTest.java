@@ -0,0 +1,237 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nifi.marklogic.processor;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+import org.apache.nifi.controller.AbstractControllerService;
+import org.apache.nifi.flowfile.FlowFile;
+import org.apache.nifi.flowfile.attributes.CoreAttributes;
+import org.apache.nifi.logging.ComponentLog;
+import org.apache.nifi.processor.ProcessContext;
+import org.apache.nifi.reporting.InitializationException;
+import org.apache.nifi.serialization.MalformedRecordException;
+import org.apache.nifi.serialization.RecordReader;
+import org.apache.nifi.serialization.RecordReaderFactory;
+import org.apache.nifi.serialization.SimpleRecordSchema;
+import org.apache.nifi.serialization.record.MapRecord;
+import org.apache.nifi.serialization.record.MockRecordWriter;
+import org.apache.nifi.serialization.record.Record;
+import org.apache.nifi.serialization.record.RecordField;
+import org.apache.nifi.serialization.record.RecordFieldType;
+import org.apache.nifi.serialization.record.RecordSchema;
+import org.apache.nifi.util.MockFlowFile;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.marklogic.client.DatabaseClient;
+import com.marklogic.client.datamovement.WriteBatcher;
+import com.marklogic.client.datamovement.WriteEvent;
+
+public class PutMarkLogicRecordSplitTest extends AbstractMarkLogicProcessorTest {
+
+    private TestSplitPutMarkLogicRecord processor;
+
+    @Before
+    public void setup() throws InitializationException {
+        processor = new TestSplitPutMarkLogicRecord();
+        initialize(processor);
+        processContext.addControllerService(new LineRecordReaderFactory(), "reader");
+        processContext.addControllerService(new MockRecordWriter("\"docID\""), "writer");
+        processContext.setProperty(PutMarkLogicRecord.RECORD_READER, "reader");
+        processContext.setProperty(PutMarkLogicRecord.RECORD_WRITER, "writer");
+        processContext.setProperty(PutMarkLogicRecord.RECORD_SPLIT_SIZE, "20 B");
+        processContext.setProperty(PutMarkLogicRecord.RECORD_PARSE_THREAD_COUNT, "3");
+    }
+
+    @After
+    public void shutdown() {
+        processor.shutdownParseExecutor();
+    }
+
+    @Test
+    public void splitLinesWithHeader() {
+        processContext.setProperty(PutMarkLogicRecord.RECORD_SPLIT_STRATEGY, PutMarkLogicRecord.SPLIT_LINES_WITH_HEADER.getValue());
+        processContext.setProperty(PutMarkLogicRecord.URI_FIELD_NAME, "docID");
+        processContext.setProperty(PutMarkLogicRecord.URI_PREFIX, "/doc/");
+        trigger(lines(true, 50));
+
+        Set<String> expectedUris = new TreeSet<>();
+        for (int i = 0; i < 50; i++) {
+            expectedUris.add(String.format("/doc/id%02d", i));
+        }
+        assertEquals(expectedUris, new TreeSet<>(processor.uris()));
+        assertEquals(50, processor.writeEvents.size());
+        processSession.assertTransferCount(PutMarkLogicRecord.ORIGINAL, 1);
+    }
+
+    @Test
+    public void splitSizeMustFitInMemory() {
+        assertTrue(runner.setProperty(PutMarkLogicRecord.RECORD_SPLIT_SIZE, "1 GB").isValid());
+        assertFalse(runner.setProperty(PutMarkLogicRecord.RECORD_SPLIT_SIZE, "2 GB").isValid());
+        assertFalse(runner.setProperty(PutMarkLogicRecord.RECORD_SPLIT_SIZE, "0 B").isValid());
+    }
+
+    @Test
+    public void generatedUrisAreDeterministic() {
+        processContext.setProperty(PutMarkLogicRecord.RECORD_SPLIT_STRATEGY, PutMarkLogicRecord.SPLIT_LINES.getValue());
+        MockFlowFile flowFile = trigger(lines(false, 10));
+
+        // Each 20 byte range holds two records
+        String uuid = flowFile.getAttribute(CoreAttributes.UUID.key());
+        Set<String> expectedUris = new TreeSet<>();
+        for (int i = 0; i < 10; i++) {
+            expectedUris.add(UUID.nameUUIDFromBytes((uuid + "/" + (i / 2) + "/" + (i % 2)).getBytes(StandardCharsets.UTF_8)).toString());
+        }
+        assertEquals(expectedUris, new TreeSet<>(processor.uris()));
+        processSession.assertTransferCount(PutMarkLogicRecord.ORIGINAL, 1);
+    }
+
+    @Test
+    public void malformedRangeFailsFlowFile() {
+        processContext.setProperty(PutMarkLogicRecord.RECORD_SPLIT_STRATEGY, PutMarkLogicRecord.SPLIT_LINES_WITH_HEADER.getValue());
+        trigger(lines(true, 20) + "bad line\n");
+
+        processSession.assertTransferCount(PutMarkLogicRecord.FAILURE, 1);
+        processSession.assertTransferCount(PutMarkLogicRecord.ORIGINAL, 0);
+    }
+
+    @Test
+    public void readRangeEndsAtLineBoundary() throws IOException {
+        InputStream in = new ByteArrayInputStream("abc\ndefgh\ni\n".getBytes());
+        assertEquals("abc\ndefgh\n", new String(PutMarkLogicRecord.readRange(in, 5)));
+        assertEquals("i\n", new String(PutMarkLogicRecord.readRange(in, 5)));
+        assertNull(PutMarkLogicRecord.readRange(in, 5));
+    }
+
+    private MockFlowFile trigger(String content) {
+        processor.initialize(initializationContext);
+        processor.initializeFactories(processContext);
+        MockFlowFile flowFile = addFlowFile(content);
+        processor.onTrigger(processContext, processSession);
+        return flowFile;
+    }
+
+    /**
+     * Every record line is "idNN,name" followed by a newline, i.e. 10 bytes long.
+     */
+    private static String lines(boolean header, int count) {
+        StringBuilder sb = new StringBuilder(header ? "docID,name\n" : "");
+        for (int i = 0; i < count; i++) {
+            sb.append(String.format("id%02d,name\n", i));
+        }
+        return sb.toString();
+    }
+}
+
+/**
+ * Intercepts the calls to WriteBatcher so that no calls are made to MarkLogic; write events may be added from several
+ * threads at once.
+ */
+class TestSplitPutMarkLogicRecord extends PutMarkLogicRecord {
+
+    public List<WriteEvent> writeEvents = Collections.synchronizedList(new ArrayList<>());
+
+    @Override
+    protected DatabaseClient getDatabaseClient(ProcessContext context) {
+        return null;
+    }
+
+    @Override
+    protected void flushWriteBatcherAndWait(WriteBatcher writeBatcher) {
+    }
+
+    @Override
+    protected void addWriteEvent(WriteBatcher writeBatcher, WriteEvent writeEvent) {
+        writeEvents.add(writeEvent);
+    }
+
+    public List<String> uris() {
+        synchronized (writeEvents) {
+            return writeEvents.stream().map(WriteEvent::getTargetUri).collect(Collectors.toList());
+        }
+    }
+}
+
+/**
+ * Reads comma-separated lines. If the first line is "docID,name" it is treated as the header, and every following line
+ * must then have two values.
+ */
+class LineRecordReaderFactory extends AbstractControllerService implements RecordReaderFactory {
+
+    @Override
+    public RecordReader createRecordReader(Map<String, String> variables, InputStream in, ComponentLog logger) throws IOException {
+        final BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+        final List<String> lines = reader.lines().collect(Collectors.toList());
+        final boolean header = !lines.isEmpty() && lines.get(0).equals("docID,name");
+        if (header) {
+            lines.remove(0);
+        }
+        final List<RecordField> fields = new ArrayList<>();
+        fields.add(new RecordField("docID", RecordFieldType.STRING.getDataType()));
+        fields.add(new RecordField("name", RecordFieldType.STRING.getDataType()));
+        final RecordSchema schema = new SimpleRecordSchema(fields);
+
+        return new RecordReader() {
+            private int index = 0;
+
+            @Override
+            public Record nextRecord(boolean coerceTypes, boolean dropUnknownFields) throws MalformedRecordException {
+                if (index >= lines.size()) {
+                    return null;
+                }
+                final String[] values = lines.get(index++).split(",");
+                if (header && values.length != 2) {
+                    throw new MalformedRecordException("Expected 2 values but found " + values.length);
+                }
+                final Map<String, Object> map = new HashMap<>();
+                map.put("docID", values[0]);
+                map.put("name", values.length > 1 ? values[1] : null);
+                return new MapRecord(schema, map);
+            }
+
+            @Override
+            public RecordSchema getSchema() {
+                return schema;
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+    }
+
+    @Override
+    public RecordReader createRecordReader(FlowFile flowFile, InputStream in, ComponentLog logger) throws IOException {
+        return createRecordReader(flowFile.getAttributes(), in, logger);
+    }
+}
@@ -0,0 +1,168 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nifi.marklogic.processor.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.nifi.components.state.Scope;
+import org.apache.nifi.marklogic.processor.QueryMarkLogic;
+import org.apache.nifi.state.MockStateManager;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.marklogic.client.datamovement.Forest;
+import com.marklogic.client.datamovement.ForestConfiguration;
+import com.marklogic.client.datamovement.impl.ForestImpl;
+
+public class ForestPartitionCoordinatorTest {
+
+    private static final long TIMEOUT = 60000L;
+
+    private MockStateManager stateManager;
+    private ForestPartitionCoordinator node1;
+    private ForestPartitionCoordinator node2;
+
+    @Before
+    public void setup() {
+        stateManager = new MockStateManager(new QueryMarkLogic());
+        node1 = new ForestPartitionCoordinator(stateManager, "node1", TIMEOUT);
+        node2 = new ForestPartitionCoordinator(stateManager, "node2", TIMEOUT);
+    }
+
+    @Test
+    public void nodesShareRoundAndLastToCompleteStoresState() throws IOException {
+        // node1 starts the first round alone; node2 waits for the next one
+        ForestPartitionCoordinator.Assignment first = node1.join();
+        assertNotNull(first);
+        assertEquals(0, first.getRound());
+        assertEquals(1, first.getNodeCount());
+        assertNull(node2.join());
+
+        assertTrue(node1.complete(first, Collections.singletonMap("queryState", "10")));
+        stateManager.assertStateEquals("queryState", "10", Scope.CLUSTER);
+        stateManager.assertStateEquals(ForestPartitionCoordinator.MEMBERS_KEY, "node1,node2", Scope.CLUSTER);
+
+        ForestPartitionCoordinator.Assignment second1 = node1.join();
+        ForestPartitionCoordinator.Assignment second2 = node2.join();
+        assertEquals(1, second1.getRound());
+        assertEquals(0, second1.getNodeIndex());
+        assertEquals(1, second2.getNodeIndex());
+        assertEquals(2, second2.getNodeCount());
+
+        assertFalse(node1.complete(second1, Collections.singletonMap("queryState", "20")));
+        assertNull("A node that completed the round must wait for the others", node1.join());
+        stateManager.assertStateEquals("queryState", "10", Scope.CLUSTER);
+
+        assertTrue(node2.complete(second2, Collections.singletonMap("queryState", "25")));
+        stateManager.assertStateEquals("queryState", "25", Scope.CLUSTER);
+        stateManager.assertStateEquals(ForestPartitionCoordinator.ROUND_KEY, "2", Scope.CLUSTER);
+        assertNotNull(node1.join());
+    }
+
+    @Test
+    public void timedOutNodeIsDroppedWithoutStoringState() throws IOException {
+        node1.join();
+        node2.join();
+        ForestPartitionCoordinator.Assignment first = node1.join();
+        assertTrue(node1.complete(first, null));
+
+        ForestPartitionCoordinator.Assignment second1 = node1.join();
+        assertNotNull(node2.join());
+        assertEquals(2, second1.getNodeCount());
+
+        // node2 stops reporting progress
+        Map<String, String> state = new HashMap<>(stateManager.getState(Scope.CLUSTER).toMap());
+        state.put(ForestPartitionCoordinator.HEARTBEAT_PREFIX + "node2", "0");
+        stateManager.setState(state, Scope.CLUSTER);
+
+        assertTrue(node1.complete(second1, Collections.singletonMap("queryState", "30")));
+        stateManager.assertStateNotSet("queryState", Scope.CLUSTER);
+        stateManager.assertStateEquals(ForestPartitionCoordinator.MEMBERS_KEY, "node1", Scope.CLUSTER);
+
+        ForestPartitionCoordinator.Assignment third = node1.join();
+        assertEquals(2, third.getRound());
+        assertEquals(1, third.getNodeCount());
+    }
+
+    @Test
+    public void filterForests() {
+        ForestConfiguration forestConfig = () -> new Forest[] { forest("f3"), forest("f1"), forest("f2") };
+
+        Forest[] forests = new ForestPartitionCoordinator.Assignment(0, 0, 2, Collections.emptyMap()).filter(forestConfig).listForests();
+        assertEquals(2, forests.length);
+        assertEquals("f1", forests[0].getForestName());
+        assertEquals("f3", forests[1].getForestName());
+
+        forests = new ForestPartitionCoordinator.Assignment(0, 1, 2, Collections.emptyMap()).filter(forestConfig).listForests();
+        assertEquals(1, forests.length);
+        assertEquals("f2", forests[0].getForestName());
+
+        forests = new ForestPartitionCoordinator.Assignment(0, 3, 4, Collections.emptyMap()).filter(forestConfig).listForests();
+        assertEquals("A node beyond the number of forests is assigned none", 0, forests.length);
+    }
+
+    @Test
+    public void roundValuesAreComputedOnceByTheNodeOpeningTheRound() throws IOException {
+        AtomicInteger opened = new AtomicInteger();
+        ForestPartitionCoordinator.RoundOpener opener = () ->
+            Collections.singletonMap("upperBound", String.valueOf(10 * opened.incrementAndGet()));
+        node1 = new ForestPartitionCoordinator(stateManager, "node1", TIMEOUT, opener);
+        node2 = new ForestPartitionCoordinator(stateManager, "node2", TIMEOUT, opener);
+
+        ForestPartitionCoordinator.Assignment first = node1.join();
+        assertEquals("10", first.getRoundValue("upperBound"));
+        assertNull(node2.join());
+        assertTrue(node1.complete(first, Collections.singletonMap("queryState", first.getRoundValue("upperBound"))));
+        stateManager.assertStateEquals("queryState", "10", Scope.CLUSTER);
+
+        // The round was opened by node1 when it completed the previous one; both nodes share its values
+        ForestPartitionCoordinator.Assignment second1 = node1.join();
+        ForestPartitionCoordinator.Assignment second2 = node2.join();
+        assertEquals(2, opened.get());
+        assertEquals("20", second1.getRoundValue("upperBound"));
+        assertEquals("20", second2.getRoundValue("upperBound"));
+    }
+
+    @Test
+    public void joinOnlyWritesStateWhenSomethingChanged() throws IOException {
+        ForestPartitionCoordinator.Assignment first = node1.join();
+        node2.join();
+        long version = stateManager.getState(Scope.CLUSTER).getVersion();
+
+        assertNotNull(node1.join());
+        assertNull(node2.join());
+        assertEquals("Joining a round again should not rewrite cluster state", version,
+            stateManager.getState(Scope.CLUSTER).getVersion());
+
+        assertTrue(node1.complete(first, null));
+        assertNotNull(new ForestPartitionCoordinator(stateManager, "node2", TIMEOUT).join());
+    }
+
+    private static Forest forest(String name) {
+        return new ForestImpl("host", null, "host", null, "Documents", name, name, true, false);
+    }
+}
@@ -18,6 +18,8 @@ package org.apache.nifi.marklogic.controller;
 
 import com.marklogic.client.DatabaseClient;
 import com.marklogic.client.DatabaseClientFactory;
+import com.marklogic.client.datamovement.DataMovementManager;
+import com.marklogic.client.datamovement.Forest;
 import com.marklogic.client.ext.DatabaseClientConfig;
 import com.marklogic.client.ext.DefaultConfiguredDatabaseClientFactory;
 import com.marklogic.client.ext.SecurityContextType;
@@ -45,7 +47,9 @@ import java.security.KeyStore;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 @Tags({"MarkLogic"})
 @CapabilityDescription("Provides a MarkLogic DatabaseClient instance for use by other processors")
@@ -53,6 +57,8 @@ public class DefaultMarkLogicDatabaseClientService extends AbstractControllerSer
 
     private static List<PropertyDescriptor> properties;
 
+    private static final String COMPRESSION_NONE = "none";
+
     private DatabaseClient databaseClient;
     public static final PropertyDescriptor HOST = new PropertyDescriptor.Builder()
         .name("Host")
@@ -146,6 +152,26 @@ public class DefaultMarkLogicDatabaseClientService extends AbstractControllerSer
         .expressionLanguageSupported(ExpressionLanguageScope.VARIABLE_REGISTRY)
         .build();
 
+    public static final PropertyDescriptor REQUEST_COMPRESSION = new PropertyDescriptor.Builder()
+        .name("Request Compression")
+        .displayName("Request Compression")
+        .description("The Content-Encoding with which request bodies, such as the batches written by PutMarkLogic, are compressed. "
+            + "Useful when the link to MarkLogic is bandwidth-bound; costs CPU on both NiFi and MarkLogic. "
+            + "Responses are always accepted gzip-encoded")
+        .required(true)
+        .allowableValues(COMPRESSION_NONE, RequestCompressionInterceptor.GZIP, RequestCompressionInterceptor.DEFLATE)
+        .defaultValue(COMPRESSION_NONE)
+        .build();
+
+    public static final PropertyDescriptor COMPRESSION_LEVEL = new PropertyDescriptor.Builder()
+        .name("Compression Level")
+        .displayName("Compression Level")
+        .description("The compression level from 1 (fastest) to 9 (smallest) used when Request Compression is enabled")
+        .required(true)
+        .defaultValue("6")
+        .addValidator(StandardValidators.createLongValidator(1, 9, true))
+        .build();
+
     static {
         List<PropertyDescriptor> list = new ArrayList<>();
         list.add(HOST);
@@ -158,6 +184,8 @@ public class DefaultMarkLogicDatabaseClientService extends AbstractControllerSer
         list.add(EXTERNAL_NAME);
         list.add(SSL_CONTEXT_SERVICE);
         list.add(CLIENT_AUTH);
+        list.add(REQUEST_COMPRESSION);
+        list.add(COMPRESSION_LEVEL);
         properties = Collections.unmodifiableList(list);
     }
 
@@ -165,7 +193,42 @@ public class DefaultMarkLogicDatabaseClientService extends AbstractControllerSer
     public void onEnabled(ConfigurationContext context) {
         getLogger().info("Creating DatabaseClient");
         DatabaseClientConfig config = buildDatabaseClientConfig(context);
+        final String compression = context.getProperty(REQUEST_COMPRESSION).getValue();
+        if (!COMPRESSION_NONE.equals(compression)) {
+            RequestCompressionInterceptor.register();
+        }
         databaseClient = new DefaultConfiguredDatabaseClientFactory().newDatabaseClient(config);
+        if (!COMPRESSION_NONE.equals(compression)) {
+            RequestCompressionInterceptor.INSTANCE.enable(this, getServerHosts(config), config.getPort(),
+                new RequestCompressionInterceptor.Compression(compression, context.getProperty(COMPRESSION_LEVEL).asInteger()));
+        }
+    }
+
+    /**
+     * The hosts that requests are sent to: the configured host and, unless connecting through a load balancer, the
+     * hosts of the database's forests, which the WriteBatcher and QueryBatcher send requests to directly.
+     */
+    private Set<String> getServerHosts(DatabaseClientConfig config) {
+        final Set<String> hosts = new HashSet<>();
+        hosts.add(config.getHost());
+        if (config.getConnectionType() != DatabaseClient.ConnectionType.GATEWAY) {
+            // The DataMovementManager is only needed to read the forest config, so release it rather than keep it for the client's lifetime
+            DataMovementManager dataMovementManager = null;
+            try {
+                dataMovementManager = databaseClient.newDataMovementManager();
+                for (Forest forest : dataMovementManager.readForestConfig().listForests()) {
+                    hosts.add(forest.getPreferredHost());
+                }
+            } catch (Exception e) {
+                getLogger().warn("Could not read the forest hosts of {}; only requests to it are compressed",
+                    new Object[]{config.getHost()}, e);
+            } finally {
+                if (dataMovementManager != null) {
+                    dataMovementManager.release();
+                }
+            }
+        }
+        return hosts;
     }
 
     @OnDisabled
@@ -174,6 +237,7 @@ public class DefaultMarkLogicDatabaseClientService extends AbstractControllerSer
             databaseClient.release();
             databaseClient = null;
         }
+        RequestCompressionInterceptor.INSTANCE.disable(this);
     }
 
     protected DatabaseClientConfig buildDatabaseClientConfig(ConfigurationContext context) {
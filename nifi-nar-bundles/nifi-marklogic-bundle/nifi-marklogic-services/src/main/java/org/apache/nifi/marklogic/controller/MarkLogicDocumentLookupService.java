@@ -0,0 +1,292 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nifi.marklogic.controller;
+
+import com.marklogic.client.DatabaseClient;
+import com.marklogic.client.document.DocumentPage;
+import com.marklogic.client.document.DocumentRecord;
+import com.marklogic.client.io.StringHandle;
+import org.apache.nifi.annotation.documentation.CapabilityDescription;
+import org.apache.nifi.annotation.documentation.Tags;
+import org.apache.nifi.annotation.lifecycle.OnDisabled;
+import org.apache.nifi.annotation.lifecycle.OnEnabled;
+import org.apache.nifi.components.PropertyDescriptor;
+import org.apache.nifi.controller.AbstractControllerService;
+import org.apache.nifi.controller.ConfigurationContext;
+import org.apache.nifi.expression.ExpressionLanguageScope;
+import org.apache.nifi.lookup.LookupFailureException;
+import org.apache.nifi.lookup.StringLookupService;
+import org.apache.nifi.processor.util.StandardValidators;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+@Tags({"MarkLogic", "lookup", "enrich", "key", "value", "cache"})
+@CapabilityDescription("Looks up the content of a MarkLogic document by key, where the URI of the document is the key with an "
+    + "optional prefix and suffix. The coordinates that are passed to the lookup must contain the key 'key'. Documents are kept "
+    + "in a local cache that is bounded in size and age; keys that match no document are cached as well, so that repeated "
+    + "misses do not reach MarkLogic. Callers that know several keys up front can use lookupAll to read every uncached "
+    + "document with a single request.")
+public class MarkLogicDocumentLookupService extends AbstractControllerService implements StringLookupService {
+
+    public static final String KEY = "key";
+    private static final Set<String> REQUIRED_KEYS = Collections.singleton(KEY);
+
+    private static List<PropertyDescriptor> properties;
+
+    public static final PropertyDescriptor DATABASE_CLIENT_SERVICE = new PropertyDescriptor.Builder()
+        .name("DatabaseClient Service")
+        .displayName("DatabaseClient Service")
+        .required(true)
+        .description("The DatabaseClient Controller Service that provides the MarkLogic connection")
+        .identifiesControllerService(MarkLogicDatabaseClientService.class)
+        .build();
+
+    public static final PropertyDescriptor URI_PREFIX = new PropertyDescriptor.Builder()
+        .name("URI Prefix")
+        .displayName("URI Prefix")
+        .description("The prefix to prepend to a key to build the URI of the document to look up")
+        .addValidator(StandardValidators.NON_EMPTY_VALIDATOR)
+        .expressionLanguageSupported(ExpressionLanguageScope.VARIABLE_REGISTRY)
+        .build();
+
+    public static final PropertyDescriptor URI_SUFFIX = new PropertyDescriptor.Builder()
+        .name("URI Suffix")
+        .displayName("URI Suffix")
+        .description("The suffix to append to a key to build the URI of the document to look up")
+        .addValidator(StandardValidators.NON_EMPTY_VALIDATOR)
+        .expressionLanguageSupported(ExpressionLanguageScope.VARIABLE_REGISTRY)
+        .build();
+
+    public static final PropertyDescriptor CACHE_SIZE = new PropertyDescriptor.Builder()
+        .name("Cache Size")
+        .displayName("Cache Size")
+        .required(true)
+        .defaultValue("1000")
+        .description("The maximum number of documents to cache; the least recently used document is evicted first. "
+            + "Set to 0 to disable caching")
+        .addValidator(StandardValidators.NON_NEGATIVE_INTEGER_VALIDATOR)
+        .build();
+
+    public static final PropertyDescriptor CACHE_EXPIRATION = new PropertyDescriptor.Builder()
+        .name("Cache Expiration")
+        .displayName("Cache Expiration")
+        .required(true)
+        .defaultValue("5 mins")
+        .description("How long a cached document, or the absence of one, is used before it is read again from MarkLogic")
+        .addValidator(StandardValidators.TIME_PERIOD_VALIDATOR)
+        .build();
+
+    static {
+        List<PropertyDescriptor> list = new ArrayList<>();
+        list.add(DATABASE_CLIENT_SERVICE);
+        list.add(URI_PREFIX);
+        list.add(URI_SUFFIX);
+        list.add(CACHE_SIZE);
+        list.add(CACHE_EXPIRATION);
+        properties = Collections.unmodifiableList(list);
+    }
+
+    private final AtomicLong cacheHits = new AtomicLong();
+    private final AtomicLong cacheMisses = new AtomicLong();
+
+    private volatile MarkLogicDatabaseClientService databaseClientService;
+    private volatile String uriPrefix;
+    private volatile String uriSuffix;
+    private volatile long cacheExpirationMillis;
+    private volatile DocumentCache cache;
+
+    @OnEnabled
+    public void onEnabled(ConfigurationContext context) {
+        databaseClientService = context.getProperty(DATABASE_CLIENT_SERVICE).asControllerService(MarkLogicDatabaseClientService.class);
+        uriPrefix = context.getProperty(URI_PREFIX).isSet() ? context.getProperty(URI_PREFIX).evaluateAttributeExpressions().getValue() : "";
+        uriSuffix = context.getProperty(URI_SUFFIX).isSet() ? context.getProperty(URI_SUFFIX).evaluateAttributeExpressions().getValue() : "";
+        cacheExpirationMillis = context.getProperty(CACHE_EXPIRATION).asTimePeriod(TimeUnit.MILLISECONDS);
+        cache = new DocumentCache(context.getProperty(CACHE_SIZE).asInteger());
+        cacheHits.set(0);
+        cacheMisses.set(0);
+    }
+
+    @OnDisabled
+    public void onDisabled() {
+        getLogger().info("Cache hit rate was {} ({} hits, {} misses)",
+            new Object[]{getCacheHitRate(), cacheHits.get(), cacheMisses.get()});
+        cache = null;
+    }
+
+    @Override
+    public Optional<String> lookup(Map<String, Object> coordinates) throws LookupFailureException {
+        if (coordinates == null || coordinates.get(KEY) == null) {
+            return Optional.empty();
+        }
+        final String key = coordinates.get(KEY).toString();
+        return lookupAll(Collections.singleton(key)).get(key);
+    }
+
+    /**
+     * Looks up the documents for all of the given keys, reading every document that is not cached with a single
+     * multi-document request.
+     *
+     * @param keys the keys to look up
+     * @return the content of the document for each key, or an empty Optional for keys that match no document
+     * @throws LookupFailureException if the documents could not be read from MarkLogic
+     */
+    public Map<String, Optional<String>> lookupAll(Collection<String> keys) throws LookupFailureException {
+        final DocumentCache documentCache = cache;
+        final long now = System.currentTimeMillis();
+        final Map<String, Optional<String>> results = new LinkedHashMap<>();
+        final Set<String> uncachedKeys = new LinkedHashSet<>();
+        for (String key : keys) {
+            final Optional<String> cached = documentCache.get(key, now);
+            if (cached != null) {
+                cacheHits.incrementAndGet();
+                results.put(key, cached);
+            } else {
+                cacheMisses.incrementAndGet();
+                uncachedKeys.add(key);
+            }
+        }
+
+        if (!uncachedKeys.isEmpty()) {
+            final Map<String, String> uris = new LinkedHashMap<>();
+            for (String key : uncachedKeys) {
+                uris.put(uriPrefix + key + uriSuffix, key);
+            }
+            final Map<String, String> documents;
+            try {
+                documents = readDocuments(uris.keySet());
+            } catch (RuntimeException e) {
+                throw new LookupFailureException("Unable to read documents " + uris.keySet() + " from MarkLogic", e);
+            }
+            final long expiration = now + cacheExpirationMillis;
+            for (Map.Entry<String, String> entry : uris.entrySet()) {
+                final Optional<String> value = Optional.ofNullable(documents.get(entry.getKey()));
+                documentCache.put(entry.getValue(), value, expiration);
+                results.put(entry.getValue(), value);
+            }
+        }
+
+        if (getLogger().isDebugEnabled()) {
+            getLogger().debug("Looked up {} keys, {} read from MarkLogic; cache hit rate is {}",
+                new Object[]{keys.size(), uncachedKeys.size(), getCacheHitRate()});
+        }
+        return results;
+    }
+
+    /**
+     * Protected so that it can be overridden for unit testing purposes.
+     *
+     * @return the content of each document that exists, keyed by URI
+     */
+    protected Map<String, String> readDocuments(Collection<String> uris) {
+        final DatabaseClient client = databaseClientService.getDatabaseClient();
+        final Map<String, String> documents = new HashMap<>();
+        try (DocumentPage page = client.newDocumentManager().read(uris.toArray(new String[uris.size()]))) {
+            for (DocumentRecord document : page) {
+                documents.put(document.getUri(), document.getContent(new StringHandle()).get());
+            }
+        }
+        return documents;
+    }
+
+    public long getCacheHitCount() {
+        return cacheHits.get();
+    }
+
+    public long getCacheMissCount() {
+        return cacheMisses.get();
+    }
+
+    /**
+     * @return the fraction of looked up keys that were found in the cache since the service was enabled
+     */
+    public double getCacheHitRate() {
+        final long hits = cacheHits.get();
+        final long total = hits + cacheMisses.get();
+        return total == 0 ? 0.0 : (double) hits / total;
+    }
+
+    @Override
+    public Set<String> getRequiredKeys() {
+        return REQUIRED_KEYS;
+    }
+
+    @Override
+    protected List<PropertyDescriptor> getSupportedPropertyDescriptors() {
+        return properties;
+    }
+
+    /**
+     * Least recently used cache of looked up values, each of which expires at a fixed time.
+     */
+    private static class DocumentCache {
+
+        private final int maxSize;
+        private final LinkedHashMap<String, CachedValue> values;
+
+        DocumentCache(int maxSize) {
+            this.maxSize = maxSize;
+            this.values = new LinkedHashMap<String, CachedValue>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, CachedValue> eldest) {
+                    return size() > DocumentCache.this.maxSize;
+                }
+            };
+        }
+
+        /**
+         * @return the cached value, or null if the key is not cached or has expired
+         */
+        synchronized Optional<String> get(String key, long now) {
+            final CachedValue cached = values.get(key);
+            if (cached == null) {
+                return null;
+            }
+            if (cached.expiration <= now) {
+                values.remove(key);
+                return null;
+            }
+            return cached.value;
+        }
+
+        synchronized void put(String key, Optional<String> value, long expiration) {
+            if (maxSize > 0) {
+                values.put(key, new CachedValue(value, expiration));
+            }
+        }
+    }
+
+    private static class CachedValue {
+        private final Optional<String> value;
+        private final long expiration;
+
+        CachedValue(Optional<String> value, long expiration) {
+            this.value = value;
+            this.expiration = expiration;
+        }
+    }
+}
@@ -0,0 +1,176 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nifi.marklogic.controller;
+
+import com.marklogic.client.DatabaseClientFactory;
+import com.marklogic.client.extra.okhttpclient.OkHttpClientConfigurator;
+import okhttp3.Interceptor;
+import okhttp3.MediaType;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okhttp3.Response;
+import okio.BufferedSink;
+import okio.DeflaterSink;
+import okio.GzipSink;
+import okio.Okio;
+import okio.Sink;
+
+import java.io.IOException;
+import java.util.Collection;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.zip.Deflater;
+
+/**
+ * Compresses the bodies of requests sent to MarkLogic, e.g. the multipart bodies of WriteBatcher batches.
+ * <p>
+ * The MarkLogic client only allows HTTP clients to be customized through a configurator that applies to every
+ * DatabaseClient created afterwards, including the clients the Data Movement SDK creates on its own for the host of
+ * each forest, and the configurator is not told which DatabaseClient it is configuring. So a single interceptor is
+ * registered, and each enabled DefaultMarkLogicDatabaseClientService registers its setting for the servers it talks
+ * to: the configured host and the hosts of the database's forests. A service only ever removes its own registration;
+ * if several enabled services talk to the same server, the setting of the one enabled last applies. Responses,
+ * including export reads, are already requested with "Accept-Encoding: gzip" and decompressed transparently by OkHttp.
+ */
+class RequestCompressionInterceptor implements Interceptor {
+
+    static final String GZIP = "gzip";
+    static final String DEFLATE = "deflate";
+
+    private static final AtomicBoolean registered = new AtomicBoolean(false);
+    static final RequestCompressionInterceptor INSTANCE = new RequestCompressionInterceptor();
+
+    private final Map<String, List<Registration>> registrationsByServer = new ConcurrentHashMap<>();
+
+    /**
+     * Registers the interceptor with the MarkLogic client, if not done yet. Must be called before the DatabaseClient
+     * whose requests should be compressed is created.
+     */
+    static void register() {
+        if (registered.compareAndSet(false, true)) {
+            DatabaseClientFactory.addConfigurator((OkHttpClientConfigurator) builder -> builder.addInterceptor(INSTANCE));
+        }
+    }
+
+    /**
+     * Compresses the requests sent to the given hosts on the given port on behalf of the given owner.
+     */
+    void enable(Object owner, Collection<String> hosts, int port, Compression compression) {
+        for (final String host : hosts) {
+            registrationsByServer.computeIfAbsent(serverKey(host, port), key -> new CopyOnWriteArrayList<>())
+                .add(new Registration(owner, compression));
+        }
+    }
+
+    /**
+     * Removes every registration made by the given owner, leaving those of other owners in place.
+     */
+    void disable(Object owner) {
+        for (final List<Registration> registrations : registrationsByServer.values()) {
+            registrations.removeIf(registration -> registration.owner == owner);
+        }
+        registrationsByServer.values().removeIf(List::isEmpty);
+    }
+
+    Compression getCompression(String host, int port) {
+        final List<Registration> registrations = registrationsByServer.get(serverKey(host, port));
+        if (registrations == null) {
+            return null;
+        }
+        Compression compression = null;
+        for (final Registration registration : registrations) {
+            compression = registration.compression;
+        }
+        return compression;
+    }
+
+    private static String serverKey(String host, int port) {
+        // OkHttp lower-cases the host of every request URL
+        return host.toLowerCase(Locale.ROOT) + ":" + port;
+    }
+
+    @Override
+    public Response intercept(Chain chain) throws IOException {
+        final Request request = chain.request();
+        final RequestBody body = request.body();
+        if (body == null || request.header("Content-Encoding") != null) {
+            return chain.proceed(request);
+        }
+        final Compression compression = getCompression(request.url().host(), request.url().port());
+        if (compression == null) {
+            return chain.proceed(request);
+        }
+        return chain.proceed(request.newBuilder()
+            .header("Content-Encoding", compression.encoding)
+            .method(request.method(), compress(body, compression))
+            .build());
+    }
+
+    static RequestBody compress(RequestBody body, Compression compression) {
+        return new RequestBody() {
+            @Override
+            public MediaType contentType() {
+                return body.contentType();
+            }
+
+            @Override
+            public long contentLength() {
+                // Unknown until compressed, so the body is sent chunked
+                return -1;
+            }
+
+            @Override
+            public void writeTo(BufferedSink sink) throws IOException {
+                final Sink compressingSink;
+                if (GZIP.equals(compression.encoding)) {
+                    final GzipSink gzipSink = new GzipSink(sink);
+                    gzipSink.deflater().setLevel(compression.level);
+                    compressingSink = gzipSink;
+                } else {
+                    compressingSink = new DeflaterSink(sink, new Deflater(compression.level));
+                }
+                try (BufferedSink compressedSink = Okio.buffer(compressingSink)) {
+                    body.writeTo(compressedSink);
+                }
+            }
+        };
+    }
+
+    private static class Registration {
+        final Object owner;
+        final Compression compression;
+
+        Registration(Object owner, Compression compression) {
+            this.owner = owner;
+            this.compression = compression;
+        }
+    }
+
+    static class Compression {
+        final String encoding;
+        final int level;
+
+        Compression(String encoding, int level) {
+            this.encoding = encoding;
+            this.level = level;
+        }
+    }
+}
@@ -0,0 +1,123 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nifi.marklogic.controller;
+
+import org.apache.nifi.lookup.LookupFailureException;
+import org.apache.nifi.reporting.InitializationException;
+import org.apache.nifi.util.TestRunner;
+import org.apache.nifi.util.TestRunners;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+public class MarkLogicDocumentLookupServiceTest {
+
+	private TestRunner runner;
+	private TestMarkLogicDocumentLookupService service;
+
+	@Before
+	public void setup() throws InitializationException {
+		runner = TestRunners.newTestRunner(TestProcessor.class);
+		final DefaultMarkLogicDatabaseClientService clientService = new DefaultMarkLogicDatabaseClientService();
+		runner.addControllerService("client", clientService);
+		runner.setProperty(clientService, DefaultMarkLogicDatabaseClientService.USERNAME, "admin");
+		runner.setProperty(clientService, DefaultMarkLogicDatabaseClientService.PASSWORD, "doesntmatter");
+		runner.enableControllerService(clientService);
+
+		service = new TestMarkLogicDocumentLookupService();
+		runner.addControllerService("lookup", service);
+		runner.setProperty(service, MarkLogicDocumentLookupService.DATABASE_CLIENT_SERVICE, "client");
+		runner.setProperty(service, MarkLogicDocumentLookupService.URI_PREFIX, "/ref/");
+		runner.setProperty(service, MarkLogicDocumentLookupService.URI_SUFFIX, ".json");
+		runner.setProperty(service, MarkLogicDocumentLookupService.CACHE_SIZE, "2");
+	}
+
+	@Test
+	public void lookupAllReadsUncachedDocumentsInOneRequest() throws LookupFailureException {
+		runner.enableControllerService(service);
+
+		Map<String, Optional<String>> results = service.lookupAll(Arrays.asList("a", "b", "missing"));
+		Assert.assertEquals(1, service.requests.size());
+		Assert.assertEquals(Arrays.asList("/ref/a.json", "/ref/b.json", "/ref/missing.json"), service.requests.get(0));
+		Assert.assertEquals("{\"name\":\"a\"}", results.get("a").get());
+		Assert.assertFalse(results.get("missing").isPresent());
+
+		// The cache holds 2 entries, so "a" was evicted as the least recently used
+		Assert.assertEquals("{\"name\":\"b\"}", lookup("b").get());
+		Assert.assertFalse(lookup("missing").isPresent());
+		Assert.assertEquals(1, service.requests.size());
+		Assert.assertEquals("{\"name\":\"a\"}", lookup("a").get());
+		Assert.assertEquals(2, service.requests.size());
+		Assert.assertEquals(Collections.singletonList("/ref/a.json"), service.requests.get(1));
+
+		Assert.assertEquals(2, service.getCacheHitCount());
+		Assert.assertEquals(4, service.getCacheMissCount());
+		Assert.assertEquals(2.0 / 6, service.getCacheHitRate(), 0.0001);
+	}
+
+	@Test
+	public void expiredDocumentsAreReadAgain() throws Exception {
+		runner.setProperty(service, MarkLogicDocumentLookupService.CACHE_EXPIRATION, "0 sec");
+		runner.enableControllerService(service);
+
+		lookup("a");
+		lookup("a");
+		Assert.assertEquals(2, service.requests.size());
+		Assert.assertEquals(0, service.getCacheHitCount());
+	}
+
+	@Test
+	public void missingKeyCoordinate() throws LookupFailureException {
+		runner.enableControllerService(service);
+		Assert.assertFalse(service.lookup(new HashMap<>()).isPresent());
+		Assert.assertTrue(service.requests.isEmpty());
+	}
+
+	private Optional<String> lookup(String key) throws LookupFailureException {
+		return service.lookup(Collections.singletonMap(MarkLogicDocumentLookupService.KEY, key));
+	}
+}
+
+/**
+ * Serves documents from memory instead of MarkLogic, recording each multi-document request.
+ */
+class TestMarkLogicDocumentLookupService extends MarkLogicDocumentLookupService {
+
+	public List<List<String>> requests = new ArrayList<>();
+
+	@Override
+	protected Map<String, String> readDocuments(Collection<String> uris) {
+		requests.add(new ArrayList<>(uris));
+		Map<String, String> documents = new HashMap<>();
+		for (String uri : uris) {
+			if (!uri.contains("missing")) {
+				String key = uri.substring("/ref/".length(), uri.length() - ".json".length());
+				documents.put(uri, "{\"name\":\"" + key + "\"}");
+			}
+		}
+		return documents;
+	}
+}
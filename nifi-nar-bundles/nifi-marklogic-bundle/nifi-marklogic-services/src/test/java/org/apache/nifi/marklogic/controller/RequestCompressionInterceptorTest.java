@@ -0,0 +1,145 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nifi.marklogic.controller;
+
+import okhttp3.MediaType;
+import okhttp3.OkHttpClient;
+import okhttp3.Protocol;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+import okio.Buffer;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.InflaterInputStream;
+
+public class RequestCompressionInterceptorTest {
+
+	private static final MediaType XML = MediaType.parse("application/xml");
+
+	@Test
+	public void gzip() throws IOException {
+		final String xml = buildXml(200);
+		final byte[] compressed = compress(xml, RequestCompressionInterceptor.GZIP, 6);
+		Assert.assertTrue(compressed.length < xml.length() / 5);
+		Assert.assertEquals(xml, decompress(new GZIPInputStream(new ByteArrayInputStream(compressed))));
+	}
+
+	@Test
+	public void deflate() throws IOException {
+		final String xml = buildXml(200);
+		final byte[] compressed = compress(xml, RequestCompressionInterceptor.DEFLATE, 1);
+		Assert.assertTrue(compressed.length < xml.length() / 5);
+		Assert.assertEquals(xml, decompress(new InflaterInputStream(new ByteArrayInputStream(compressed))));
+	}
+
+	@Test
+	public void compressedBodyKeepsContentType() throws IOException {
+		final RequestBody original = RequestBody.create(XML, "<test/>");
+		final RequestBody body = RequestCompressionInterceptor.compress(original,
+			new RequestCompressionInterceptor.Compression(RequestCompressionInterceptor.GZIP, 6));
+		Assert.assertEquals(original.contentType(), body.contentType());
+		Assert.assertEquals(-1, body.contentLength());
+	}
+
+	@Test
+	public void compressesRequestsToEveryRegisteredHost() throws IOException {
+		final RequestCompressionInterceptor interceptor = new RequestCompressionInterceptor();
+		final Object service = new Object();
+		interceptor.enable(service, Arrays.asList("ML-Host.example.com", "forest-host-2.example.com"), 8000,
+			new RequestCompressionInterceptor.Compression(RequestCompressionInterceptor.GZIP, 6));
+
+		Assert.assertEquals("gzip", send(interceptor, "http://ml-host.example.com:8000/v1/documents"));
+		Assert.assertEquals("A batch sent to another forest host must be compressed too",
+			"gzip", send(interceptor, "http://forest-host-2.example.com:8000/v1/documents"));
+		Assert.assertNull(send(interceptor, "http://other-host.example.com:8000/v1/documents"));
+		Assert.assertNull(send(interceptor, "http://ml-host.example.com:8010/v1/documents"));
+	}
+
+	@Test
+	public void disableOnlyRemovesOwnRegistration() throws IOException {
+		final RequestCompressionInterceptor interceptor = new RequestCompressionInterceptor();
+		final Object first = new Object();
+		final Object second = new Object();
+		interceptor.enable(first, Collections.singleton("ml-host"), 8000,
+			new RequestCompressionInterceptor.Compression(RequestCompressionInterceptor.GZIP, 6));
+		interceptor.enable(second, Collections.singleton("ml-host"), 8000,
+			new RequestCompressionInterceptor.Compression(RequestCompressionInterceptor.DEFLATE, 1));
+		Assert.assertEquals("deflate", send(interceptor, "http://ml-host:8000/v1/documents"));
+
+		interceptor.disable(second);
+		Assert.assertEquals("gzip", send(interceptor, "http://ml-host:8000/v1/documents"));
+		interceptor.disable(first);
+		Assert.assertNull(send(interceptor, "http://ml-host:8000/v1/documents"));
+	}
+
+	/**
+	 * Sends a request through an OkHttpClient with the given interceptor, answering it locally instead of over the
+	 * network, and returns the Content-Encoding the request was sent with.
+	 */
+	private static String send(RequestCompressionInterceptor interceptor, String url) throws IOException {
+		final AtomicReference<String> contentEncoding = new AtomicReference<>();
+		final OkHttpClient client = new OkHttpClient.Builder()
+			.addInterceptor(interceptor)
+			.addInterceptor(chain -> {
+				contentEncoding.set(chain.request().header("Content-Encoding"));
+				return new Response.Builder().request(chain.request()).protocol(Protocol.HTTP_1_1).code(200).message("OK")
+					.body(ResponseBody.create(XML, "")).build();
+			})
+			.build();
+		client.newCall(new Request.Builder().url(url).put(RequestBody.create(XML, "<test/>")).build()).execute().close();
+		return contentEncoding.get();
+	}
+
+	private static byte[] compress(String content, String encoding, int level) throws IOException {
+		final RequestBody body = RequestCompressionInterceptor.compress(RequestBody.create(XML, content),
+			new RequestCompressionInterceptor.Compression(encoding, level));
+		final Buffer buffer = new Buffer();
+		body.writeTo(buffer);
+		return buffer.readByteArray();
+	}
+
+	private static String decompress(InputStream in) throws IOException {
+		final ByteArrayOutputStream out = new ByteArrayOutputStream();
+		final byte[] buffer = new byte[4096];
+		int len;
+		while ((len = in.read(buffer)) != -1) {
+			out.write(buffer, 0, len);
+		}
+		return new String(out.toByteArray(), StandardCharsets.UTF_8);
+	}
+
+	private static String buildXml(int count) {
+		final StringBuilder sb = new StringBuilder("<employees>");
+		for (int i = 0; i < count; i++) {
+			sb.append("<employee><id>").append(i).append("</id><name>Employee ").append(i)
+				.append("</name><department>Engineering</department><status>active</status></employee>");
+		}
+		return sb.append("</employees>").toString();
+	}
+}
@@ -21,6 +21,8 @@ import java.io.DataOutputStream;
 import java.io.File;
 import java.io.IOException;
 import java.security.KeyManagementException;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicLong;
 import org.apache.nifi.provenance.serialization.StorageSummary;
@@ -143,6 +145,17 @@ public class EncryptedSchemaRecordWriter extends EventIdFirstSchemaRecordWriter
         return new StorageSummary(recordIdentifier, storageLocation, blockIndex, serializedLength, endBytes);
     }
 
+    @Override
+    public List<StorageSummary> writeRecords(final Iterable<ProvenanceEventRecord> records) throws IOException {
+        // Each event is encrypted on its own, so the batched serialization of the parent class cannot be used here
+        final List<StorageSummary> summaries = new ArrayList<>();
+        for (final ProvenanceEventRecord record : records) {
+            summaries.add(writeRecord(record));
+        }
+
+        return summaries;
+    }
+
     private void printStats() {
         final long sixtySecondsAgo = System.currentTimeMillis() - 60000L;
         final Long writeNanosLast60 = getWriteTimes().getAggregateValue(sixtySecondsAgo).getValue();
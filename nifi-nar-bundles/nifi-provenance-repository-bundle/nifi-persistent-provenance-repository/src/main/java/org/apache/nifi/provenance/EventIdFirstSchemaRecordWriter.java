@@ -23,6 +23,8 @@ import java.io.File;
 import java.io.IOException;
 import java.io.OutputStream;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -77,6 +79,7 @@ public class EventIdFirstSchemaRecordWriter extends CompressableRecordWriter {
     private static final AtomicLong totalRecordCount = new AtomicLong(0L);
 
     private static final ByteArrayDataOutputStreamCache streamCache = new ByteArrayDataOutputStreamCache(32, 8 * 1024, 256 * 1024);
+    private static final int MAX_SERIALIZED_CHUNK_BYTES = 128 * 1024;
 
     private long firstEventId;
     private long systemTimeOffset;
@@ -114,27 +117,74 @@ public class EventIdFirstSchemaRecordWriter extends CompressableRecordWriter {
 
     @Override
     public StorageSummary writeRecord(final ProvenanceEventRecord record) throws IOException {
+        return writeRecords(Collections.singleton(record)).get(0);
+    }
+
+    @Override
+    public List<StorageSummary> writeRecords(final Iterable<ProvenanceEventRecord> records) throws IOException {
         if (isDirty()) {
             throw new IOException("Cannot update Provenance Repository because this Record Writer has already failed to write to the Repository");
         }
 
-        final long lockStart;
-        final long writeStart;
-        final long startBytes;
-        final long endBytes;
-        final long recordIdentifier;
+        // Serialize the events outside of the lock, a chunk at a time, and then write each chunk while holding the lock only once.
+        // This keeps the serialization parallel across threads while avoiding contending for the lock on every single event.
+        final List<StorageSummary> summaries = new ArrayList<>();
+        final List<ProvenanceEventRecord> chunk = new ArrayList<>();
+        int[] recordEndOffsets = new int[16];
 
-        final long serializeStart = System.nanoTime();
         final ByteArrayDataOutputStream bados = streamCache.checkOut();
         try {
-            writeRecord(record, 0L, bados.getDataOutputStream());
+            final ByteArrayOutputStream baos = bados.getByteArrayOutputStream();
+            final DataOutputStream dos = bados.getDataOutputStream();
+
+            long serializeStart = System.nanoTime();
+            for (final ProvenanceEventRecord record : records) {
+                writeRecord(record, 0L, dos);
+
+                if (chunk.size() == recordEndOffsets.length) {
+                    recordEndOffsets = Arrays.copyOf(recordEndOffsets, recordEndOffsets.length * 2);
+                }
+                recordEndOffsets[chunk.size()] = baos.size();
+                chunk.add(record);
+
+                if (baos.size() >= MAX_SERIALIZED_CHUNK_BYTES) {
+                    writeSerializedChunk(chunk, recordEndOffsets, bados, summaries, serializeStart);
+                    chunk.clear();
+                    baos.reset();
+                    serializeStart = System.nanoTime();
+                }
+            }
+
+            if (!chunk.isEmpty()) {
+                writeSerializedChunk(chunk, recordEndOffsets, bados, summaries, serializeStart);
+            }
+        } finally {
+            streamCache.checkIn(bados);
+        }
+
+        return summaries;
+    }
+
+    private void writeSerializedChunk(final List<ProvenanceEventRecord> chunk, final int[] recordEndOffsets, final ByteArrayDataOutputStream bados,
+                                      final List<StorageSummary> summaries, final long serializeStart) throws IOException {
+        final File file = getFile();
+        final String storageLocation = file.getParentFile().getName() + "/" + file.getName();
+        final TocWriter tocWriter = getTocWriter();
 
-            lockStart = System.nanoTime();
-            synchronized (this) {
-                writeStart = System.nanoTime();
-                try {
-                    recordIdentifier = record.getEventId() == -1L ? getIdGenerator().getAndIncrement() : record.getEventId();
-                    startBytes = getBytesWritten();
+        final long lockStart = System.nanoTime();
+        final long writeStart;
+        final long chunkStartBytes;
+        final long chunkEndBytes;
+        synchronized (this) {
+            writeStart = System.nanoTime();
+            chunkStartBytes = getBytesWritten();
+
+            try {
+                int recordStartOffset = 0;
+                for (int i = 0; i < chunk.size(); i++) {
+                    final ProvenanceEventRecord record = chunk.get(i);
+                    final long recordIdentifier = record.getEventId() == -1L ? getIdGenerator().getAndIncrement() : record.getEventId();
+                    final long startBytes = getBytesWritten();
 
                     ensureStreamState(recordIdentifier, startBytes);
 
@@ -142,54 +192,49 @@ public class EventIdFirstSchemaRecordWriter extends CompressableRecordWriter {
                     final int recordIdOffset = (int) (recordIdentifier - firstEventId);
                     out.writeInt(recordIdOffset);
 
-                    final ByteArrayOutputStream baos = bados.getByteArrayOutputStream();
-                    out.writeInt(baos.size());
-                    baos.writeTo(out);
+                    final int recordLength = recordEndOffsets[i] - recordStartOffset;
+                    out.writeInt(recordLength);
+                    bados.writeTo(out, recordStartOffset, recordLength);
+                    recordStartOffset = recordEndOffsets[i];
 
                     recordCount.incrementAndGet();
-                    endBytes = getBytesWritten();
-                } catch (final IOException ioe) {
-                    markDirty();
-                    throw ioe;
+                    final long endBytes = getBytesWritten();
+                    final Integer blockIndex = tocWriter == null ? null : tocWriter.getCurrentBlockIndex();
+                    summaries.add(new StorageSummary(recordIdentifier, storageLocation, blockIndex, endBytes - startBytes, endBytes));
                 }
+
+                chunkEndBytes = getBytesWritten();
+            } catch (final IOException ioe) {
+                markDirty();
+                throw ioe;
             }
-        } finally {
-            streamCache.checkIn(bados);
         }
 
         if (logger.isDebugEnabled()) {
-            // Collect stats and periodically dump them if log level is set to at least info.
-            final long writeNanos = System.nanoTime() - writeStart;
-            writeTimes.add(new TimestampedLong(writeNanos));
-
-            final long serializeNanos = lockStart - serializeStart;
-            serializeTimes.add(new TimestampedLong(serializeNanos));
-
-            final long lockNanos = writeStart - lockStart;
-            lockTimes.add(new TimestampedLong(lockNanos));
-            bytesWritten.add(new TimestampedLong(endBytes - startBytes));
-
-            final long recordCount = totalRecordCount.incrementAndGet();
-            if (recordCount % 1_000_000 == 0) {
-                final long sixtySecondsAgo = System.currentTimeMillis() - 60000L;
-                final Long writeNanosLast60 = writeTimes.getAggregateValue(sixtySecondsAgo).getValue();
-                final Long lockNanosLast60 = lockTimes.getAggregateValue(sixtySecondsAgo).getValue();
-                final Long serializeNanosLast60 = serializeTimes.getAggregateValue(sixtySecondsAgo).getValue();
-                final Long bytesWrittenLast60 = bytesWritten.getAggregateValue(sixtySecondsAgo).getValue();
-                logger.debug("In the last 60 seconds, have spent {} millis writing to file ({} MB), {} millis waiting on synchronize block, {} millis serializing events",
-                    TimeUnit.NANOSECONDS.toMillis(writeNanosLast60),
-                    bytesWrittenLast60 / 1024 / 1024,
-                    TimeUnit.NANOSECONDS.toMillis(lockNanosLast60),
-                    TimeUnit.NANOSECONDS.toMillis(serializeNanosLast60));
-            }
+            updateStats(lockStart - serializeStart, writeStart - lockStart, System.nanoTime() - writeStart, chunkEndBytes - chunkStartBytes, chunk.size());
         }
+    }
 
-        final long serializedLength = endBytes - startBytes;
-        final TocWriter tocWriter = getTocWriter();
-        final Integer blockIndex = tocWriter == null ? null : tocWriter.getCurrentBlockIndex();
-        final File file = getFile();
-        final String storageLocation = file.getParentFile().getName() + "/" + file.getName();
-        return new StorageSummary(recordIdentifier, storageLocation, blockIndex, serializedLength, endBytes);
+    private void updateStats(final long serializeNanos, final long lockNanos, final long writeNanos, final long bytes, final int numRecords) {
+        // Collect stats and periodically dump them if log level is set to at least info.
+        writeTimes.add(new TimestampedLong(writeNanos));
+        serializeTimes.add(new TimestampedLong(serializeNanos));
+        lockTimes.add(new TimestampedLong(lockNanos));
+        bytesWritten.add(new TimestampedLong(bytes));
+
+        final long recordCount = totalRecordCount.addAndGet(numRecords);
+        if (recordCount / 1_000_000 != (recordCount - numRecords) / 1_000_000) {
+            final long sixtySecondsAgo = System.currentTimeMillis() - 60000L;
+            final Long writeNanosLast60 = writeTimes.getAggregateValue(sixtySecondsAgo).getValue();
+            final Long lockNanosLast60 = lockTimes.getAggregateValue(sixtySecondsAgo).getValue();
+            final Long serializeNanosLast60 = serializeTimes.getAggregateValue(sixtySecondsAgo).getValue();
+            final Long bytesWrittenLast60 = bytesWritten.getAggregateValue(sixtySecondsAgo).getValue();
+            logger.debug("In the last 60 seconds, have spent {} millis writing to file ({} MB), {} millis waiting on synchronize block, {} millis serializing events",
+                TimeUnit.NANOSECONDS.toMillis(writeNanosLast60),
+                bytesWrittenLast60 / 1024 / 1024,
+                TimeUnit.NANOSECONDS.toMillis(lockNanosLast60),
+                TimeUnit.NANOSECONDS.toMillis(serializeNanosLast60));
+        }
     }
 
     @Override
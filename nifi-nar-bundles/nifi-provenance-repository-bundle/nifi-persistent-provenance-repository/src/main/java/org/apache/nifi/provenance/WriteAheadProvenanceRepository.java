@@ -95,7 +95,7 @@ public class WriteAheadProvenanceRepository implements ProvenanceRepository {
     private final RepositoryConfiguration config;
 
     // effectively final
-    private EventStore eventStore;
+    private PartitionedWriteAheadEventStore eventStore;
     private EventIndex eventIndex;
     private EventReporter eventReporter;
     private Authorizer authorizer;
@@ -205,6 +205,20 @@ public class WriteAheadProvenanceRepository implements ProvenanceRepository {
         return eventStore.getMaxEventId();
     }
 
+    /**
+     * @return the number of times that Provenance Events have been synced to disk because <code>nifi.provenance.repository.always.sync</code> is enabled
+     */
+    public long getSyncCount() {
+        return eventStore.getSyncCount();
+    }
+
+    /**
+     * @return the number of times that Provenance Events did not need to be synced to disk because the sync for another commit already covered them
+     */
+    public long getSyncsCoalesced() {
+        return eventStore.getSyncsCoalesced();
+    }
+
     @Override
     public void close() {
         CloseableUtil.closeQuietly(eventStore, eventIndex);
@@ -23,6 +23,8 @@ import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.atomic.AtomicLong;
 
 import org.apache.nifi.provenance.AbstractRecordWriter;
@@ -179,6 +181,17 @@ public abstract class CompressableRecordWriter extends AbstractRecordWriter {
         }
     }
 
+    @Override
+    public synchronized List<StorageSummary> writeRecords(final Iterable<ProvenanceEventRecord> records) throws IOException {
+        // Hold the lock for the whole batch so that the events of a single commit are written contiguously
+        final List<StorageSummary> summaries = new ArrayList<>();
+        for (final ProvenanceEventRecord record : records) {
+            summaries.add(writeRecord(record));
+        }
+
+        return summaries;
+    }
+
     @Override
     public synchronized long getBytesWritten() {
         return byteCountingOut == null ? 0L : byteCountingOut.getBytesWritten();
@@ -19,6 +19,8 @@ package org.apache.nifi.provenance.serialization;
 import java.io.Closeable;
 import java.io.File;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
 
 import org.apache.nifi.provenance.ProvenanceEventRecord;
 import org.apache.nifi.provenance.toc.TocWriter;
@@ -42,6 +44,23 @@ public interface RecordWriter extends Closeable {
      */
     StorageSummary writeRecord(ProvenanceEventRecord record) throws IOException;
 
+    /**
+     * Writes the given records out to the underlying stream as a single batch. Implementations may
+     * serialize the records together and obtain any locks once for the entire batch rather than once per record.
+     *
+     * @param records the records to write
+     * @return a StorageSummary for each of the given records, in the order in which the records were iterated
+     * @throws IOException if unable to write the records to the stream
+     */
+    default List<StorageSummary> writeRecords(Iterable<ProvenanceEventRecord> records) throws IOException {
+        final List<StorageSummary> summaries = new ArrayList<>();
+        for (final ProvenanceEventRecord record : records) {
+            summaries.add(writeRecord(record));
+        }
+
+        return summaries;
+    }
+
     /**
      * Flushes any data that is held in a buffer to the underlying storage mechanism
      *
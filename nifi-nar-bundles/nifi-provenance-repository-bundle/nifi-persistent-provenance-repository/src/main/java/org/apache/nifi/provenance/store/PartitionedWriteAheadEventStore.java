@@ -135,6 +135,20 @@ public class PartitionedWriteAheadEventStore extends PartitionedEventStore {
         }
     }
 
+    /**
+     * @return the number of times that events have been synced to disk across all partitions because the repository is configured to always sync
+     */
+    public long getSyncCount() {
+        return partitions.stream().mapToLong(WriteAheadStorePartition::getSyncCount).sum();
+    }
+
+    /**
+     * @return the number of times that events did not need to be synced to disk because another sync in the same partition already covered them
+     */
+    public long getSyncsCoalesced() {
+        return partitions.stream().mapToLong(WriteAheadStorePartition::getSyncsCoalesced).sum();
+    }
+
     @Override
     protected List<WriteAheadStorePartition> getPartitions() {
         return partitions;
@@ -17,6 +17,8 @@
 
 package org.apache.nifi.provenance.store;
 
+import java.io.IOException;
+
 import org.apache.nifi.provenance.serialization.RecordWriter;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -31,6 +33,9 @@ public class RecordWriterLease {
     private boolean markedRollable = false;
     private boolean closed = false;
 
+    private final Object syncLock = new Object();
+    private volatile long bytesSynced = 0L; // guarded by syncLock for writes
+
     public RecordWriterLease(final RecordWriter writer, final long maxBytes) {
         this(writer, maxBytes, Integer.MAX_VALUE);
     }
@@ -66,6 +71,34 @@ public class RecordWriterLease {
         }
     }
 
+    /**
+     * Ensures that at least the given number of bytes of the writer have been flushed and synced to disk. When several threads
+     * commit to the same writer concurrently, a single sync performed on behalf of one thread also covers the bytes written by
+     * the others, so those threads do not need to sync again. This allows the cost of syncing to be shared by a group of commits.
+     *
+     * @param bytesWritten the number of bytes of the writer that must be synced to disk
+     * @return <code>true</code> if this call synced the writer, <code>false</code> if another sync already covered the given bytes
+     * @throws IOException if unable to flush or sync the writer
+     */
+    public boolean sync(final long bytesWritten) throws IOException {
+        if (bytesSynced >= bytesWritten) {
+            return false;
+        }
+
+        synchronized (syncLock) {
+            if (bytesSynced >= bytesWritten) {
+                return false;
+            }
+
+            // Everything that has been written to the writer before we obtain this count is pushed to disk by the flush and sync below.
+            final long syncPoint = writer.getBytesWritten();
+            writer.flush();
+            writer.sync();
+            bytesSynced = syncPoint;
+            return true;
+        }
+    }
+
     public synchronized boolean shouldRoll() {
         if (markedRollable) {
             return true;
@@ -72,6 +72,8 @@ public class WriteAheadStorePartition implements EventStorePartition {
     private final BlockingQueue<File> filesToCompress;
     private final AtomicLong idGenerator;
     private final AtomicLong maxEventId = new AtomicLong(-1L);
+    private final AtomicLong syncCount = new AtomicLong(0L);
+    private final AtomicLong syncsCoalesced = new AtomicLong(0L);
     private volatile boolean closed = false;
 
     private AtomicReference<RecordWriterLease> eventWriterLeaseRef = new AtomicReference<>();
@@ -191,7 +193,7 @@ public class WriteAheadStorePartition implements EventStorePartition {
         Map<ProvenanceEventRecord, StorageSummary> storageMap;
         final RecordWriter writer = lease.getWriter();
         try {
-            storageMap = addEvents(events, writer);
+            storageMap = addEvents(events, lease);
         } finally {
             lease.relinquishClaim();
         }
@@ -231,6 +233,20 @@ public class WriteAheadStorePartition implements EventStorePartition {
         };
     }
 
+    /**
+     * @return the number of times that events have been synced to disk by this partition because the repository is configured to always sync
+     */
+    public long getSyncCount() {
+        return syncCount.get();
+    }
+
+    /**
+     * @return the number of times that events did not need to be synced to disk by this partition because another sync already covered them
+     */
+    public long getSyncsCoalesced() {
+        return syncsCoalesced.get();
+    }
+
     private RecordWriterLease getLease() throws IOException {
         while (true) {
             final RecordWriterLease lease = eventWriterLeaseRef.get();
@@ -291,35 +307,48 @@ public class WriteAheadStorePartition implements EventStorePartition {
         return true;
     }
 
-    private Map<ProvenanceEventRecord, StorageSummary> addEvents(final Iterable<ProvenanceEventRecord> events, final RecordWriter writer) throws IOException {
+    private Map<ProvenanceEventRecord, StorageSummary> addEvents(final Iterable<ProvenanceEventRecord> events, final RecordWriterLease lease) throws IOException {
         final Map<ProvenanceEventRecord, StorageSummary> locationMap = new HashMap<>();
+        final RecordWriter writer = lease.getWriter();
+
+        // The given Iterable may create new event objects each time that it is iterated, so iterate over it only once
+        final List<ProvenanceEventRecord> eventList = new ArrayList<>();
+        events.forEach(eventList::add);
+        if (eventList.isEmpty()) {
+            return locationMap;
+        }
 
         try {
+            // Write all of the events as a single batch so that the writer can serialize them together
+            final List<StorageSummary> writerSummaries = writer.writeRecords(eventList);
+
             long maxId = -1L;
-            int numEvents = 0;
-            for (final ProvenanceEventRecord nextEvent : events) {
-                final StorageSummary writerSummary = writer.writeRecord(nextEvent);
+            long bytesWritten = 0L;
+            for (int i = 0; i < eventList.size(); i++) {
+                final ProvenanceEventRecord nextEvent = eventList.get(i);
+                final StorageSummary writerSummary = writerSummaries.get(i);
                 final StorageSummary summaryWithIndex = new StorageSummary(writerSummary.getEventId(), writerSummary.getStorageLocation(), this.partitionName,
                     writerSummary.getBlockIndex(), writerSummary.getSerializedLength(), writerSummary.getBytesWritten());
                 locationMap.put(nextEvent, summaryWithIndex);
                 maxId = summaryWithIndex.getEventId();
-                numEvents++;
+                bytesWritten = Math.max(bytesWritten, summaryWithIndex.getBytesWritten());
             }
 
-            if (numEvents == 0) {
-                return locationMap;
+            if (config.isAlwaysSync()) {
+                // Group commit: if another thread has already synced past our events, there is no need to sync again.
+                if (lease.sync(bytesWritten)) {
+                    syncCount.incrementAndGet();
+                } else {
+                    syncsCoalesced.incrementAndGet();
+                }
+            } else {
+                writer.flush();
             }
 
-            writer.flush();
-
             // Update max event id to be equal to be the greater of the current value or the
             // max value just written.
             final long maxIdWritten = maxId;
             this.maxEventId.getAndUpdate(cur -> maxIdWritten > cur ? maxIdWritten : cur);
-
-            if (config.isAlwaysSync()) {
-                writer.sync();
-            }
         } catch (final Exception e) {
             // We need to set the repoDirty flag before we release the lock for this journal.
             // Otherwise, another thread may write to this journal -- this is a problem because
@@ -19,16 +19,30 @@ package org.apache.nifi.provenance.util;
 
 import java.io.ByteArrayOutputStream;
 import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
 
 public class ByteArrayDataOutputStream {
-    private final ByteArrayOutputStream baos;
+    private final SliceableByteArrayOutputStream baos;
     private final DataOutputStream dos;
 
     public ByteArrayDataOutputStream(final int initialCapacity) {
-        baos = new ByteArrayOutputStream(initialCapacity);
+        baos = new SliceableByteArrayOutputStream(initialCapacity);
         dos = new DataOutputStream(baos);
     }
 
+    /**
+     * Writes a portion of the bytes that have been written to this stream to the given OutputStream, without copying them first
+     *
+     * @param out the OutputStream to write to
+     * @param offset the offset of the first byte to write
+     * @param length the number of bytes to write
+     * @throws IOException if unable to write to the given OutputStream
+     */
+    public void writeTo(final OutputStream out, final int offset, final int length) throws IOException {
+        baos.writeTo(out, offset, length);
+    }
+
     public ByteArrayOutputStream getByteArrayOutputStream() {
         return baos;
     }
@@ -36,4 +50,18 @@ public class ByteArrayDataOutputStream {
     public DataOutputStream getDataOutputStream() {
         return dos;
     }
+
+    private static class SliceableByteArrayOutputStream extends ByteArrayOutputStream {
+        SliceableByteArrayOutputStream(final int initialCapacity) {
+            super(initialCapacity);
+        }
+
+        synchronized void writeTo(final OutputStream out, final int offset, final int length) throws IOException {
+            if (offset < 0 || length < 0 || offset + length > count) {
+                throw new IndexOutOfBoundsException("Cannot write " + length + " bytes starting at offset " + offset + " from a buffer of " + count + " bytes");
+            }
+
+            out.write(buf, offset, length);
+        }
+    }
 }
@@ -25,6 +25,7 @@ import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
@@ -36,6 +37,7 @@ import java.util.concurrent.atomic.AtomicLong;
 
 import org.apache.nifi.provenance.serialization.RecordReader;
 import org.apache.nifi.provenance.serialization.RecordWriter;
+import org.apache.nifi.provenance.serialization.StorageSummary;
 import org.apache.nifi.provenance.toc.StandardTocReader;
 import org.apache.nifi.provenance.toc.StandardTocWriter;
 import org.apache.nifi.provenance.toc.TocReader;
@@ -424,6 +426,57 @@ public class TestEventIdFirstSchemaRecordReaderWriter extends AbstractTestRecord
         return new EventIdFirstSchemaRecordReader(in, journalFilename, tocReader, maxAttributeSize);
     }
 
+    @Test
+    public void testWriteRecordsInBatchAcrossBlocks() throws IOException {
+        final File journalFile = new File("target/storage/" + UUID.randomUUID().toString() + "/testWriteRecordsInBatch.gz");
+        final File tocFile = TocUtil.getTocFile(journalFile);
+
+        final int numEvents = 2000;
+        final List<ProvenanceEventRecord> events = new ArrayList<>();
+        for (int i = 0; i < numEvents; i++) {
+            events.add(createEvent());
+        }
+
+        final List<StorageSummary> summaries;
+        try (final RecordWriter writer = createWriter(journalFile, new StandardTocWriter(tocFile, false, false), true, 8192)) {
+            writer.writeHeader(0L);
+            summaries = writer.writeRecords(events);
+            assertEquals(numEvents, writer.getRecordsWritten());
+        }
+
+        assertEquals(numEvents, summaries.size());
+        for (int i = 0; i < numEvents; i++) {
+            assertEquals(i, summaries.get(i).getEventId());
+        }
+
+        final TocReader tocReader = new StandardTocReader(tocFile);
+        Assert.assertTrue(tocReader.getBlockIndexForEventId(numEvents - 1) > 0);
+
+        try (final FileInputStream fis = new FileInputStream(journalFile);
+            final RecordReader reader = createReader(fis, journalFile.getName(), tocReader, 2048)) {
+
+            for (int i = 0; i < numEvents; i++) {
+                final ProvenanceEventRecord event = reader.nextRecord();
+                assertNotNull(event);
+                assertEquals(i, event.getEventId());
+                assertEquals(events.get(i).getFlowFileUuid(), event.getFlowFileUuid());
+            }
+            assertNull(reader.nextRecord());
+        }
+
+        try (final FileInputStream fis = new FileInputStream(journalFile);
+            final RecordReader reader = createReader(fis, journalFile.getName(), new StandardTocReader(tocFile), 2048)) {
+
+            final Integer blockIndex = summaries.get(1500).getBlockIndex();
+            assertNotNull(blockIndex);
+            reader.skipToBlock(blockIndex);
+            reader.skipToEvent(1500L);
+            assertEquals(1500L, reader.nextRecord().getEventId());
+        }
+
+        FileUtils.deleteFile(journalFile.getParentFile(), true);
+    }
+
     @Test
     @Ignore
     public void testPerformanceOfRandomAccessReads() throws Exception {
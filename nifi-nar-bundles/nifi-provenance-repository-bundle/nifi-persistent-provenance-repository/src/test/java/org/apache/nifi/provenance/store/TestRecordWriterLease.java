@@ -0,0 +1,51 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.nifi.provenance.store;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+
+import org.apache.nifi.provenance.serialization.RecordWriter;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+public class TestRecordWriterLease {
+
+    @Test
+    public void testSyncCoveredByPreviousSyncIsSkipped() throws IOException {
+        final RecordWriter writer = Mockito.mock(RecordWriter.class);
+        final RecordWriterLease lease = new RecordWriterLease(writer, 1024L * 1024L);
+
+        // Another thread has written up to byte 200 by the time that the first sync occurs
+        Mockito.when(writer.getBytesWritten()).thenReturn(200L);
+        assertTrue(lease.sync(100L));
+        Mockito.verify(writer, Mockito.times(1)).flush();
+        Mockito.verify(writer, Mockito.times(1)).sync();
+
+        // The bytes of the other thread were synced already, so there is no need to sync again
+        assertFalse(lease.sync(200L));
+        Mockito.verify(writer, Mockito.times(1)).sync();
+
+        Mockito.when(writer.getBytesWritten()).thenReturn(300L);
+        assertTrue(lease.sync(300L));
+        Mockito.verify(writer, Mockito.times(2)).flush();
+        Mockito.verify(writer, Mockito.times(2)).sync();
+    }
+}
@@ -18,14 +18,19 @@
 package org.apache.nifi.provenance.store;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.UUID;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.stream.Collectors;
@@ -36,6 +41,7 @@ import org.apache.nifi.provenance.IdentifierLookup;
 import org.apache.nifi.provenance.ProvenanceEventRecord;
 import org.apache.nifi.provenance.RepositoryConfiguration;
 import org.apache.nifi.provenance.TestUtil;
+import org.apache.nifi.provenance.authorization.EventAuthorizer;
 import org.apache.nifi.provenance.index.EventIndex;
 import org.apache.nifi.provenance.serialization.RecordReaders;
 import org.apache.nifi.provenance.serialization.StorageSummary;
@@ -97,6 +103,77 @@ public class TestWriteAheadStorePartition {
         }
     }
 
+    @Test
+    public void testConcurrentCommitsWithAlwaysSync() throws Exception {
+        final RepositoryConfiguration repoConfig = createConfig(1, "testConcurrentCommitsWithAlwaysSync");
+        repoConfig.setAlwaysSync(true);
+
+        final WriteAheadStorePartition partition = createPartition(repoConfig);
+        partition.initialize();
+
+        final int numThreads = 8;
+        final int commitsPerThread = 50;
+        final int eventsPerCommit = 20;
+        runConcurrentCommits(partition, numThreads, commitsPerThread, eventsPerCommit);
+
+        final int numEvents = numThreads * commitsPerThread * eventsPerCommit;
+        assertEquals(numEvents - 1, partition.getMaxEventId());
+
+        final List<ProvenanceEventRecord> events = partition.getEvents(0L, numEvents + 1, EventAuthorizer.GRANT_ALL);
+        assertEquals(numEvents, events.size());
+        for (int i = 0; i < numEvents; i++) {
+            assertEquals(i, events.get(i).getEventId());
+        }
+
+        // Every commit is either synced by itself or covered by another commit's sync
+        assertTrue(partition.getSyncCount() > 0);
+        assertEquals(numThreads * commitsPerThread, partition.getSyncCount() + partition.getSyncsCoalesced());
+
+        partition.close();
+    }
+
+    private void runConcurrentCommits(final WriteAheadStorePartition partition, final int numThreads, final int commitsPerThread, final int eventsPerCommit) throws Exception {
+        final ExecutorService executor = Executors.newFixedThreadPool(numThreads);
+        try {
+            final List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < numThreads; t++) {
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < commitsPerThread; i++) {
+                        final List<ProvenanceEventRecord> events = new ArrayList<>();
+                        for (int j = 0; j < eventsPerCommit; j++) {
+                            events.add(TestUtil.createEvent());
+                        }
+
+                        partition.addEvents(events);
+                    }
+
+                    return null;
+                }));
+            }
+
+            for (final Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private WriteAheadStorePartition createPartition(final RepositoryConfiguration repoConfig) {
+        final String partitionName = repoConfig.getStorageDirectories().keySet().iterator().next();
+        final File storageDirectory = repoConfig.getStorageDirectories().values().iterator().next();
+
+        final RecordWriterFactory recordWriterFactory = (file, idGenerator, compressed, createToc) -> {
+            final TocWriter tocWriter = createToc ? new StandardTocWriter(TocUtil.getTocFile(file), false, false) : null;
+            return new EventIdFirstSchemaRecordWriter(file, idGenerator, tocWriter, compressed, 32 * 1024, IdentifierLookup.EMPTY);
+        };
+
+        final RecordReaderFactory recordReaderFactory = (file, logs, maxChars) -> RecordReaders.newRecordReader(file, logs, maxChars);
+
+        return new WriteAheadStorePartition(storageDirectory, partitionName, repoConfig, recordWriterFactory,
+            recordReaderFactory, new LinkedBlockingQueue<>(), new AtomicLong(0L), EventReporter.NO_OP);
+    }
+
     private RepositoryConfiguration createConfig(final int numStorageDirs, final String testName) {
         final RepositoryConfiguration config = new RepositoryConfiguration();
         final File storageDir = new File("target/storage/" + testName + "/" + UUID.randomUUID().toString());
@@ -19,23 +19,24 @@ package org.apache.nifi.avro;
 
 import org.apache.avro.Schema;
 import org.apache.avro.file.DataFileStream;
-import org.apache.avro.generic.GenericRecord;
+import org.apache.nifi.serialization.record.Record;
 import org.apache.nifi.serialization.record.RecordSchema;
 
 import java.io.IOException;
 import java.io.InputStream;
 
 public class AvroReaderWithEmbeddedSchema extends AvroRecordReader {
-    private final DataFileStream<GenericRecord> dataFileStream;
+    private final DataFileStream<Record> dataFileStream;
     private final InputStream in;
     private final Schema avroSchema;
     private final RecordSchema recordSchema;
 
     public AvroReaderWithEmbeddedSchema(final InputStream in) throws IOException {
         this.in = in;
-        dataFileStream = new DataFileStream<>(in, new NonCachingDatumReader<>());
+        final RecordDatumReader datumReader = new RecordDatumReader();
+        dataFileStream = new DataFileStream<>(in, datumReader);
         this.avroSchema = dataFileStream.getSchema();
-        recordSchema = AvroTypeUtil.createSchema(avroSchema);
+        recordSchema = datumReader.getRecordSchema();
     }
 
     @Override
@@ -45,7 +46,7 @@ public class AvroReaderWithEmbeddedSchema extends AvroRecordReader {
     }
 
     @Override
-    protected GenericRecord nextAvroRecord() {
+    protected Record nextAvroRecord() {
         if (!dataFileStream.hasNext()) {
             return null;
         }
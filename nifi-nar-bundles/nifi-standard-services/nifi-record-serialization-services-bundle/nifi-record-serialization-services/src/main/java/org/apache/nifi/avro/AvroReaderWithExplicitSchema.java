@@ -18,10 +18,10 @@
 package org.apache.nifi.avro;
 
 import org.apache.avro.Schema;
-import org.apache.avro.generic.GenericRecord;
 import org.apache.avro.io.BinaryDecoder;
 import org.apache.avro.io.DatumReader;
 import org.apache.avro.io.DecoderFactory;
+import org.apache.nifi.serialization.record.Record;
 import org.apache.nifi.serialization.record.RecordSchema;
 
 import java.io.EOFException;
@@ -31,15 +31,14 @@ import java.io.InputStream;
 public class AvroReaderWithExplicitSchema extends AvroRecordReader {
     private final InputStream in;
     private final RecordSchema recordSchema;
-    private final DatumReader<GenericRecord> datumReader;
+    private final DatumReader<Record> datumReader;
     private final BinaryDecoder decoder;
-    private GenericRecord genericRecord;
 
     public AvroReaderWithExplicitSchema(final InputStream in, final RecordSchema recordSchema, final Schema avroSchema) {
         this.in = in;
         this.recordSchema = recordSchema;
 
-        datumReader = new NonCachingDatumReader<>(avroSchema);
+        datumReader = new RecordDatumReader(avroSchema, recordSchema);
         decoder = DecoderFactory.get().binaryDecoder(in, null);
     }
 
@@ -49,18 +48,16 @@ public class AvroReaderWithExplicitSchema extends AvroRecordReader {
     }
 
     @Override
-    protected GenericRecord nextAvroRecord() throws IOException {
+    protected Record nextAvroRecord() throws IOException {
         if (decoder.isEnd()) {
             return null;
         }
 
         try {
-            genericRecord = datumReader.read(genericRecord, decoder);
+            return datumReader.read(null, decoder);
         } catch (final EOFException eof) {
             return null;
         }
-
-        return genericRecord;
     }
 
     @Override
@@ -0,0 +1,111 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nifi.avro;
+
+import org.apache.avro.Schema;
+import org.apache.avro.Schema.Field;
+import org.apache.avro.generic.GenericData;
+import org.apache.avro.generic.GenericRecord;
+import org.apache.commons.lang3.tuple.Pair;
+import org.apache.nifi.serialization.record.Record;
+import org.apache.nifi.serialization.record.RecordField;
+import org.apache.nifi.serialization.record.RecordSchema;
+
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * Converts Records into GenericRecords of a single Avro Schema in the same way as
+ * {@link AvroTypeUtil#createAvroRecord(Record, Schema, Charset)}, but resolves the Avro field of each Record field only
+ * once per RecordSchema and converts every Record into the same GenericRecord. The GenericRecord that is returned is
+ * therefore only valid until the next call to {@link #convert(Record)}, which is all that a writer needs to serialize it.
+ */
+public class AvroRecordConverter {
+    private final Schema avroSchema;
+    private final Charset charset;
+    private final GenericData.Record avroRecord;
+    private final Object[] values;
+
+    private RecordSchema mappedSchema;
+    private RecordField[] recordFields;
+    private Field[] targetFields;
+    private String[] targetFieldNames;
+    private Object[] defaultValues;
+
+    public AvroRecordConverter(final Schema avroSchema) {
+        this(avroSchema, StandardCharsets.UTF_8);
+    }
+
+    public AvroRecordConverter(final Schema avroSchema, final Charset charset) {
+        this.avroSchema = avroSchema;
+        this.charset = charset;
+        this.avroRecord = new GenericData.Record(avroSchema);
+        this.values = new Object[avroSchema.getFields().size()];
+    }
+
+    public GenericRecord convert(final Record record) {
+        final RecordSchema recordSchema = record.getSchema();
+        if (recordSchema != mappedSchema) {
+            createFieldMapping(recordSchema);
+        }
+
+        for (int i = 0; i < values.length; i++) {
+            values[i] = null;
+        }
+
+        for (int i = 0; i < recordFields.length; i++) {
+            final Field field = targetFields[i];
+            if (field == null) {
+                continue;
+            }
+
+            final Object rawValue = record.getValue(recordFields[i]);
+            values[field.pos()] = AvroTypeUtil.convertToAvroObject(rawValue, field.schema(), targetFieldNames[i], charset);
+        }
+
+        for (int i = 0; i < values.length; i++) {
+            final Object value = values[i] == null ? defaultValues[i] : values[i];
+            avroRecord.put(i, value);
+        }
+
+        return avroRecord;
+    }
+
+    private void createFieldMapping(final RecordSchema recordSchema) {
+        final List<RecordField> fields = recordSchema.getFields();
+        recordFields = fields.toArray(new RecordField[0]);
+        targetFields = new Field[recordFields.length];
+        targetFieldNames = new String[recordFields.length];
+
+        for (int i = 0; i < recordFields.length; i++) {
+            final Pair<String, Field> fieldPair = AvroTypeUtil.lookupField(avroSchema, recordFields[i]);
+            targetFieldNames[i] = fieldPair.getLeft();
+            targetFields[i] = fieldPair.getRight();
+        }
+
+        // Avro fields that aren't in the RecordSchema are populated with their default value, if they have one
+        defaultValues = new Object[values.length];
+        for (final Field field : avroSchema.getFields()) {
+            if (!recordSchema.getField(field.name()).isPresent()) {
+                defaultValues[field.pos()] = field.defaultVal();
+            }
+        }
+
+        mappedSchema = recordSchema;
+    }
+}
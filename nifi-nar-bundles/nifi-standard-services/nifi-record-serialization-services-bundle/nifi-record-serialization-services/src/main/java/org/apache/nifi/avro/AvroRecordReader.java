@@ -17,37 +17,27 @@
 
 package org.apache.nifi.avro;
 
-import org.apache.avro.generic.GenericRecord;
 import org.apache.nifi.serialization.MalformedRecordException;
 import org.apache.nifi.serialization.RecordReader;
-import org.apache.nifi.serialization.record.MapRecord;
 import org.apache.nifi.serialization.record.Record;
-import org.apache.nifi.serialization.record.RecordSchema;
 
 import com.google.common.base.Throwables;
 
 import java.io.IOException;
-import java.util.Map;
 
 public abstract class AvroRecordReader implements RecordReader {
 
-    protected abstract GenericRecord nextAvroRecord() throws IOException;
+    /**
+     * @return the next Record, decoded directly from the Avro data, or <code>null</code> if there are no more records
+     */
+    protected abstract Record nextAvroRecord() throws IOException;
 
     @Override
     public Record nextRecord(final boolean coerceTypes, final boolean dropUnknownFields) throws IOException, MalformedRecordException {
         try {
-            GenericRecord record = nextAvroRecord();
-            if (record == null) {
-                return null;
-            }
-
-            final RecordSchema schema = getSchema();
-            final Map<String, Object> values = AvroTypeUtil.convertAvroRecordToMap(record, schema);
-            return new MapRecord(schema, values);
+            return nextAvroRecord();
         } catch (IOException e) {
             throw e;
-        } catch (MalformedRecordException e) {
-            throw e;
         } catch (Exception e) {
             throw new MalformedRecordException("Error while getting next record. Root cause: " + Throwables.getRootCause(e), e);
         }
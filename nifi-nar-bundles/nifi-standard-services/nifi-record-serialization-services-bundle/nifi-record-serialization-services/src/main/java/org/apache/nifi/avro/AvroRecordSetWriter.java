@@ -101,6 +101,7 @@ public class AvroRecordSetWriter extends SchemaRegistryRecordSetWriter implement
         .build();
 
     private LoadingCache<String, Schema> compiledAvroSchemaCache;
+    private LoadingCache<RecordSchema, Schema> extractedAvroSchemaCache;
     private volatile BlockingQueue<BinaryEncoder> encoderPool;
 
 
@@ -111,6 +112,13 @@ public class AvroRecordSetWriter extends SchemaRegistryRecordSetWriter implement
                 .maximumSize(cacheSize)
                 .build(schemaText -> new Schema.Parser().parse(schemaText));
 
+        // Writers are created per FlowFile, usually for the same RecordSchema instance, so avoid rebuilding the Avro Schema each time.
+        // Keys are compared by identity so that looking up a schema never has to hash all of its fields.
+        extractedAvroSchemaCache = Caffeine.newBuilder()
+                .maximumSize(cacheSize)
+                .weakKeys()
+                .build(AvroTypeUtil::extractAvroSchema);
+
         final int capacity = context.getProperty(ENCODER_POOL_SIZE).evaluateAttributeExpressions().asInteger();
         encoderPool = new LinkedBlockingQueue<>(capacity);
     }
@@ -135,10 +143,10 @@ public class AvroRecordSetWriter extends SchemaRegistryRecordSetWriter implement
                     if (textOption.isPresent()) {
                         avroSchema = compiledAvroSchemaCache.get(textOption.get());
                     } else {
-                        avroSchema = AvroTypeUtil.extractAvroSchema(recordSchema);
+                        avroSchema = extractedAvroSchemaCache.get(recordSchema);
                     }
                 } else {
-                    avroSchema = AvroTypeUtil.extractAvroSchema(recordSchema);
+                    avroSchema = extractedAvroSchemaCache.get(recordSchema);
                 }
             } catch (final Exception e) {
                 throw new SchemaNotFoundException("Failed to compile Avro Schema", e);
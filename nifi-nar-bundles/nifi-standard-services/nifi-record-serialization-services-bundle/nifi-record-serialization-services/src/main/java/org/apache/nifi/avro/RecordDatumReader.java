@@ -0,0 +1,135 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nifi.avro;
+
+import org.apache.avro.Schema;
+import org.apache.avro.Schema.Field;
+import org.apache.avro.io.Decoder;
+import org.apache.avro.io.ResolvingDecoder;
+import org.apache.nifi.serialization.record.ArrayRecord;
+import org.apache.nifi.serialization.record.Record;
+import org.apache.nifi.serialization.record.RecordField;
+import org.apache.nifi.serialization.record.RecordSchema;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * A DatumReader that decodes each Avro record directly into the values of an {@link ArrayRecord}, without building
+ * an intermediate GenericRecord for it. The Avro values of the top-level fields are decoded into the objects that
+ * were decoded for the previous record where possible (Utf8, arrays, maps, nested records, byte buffers), and are
+ * copied as they are converted into the values of the Record, so the Records that are returned never share state.
+ */
+public class RecordDatumReader extends NonCachingDatumReader<Record> {
+    private RecordSchema recordSchema;
+
+    private Schema mappedSchema;
+    private Object[] avroValues;
+    private RecordField[] recordFields;
+    private Field[] avroFields;
+    private int[][] aliasPositions;
+
+    /**
+     * Creates a reader whose schema is provided later, as by a DataFileStream, and whose Records use the RecordSchema
+     * that corresponds to that Avro Schema
+     */
+    public RecordDatumReader() {
+        super();
+    }
+
+    public RecordDatumReader(final Schema avroSchema, final RecordSchema recordSchema) {
+        super(avroSchema);
+        this.recordSchema = recordSchema;
+    }
+
+    @Override
+    public void setSchema(final Schema schema) {
+        super.setSchema(schema);
+        if (recordSchema == null) {
+            recordSchema = AvroTypeUtil.createSchema(schema);
+        }
+    }
+
+    public RecordSchema getRecordSchema() {
+        return recordSchema;
+    }
+
+    /**
+     * Decodes the next Avro record into a new Record. The given Record is ignored, as Records cannot be reused, but the
+     * Avro values that the fields are decoded into are.
+     */
+    @Override
+    public Record read(final Record reuse, final Decoder in) throws IOException {
+        final Schema expected = getExpected();
+        if (expected != mappedSchema) {
+            createFieldMapping(expected);
+        }
+
+        final ResolvingDecoder resolver = getResolver(getSchema(), expected);
+        resolver.configure(in);
+        for (final Field field : resolver.readFieldOrder()) {
+            final int position = field.pos();
+            avroValues[position] = read(avroValues[position], field.schema(), resolver);
+        }
+        resolver.drain();
+
+        final Object[] values = new Object[recordFields.length];
+        for (int i = 0; i < values.length; i++) {
+            final Field avroField = avroFields[i];
+            if (avroField == null) {
+                continue;
+            }
+
+            Object value = avroValues[avroField.pos()];
+            if (value == null) {
+                for (final int aliasPosition : aliasPositions[i]) {
+                    value = avroValues[aliasPosition];
+                    if (value != null) {
+                        break;
+                    }
+                }
+            }
+
+            values[i] = AvroTypeUtil.convertAvroFieldValue(value, avroField.schema(), recordFields[i], StandardCharsets.UTF_8);
+        }
+
+        return new ArrayRecord(recordSchema, values);
+    }
+
+    // Resolves the Avro field of each Record field once, in the same way as AvroTypeUtil.convertAvroRecordToArray does per record
+    private void createFieldMapping(final Schema avroSchema) {
+        final List<RecordField> fields = recordSchema.getFields();
+        recordFields = fields.toArray(new RecordField[0]);
+        avroFields = new Field[recordFields.length];
+        aliasPositions = new int[recordFields.length][];
+
+        for (int i = 0; i < recordFields.length; i++) {
+            final RecordField recordField = recordFields[i];
+            avroFields[i] = avroSchema.getField(recordField.getFieldName());
+
+            aliasPositions[i] = recordField.getAliases().stream()
+                .map(avroSchema::getField)
+                .filter(field -> field != null)
+                .mapToInt(Field::pos)
+                .toArray();
+        }
+
+        avroValues = new Object[avroSchema.getFields().size()];
+        mappedSchema = avroSchema;
+    }
+}
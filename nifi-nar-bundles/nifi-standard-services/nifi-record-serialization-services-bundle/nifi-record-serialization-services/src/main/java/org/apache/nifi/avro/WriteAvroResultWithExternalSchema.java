@@ -42,6 +42,7 @@ public class WriteAvroResultWithExternalSchema extends AbstractRecordSetWriter {
     private final BinaryEncoder encoder;
     private final OutputStream buffered;
     private final DatumWriter<GenericRecord> datumWriter;
+    private final AvroRecordConverter recordConverter;
     private final BlockingQueue<BinaryEncoder> recycleQueue;
 
     public WriteAvroResultWithExternalSchema(final Schema avroSchema, final RecordSchema recordSchema, final SchemaAccessWriter schemaAccessWriter,
@@ -62,6 +63,7 @@ public class WriteAvroResultWithExternalSchema extends AbstractRecordSetWriter {
         encoder = EncoderFactory.get().blockingBinaryEncoder(buffered, reusableEncoder);
 
         datumWriter = new GenericDatumWriter<>(avroSchema);
+        recordConverter = new AvroRecordConverter(avroSchema);
     }
 
     @Override
@@ -84,7 +86,7 @@ public class WriteAvroResultWithExternalSchema extends AbstractRecordSetWriter {
             schemaAccessWriter.writeHeader(recordSchema, getOutputStream());
         }
 
-        final GenericRecord rec = AvroTypeUtil.createAvroRecord(record, avroSchema);
+        final GenericRecord rec = recordConverter.convert(record);
         datumWriter.write(rec, encoder);
         return schemaAccessWriter.getAttributes(recordSchema);
     }
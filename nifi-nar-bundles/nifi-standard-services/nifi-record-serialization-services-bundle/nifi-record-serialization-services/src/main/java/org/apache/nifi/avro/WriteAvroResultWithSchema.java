@@ -33,11 +33,11 @@ import org.apache.nifi.serialization.record.Record;
 public class WriteAvroResultWithSchema extends AbstractRecordSetWriter {
 
     private final DataFileWriter<GenericRecord> dataFileWriter;
-    private final Schema schema;
+    private final AvroRecordConverter recordConverter;
 
     public WriteAvroResultWithSchema(final Schema schema, final OutputStream out, final CodecFactory codec) throws IOException {
         super(out);
-        this.schema = schema;
+        this.recordConverter = new AvroRecordConverter(schema);
 
         final GenericDatumWriter<GenericRecord> datumWriter = new GenericDatumWriter<>(schema);
         dataFileWriter = new DataFileWriter<>(datumWriter);
@@ -57,7 +57,8 @@ public class WriteAvroResultWithSchema extends AbstractRecordSetWriter {
 
     @Override
     public Map<String, String> writeRecord(final Record record) throws IOException {
-        final GenericRecord rec = AvroTypeUtil.createAvroRecord(record, schema);
+        // the DataFileWriter serializes the converted record into its block buffer right away, so it can be reused for the next one
+        final GenericRecord rec = recordConverter.convert(record);
         dataFileWriter.append(rec);
         return Collections.emptyMap();
     }
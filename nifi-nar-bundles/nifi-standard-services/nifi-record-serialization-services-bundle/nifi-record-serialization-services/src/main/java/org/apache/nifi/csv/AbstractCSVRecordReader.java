@@ -20,6 +20,7 @@ package org.apache.nifi.csv;
 import org.apache.nifi.logging.ComponentLog;
 import org.apache.nifi.serialization.RecordReader;
 import org.apache.nifi.serialization.record.DataType;
+import org.apache.nifi.serialization.record.RecordField;
 import org.apache.nifi.serialization.record.RecordSchema;
 import org.apache.nifi.serialization.record.util.DataTypeUtils;
 import java.text.DateFormat;
@@ -73,6 +74,20 @@ abstract public class AbstractCSVRecordReader implements RecordReader {
         }
     }
 
+    protected final Object convertValue(final String rawValue, final RecordField recordField, final boolean coerceTypes) {
+        final String rawFieldName = recordField.getFieldName();
+        final DataType dataType = recordField.getDataType();
+
+        if (coerceTypes) {
+            return convert(rawValue, dataType, rawFieldName);
+        } else {
+            // The CSV Reader is going to return all fields as Strings, because CSV doesn't have any way to
+            // dictate a field type. As a result, we will use the schema that we have to attempt to convert
+            // the value into the desired type if it's a simple type.
+            return convertSimpleIfPossible(rawValue, dataType, rawFieldName);
+        }
+    }
+
     protected final Object convert(final String value, final DataType dataType, final String fieldName) {
         if (dataType == null || value == null) {
             return value;
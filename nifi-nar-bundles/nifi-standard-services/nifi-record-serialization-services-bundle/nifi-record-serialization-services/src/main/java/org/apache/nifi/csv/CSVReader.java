@@ -20,6 +20,7 @@ package org.apache.nifi.csv;
 import org.apache.commons.csv.CSVFormat;
 import org.apache.nifi.annotation.documentation.CapabilityDescription;
 import org.apache.nifi.annotation.documentation.Tags;
+import org.apache.nifi.annotation.lifecycle.OnDisabled;
 import org.apache.nifi.annotation.lifecycle.OnEnabled;
 import org.apache.nifi.components.AllowableValue;
 import org.apache.nifi.components.PropertyDescriptor;
@@ -41,6 +42,7 @@ import org.apache.nifi.serialization.RecordReader;
 import org.apache.nifi.serialization.RecordReaderFactory;
 import org.apache.nifi.serialization.SchemaRegistryService;
 import org.apache.nifi.serialization.record.RecordSchema;
+import org.apache.nifi.processor.util.StandardValidators;
 import org.apache.nifi.stream.io.NonCloseableInputStream;
 
 import java.io.IOException;
@@ -48,6 +50,10 @@ import java.io.InputStream;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
 
 @Tags({"csv", "parse", "record", "row", "reader", "delimited", "comma", "separated", "values"})
 @CapabilityDescription("Parses CSV-formatted data, returning each row in the CSV file as a separate record. "
@@ -66,6 +72,11 @@ public class CSVReader extends SchemaRegistryService implements RecordReaderFact
     public static final AllowableValue JACKSON_CSV = new AllowableValue("jackson-csv", "Jackson CSV",
             "The CSV parser implementation from the Jackson Dataformats library.");
 
+    public static final AllowableValue FAST_CSV = new AllowableValue("fast-csv", "Fast CSV",
+            "A CSV parser that follows the same rules as Apache Commons CSV, but that scans the input in large blocks and creates only the values "
+            + "that are needed for the records, optionally parsing several blocks concurrently. When unknown fields are dropped, columns that are "
+            + "not in the schema are not read.");
+
 
     public static final PropertyDescriptor CSV_PARSER = new PropertyDescriptor.Builder()
             .name("csv-reader-csv-parser")
@@ -73,11 +84,23 @@ public class CSVReader extends SchemaRegistryService implements RecordReaderFact
             .description("Specifies which parser to use to read CSV records. NOTE: Different parsers may support different subsets of functionality "
                     + "and may also exhibit different levels of performance.")
             .expressionLanguageSupported(ExpressionLanguageScope.NONE)
-            .allowableValues(APACHE_COMMONS_CSV, JACKSON_CSV)
+            .allowableValues(APACHE_COMMONS_CSV, JACKSON_CSV, FAST_CSV)
             .defaultValue(APACHE_COMMONS_CSV.getValue())
             .required(true)
             .build();
 
+    public static final PropertyDescriptor FAST_CSV_PARSING_THREADS = new PropertyDescriptor.Builder()
+            .name("csv-reader-fast-csv-parsing-threads")
+            .displayName("Fast CSV Parsing Threads")
+            .description("When the CSV Parser is Fast CSV, the number of threads that parse blocks of the input concurrently. The threads are shared "
+                    + "by all of the readers that this service creates, and each reader parses at most this many blocks at a time. If set to 1, "
+                    + "each reader parses the input on the thread that reads the records. Ignored for the other CSV Parsers.")
+            .expressionLanguageSupported(ExpressionLanguageScope.NONE)
+            .addValidator(StandardValidators.POSITIVE_INTEGER_VALIDATOR)
+            .defaultValue("1")
+            .required(true)
+            .build();
+
     private volatile String csvParser;
     private volatile CSVFormat csvFormat;
     private volatile String dateFormat;
@@ -86,11 +109,14 @@ public class CSVReader extends SchemaRegistryService implements RecordReaderFact
     private volatile boolean firstLineIsHeader;
     private volatile boolean ignoreHeader;
     private volatile String charSet;
+    private volatile int parsingThreads;
+    private volatile ExecutorService parsingExecutor;
 
     @Override
     protected List<PropertyDescriptor> getSupportedPropertyDescriptors() {
         final List<PropertyDescriptor> properties = new ArrayList<>(super.getSupportedPropertyDescriptors());
         properties.add(CSV_PARSER);
+        properties.add(FAST_CSV_PARSING_THREADS);
         properties.add(DateTimeUtils.DATE_FORMAT);
         properties.add(DateTimeUtils.TIME_FORMAT);
         properties.add(DateTimeUtils.TIMESTAMP_FORMAT);
@@ -118,6 +144,11 @@ public class CSVReader extends SchemaRegistryService implements RecordReaderFact
         this.ignoreHeader = context.getProperty(CSVUtils.IGNORE_CSV_HEADER).asBoolean();
         this.charSet = context.getProperty(CSVUtils.CHARSET).getValue();
 
+        this.parsingThreads = context.getProperty(FAST_CSV_PARSING_THREADS).asInteger();
+        if (FAST_CSV.getValue().equals(csvParser) && parsingThreads > 1) {
+            this.parsingExecutor = Executors.newFixedThreadPool(parsingThreads, new ParsingThreadFactory());
+        }
+
         // Ensure that if we are deriving schema from header that we always treat the first line as a header,
         // regardless of the 'First Line is Header' property
         final String accessStrategy = context.getProperty(SchemaAccessUtils.SCHEMA_ACCESS_STRATEGY).getValue();
@@ -127,6 +158,14 @@ public class CSVReader extends SchemaRegistryService implements RecordReaderFact
         }
     }
 
+    @OnDisabled
+    public void shutdownParsingExecutor() {
+        if (parsingExecutor != null) {
+            parsingExecutor.shutdownNow();
+            parsingExecutor = null;
+        }
+    }
+
     @Override
     public RecordReader createRecordReader(final Map<String, String> variables, final InputStream in, final ComponentLog logger) throws IOException, SchemaNotFoundException {
         // Use Mark/Reset of a BufferedInputStream in case we read from the Input Stream for the header.
@@ -138,6 +177,9 @@ public class CSVReader extends SchemaRegistryService implements RecordReaderFact
             return new CSVRecordReader(in, logger, schema, csvFormat, firstLineIsHeader, ignoreHeader, dateFormat, timeFormat, timestampFormat, charSet);
         } else if(JACKSON_CSV.getValue().equals(csvParser)) {
             return new JacksonCSVRecordReader(in, logger, schema, csvFormat, firstLineIsHeader, ignoreHeader, dateFormat, timeFormat, timestampFormat, charSet);
+        } else if(FAST_CSV.getValue().equals(csvParser)) {
+            return new FastCSVRecordReader(in, logger, schema, csvFormat, firstLineIsHeader, ignoreHeader, dateFormat, timeFormat, timestampFormat, charSet,
+                parsingExecutor, parsingThreads);
         } else {
             throw new IOException("Parser not supported");
         }
@@ -168,4 +210,16 @@ public class CSVReader extends SchemaRegistryService implements RecordReaderFact
     protected AllowableValue getDefaultSchemaAccessStrategy() {
         return SchemaInferenceUtil.INFER_SCHEMA;
     }
+
+    private static class ParsingThreadFactory implements ThreadFactory {
+        private final AtomicInteger threadCount = new AtomicInteger(0);
+
+        @Override
+        public Thread newThread(final Runnable r) {
+            final Thread thread = Executors.defaultThreadFactory().newThread(r);
+            thread.setName("CSVReader Parsing Thread-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
 }
@@ -35,7 +35,7 @@ import org.apache.commons.csv.CSVRecord;
 import org.apache.commons.io.input.BOMInputStream;
 import org.apache.nifi.logging.ComponentLog;
 import org.apache.nifi.serialization.MalformedRecordException;
-import org.apache.nifi.serialization.record.DataType;
+import org.apache.nifi.serialization.record.ArrayRecord;
 import org.apache.nifi.serialization.record.MapRecord;
 import org.apache.nifi.serialization.record.Record;
 import org.apache.nifi.serialization.record.RecordField;
@@ -49,6 +49,7 @@ public class CSVRecordReader extends AbstractCSVRecordReader {
     private final CSVParser csvParser;
 
     private List<RecordField> recordFields;
+    private boolean columnsMatchSchema;
 
     public CSVRecordReader(final InputStream in, final ComponentLog logger, final RecordSchema schema, final CSVFormat csvFormat, final boolean hasHeader, final boolean ignoreHeader,
                            final String dateFormat, final String timeFormat, final String timestampFormat, final String encoding) throws IOException {
@@ -81,36 +82,38 @@ public class CSVRecordReader extends AbstractCSVRecordReader {
             final List<RecordField> recordFields = getRecordFields();
             final int numFieldNames = recordFields.size();
             for (final CSVRecord csvRecord : csvParser) {
+                // When the columns are those of the schema, in the same order, the values can be held in an array rather than a map.
+                // Rows with fewer columns than the schema are still held in a map so that the missing fields are not reported as present.
+                if (columnsMatchSchema && csvRecord.size() >= numFieldNames) {
+                    final Object[] values = new Object[numFieldNames];
+                    for (int i = 0; i < numFieldNames; i++) {
+                        values[i] = convertValue(csvRecord.get(i), recordFields.get(i), coerceTypes);
+                    }
+
+                    final Record record = new ArrayRecord(schema, values, coerceTypes, dropUnknownFields);
+                    if (!dropUnknownFields) {
+                        for (int i = numFieldNames; i < csvRecord.size(); i++) {
+                            record.setValue("unknown_field_index_" + i, csvRecord.get(i));
+                        }
+                    }
+
+                    return record;
+                }
+
                 final Map<String, Object> values = new LinkedHashMap<>(recordFields.size() * 2);
                 for (int i = 0; i < csvRecord.size(); i++) {
                     final String rawValue = csvRecord.get(i);
 
-                    final String rawFieldName;
-                    final DataType dataType;
                     if (i >= numFieldNames) {
                         if (!dropUnknownFields) {
                             values.put("unknown_field_index_" + i, rawValue);
                         }
 
                         continue;
-                    } else {
-                        final RecordField recordField = recordFields.get(i);
-                        rawFieldName = recordField.getFieldName();
-                        dataType = recordField.getDataType();
                     }
 
-
-                    final Object value;
-                    if (coerceTypes) {
-                        value = convert(rawValue, dataType, rawFieldName);
-                    } else {
-                        // The CSV Reader is going to return all fields as Strings, because CSV doesn't have any way to
-                        // dictate a field type. As a result, we will use the schema that we have to attempt to convert
-                        // the value into the desired type if it's a simple type.
-                        value = convertSimpleIfPossible(rawValue, dataType, rawFieldName);
-                    }
-
-                    values.put(rawFieldName, value);
+                    final RecordField recordField = recordFields.get(i);
+                    values.put(recordField.getFieldName(), convertValue(rawValue, recordField, coerceTypes));
                 }
 
                 return new MapRecord(schema, values, coerceTypes, dropUnknownFields);
@@ -122,7 +125,6 @@ public class CSVRecordReader extends AbstractCSVRecordReader {
         return null;
     }
 
-
     private List<RecordField> getRecordFields() {
         if (this.recordFields != null) {
             return this.recordFields;
@@ -146,6 +148,7 @@ public class CSVRecordReader extends AbstractCSVRecordReader {
         }
 
         this.recordFields = fields;
+        this.columnsMatchSchema = fields.equals(schema.getFields());
         return fields;
     }
 
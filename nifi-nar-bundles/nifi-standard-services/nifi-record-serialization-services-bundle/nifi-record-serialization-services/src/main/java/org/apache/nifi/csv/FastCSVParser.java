@@ -0,0 +1,487 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.nifi.csv;
+
+import org.apache.commons.csv.CSVFormat;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * <p>
+ * Splits CSV text that is held in a char array into rows and fields, following the same rules as the Apache Commons CSV parser for the
+ * given {@link CSVFormat}. Rather than copying the characters of each field as it is scanned, the parser records where each field of
+ * the current row starts and ends in the array, so that a String is created only for the fields that are asked for.
+ * </p>
+ *
+ * <p>
+ * A parser holds the positions of only one row at a time and is not thread-safe.
+ * </p>
+ */
+class FastCSVParser {
+    /**
+     * {@link #scanRow(char[], int, int, boolean)} found a complete row
+     */
+    static final int ROW = 0;
+
+    /**
+     * {@link #scanRow(char[], int, int, boolean)} reached the end of the input without finding another row
+     */
+    static final int END_OF_INPUT = 1;
+
+    /**
+     * {@link #scanRow(char[], int, int, boolean)} reached the end of the available characters before the end of the row
+     */
+    static final int INCOMPLETE = 2;
+
+    private static final int EOF = -1;
+    private static final int MORE = -2;
+    private static final int UNDEFINED = -3;
+
+    private final int delimiter;
+    private final int quote;
+    private final int escape;
+    private final int commentMarker;
+    private final boolean ignoreEmptyLines;
+    private final boolean ignoreSurroundingSpaces;
+    private final boolean trim;
+    private final boolean trailingDelimiter;
+    private final String nullString;
+
+    private char[] buffer;
+    private int limit;
+    private boolean endOfInput;
+
+    private int fieldCount;
+    private int[] fieldStarts = new int[16];
+    private int[] fieldEnds = new int[16];
+    private boolean[] fieldQuoted = new boolean[16];
+    private boolean[] fieldEscaped = new boolean[16];
+    private int rowStart;
+    private int rowEnd;
+    private boolean endOfRow;
+
+    FastCSVParser(final CSVFormat csvFormat) {
+        this.delimiter = csvFormat.getDelimiter();
+        this.quote = csvFormat.getQuoteCharacter() == null ? UNDEFINED : csvFormat.getQuoteCharacter();
+        this.escape = csvFormat.getEscapeCharacter() == null ? UNDEFINED : csvFormat.getEscapeCharacter();
+        this.commentMarker = csvFormat.getCommentMarker() == null ? UNDEFINED : csvFormat.getCommentMarker();
+        this.ignoreEmptyLines = csvFormat.getIgnoreEmptyLines();
+        this.ignoreSurroundingSpaces = csvFormat.getIgnoreSurroundingSpaces();
+        this.trim = csvFormat.getTrim();
+        this.trailingDelimiter = csvFormat.getTrailingDelimiter();
+        this.nullString = csvFormat.getNullString();
+    }
+
+    /**
+     * Scans the row that starts at the given position, which must be the start of a line.
+     *
+     * @param buffer the characters to scan
+     * @param position the position of the first character of the row
+     * @param limit the position after the last available character
+     * @param endOfInput whether or not the available characters are the end of the input
+     * @return {@link #ROW} if a row was found, in which case its fields are made available by this parser and {@link #getRowEnd()} is the
+     *         position after it; {@link #END_OF_INPUT} if there are no more rows; or {@link #INCOMPLETE} if more characters are needed
+     *         in order to find the end of the row, in which case the row must be scanned again once they are available
+     * @throws IOException if the text is not valid CSV
+     */
+    int scanRow(final char[] buffer, final int position, final int limit, final boolean endOfInput) throws IOException {
+        int start = position;
+        while (true) {
+            final int result = scanLine(buffer, start, limit, endOfInput);
+            if (result != ROW || fieldCount > 0) {
+                return result;
+            }
+
+            // With a trailing delimiter, a line with only an empty value has no fields. The Apache Commons CSV parser stops
+            // at such a line as if it were the end of the input, but it is skipped here in the same way as an empty line.
+            start = rowEnd;
+        }
+    }
+
+    private int scanLine(final char[] buffer, final int position, final int limit, final boolean endOfInput) throws IOException {
+        this.buffer = buffer;
+        this.limit = limit;
+        this.endOfInput = endOfInput;
+        this.fieldCount = 0;
+        this.rowStart = position;
+        this.endOfRow = false;
+
+        int p = position;
+        boolean startOfLine = true;
+
+        while (true) {
+            int c = charAt(p);
+            if (c == MORE) {
+                return INCOMPLETE;
+            }
+
+            if (startOfLine) {
+                if (ignoreEmptyLines) {
+                    while (isEndOfLine(c)) {
+                        p = skipEndOfLine(p);
+                        if (p < 0) {
+                            return INCOMPLETE;
+                        }
+
+                        c = charAt(p);
+                        if (c == MORE) {
+                            return INCOMPLETE;
+                        }
+                    }
+                }
+
+                if (c == EOF) {
+                    rowEnd = p;
+                    return END_OF_INPUT;
+                }
+
+                if (c == commentMarker) {
+                    // A comment is not a row, so skip the line and continue with the next one
+                    while (c != EOF && !isEndOfLine(c)) {
+                        c = charAt(++p);
+                        if (c == MORE) {
+                            return INCOMPLETE;
+                        }
+                    }
+
+                    if (c == EOF) {
+                        rowEnd = p;
+                        return END_OF_INPUT;
+                    }
+
+                    p = skipEndOfLine(p);
+                    if (p < 0) {
+                        return INCOMPLETE;
+                    }
+
+                    continue;
+                }
+            }
+            startOfLine = false;
+
+            if (ignoreSurroundingSpaces) {
+                while (isWhitespace(c)) {
+                    c = charAt(++p);
+                    if (c == MORE) {
+                        return INCOMPLETE;
+                    }
+                }
+            }
+
+            if (c == delimiter) {
+                addField(p, p, false, false);
+                p++;
+            } else if (isEndOfLine(c)) {
+                addField(p, p, false, false);
+                return endRow(skipEndOfLine(p));
+            } else if (c == EOF) {
+                addField(p, p, false, false);
+                return endRow(p);
+            } else {
+                p = c == quote ? scanQuotedField(p + 1) : scanSimpleField(p);
+                if (p < 0) {
+                    return INCOMPLETE;
+                }
+                if (endOfRow) {
+                    return endRow(p);
+                }
+            }
+        }
+    }
+
+    /**
+     * Scans an unquoted field, adding it to the row
+     *
+     * @return the position after the delimiter or line ending that ends the field, or -1 if more characters are needed. If the field
+     *         is the last of the row, {@link #endOfRow} is set.
+     */
+    private int scanSimpleField(final int start) throws IOException {
+        boolean escaped = false;
+        int p = start;
+
+        while (true) {
+            final int c = charAt(p);
+            if (c == MORE) {
+                return -1;
+            }
+
+            if (isEndOfLine(c)) {
+                addField(start, p, false, escaped);
+                endOfRow = true;
+                return skipEndOfLine(p);
+            } else if (c == EOF) {
+                addField(start, p, false, escaped);
+                endOfRow = true;
+                return p;
+            } else if (c == delimiter) {
+                addField(start, p, false, escaped);
+                return p + 1;
+            } else if (c == escape) {
+                final int escapedChar = charAt(p + 1);
+                if (escapedChar == MORE) {
+                    return -1;
+                }
+                if (escapedChar == EOF) {
+                    throw new IOException("EOF whilst processing escape sequence");
+                }
+
+                escaped = true;
+                p += 2;
+            } else {
+                p++;
+            }
+        }
+    }
+
+    /**
+     * Scans a quoted field, starting with the character after the opening quote, adding it to the row
+     *
+     * @return the position after the delimiter or line ending that ends the field, or -1 if more characters are needed. If the field
+     *         is the last of the row, {@link #endOfRow} is set.
+     */
+    private int scanQuotedField(final int start) throws IOException {
+        boolean escaped = false;
+        int p = start;
+
+        while (true) {
+            final int c = charAt(p);
+            if (c == MORE) {
+                return -1;
+            }
+
+            if (c == escape) {
+                final int escapedChar = charAt(p + 1);
+                if (escapedChar == MORE) {
+                    return -1;
+                }
+                if (escapedChar == EOF) {
+                    throw new IOException("EOF whilst processing escape sequence");
+                }
+
+                escaped = true;
+                p += 2;
+            } else if (c == quote) {
+                final int next = charAt(p + 1);
+                if (next == MORE) {
+                    return -1;
+                }
+
+                if (next == quote) {
+                    // a doubled quote is a literal quote character
+                    escaped = true;
+                    p += 2;
+                    continue;
+                }
+
+                final int end = p;
+                p++;
+
+                // Only whitespace may come between the closing quote and the end of the field
+                while (true) {
+                    final int after = charAt(p);
+                    if (after == MORE) {
+                        return -1;
+                    }
+
+                    if (after == delimiter) {
+                        addField(start, end, true, escaped);
+                        return p + 1;
+                    } else if (after == EOF) {
+                        addField(start, end, true, escaped);
+                        endOfRow = true;
+                        return p;
+                    } else if (isEndOfLine(after)) {
+                        addField(start, end, true, escaped);
+                        endOfRow = true;
+                        return skipEndOfLine(p);
+                    } else if (isWhitespace(after)) {
+                        p++;
+                    } else {
+                        throw new IOException("Invalid char between encapsulated token and delimiter at position " + p);
+                    }
+                }
+            } else if (c == EOF) {
+                throw new IOException("EOF reached before encapsulated token finished");
+            } else {
+                p++;
+            }
+        }
+    }
+
+    private int endRow(final int end) {
+        if (end < 0) {
+            return INCOMPLETE;
+        }
+
+        rowEnd = end;
+        if (trailingDelimiter && fieldCount > 0 && getRawValue(fieldCount - 1).isEmpty()) {
+            fieldCount--;
+        }
+
+        return ROW;
+    }
+
+    private void addField(final int start, final int end, final boolean quoted, final boolean escaped) {
+        if (fieldCount == fieldStarts.length) {
+            final int length = fieldCount * 2;
+            fieldStarts = Arrays.copyOf(fieldStarts, length);
+            fieldEnds = Arrays.copyOf(fieldEnds, length);
+            fieldQuoted = Arrays.copyOf(fieldQuoted, length);
+            fieldEscaped = Arrays.copyOf(fieldEscaped, length);
+        }
+
+        fieldStarts[fieldCount] = start;
+        fieldEnds[fieldCount] = end;
+        fieldQuoted[fieldCount] = quoted;
+        fieldEscaped[fieldCount] = escaped;
+        fieldCount++;
+    }
+
+    private int charAt(final int position) {
+        if (position < limit) {
+            return buffer[position];
+        }
+
+        return endOfInput ? EOF : MORE;
+    }
+
+    private static boolean isEndOfLine(final int c) {
+        return c == '\n' || c == '\r';
+    }
+
+    private boolean isWhitespace(final int c) {
+        return c >= 0 && c != delimiter && !isEndOfLine(c) && Character.isWhitespace((char) c);
+    }
+
+    /**
+     * @return the position after the line ending at the given position, or -1 if more characters are needed to determine where it ends
+     */
+    private int skipEndOfLine(final int position) {
+        if (buffer[position] == '\r') {
+            final int next = charAt(position + 1);
+            if (next == MORE) {
+                return -1;
+            }
+
+            return next == '\n' ? position + 2 : position + 1;
+        }
+
+        return position + 1;
+    }
+
+    /**
+     * @return the number of fields in the row that was last scanned
+     */
+    int getFieldCount() {
+        return fieldCount;
+    }
+
+    /**
+     * @return the position of the first character of the row that was last scanned
+     */
+    int getRowStart() {
+        return rowStart;
+    }
+
+    /**
+     * @return the position after the row that was last scanned, which is the start of the next row
+     */
+    int getRowEnd() {
+        return rowEnd;
+    }
+
+    /**
+     * Returns the value of the given field of the row that was last scanned, as the Apache Commons CSV parser would
+     *
+     * @param index the index of the field
+     * @return the value of the field, or <code>null</code> if it is the format's null String
+     */
+    String getValue(final int index) {
+        final String value = getRawValue(index);
+        return value.equals(nullString) ? null : value;
+    }
+
+    private String getRawValue(final int index) {
+        final int start = fieldStarts[index];
+        final int end = fieldEnds[index];
+        final boolean quoted = fieldQuoted[index];
+
+        String value = fieldEscaped[index] ? unescape(start, end, quoted) : new String(buffer, start, end - start);
+
+        if (ignoreSurroundingSpaces && !quoted) {
+            int length = value.length();
+            while (length > 0 && Character.isWhitespace(value.charAt(length - 1))) {
+                length--;
+            }
+            value = value.substring(0, length);
+        }
+
+        return trim ? value.trim() : value;
+    }
+
+    private String unescape(final int start, final int end, final boolean quoted) {
+        final StringBuilder sb = new StringBuilder(end - start);
+        for (int i = start; i < end; i++) {
+            final char c = buffer[i];
+
+            if (c == escape) {
+                final char escapedChar = buffer[++i];
+                switch (escapedChar) {
+                    case 'r':
+                        sb.append('\r');
+                        break;
+                    case 'n':
+                        sb.append('\n');
+                        break;
+                    case 't':
+                        sb.append('\t');
+                        break;
+                    case 'b':
+                        sb.append('\b');
+                        break;
+                    case 'f':
+                        sb.append('\f');
+                        break;
+                    case '\r':
+                    case '\n':
+                    case '\t':
+                    case '\b':
+                    case '\f':
+                        sb.append(escapedChar);
+                        break;
+                    default:
+                        if (escapedChar == delimiter || escapedChar == escape || escapedChar == quote || escapedChar == commentMarker) {
+                            sb.append(escapedChar);
+                        } else {
+                            // not an escape sequence, so both characters are part of the value
+                            sb.append(c).append(escapedChar);
+                        }
+                }
+            } else if (quoted && c == quote) {
+                // the first of a doubled quote
+                sb.append(c);
+                i++;
+            } else {
+                sb.append(c);
+            }
+        }
+
+        return sb.toString();
+    }
+}
@@ -0,0 +1,495 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.nifi.csv;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+import org.apache.commons.csv.CSVFormat;
+import org.apache.commons.io.input.BOMInputStream;
+import org.apache.nifi.logging.ComponentLog;
+import org.apache.nifi.serialization.MalformedRecordException;
+import org.apache.nifi.serialization.record.ArrayRecord;
+import org.apache.nifi.serialization.record.MapRecord;
+import org.apache.nifi.serialization.record.Record;
+import org.apache.nifi.serialization.record.RecordField;
+import org.apache.nifi.serialization.record.RecordFieldType;
+import org.apache.nifi.serialization.record.RecordSchema;
+
+import com.google.common.base.Throwables;
+
+/**
+ * <p>
+ * A CSV RecordReader that reads the same CSV as the {@link CSVRecordReader}, but that scans the characters of the input in large blocks
+ * using a {@link FastCSVParser}, which tracks where the fields of each row are instead of copying them, so that only the values that
+ * end up in a Record are ever created. Unlike the CSVRecordReader, when unknown fields are dropped, columns whose names are not in the
+ * schema are not read.
+ * </p>
+ *
+ * <p>
+ * If an ExecutorService is given, the input is split into chunks of complete rows, and each chunk is parsed and converted into Records
+ * by a task of the ExecutorService, so that several chunks are parsed concurrently while the Records of an earlier chunk are consumed.
+ * The Records are always returned in the order of the input.
+ * </p>
+ */
+public class FastCSVRecordReader extends AbstractCSVRecordReader {
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final int CHUNK_SIZE = 1024 * 1024;
+
+    private final Reader reader;
+    private final CSVFormat csvFormat;
+    private final FastCSVParser parser;
+    private final ExecutorService executor;
+    private final int parallelism;
+    private final Deque<Future<ParsedChunk>> pendingChunks = new ArrayDeque<>();
+
+    private char[] buffer;
+    private int position;
+    private int limit;
+    private boolean endOfInput;
+
+    private List<RecordField> recordFields;
+    private boolean[] fieldInSchema;
+    private boolean columnsMatchSchema;
+    private ParsedChunk currentChunk;
+
+    public FastCSVRecordReader(final InputStream in, final ComponentLog logger, final RecordSchema schema, final CSVFormat csvFormat, final boolean hasHeader, final boolean ignoreHeader,
+                               final String dateFormat, final String timeFormat, final String timestampFormat, final String encoding) throws IOException {
+        this(in, logger, schema, csvFormat, hasHeader, ignoreHeader, dateFormat, timeFormat, timestampFormat, encoding, null, 1);
+    }
+
+    /**
+     * @param executor the ExecutorService to parse chunks of the input with, or <code>null</code> to parse the input on the thread that reads the Records
+     * @param parallelism the maximum number of chunks of the input to parse concurrently, if an ExecutorService is given
+     */
+    public FastCSVRecordReader(final InputStream in, final ComponentLog logger, final RecordSchema schema, final CSVFormat csvFormat, final boolean hasHeader, final boolean ignoreHeader,
+                               final String dateFormat, final String timeFormat, final String timestampFormat, final String encoding,
+                               final ExecutorService executor, final int parallelism) throws IOException {
+        super(logger, schema, hasHeader, ignoreHeader, dateFormat, timeFormat, timestampFormat);
+
+        this.reader = new InputStreamReader(new BOMInputStream(in), encoding);
+        this.csvFormat = csvFormat;
+        this.parser = new FastCSVParser(csvFormat);
+        this.executor = executor;
+        this.parallelism = Math.max(1, parallelism);
+        this.buffer = new char[BUFFER_SIZE];
+    }
+
+    @Override
+    public Record nextRecord(final boolean coerceTypes, final boolean dropUnknownFields) throws IOException, MalformedRecordException {
+        try {
+            if (recordFields == null) {
+                readHeader();
+            }
+
+            if (executor != null) {
+                return nextParsedRecord(coerceTypes, dropUnknownFields);
+            }
+
+            if (!nextRow()) {
+                return null;
+            }
+
+            return createRecord(parser, coerceTypes, dropUnknownFields);
+        } catch (final MalformedRecordException e) {
+            throw e;
+        } catch (final Exception e) {
+            throw new MalformedRecordException("Error while getting next record. Root cause: " +  Throwables.getRootCause(e), e);
+        }
+    }
+
+    /**
+     * Scans the next row of the input with the parser, reading more of the input as necessary
+     *
+     * @return <code>true</code> if there is another row, <code>false</code> if the end of the input has been reached
+     */
+    private boolean nextRow() throws IOException {
+        while (true) {
+            final int result;
+            try {
+                result = parser.scanRow(buffer, position, limit, endOfInput);
+            } catch (final IOException e) {
+                // Skip the line that could not be parsed so that the next call continues with the line after it
+                skipLine();
+                throw e;
+            }
+
+            switch (result) {
+                case FastCSVParser.ROW:
+                    position = parser.getRowEnd();
+                    return true;
+                case FastCSVParser.END_OF_INPUT:
+                    position = limit;
+                    return false;
+                default:
+                    fill();
+            }
+        }
+    }
+
+    /**
+     * Moves the characters that have not yet been scanned to the start of the buffer, or to a new buffer if the current one may be in use
+     * by a chunk of the input or is full, and reads more of the input after them
+     */
+    private void fill() throws IOException {
+        if (endOfInput) {
+            return;
+        }
+
+        final int remaining = limit - position;
+        if (position > 0 || remaining == buffer.length) {
+            final char[] target;
+            if (remaining == buffer.length) {
+                target = new char[buffer.length * 2];
+            } else if (executor != null) {
+                // Start small, so that little memory is used for small inputs, but read chunks of CHUNK_SIZE after the first
+                target = new char[Math.max(buffer.length, CHUNK_SIZE)];
+            } else {
+                target = buffer;
+            }
+
+            System.arraycopy(buffer, position, target, 0, remaining);
+            buffer = target;
+            position = 0;
+            limit = remaining;
+        }
+
+        final int charsRead = reader.read(buffer, limit, buffer.length - limit);
+        if (charsRead < 0) {
+            endOfInput = true;
+        } else {
+            limit += charsRead;
+        }
+    }
+
+    private void skipLine() throws IOException {
+        while (true) {
+            for (int i = position; i < limit; i++) {
+                if (buffer[i] == '\n' || buffer[i] == '\r') {
+                    position = (buffer[i] == '\r' && i + 1 < limit && buffer[i + 1] == '\n') ? i + 2 : i + 1;
+                    return;
+                }
+            }
+
+            position = limit;
+            if (endOfInput) {
+                return;
+            }
+
+            fill();
+        }
+    }
+
+    private void readHeader() throws IOException {
+        final List<String> rawFieldNames;
+        if (hasHeader && !ignoreHeader) {
+            rawFieldNames = new ArrayList<>();
+            if (nextRow()) {
+                // Use a SortedMap keyed by index of the field so that we can get a List of field names in the correct order,
+                // in the same way as the Apache Commons CSV parser maps the names of the header to columns
+                final Map<String, Integer> headerMap = new LinkedHashMap<>();
+                for (int i = 0; i < parser.getFieldCount(); i++) {
+                    final String header = parser.getValue(i);
+                    final boolean emptyHeader = header == null || header.trim().isEmpty();
+                    if (headerMap.containsKey(header) && (!emptyHeader || !csvFormat.getAllowMissingColumnNames())) {
+                        throw new IllegalArgumentException("The header contains a duplicate name: \"" + header + "\"");
+                    }
+
+                    headerMap.put(header, i);
+                }
+
+                final SortedMap<Integer, String> sortedMap = new TreeMap<>();
+                for (final Map.Entry<String, Integer> entry : headerMap.entrySet()) {
+                    sortedMap.put(entry.getValue(), entry.getKey());
+                }
+                rawFieldNames.addAll(sortedMap.values());
+            }
+        } else {
+            if (hasHeader) {
+                nextRow();
+            }
+            rawFieldNames = schema.getFieldNames();
+        }
+
+        final List<RecordField> fields = new ArrayList<>();
+        final boolean[] inSchema = new boolean[rawFieldNames.size()];
+        for (int i = 0; i < rawFieldNames.size(); i++) {
+            final String rawFieldName = rawFieldNames.get(i);
+            final Optional<RecordField> option = schema.getField(rawFieldName);
+            if (option.isPresent()) {
+                fields.add(option.get());
+                inSchema[i] = true;
+            } else {
+                fields.add(new RecordField(rawFieldName, RecordFieldType.STRING.getDataType()));
+            }
+        }
+
+        this.fieldInSchema = inSchema;
+        this.columnsMatchSchema = fields.equals(schema.getFields());
+        this.recordFields = fields;
+    }
+
+    /**
+     * Creates a Record from the row that the given parser last scanned
+     */
+    private Record createRecord(final FastCSVParser row, final boolean coerceTypes, final boolean dropUnknownFields) {
+        final int fieldCount = row.getFieldCount();
+        final int numFieldNames = recordFields.size();
+
+        // When the columns are those of the schema, in the same order, the values can be held in an array rather than a map.
+        // Rows with fewer columns than the schema are still held in a map so that the missing fields are not reported as present.
+        if (columnsMatchSchema && fieldCount >= numFieldNames) {
+            final Object[] values = new Object[numFieldNames];
+            for (int i = 0; i < numFieldNames; i++) {
+                values[i] = convertValue(row.getValue(i), recordFields.get(i), coerceTypes);
+            }
+
+            final Record record = new ArrayRecord(schema, values, coerceTypes, dropUnknownFields);
+            if (!dropUnknownFields) {
+                for (int i = numFieldNames; i < fieldCount; i++) {
+                    record.setValue("unknown_field_index_" + i, row.getValue(i));
+                }
+            }
+
+            return record;
+        }
+
+        final Map<String, Object> values = new LinkedHashMap<>(numFieldNames * 2);
+        for (int i = 0; i < fieldCount; i++) {
+            if (i >= numFieldNames) {
+                if (dropUnknownFields) {
+                    break;
+                }
+
+                values.put("unknown_field_index_" + i, row.getValue(i));
+                continue;
+            }
+
+            if (dropUnknownFields && !fieldInSchema[i]) {
+                continue;
+            }
+
+            final RecordField recordField = recordFields.get(i);
+            values.put(recordField.getFieldName(), convertValue(row.getValue(i), recordField, coerceTypes));
+        }
+
+        return new MapRecord(schema, values, coerceTypes, dropUnknownFields);
+    }
+
+    private Record nextParsedRecord(final boolean coerceTypes, final boolean dropUnknownFields) throws IOException, MalformedRecordException {
+        while (true) {
+            if (currentChunk != null && currentChunk.hasNext()) {
+                return currentChunk.next(coerceTypes, dropUnknownFields);
+            }
+            currentChunk = null;
+
+            while (pendingChunks.size() < parallelism) {
+                final Chunk chunk = readChunk();
+                if (chunk == null) {
+                    break;
+                }
+
+                pendingChunks.add(executor.submit(() -> parseChunk(chunk, coerceTypes, dropUnknownFields)));
+            }
+
+            final Future<ParsedChunk> future = pendingChunks.poll();
+            if (future == null) {
+                return null;
+            }
+
+            try {
+                currentChunk = future.get();
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Interrupted while waiting for a chunk of the CSV to be parsed", e);
+            } catch (final ExecutionException e) {
+                throw new IOException("Failed to parse a chunk of the CSV", e.getCause());
+            }
+        }
+    }
+
+    /**
+     * Reads as much of the input as fits in the buffer and finds the end of the last complete row in it
+     *
+     * @return a chunk with the complete rows that were read, or <code>null</code> if the end of the input has been reached
+     */
+    private Chunk readChunk() throws IOException {
+        while (!endOfInput && (position > 0 || limit < buffer.length)) {
+            fill();
+        }
+
+        int start = position;
+        int end = position;
+        IOException failure = null;
+
+        while (true) {
+            final int result;
+            try {
+                result = parser.scanRow(buffer, end, limit, endOfInput);
+            } catch (final IOException e) {
+                failure = e;
+                break;
+            }
+
+            if (result == FastCSVParser.ROW) {
+                end = parser.getRowEnd();
+            } else if (result == FastCSVParser.END_OF_INPUT) {
+                end = limit;
+                break;
+            } else if (end > start) {
+                break;
+            } else {
+                // A single row does not fit in the buffer
+                fill();
+                start = position;
+                end = position;
+            }
+        }
+
+        final char[] chunkBuffer = buffer;
+        position = end;
+        if (failure != null) {
+            skipLine();
+        } else if (start == end) {
+            return null;
+        }
+
+        return new Chunk(chunkBuffer, start, end, failure);
+    }
+
+    private ParsedChunk parseChunk(final Chunk chunk, final boolean coerceTypes, final boolean dropUnknownFields) throws IOException {
+        final FastCSVParser chunkParser = new FastCSVParser(csvFormat);
+        final List<Object> results = new ArrayList<>();
+        int[] rowStarts = new int[256];
+
+        int rowStart = chunk.start;
+        while (chunkParser.scanRow(chunk.buffer, rowStart, chunk.end, true) == FastCSVParser.ROW) {
+            if (results.size() == rowStarts.length) {
+                rowStarts = Arrays.copyOf(rowStarts, rowStarts.length * 2);
+            }
+            rowStarts[results.size()] = chunkParser.getRowStart();
+            rowStart = chunkParser.getRowEnd();
+
+            try {
+                results.add(createRecord(chunkParser, coerceTypes, dropUnknownFields));
+            } catch (final Exception e) {
+                results.add(e);
+            }
+        }
+
+        if (chunk.failure != null) {
+            if (results.size() == rowStarts.length) {
+                rowStarts = Arrays.copyOf(rowStarts, rowStarts.length + 1);
+            }
+            rowStarts[results.size()] = -1;
+            results.add(chunk.failure);
+        }
+
+        return new ParsedChunk(chunk, rowStarts, results, coerceTypes, dropUnknownFields);
+    }
+
+    @Override
+    public void close() throws IOException {
+        for (final Future<ParsedChunk> future : pendingChunks) {
+            future.cancel(true);
+        }
+        pendingChunks.clear();
+
+        reader.close();
+    }
+
+    /**
+     * Complete rows of the input, held in a buffer that is no longer written to
+     */
+    private static class Chunk {
+        private final char[] buffer;
+        private final int start;
+        private final int end;
+        private final IOException failure;
+
+        private Chunk(final char[] buffer, final int start, final int end, final IOException failure) {
+            this.buffer = buffer;
+            this.start = start;
+            this.end = end;
+            this.failure = failure;
+        }
+    }
+
+    /**
+     * The Records that were created from a Chunk, along with any Exception that was thrown for a row, in the order of the rows
+     */
+    private class ParsedChunk {
+        private final Chunk chunk;
+        private final int[] rowStarts;
+        private final List<Object> results;
+        private final boolean coerceTypes;
+        private final boolean dropUnknownFields;
+        private int index = 0;
+
+        private ParsedChunk(final Chunk chunk, final int[] rowStarts, final List<Object> results, final boolean coerceTypes, final boolean dropUnknownFields) {
+            this.chunk = chunk;
+            this.rowStarts = rowStarts;
+            this.results = results;
+            this.coerceTypes = coerceTypes;
+            this.dropUnknownFields = dropUnknownFields;
+        }
+
+        private boolean hasNext() {
+            return index < results.size();
+        }
+
+        private Record next(final boolean coerceTypes, final boolean dropUnknownFields) throws IOException, MalformedRecordException {
+            final int rowStart = rowStarts[index];
+            final Object result = results.get(index);
+            results.set(index, null);
+            index++;
+
+            if (rowStart >= 0 && (coerceTypes != this.coerceTypes || dropUnknownFields != this.dropUnknownFields)) {
+                // The chunk was parsed for different arguments, so the Record has to be created again from the row
+                parser.scanRow(chunk.buffer, rowStart, chunk.end, true);
+                try {
+                    return createRecord(parser, coerceTypes, dropUnknownFields);
+                } catch (final Exception e) {
+                    throw new MalformedRecordException("Error while getting next record. Root cause: " +  Throwables.getRootCause(e), e);
+                }
+            }
+
+            if (result instanceof Record) {
+                return (Record) result;
+            }
+
+            final Exception e = (Exception) result;
+            throw new MalformedRecordException("Error while getting next record. Root cause: " +  Throwables.getRootCause(e), e);
+        }
+    }
+}
@@ -104,6 +104,10 @@ public abstract class AbstractJsonRowRecordReader implements RecordReader {
     }
 
     protected Object getRawNodeValue(final JsonNode fieldNode, final DataType dataType) throws IOException {
+        return convertRawNodeValue(fieldNode, dataType);
+    }
+
+    static Object convertRawNodeValue(final JsonNode fieldNode, final DataType dataType) throws IOException {
         if (fieldNode == null || fieldNode.isNull()) {
             return null;
         }
@@ -139,7 +143,7 @@ public abstract class AbstractJsonRowRecordReader implements RecordReader {
             }
 
             for (final JsonNode node : arrayNode) {
-                final Object value = getRawNodeValue(node, elementDataType);
+                final Object value = convertRawNodeValue(node, elementDataType);
                 arrayElements[count++] = value;
             }
 
@@ -166,7 +170,7 @@ public abstract class AbstractJsonRowRecordReader implements RecordReader {
                     while (fieldNames.hasNext()) {
                         final String childFieldName = fieldNames.next();
 
-                        final Object childValue = getRawNodeValue(fieldNode.get(childFieldName), possibleSchema.getDataType(childFieldName).orElse(null));
+                        final Object childValue = convertRawNodeValue(fieldNode.get(childFieldName), possibleSchema.getDataType(childFieldName).orElse(null));
                         childValues.put(childFieldName, childValue);
                     }
 
@@ -187,7 +191,7 @@ public abstract class AbstractJsonRowRecordReader implements RecordReader {
                 final String childFieldName = fieldNames.next();
 
                 final DataType childDataType = childSchema.getDataType(childFieldName).orElse(null);
-                final Object childValue = getRawNodeValue(fieldNode.get(childFieldName), childDataType);
+                final Object childValue = convertRawNodeValue(fieldNode.get(childFieldName), childDataType);
                 childValues.put(childFieldName, childValue);
             }
 
@@ -175,7 +175,8 @@ public class JsonRecordSetWriter extends DateTimeTextRecordSetWriter implements
     @Override
     public RecordSetWriter createWriter(final ComponentLog logger, final RecordSchema schema, final OutputStream out) throws SchemaNotFoundException, IOException {
 
-        final OutputStream bufferedOut = new BufferedOutputStream(out, 65536);
+        // Only the compressing streams need the extra buffer; avoid allocating it for every uncompressed writer
+        final OutputStream bufferedOut = COMPRESSION_FORMAT_NONE.equalsIgnoreCase(compressionFormat) ? out : new BufferedOutputStream(out, 65536);
         final OutputStream compressionOut;
         String mimeTypeRef;
 
@@ -0,0 +1,412 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.nifi.json;
+
+import org.apache.nifi.logging.ComponentLog;
+import org.apache.nifi.serialization.MalformedRecordException;
+import org.apache.nifi.serialization.RecordReader;
+import org.apache.nifi.serialization.SimpleRecordSchema;
+import org.apache.nifi.serialization.record.DataType;
+import org.apache.nifi.serialization.record.MapRecord;
+import org.apache.nifi.serialization.record.Record;
+import org.apache.nifi.serialization.record.RecordField;
+import org.apache.nifi.serialization.record.RecordFieldType;
+import org.apache.nifi.serialization.record.RecordSchema;
+import org.apache.nifi.serialization.record.type.ArrayDataType;
+import org.apache.nifi.serialization.record.type.ChoiceDataType;
+import org.apache.nifi.serialization.record.type.MapDataType;
+import org.apache.nifi.serialization.record.type.RecordDataType;
+import org.apache.nifi.serialization.record.util.DataTypeUtils;
+import org.codehaus.jackson.JsonFactory;
+import org.codehaus.jackson.JsonParseException;
+import org.codehaus.jackson.JsonParser;
+import org.codehaus.jackson.JsonStreamContext;
+import org.codehaus.jackson.JsonToken;
+import org.codehaus.jackson.map.ObjectMapper;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.text.DateFormat;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * <p>
+ * A RecordReader that reads the same JSON as the {@link JsonTreeRowRecordReader}, producing the same Records, but that converts the tokens
+ * of each JSON object into the values of a Record as they are parsed, rather than first reading the object into a tree of JSON nodes.
+ * When unknown fields are dropped, the values of fields that are not in the schema are skipped without being read into memory.
+ * </p>
+ *
+ * <p>
+ * Unlike the JsonTreeRowRecordReader, the Records that are created do not have a serialized form, because the JSON text of each object is
+ * never held in memory, so a writer always writes the Records out from their values.
+ * </p>
+ */
+public class JsonStreamingRowRecordReader implements RecordReader {
+    private static final JsonFactory jsonFactory = new JsonFactory();
+    private static final ObjectMapper codec = new ObjectMapper();
+
+    private final ComponentLog logger;
+    private final JsonParser jsonParser;
+    private final RecordSchema schema;
+
+    private final Supplier<DateFormat> LAZY_DATE_FORMAT;
+    private final Supplier<DateFormat> LAZY_TIME_FORMAT;
+    private final Supplier<DateFormat> LAZY_TIMESTAMP_FORMAT;
+
+    private boolean firstObjectPending;
+
+    public JsonStreamingRowRecordReader(final InputStream in, final ComponentLog logger, final RecordSchema schema,
+        final String dateFormat, final String timeFormat, final String timestampFormat) throws IOException, MalformedRecordException {
+        this.logger = logger;
+        this.schema = schema;
+
+        final DateFormat df = dateFormat == null ? null : DataTypeUtils.getDateFormat(dateFormat);
+        final DateFormat tf = timeFormat == null ? null : DataTypeUtils.getDateFormat(timeFormat);
+        final DateFormat tsf = timestampFormat == null ? null : DataTypeUtils.getDateFormat(timestampFormat);
+
+        LAZY_DATE_FORMAT = () -> df;
+        LAZY_TIME_FORMAT = () -> tf;
+        LAZY_TIMESTAMP_FORMAT = () -> tsf;
+
+        try {
+            jsonParser = jsonFactory.createJsonParser(in);
+            jsonParser.setCodec(codec);
+
+            JsonToken token = jsonParser.nextToken();
+            if (token == JsonToken.START_ARRAY) {
+                token = jsonParser.nextToken(); // advance to START_OBJECT token
+            }
+
+            firstObjectPending = token == JsonToken.START_OBJECT;
+        } catch (final JsonParseException e) {
+            throw new MalformedRecordException("Could not parse data as JSON", e);
+        }
+    }
+
+    @Override
+    public Record nextRecord(final boolean coerceTypes, final boolean dropUnknownFields) throws IOException, MalformedRecordException {
+        if (!advanceToNextObject()) {
+            return null;
+        }
+
+        // The context that encloses the JSON object, which the parser returns to once the whole object has been read
+        final JsonStreamContext enclosingContext = jsonParser.getParsingContext().getParent();
+        try {
+            return readRecord(schema, null, coerceTypes, dropUnknownFields);
+        } catch (final JsonParseException e) {
+            throw new MalformedRecordException("Could not parse data as JSON", e);
+        } catch (final IOException ioe) {
+            throw ioe;
+        } catch (final MalformedRecordException mre) {
+            skipRemainder(enclosingContext);
+            throw mre;
+        } catch (final Exception e) {
+            logger.debug("Failed to convert JSON Element into a Record object using schema {} due to {}", new Object[] {schema, e.toString(), e});
+            skipRemainder(enclosingContext);
+            throw new MalformedRecordException("Successfully parsed a JSON object from input but failed to convert into a Record object with the given schema", e);
+        }
+    }
+
+    /**
+     * Advances the parser to the START_OBJECT token of the next JSON object to convert into a Record
+     *
+     * @return <code>true</code> if there is another JSON object, <code>false</code> if the end of the input has been reached
+     */
+    private boolean advanceToNextObject() throws IOException, MalformedRecordException {
+        if (firstObjectPending) {
+            firstObjectPending = false;
+            return true;
+        }
+
+        while (true) {
+            final JsonToken token = jsonParser.nextToken();
+            if (token == null) {
+                return false;
+            }
+
+            switch (token) {
+                case END_OBJECT:
+                    continue;
+                case START_OBJECT:
+                    return true;
+                case END_ARRAY:
+                case START_ARRAY:
+                    continue;
+
+                default:
+                    throw new MalformedRecordException("Expected to get a JSON Object but got a token of type " + token.name());
+            }
+        }
+    }
+
+    /**
+     * Skips the rest of the JSON object that could not be converted into a Record, so that the next call to
+     * {@link #nextRecord(boolean, boolean)} starts with the next JSON object, as it would if the object had been read in its entirety
+     */
+    private void skipRemainder(final JsonStreamContext enclosingContext) throws IOException {
+        try {
+            while (jsonParser.getParsingContext() != enclosingContext && jsonParser.nextToken() != null) {
+                // skip the token
+            }
+        } catch (final JsonParseException e) {
+            logger.debug("Failed to skip the remainder of a JSON object that could not be converted into a Record", e);
+        }
+    }
+
+    /**
+     * Reads the JSON object that the parser is positioned at into a Record with the given schema, leaving the parser positioned at the END_OBJECT token
+     */
+    private Record readRecord(final RecordSchema schema, final String fieldNamePrefix, final boolean coerceTypes, final boolean dropUnknown)
+            throws IOException, MalformedRecordException {
+
+        final Map<String, Object> values = new HashMap<>(schema.getFieldCount() * 2);
+
+        while (jsonParser.nextToken() == JsonToken.FIELD_NAME) {
+            final String fieldName = jsonParser.getCurrentName();
+            jsonParser.nextToken();
+
+            final RecordField recordField = schema.getField(fieldName).orElse(null);
+            if (dropUnknown) {
+                if (recordField == null) {
+                    jsonParser.skipChildren();
+                    continue;
+                }
+
+                // A value given for the field's name takes precedence over one given for any of its aliases
+                final String canonicalName = recordField.getFieldName();
+                final boolean alias = !canonicalName.equals(fieldName);
+                if (alias && values.containsKey(canonicalName)) {
+                    jsonParser.skipChildren();
+                    continue;
+                }
+
+                final Object value;
+                if (coerceTypes) {
+                    final String fullFieldName = fieldNamePrefix == null ? canonicalName : fieldNamePrefix + canonicalName;
+                    value = convertField(fullFieldName, recordField.getDataType(), dropUnknown);
+                } else {
+                    value = readRawValue(recordField.getDataType());
+                }
+
+                values.put(canonicalName, value);
+            } else {
+                final Object value;
+                if (coerceTypes && recordField != null) {
+                    final String fullFieldName = fieldNamePrefix == null ? fieldName : fieldNamePrefix + fieldName;
+                    value = convertField(fullFieldName, recordField.getDataType(), dropUnknown);
+                } else {
+                    value = readRawValue(recordField == null ? null : recordField.getDataType());
+                }
+
+                values.put(fieldName, value);
+            }
+        }
+
+        return new MapRecord(schema, values, false, dropUnknown);
+    }
+
+    /**
+     * Reads the value that the parser is positioned at without coercing it into the given type, which is used only to
+     * determine the schema of any child Records. This produces the same value as {@link AbstractJsonRowRecordReader#getRawNodeValue(org.codehaus.jackson.JsonNode, DataType)}.
+     */
+    private Object readRawValue(final DataType dataType) throws IOException {
+        switch (jsonParser.getCurrentToken()) {
+            case VALUE_NULL:
+                return null;
+            case VALUE_NUMBER_INT:
+            case VALUE_NUMBER_FLOAT:
+                return jsonParser.getNumberValue();
+            case VALUE_TRUE:
+                return Boolean.TRUE;
+            case VALUE_FALSE:
+                return Boolean.FALSE;
+            case VALUE_STRING:
+                return jsonParser.getText();
+            case VALUE_EMBEDDED_OBJECT: {
+                final Object embedded = jsonParser.getEmbeddedObject();
+                return embedded instanceof byte[] ? embedded : null;
+            }
+            case START_ARRAY: {
+                final DataType elementDataType;
+                if (dataType != null && dataType.getFieldType() == RecordFieldType.ARRAY) {
+                    elementDataType = ((ArrayDataType) dataType).getElementType();
+                } else {
+                    elementDataType = dataType;
+                }
+
+                final List<Object> elements = new ArrayList<>();
+                while (jsonParser.nextToken() != JsonToken.END_ARRAY) {
+                    elements.add(readRawValue(elementDataType));
+                }
+
+                return elements.toArray();
+            }
+            case START_OBJECT: {
+                if (dataType != null && dataType.getFieldType() == RecordFieldType.CHOICE && hasRecordSubType((ChoiceDataType) dataType)) {
+                    // Choosing among several Record types requires converting the object once for each type, so it has to be read into a tree
+                    return AbstractJsonRowRecordReader.convertRawNodeValue(jsonParser.readValueAsTree(), dataType);
+                }
+
+                RecordSchema childSchema = null;
+                if (dataType != null && dataType.getFieldType() == RecordFieldType.RECORD) {
+                    childSchema = ((RecordDataType) dataType).getChildSchema();
+                }
+                if (childSchema == null) {
+                    childSchema = new SimpleRecordSchema(Collections.emptyList());
+                }
+
+                final Map<String, Object> childValues = new HashMap<>();
+                while (jsonParser.nextToken() == JsonToken.FIELD_NAME) {
+                    final String childFieldName = jsonParser.getCurrentName();
+                    jsonParser.nextToken();
+                    childValues.put(childFieldName, readRawValue(childSchema.getDataType(childFieldName).orElse(null)));
+                }
+
+                return new MapRecord(childSchema, childValues);
+            }
+            default:
+                jsonParser.skipChildren();
+                return null;
+        }
+    }
+
+    private static boolean hasRecordSubType(final ChoiceDataType choiceDataType) {
+        for (final DataType possibleDataType : choiceDataType.getPossibleSubTypes()) {
+            if (possibleDataType.getFieldType() == RecordFieldType.RECORD) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Reads the value that the parser is positioned at, coercing it into the desired type. This produces the same value
+     * as {@link JsonTreeRowRecordReader#convertField(org.codehaus.jackson.JsonNode, String, DataType, boolean)}.
+     */
+    private Object convertField(final String fieldName, final DataType desiredType, final boolean dropUnknown) throws IOException, MalformedRecordException {
+        final JsonToken token = jsonParser.getCurrentToken();
+        if (token == JsonToken.VALUE_NULL) {
+            return null;
+        }
+
+        switch (desiredType.getFieldType()) {
+            case BOOLEAN:
+            case BYTE:
+            case CHAR:
+            case DOUBLE:
+            case FLOAT:
+            case INT:
+            case LONG:
+            case SHORT:
+            case STRING:
+            case DATE:
+            case TIME:
+            case TIMESTAMP: {
+                final Object rawValue = readRawValue(null);
+                return DataTypeUtils.convertType(rawValue, desiredType, LAZY_DATE_FORMAT, LAZY_TIME_FORMAT, LAZY_TIMESTAMP_FORMAT, fieldName);
+            }
+            case MAP: {
+                final Map<String, Object> map = new HashMap<>();
+                if (token != JsonToken.START_OBJECT) {
+                    jsonParser.skipChildren();
+                    return map;
+                }
+
+                final DataType valueType = ((MapDataType) desiredType).getValueType();
+                while (jsonParser.nextToken() == JsonToken.FIELD_NAME) {
+                    final String childName = jsonParser.getCurrentName();
+                    jsonParser.nextToken();
+                    map.put(childName, convertField(fieldName, valueType, dropUnknown));
+                }
+
+                return map;
+            }
+            case ARRAY: {
+                if (token != JsonToken.START_ARRAY) {
+                    throw new MalformedRecordException("Expected a JSON Array for field " + fieldName + " but got a token of type " + token.name());
+                }
+
+                final DataType elementType = ((ArrayDataType) desiredType).getElementType();
+                final List<Object> elements = new ArrayList<>();
+                while (jsonParser.nextToken() != JsonToken.END_ARRAY) {
+                    elements.add(convertField(fieldName, elementType, dropUnknown));
+                }
+
+                return elements.toArray();
+            }
+            case RECORD: {
+                if (token != JsonToken.START_OBJECT || !(desiredType instanceof RecordDataType)) {
+                    jsonParser.skipChildren();
+                    return null;
+                }
+
+                final RecordSchema childSchema = ((RecordDataType) desiredType).getChildSchema();
+                if (childSchema == null) {
+                    return readUntypedRecord(fieldName + ".", dropUnknown);
+                }
+
+                return readRecord(childSchema, fieldName + ".", true, dropUnknown);
+            }
+            case CHOICE: {
+                return DataTypeUtils.convertType(readRawValue(desiredType), desiredType, fieldName);
+            }
+            default:
+                jsonParser.skipChildren();
+                return null;
+        }
+    }
+
+    /**
+     * Reads the JSON object that the parser is positioned at into a Record whose schema has a String field for each of the object's fields
+     */
+    private Record readUntypedRecord(final String fieldNamePrefix, final boolean dropUnknown) throws IOException {
+        final DataType stringType = RecordFieldType.STRING.getDataType();
+        final List<RecordField> fields = new ArrayList<>();
+        final Map<String, Object> values = new LinkedHashMap<>();
+
+        while (jsonParser.nextToken() == JsonToken.FIELD_NAME) {
+            final String childName = jsonParser.getCurrentName();
+            jsonParser.nextToken();
+
+            final Object rawValue = readRawValue(null);
+            if (!values.containsKey(childName)) {
+                fields.add(new RecordField(childName, stringType));
+            }
+            values.put(childName, rawValue == null ? null : DataTypeUtils.convertType(rawValue, stringType, fieldNamePrefix + childName));
+        }
+
+        return new MapRecord(new SimpleRecordSchema(fields), values, false, dropUnknown);
+    }
+
+    @Override
+    public RecordSchema getSchema() {
+        return schema;
+    }
+
+    @Override
+    public void close() throws IOException {
+        jsonParser.close();
+    }
+}
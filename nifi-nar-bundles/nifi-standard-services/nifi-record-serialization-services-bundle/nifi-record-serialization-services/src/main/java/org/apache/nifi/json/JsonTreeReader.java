@@ -62,9 +62,27 @@ import static org.apache.nifi.schema.inference.SchemaInferenceUtil.SCHEMA_CACHE;
 @SeeAlso(JsonPathReader.class)
 public class JsonTreeReader extends SchemaRegistryService implements RecordReaderFactory {
 
+    static final AllowableValue TREE_PARSING = new AllowableValue("tree", "Tree",
+            "Each JSON object is read into a tree of JSON nodes before it is converted into a Record. The Record retains the JSON text of the object, "
+            + "which allows a JSON Record Writer to write the object out unchanged if the Record is not modified and its schema is the same as the writer's.");
+    static final AllowableValue STREAMING_PARSING = new AllowableValue("streaming", "Streaming",
+            "The fields of each JSON object are converted into the values of a Record as they are parsed, without first reading the object into a tree of JSON nodes, "
+            + "and the values of fields that are not in the schema are skipped if they are to be dropped. This is generally faster and uses less memory, "
+            + "but the Record does not retain the JSON text of the object, so a writer always writes the Record out from its values.");
+
+    static final PropertyDescriptor PARSING_MODE = new PropertyDescriptor.Builder()
+            .name("json-parsing-mode")
+            .displayName("Parsing Mode")
+            .description("Specifies how each JSON object is parsed into a Record")
+            .allowableValues(TREE_PARSING, STREAMING_PARSING)
+            .defaultValue(TREE_PARSING.getValue())
+            .required(true)
+            .build();
+
     private volatile String dateFormat;
     private volatile String timeFormat;
     private volatile String timestampFormat;
+    private volatile boolean streaming;
 
     @Override
     protected List<PropertyDescriptor> getSupportedPropertyDescriptors() {
@@ -73,6 +91,7 @@ public class JsonTreeReader extends SchemaRegistryService implements RecordReade
         properties.add(DateTimeUtils.DATE_FORMAT);
         properties.add(DateTimeUtils.TIME_FORMAT);
         properties.add(DateTimeUtils.TIMESTAMP_FORMAT);
+        properties.add(PARSING_MODE);
         return properties;
     }
 
@@ -81,6 +100,7 @@ public class JsonTreeReader extends SchemaRegistryService implements RecordReade
         this.dateFormat = context.getProperty(DateTimeUtils.DATE_FORMAT).getValue();
         this.timeFormat = context.getProperty(DateTimeUtils.TIME_FORMAT).getValue();
         this.timestampFormat = context.getProperty(DateTimeUtils.TIMESTAMP_FORMAT).getValue();
+        this.streaming = STREAMING_PARSING.getValue().equals(context.getProperty(PARSING_MODE).getValue());
     }
 
     @Override
@@ -107,6 +127,10 @@ public class JsonTreeReader extends SchemaRegistryService implements RecordReade
     @Override
     public RecordReader createRecordReader(final Map<String, String> variables, final InputStream in, final ComponentLog logger) throws IOException, MalformedRecordException, SchemaNotFoundException {
         final RecordSchema schema = getSchema(variables, in, null);
+        if (streaming) {
+            return new JsonStreamingRowRecordReader(in, logger, schema, dateFormat, timeFormat, timestampFormat);
+        }
+
         return new JsonTreeRowRecordReader(in, logger, schema, dateFormat, timeFormat, timestampFormat);
     }
 }
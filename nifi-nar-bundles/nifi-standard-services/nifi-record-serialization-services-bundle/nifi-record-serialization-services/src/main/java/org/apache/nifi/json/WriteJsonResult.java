@@ -49,6 +49,9 @@ import java.util.Set;
 import java.util.function.Supplier;
 
 public class WriteJsonResult extends AbstractRecordSetWriter implements RecordSetWriter, RawRecordWriter {
+    // JsonFactory is thread-safe once configured and holds the shared symbol tables, so one instance serves every writer
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
     private final ComponentLog logger;
     private final SchemaAccessWriter schemaAccess;
     private final RecordSchema recordSchema;
@@ -85,8 +88,7 @@ public class WriteJsonResult extends AbstractRecordSetWriter implements RecordSe
         LAZY_TIME_FORMAT = () -> tf;
         LAZY_TIMESTAMP_FORMAT = () -> tsf;
 
-        final JsonFactory factory = new JsonFactory();
-        this.generator = factory.createJsonGenerator(out);
+        this.generator = JSON_FACTORY.createJsonGenerator(out);
         if (prettyPrint) {
             generator.useDefaultPrettyPrinter();
         } else if (OutputGrouping.OUTPUT_ONELINE.equals(outputGrouping)) {
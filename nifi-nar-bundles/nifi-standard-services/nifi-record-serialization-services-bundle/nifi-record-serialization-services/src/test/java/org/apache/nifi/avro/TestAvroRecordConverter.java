@@ -0,0 +1,116 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nifi.avro;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.avro.Schema;
+import org.apache.avro.generic.GenericRecord;
+import org.apache.nifi.serialization.SimpleRecordSchema;
+import org.apache.nifi.serialization.record.MapRecord;
+import org.apache.nifi.serialization.record.Record;
+import org.apache.nifi.serialization.record.RecordField;
+import org.apache.nifi.serialization.record.RecordFieldType;
+import org.apache.nifi.serialization.record.RecordSchema;
+import org.junit.Test;
+
+public class TestAvroRecordConverter {
+
+    private static final String SCHEMA_TEXT = "{\"type\": \"record\", \"name\": \"person\", \"fields\": ["
+        + "{\"name\": \"name\", \"type\": \"string\", \"aliases\": [\"fullName\"]},"
+        + "{\"name\": \"age\", \"type\": [\"null\", \"int\"]},"
+        + "{\"name\": \"tags\", \"type\": [\"null\", {\"type\": \"array\", \"items\": \"string\"}]},"
+        + "{\"name\": \"address\", \"type\": [\"null\", {\"type\": \"record\", \"name\": \"address\", \"fields\": [{\"name\": \"city\", \"type\": \"string\"}]}]},"
+        + "{\"name\": \"country\", \"type\": \"string\", \"default\": \"unknown\"}"
+        + "]}";
+
+    private final Schema avroSchema = new Schema.Parser().parse(SCHEMA_TEXT);
+
+    @Test
+    public void testConvertMatchesCreateAvroRecord() throws IOException {
+        final RecordSchema addressSchema = new SimpleRecordSchema(Arrays.asList(new RecordField("city", RecordFieldType.STRING.getDataType())));
+
+        final List<RecordField> fullFields = new ArrayList<>();
+        fullFields.add(new RecordField("name", RecordFieldType.STRING.getDataType()));
+        fullFields.add(new RecordField("age", RecordFieldType.INT.getDataType()));
+        fullFields.add(new RecordField("tags", RecordFieldType.ARRAY.getArrayDataType(RecordFieldType.STRING.getDataType())));
+        fullFields.add(new RecordField("address", RecordFieldType.RECORD.getRecordDataType(addressSchema)));
+        fullFields.add(new RecordField("country", RecordFieldType.STRING.getDataType()));
+        final RecordSchema fullSchema = new SimpleRecordSchema(fullFields);
+
+        final List<RecordField> partialFields = new ArrayList<>();
+        partialFields.add(new RecordField("fullName", RecordFieldType.STRING.getDataType()));
+        partialFields.add(new RecordField("age", RecordFieldType.STRING.getDataType()));
+        final RecordSchema partialSchema = new SimpleRecordSchema(partialFields);
+
+        final List<Record> records = new ArrayList<>();
+        for (int i = 0; i < 6; i++) {
+            final Map<String, Object> values = new HashMap<>();
+            if (i % 2 == 0) {
+                values.put("name", "name " + i);
+                values.put("age", i % 4 == 0 ? null : i);
+                values.put("tags", i % 3 == 0 ? null : new Object[] {"a" + i, "b" + i});
+                final Map<String, Object> address = new HashMap<>();
+                address.put("city", "city " + i);
+                values.put("address", new MapRecord(addressSchema, address));
+                values.put("country", i == 2 ? null : "country " + i);
+                records.add(new MapRecord(fullSchema, values));
+            } else {
+                values.put("fullName", "full name " + i);
+                values.put("age", String.valueOf(i));
+                records.add(new MapRecord(partialSchema, values));
+            }
+        }
+
+        final AvroRecordConverter converter = new AvroRecordConverter(avroSchema);
+        for (final Record record : records) {
+            final GenericRecord expected = AvroTypeUtil.createAvroRecord(record, avroSchema);
+            final GenericRecord actual = converter.convert(record);
+            assertEquals(expected, actual);
+        }
+    }
+
+    @Test
+    public void testFieldsNotInRecordAreReset() {
+        final List<RecordField> fields = new ArrayList<>();
+        fields.add(new RecordField("name", RecordFieldType.STRING.getDataType()));
+        fields.add(new RecordField("age", RecordFieldType.INT.getDataType()));
+        final RecordSchema schema = new SimpleRecordSchema(fields);
+
+        final Map<String, Object> values = new HashMap<>();
+        values.put("name", "John");
+        values.put("age", 33);
+
+        final AvroRecordConverter converter = new AvroRecordConverter(avroSchema);
+        GenericRecord avroRecord = converter.convert(new MapRecord(schema, values));
+        assertEquals(33, avroRecord.get("age"));
+        assertEquals("unknown", avroRecord.get("country"));
+
+        values.remove("age");
+        avroRecord = converter.convert(new MapRecord(schema, values));
+        assertNull(avroRecord.get("age"));
+        assertEquals("John", avroRecord.get("name"));
+    }
+}
@@ -0,0 +1,296 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nifi.avro;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.apache.avro.Schema;
+import org.apache.avro.file.DataFileStream;
+import org.apache.avro.file.DataFileWriter;
+import org.apache.avro.generic.GenericData;
+import org.apache.avro.generic.GenericDatumReader;
+import org.apache.avro.generic.GenericDatumWriter;
+import org.apache.avro.generic.GenericRecord;
+import org.apache.avro.io.BinaryEncoder;
+import org.apache.avro.io.EncoderFactory;
+import org.apache.nifi.serialization.MalformedRecordException;
+import org.apache.nifi.serialization.record.ArrayRecord;
+import org.apache.nifi.serialization.record.Record;
+import org.apache.nifi.serialization.record.RecordSchema;
+import org.junit.Test;
+
+public class TestRecordDatumReader {
+
+    private static final String FIXED_FIELD = "{\"name\": \"fixed\", \"type\": {\"type\": \"fixed\", \"name\": \"four\", \"size\": 4}},";
+
+    private static final String SCHEMA_TEXT = "{\"type\": \"record\", \"name\": \"person\", \"fields\": ["
+        + "{\"name\": \"name\", \"type\": \"string\"},"
+        + "{\"name\": \"age\", \"type\": \"int\"},"
+        + "{\"name\": \"balance\", \"type\": \"double\"},"
+        + "{\"name\": \"binary\", \"type\": \"bytes\"},"
+        + FIXED_FIELD
+        + "{\"name\": \"color\", \"type\": {\"type\": \"enum\", \"name\": \"color\", \"symbols\": [\"RED\", \"GREEN\", \"BLUE\"]}},"
+        + "{\"name\": \"tags\", \"type\": {\"type\": \"array\", \"items\": \"string\"}},"
+        + "{\"name\": \"counts\", \"type\": {\"type\": \"map\", \"values\": \"long\"}},"
+        + "{\"name\": \"account\", \"type\": {\"type\": \"record\", \"name\": \"account\", \"fields\": ["
+        + "  {\"name\": \"id\", \"type\": \"long\"}, {\"name\": \"label\", \"type\": [\"null\", \"string\"]}]}},"
+        + "{\"name\": \"choice\", \"type\": [\"null\", \"string\", \"long\", {\"type\": \"array\", \"items\": \"int\"}]},"
+        + "{\"name\": \"born\", \"type\": {\"type\": \"int\", \"logicalType\": \"date\"}}"
+        + "]}";
+
+    private final Schema schema = new Schema.Parser().parse(SCHEMA_TEXT);
+
+    @Test
+    public void testEmbeddedSchemaMatchesGenericRecordConversion() throws IOException, MalformedRecordException {
+        final List<GenericRecord> avroRecords = createRecords(schema, 500);
+        final byte[] serialized = writeDataFile(schema, avroRecords);
+
+        final RecordSchema recordSchema = AvroTypeUtil.createSchema(schema);
+        final List<Record> expected = convertGenericRecords(serialized, recordSchema);
+        final List<Record> actual = new ArrayList<>();
+        try (final AvroRecordReader reader = new AvroReaderWithEmbeddedSchema(new ByteArrayInputStream(serialized))) {
+            Record record;
+            while ((record = reader.nextRecord()) != null) {
+                actual.add(record);
+            }
+        }
+
+        assertRecordsEqual(expected, actual);
+    }
+
+    @Test
+    public void testExplicitSchemaMatchesGenericRecordConversion() throws IOException, MalformedRecordException {
+        final List<GenericRecord> avroRecords = createRecords(schema, 500);
+        final byte[] serialized = writeDataFile(schema, avroRecords);
+
+        final RecordSchema recordSchema = AvroTypeUtil.createSchema(schema);
+        final List<Record> expected = convertGenericRecords(serialized, recordSchema);
+        final List<Record> actual = new ArrayList<>();
+        try (final AvroRecordReader reader = new AvroReaderWithExplicitSchema(new ByteArrayInputStream(writeBinary(schema, avroRecords)), recordSchema, schema)) {
+            Record record;
+            while ((record = reader.nextRecord()) != null) {
+                actual.add(record);
+            }
+        }
+
+        assertRecordsEqual(expected, actual);
+    }
+
+    @Test
+    public void testReturnedRecordsAreNotChangedByLaterRecords() throws IOException, MalformedRecordException {
+        final GenericRecord first = createRecord(schema, new Random(1), 10);
+        final GenericRecord second = createRecord(schema, new Random(2), 2);
+        final byte[] serialized = writeDataFile(schema, Arrays.asList(first, second));
+
+        final RecordSchema recordSchema = AvroTypeUtil.createSchema(schema);
+        final List<Record> expected = convertGenericRecords(serialized, recordSchema);
+        try (final AvroRecordReader reader = new AvroReaderWithEmbeddedSchema(new ByteArrayInputStream(serialized))) {
+            final Record firstRecord = reader.nextRecord();
+            final Object firstValues = toComparable(firstRecord);
+
+            reader.nextRecord();
+            assertEquals(firstValues, toComparable(firstRecord));
+            assertEquals(toComparable(expected.get(0)), toComparable(firstRecord));
+            assertNull(reader.nextRecord());
+        }
+    }
+
+    @Test
+    public void testReaderSchemaWithDefaultsAndAliases() throws IOException, MalformedRecordException {
+        final String readerSchemaText = "{\"type\": \"record\", \"name\": \"person\", \"fields\": ["
+            + "{\"name\": \"fullName\", \"type\": \"string\", \"aliases\": [\"name\"]},"
+            + "{\"name\": \"balance\", \"type\": \"double\"},"
+            + "{\"name\": \"nickname\", \"type\": \"string\", \"default\": \"none\"}"
+            + "]}";
+        final Schema readerSchema = new Schema.Parser().parse(readerSchemaText);
+        final RecordSchema recordSchema = AvroTypeUtil.createSchema(readerSchema);
+
+        final List<GenericRecord> avroRecords = createRecords(schema, 20);
+        final byte[] serialized = writeDataFile(schema, avroRecords);
+
+        final List<Record> expected = new ArrayList<>();
+        try (final DataFileStream<GenericRecord> stream = new DataFileStream<>(new ByteArrayInputStream(serialized), new GenericDatumReader<>(schema, readerSchema))) {
+            for (final GenericRecord avroRecord : stream) {
+                expected.add(new ArrayRecord(recordSchema, AvroTypeUtil.convertAvroRecordToArray(avroRecord, recordSchema, StandardCharsets.UTF_8)));
+            }
+        }
+
+        final List<Record> actual = new ArrayList<>();
+        final RecordDatumReader datumReader = new RecordDatumReader(schema, recordSchema);
+        datumReader.setExpected(readerSchema);
+        try (final DataFileStream<Record> stream = new DataFileStream<>(new ByteArrayInputStream(serialized), datumReader)) {
+            for (final Record record : stream) {
+                actual.add(record);
+            }
+        }
+
+        assertRecordsEqual(expected, actual);
+        assertEquals(avroRecords.get(3).get("name").toString(), actual.get(3).getValue("fullName"));
+        assertEquals("none", actual.get(3).getValue("nickname"));
+    }
+
+    private List<Record> convertGenericRecords(final byte[] serialized, final RecordSchema recordSchema) throws IOException {
+        final List<Record> records = new ArrayList<>();
+        try (final DataFileStream<GenericRecord> stream = new DataFileStream<>(new ByteArrayInputStream(serialized), new NonCachingDatumReader<>())) {
+            while (stream.hasNext()) {
+                final GenericRecord avroRecord = stream.next();
+                records.add(new ArrayRecord(recordSchema, AvroTypeUtil.convertAvroRecordToArray(avroRecord, recordSchema, StandardCharsets.UTF_8)));
+            }
+        }
+        return records;
+    }
+
+    private void assertRecordsEqual(final List<Record> expected, final List<Record> actual) {
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals("Record " + i, toComparable(expected.get(i)), toComparable(actual.get(i)));
+        }
+    }
+
+    // Records and arrays don't compare their contents, so compare their values as maps and lists instead
+    private static Object toComparable(final Object value) {
+        if (value instanceof Record) {
+            final Record record = (Record) value;
+            final Map<String, Object> values = new LinkedHashMap<>();
+            for (final String fieldName : record.getSchema().getFieldNames()) {
+                values.put(fieldName, toComparable(record.getValue(fieldName)));
+            }
+            return values;
+        }
+        if (value instanceof Object[]) {
+            final List<Object> values = new ArrayList<>();
+            for (final Object element : (Object[]) value) {
+                values.add(toComparable(element));
+            }
+            return values;
+        }
+        if (value instanceof Map) {
+            final Map<Object, Object> values = new HashMap<>();
+            for (final Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+                values.put(entry.getKey(), toComparable(entry.getValue()));
+            }
+            return values;
+        }
+        return value;
+    }
+
+    private static byte[] writeDataFile(final Schema schema, final List<GenericRecord> avroRecords) throws IOException {
+        final ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        try (final DataFileWriter<GenericRecord> writer = new DataFileWriter<GenericRecord>(new GenericDatumWriter<>(schema)).create(schema, baos)) {
+            for (final GenericRecord avroRecord : avroRecords) {
+                writer.append(avroRecord);
+            }
+        }
+        return baos.toByteArray();
+    }
+
+    private static byte[] writeBinary(final Schema schema, final List<GenericRecord> avroRecords) throws IOException {
+        final ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        final GenericDatumWriter<GenericRecord> datumWriter = new GenericDatumWriter<>(schema);
+        final BinaryEncoder encoder = EncoderFactory.get().binaryEncoder(baos, null);
+        for (final GenericRecord avroRecord : avroRecords) {
+            datumWriter.write(avroRecord, encoder);
+        }
+        encoder.flush();
+        return baos.toByteArray();
+    }
+
+    private static List<GenericRecord> createRecords(final Schema schema, final int count) {
+        final Random random = new Random(42L);
+        final List<GenericRecord> avroRecords = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            avroRecords.add(createRecord(schema, random, random.nextInt(12)));
+        }
+        return avroRecords;
+    }
+
+    // Creates a record whose variable-length values have about the given size, so that consecutive records don't fit the same Avro objects
+    private static GenericRecord createRecord(final Schema schema, final Random random, final int size) {
+        final GenericRecord avroRecord = new GenericData.Record(schema);
+        avroRecord.put("name", randomString(random, size + 1));
+        avroRecord.put("age", random.nextInt(100));
+        avroRecord.put("balance", random.nextDouble() * 1000);
+
+        final byte[] binary = new byte[size];
+        random.nextBytes(binary);
+        avroRecord.put("binary", ByteBuffer.wrap(binary));
+
+        if (schema.getField("fixed") != null) {
+            final byte[] fixed = new byte[4];
+            random.nextBytes(fixed);
+            avroRecord.put("fixed", new GenericData.Fixed(schema.getField("fixed").schema(), fixed));
+        }
+
+        final Schema colorSchema = schema.getField("color").schema();
+        avroRecord.put("color", new GenericData.EnumSymbol(colorSchema, colorSchema.getEnumSymbols().get(random.nextInt(3))));
+
+        final List<String> tags = new ArrayList<>();
+        final Map<String, Long> counts = new HashMap<>();
+        for (int i = 0; i < size; i++) {
+            tags.add(randomString(random, random.nextInt(6)));
+            counts.put("key" + i, random.nextLong());
+        }
+        avroRecord.put("tags", tags);
+        avroRecord.put("counts", counts);
+
+        final GenericRecord account = new GenericData.Record(schema.getField("account").schema());
+        account.put("id", random.nextLong());
+        account.put("label", size % 3 == 0 ? null : randomString(random, size));
+        avroRecord.put("account", account);
+
+        switch (size % 4) {
+            case 0:
+                avroRecord.put("choice", null);
+                break;
+            case 1:
+                avroRecord.put("choice", randomString(random, size));
+                break;
+            case 2:
+                avroRecord.put("choice", random.nextLong());
+                break;
+            default:
+                avroRecord.put("choice", Collections.nCopies(size, random.nextInt()));
+                break;
+        }
+
+        avroRecord.put("born", random.nextInt(20_000));
+        return avroRecord;
+    }
+
+    private static String randomString(final Random random, final int length) {
+        final StringBuilder sb = new StringBuilder(length);
+        for (int i = 0; i < length; i++) {
+            sb.append((char) ('a' + random.nextInt(26)));
+        }
+        return sb.toString();
+    }
+}
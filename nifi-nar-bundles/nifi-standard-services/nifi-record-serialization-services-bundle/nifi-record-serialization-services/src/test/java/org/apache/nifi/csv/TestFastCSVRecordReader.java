@@ -0,0 +1,322 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.nifi.csv;
+
+import org.apache.commons.csv.CSVFormat;
+import org.apache.nifi.logging.ComponentLog;
+import org.apache.nifi.serialization.MalformedRecordException;
+import org.apache.nifi.serialization.RecordReader;
+import org.apache.nifi.serialization.SimpleRecordSchema;
+import org.apache.nifi.serialization.record.Record;
+import org.apache.nifi.serialization.record.RecordField;
+import org.apache.nifi.serialization.record.RecordFieldType;
+import org.apache.nifi.serialization.record.RecordSchema;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+
+public class TestFastCSVRecordReader {
+    private final String dateFormat = RecordFieldType.DATE.getDefaultFormat();
+    private final String timeFormat = RecordFieldType.TIME.getDefaultFormat();
+    private final String timestampFormat = RecordFieldType.TIMESTAMP.getDefaultFormat();
+    private final ComponentLog logger = Mockito.mock(ComponentLog.class);
+
+    private final List<CSVFormat> formats = Arrays.asList(
+        CSVFormat.DEFAULT.withTrim().withQuote('"'),
+        CSVFormat.RFC4180,
+        CSVFormat.EXCEL,
+        CSVFormat.MYSQL.withDelimiter(','),
+        CSVFormat.INFORMIX_UNLOAD.withDelimiter(','),
+        CSVFormat.newFormat(',').withAllowMissingColumnNames().withIgnoreEmptyLines().withQuote('"').withEscape('\\').withCommentMarker('#')
+            .withNullString("NULL"),
+        CSVFormat.newFormat(',').withAllowMissingColumnNames().withIgnoreEmptyLines().withQuote('"').withTrailingDelimiter(),
+        CSVFormat.newFormat(',').withAllowMissingColumnNames().withQuote('"').withIgnoreSurroundingSpaces(),
+        CSVFormat.newFormat(',').withAllowMissingColumnNames().withIgnoreEmptyLines().withQuote('\'').withTrim());
+
+    private final List<String> texts = Arrays.asList(
+        "",
+        "id,name,balance\n",
+        "id,name,balance\n1,John,40.80\n2,\"Jane, Doe\",10\n3,'Jim, Doe',7.5",
+        "id,name\n1,\"multi\nline\"\r\n2,\"with \"\"quotes\"\"\"\r\n3,\"\"\r\n",
+        "id,name\n\n# comment, with \"quote\n1,a\n\n\n2,b\n# last",
+        "id,name\n1,a\\,b\n2,c\\\\d\n3,\\N\n4,x\\yz\n5,NULL\n6,\\t\n",
+        "id , name\n 1 , \"a\"  \n2,  b  \n   \n3,\" c \" \n",
+        "id,name,balance\n1\n2,b,3,extra,more\n,,\n",
+        "id,name,\n1,a,\n2,b,\n3,c\n",
+        "id,name\r1,a\r2,b",
+        "id,name,balance\r\n1,,\r\n\r\n,\"\",\r\n");
+
+    private ExecutorService executor;
+
+    @Before
+    public void setup() {
+        executor = Executors.newFixedThreadPool(4);
+    }
+
+    @After
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private static RecordSchema createSchema(final String... fieldNames) {
+        final List<RecordField> fields = new ArrayList<>();
+        for (final String fieldName : fieldNames) {
+            fields.add(new RecordField(fieldName, RecordFieldType.STRING.getDataType()));
+        }
+        return new SimpleRecordSchema(fields);
+    }
+
+    private static RecordSchema createTypedSchema() {
+        final List<RecordField> fields = new ArrayList<>();
+        fields.add(new RecordField("id", RecordFieldType.INT.getDataType()));
+        fields.add(new RecordField("name", RecordFieldType.STRING.getDataType()));
+        fields.add(new RecordField("balance", RecordFieldType.DOUBLE.getDataType()));
+        return new SimpleRecordSchema(fields);
+    }
+
+    @Test
+    public void testSameRecordsAsCommonsCSV() throws IOException {
+        final List<RecordSchema> schemas = Arrays.asList(createSchema("id", "name", "balance"), createSchema("id", "name"), createSchema("name"), createTypedSchema());
+
+        for (final String text : texts) {
+            for (final CSVFormat format : formats) {
+                for (final RecordSchema schema : schemas) {
+                    assertSameRecords(text.getBytes(StandardCharsets.UTF_8), format, schema);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testSameRecordsAsCommonsCSVForTestFiles() throws IOException {
+        final RecordSchema schema = createSchema("id", "name", "balance", "address", "city", "state", "zipCode", "country");
+
+        for (final String filename : Arrays.asList("single-bank-account.csv", "multi-bank-account.csv", "multi-bank-account_escapedchar.csv",
+                "extra-white-space.csv", "prov-events.csv")) {
+            final byte[] data = Files.readAllBytes(new File("src/test/resources/csv/" + filename).toPath());
+            for (final CSVFormat format : formats) {
+                assertSameRecords(data, format, schema);
+            }
+        }
+    }
+
+    @Test
+    public void testValuesSpanningBuffersAndChunks() throws IOException {
+        final StringBuilder sb = new StringBuilder("id,name,balance\n");
+        for (int i = 0; i < 20_000; i++) {
+            sb.append(i).append(",\"name ").append(i).append(",\r\nwith \"\"quotes\"\"\",").append(i * 0.5D).append(i % 2 == 0 ? "\r\n" : "\n");
+            if (i % 5_000 == 0) {
+                // values that are larger than the buffer that the input is read into
+                sb.append(i).append(",\"");
+                for (int j = 0; j < 300_000; j++) {
+                    sb.append((char) ('a' + j % 26));
+                }
+                sb.append("\",1\n");
+            }
+        }
+
+        final byte[] data = sb.toString().getBytes(StandardCharsets.UTF_8);
+        assertSameRecords(data, formats.get(0), createTypedSchema());
+    }
+
+    @Test
+    public void testHeaderWithDuplicateNames() throws IOException {
+        final byte[] data = "id,name,id\n1,a,2\n".getBytes(StandardCharsets.UTF_8);
+
+        try (final RecordReader reader = createFastReader(data, formats.get(0), createSchema("id", "name"), true, false, null)) {
+            reader.nextRecord();
+            fail("Expected MalformedRecordException");
+        } catch (final MalformedRecordException expected) {
+        }
+    }
+
+    @Test
+    public void testUnknownColumnsNotRead() throws IOException, MalformedRecordException {
+        final byte[] data = "id,other,name\n1,x,a\n2,y,b,extra\n".getBytes(StandardCharsets.UTF_8);
+
+        try (final RecordReader reader = createFastReader(data, formats.get(0), createSchema("id", "name"), true, false, null)) {
+            final Record first = reader.nextRecord(true, true);
+            final Map<String, Object> expected = new TreeMap<>();
+            expected.put("id", "1");
+            expected.put("name", "a");
+            assertEquals(expected, new TreeMap<>(first.toMap()));
+
+            final Record second = reader.nextRecord(true, false);
+            assertEquals("y", second.getValue("other"));
+            assertEquals("extra", second.getValue("unknown_field_index_3"));
+
+            assertNull(reader.nextRecord());
+        }
+    }
+
+    @Test
+    public void testNextRecordAfterMalformedRow() throws IOException, MalformedRecordException {
+        final byte[] data = "id,name\n1,\"a\"b\n2,c\n".getBytes(StandardCharsets.UTF_8);
+
+        for (final ExecutorService executorService : Arrays.asList(null, executor)) {
+            try (final RecordReader reader = createFastReader(data, formats.get(0), createSchema("id", "name"), true, false, executorService)) {
+                try {
+                    reader.nextRecord();
+                    fail("Expected MalformedRecordException");
+                } catch (final MalformedRecordException expected) {
+                }
+
+                final Record record = reader.nextRecord();
+                assertNotNull(record);
+                assertEquals("2", record.getValue("id"));
+                assertEquals("c", record.getValue("name"));
+                assertNull(reader.nextRecord());
+            }
+        }
+    }
+
+    @Test
+    public void testParallelWithChangingArguments() throws IOException, MalformedRecordException {
+        final StringBuilder sb = new StringBuilder("id,name,balance,other\n");
+        for (int i = 0; i < 200_000; i++) {
+            sb.append(i).append(",name ").append(i).append(',').append(i * 0.5D).append(",x\n");
+        }
+        final byte[] data = sb.toString().getBytes(StandardCharsets.UTF_8);
+
+        try (final RecordReader serialReader = createFastReader(data, formats.get(0), createTypedSchema(), true, false, null);
+             final RecordReader parallelReader = createFastReader(data, formats.get(0), createTypedSchema(), true, false, executor)) {
+            for (int i = 0; i < 200_000; i++) {
+                final boolean coerceTypes = i % 3 != 0;
+                final boolean dropUnknownFields = i % 5 == 0;
+
+                final Record expected = serialReader.nextRecord(coerceTypes, dropUnknownFields);
+                final Record actual = parallelReader.nextRecord(coerceTypes, dropUnknownFields);
+                assertEquals(expected.toMap(), actual.toMap());
+                assertEquals(dropUnknownFields ? null : "x", actual.getValue("other"));
+            }
+
+            assertNull(parallelReader.nextRecord());
+        }
+    }
+
+    @Test
+    public void testLineWithOnlyTrailingDelimiterSkipped() throws IOException, MalformedRecordException {
+        final CSVFormat format = CSVFormat.newFormat(',').withQuote('"').withTrailingDelimiter().withIgnoreSurroundingSpaces();
+        final byte[] data = "id,name,\n1,a,\n   \n2,b,\n".getBytes(StandardCharsets.UTF_8);
+
+        try (final RecordReader reader = createFastReader(data, format, createSchema("id", "name"), true, false, null)) {
+            assertEquals("1", reader.nextRecord().getValue("id"));
+            assertEquals("2", reader.nextRecord().getValue("id"));
+            assertNull(reader.nextRecord());
+        }
+    }
+
+    private RecordReader createReader(final String parser, final InputStream in, final CSVFormat format, final RecordSchema schema) throws IOException {
+        switch (parser) {
+            case "Apache Commons CSV":
+                return new CSVRecordReader(in, logger, schema, format, true, false, dateFormat, timeFormat, timestampFormat, "UTF-8");
+            case "Jackson CSV":
+                return new JacksonCSVRecordReader(in, logger, schema, format, true, false, dateFormat, timeFormat, timestampFormat, "UTF-8");
+            case "Fast CSV":
+                return new FastCSVRecordReader(in, logger, schema, format, true, false, dateFormat, timeFormat, timestampFormat, "UTF-8");
+            default:
+                return new FastCSVRecordReader(in, logger, schema, format, true, false, dateFormat, timeFormat, timestampFormat, "UTF-8", executor, 4);
+        }
+    }
+
+    private RecordReader createFastReader(final byte[] data, final CSVFormat format, final RecordSchema schema, final boolean hasHeader, final boolean ignoreHeader,
+                                          final ExecutorService executorService) throws IOException {
+        return new FastCSVRecordReader(new ByteArrayInputStream(data), logger, schema, format, hasHeader, ignoreHeader, dateFormat, timeFormat, timestampFormat,
+            "UTF-8", executorService, 4);
+    }
+
+    private void assertSameRecords(final byte[] data, final CSVFormat format, final RecordSchema schema) throws IOException {
+        for (final boolean[] header : new boolean[][] {{true, false}, {true, true}, {false, false}}) {
+            for (final boolean coerceTypes : new boolean[] {false, true}) {
+                for (final boolean dropUnknownFields : new boolean[] {false, true}) {
+                    final List<Object> expected;
+                    try (final RecordReader reader = new CSVRecordReader(new ByteArrayInputStream(data), logger, schema, format, header[0], header[1],
+                            dateFormat, timeFormat, timestampFormat, "UTF-8")) {
+                        expected = readAll(reader, schema, coerceTypes, dropUnknownFields);
+                    } catch (final IllegalArgumentException e) {
+                        // Commons CSV fails when the header is invalid
+                        continue;
+                    }
+
+                    for (final ExecutorService executorService : Arrays.asList(null, executor)) {
+                        try (final RecordReader reader = createFastReader(data, format, schema, header[0], header[1], executorService)) {
+                            final List<Object> actual = readAll(reader, schema, coerceTypes, dropUnknownFields);
+                            assertEquals("format=" + format + ", header=" + Arrays.toString(header) + ", coerceTypes=" + coerceTypes
+                                + ", dropUnknownFields=" + dropUnknownFields + ", parallel=" + (executorService != null) + ", schema=" + schema.getFieldNames()
+                                + ", text=" + (data.length > 200 ? data.length + " bytes" : new String(data, StandardCharsets.UTF_8)), expected, actual);
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Reads the Records until the end of the input or the first MalformedRecordException, converting each into a Map that can be compared using equals().
+     * When unknown fields are dropped, only the fields of the schema are included, because the CSVRecordReader does not drop columns that are in the header
+     * but not in the schema.
+     */
+    private List<Object> readAll(final RecordReader reader, final RecordSchema schema, final boolean coerceTypes, final boolean dropUnknownFields) throws IOException {
+        final List<Object> records = new ArrayList<>();
+        while (true) {
+            final Record record;
+            try {
+                record = reader.nextRecord(coerceTypes, dropUnknownFields);
+            } catch (final MalformedRecordException e) {
+                records.add("Malformed Record");
+                return records;
+            }
+
+            if (record == null) {
+                return records;
+            }
+
+            final Map<String, Object> values = new TreeMap<>();
+            for (final String fieldName : record.getRawFieldNames()) {
+                if (dropUnknownFields && !schema.getField(fieldName).isPresent()) {
+                    continue;
+                }
+
+                final Object value = record.getValue(fieldName);
+                values.put(fieldName, value instanceof Date ? value.getClass().getName() + ":" + ((Date) value).getTime() : value);
+            }
+            records.add(values);
+        }
+    }
+}
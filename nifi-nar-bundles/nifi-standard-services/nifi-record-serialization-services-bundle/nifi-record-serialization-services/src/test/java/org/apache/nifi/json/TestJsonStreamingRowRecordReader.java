@@ -0,0 +1,301 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.nifi.json;
+
+import org.apache.nifi.logging.ComponentLog;
+import org.apache.nifi.schema.inference.InferSchemaAccessStrategy;
+import org.apache.nifi.schema.inference.TimeValueInference;
+import org.apache.nifi.serialization.MalformedRecordException;
+import org.apache.nifi.serialization.RecordReader;
+import org.apache.nifi.serialization.SimpleRecordSchema;
+import org.apache.nifi.serialization.record.Record;
+import org.apache.nifi.serialization.record.RecordField;
+import org.apache.nifi.serialization.record.RecordFieldType;
+import org.apache.nifi.serialization.record.RecordSchema;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+
+public class TestJsonStreamingRowRecordReader {
+    private final String dateFormat = RecordFieldType.DATE.getDefaultFormat();
+    private final String timeFormat = RecordFieldType.TIME.getDefaultFormat();
+    private final String timestampFormat = RecordFieldType.TIMESTAMP.getDefaultFormat();
+
+    private final TimeValueInference timeValueInference = new TimeValueInference(dateFormat, timeFormat, timestampFormat);
+    private final ComponentLog logger = Mockito.mock(ComponentLog.class);
+
+    private List<RecordField> getDefaultFields() {
+        final List<RecordField> fields = new ArrayList<>();
+        fields.add(new RecordField("id", RecordFieldType.INT.getDataType()));
+        fields.add(new RecordField("name", RecordFieldType.STRING.getDataType()));
+        fields.add(new RecordField("balance", RecordFieldType.DOUBLE.getDataType()));
+        fields.add(new RecordField("address", RecordFieldType.STRING.getDataType()));
+        fields.add(new RecordField("city", RecordFieldType.STRING.getDataType()));
+        fields.add(new RecordField("state", RecordFieldType.STRING.getDataType()));
+        fields.add(new RecordField("zipCode", RecordFieldType.STRING.getDataType()));
+        fields.add(new RecordField("country", RecordFieldType.STRING.getDataType()));
+        return fields;
+    }
+
+    @Test
+    public void testSameRecordsAsTreeReaderWithInferredSchema() throws IOException, MalformedRecordException {
+        final File[] files = new File("src/test/resources/json").listFiles((dir, name) -> name.endsWith(".json"));
+        assertNotNull(files);
+
+        for (final File file : files) {
+            final RecordSchema schema;
+            try (final InputStream in = new BufferedInputStream(new FileInputStream(file))) {
+                final InferSchemaAccessStrategy<?> accessStrategy = new InferSchemaAccessStrategy<>(
+                    (var, content) -> new JsonRecordSource(content), new JsonSchemaInference(timeValueInference), logger);
+                schema = accessStrategy.getSchema(null, in, null);
+            }
+
+            assertSameRecords(file, schema);
+        }
+    }
+
+    @Test
+    public void testSameRecordsAsTreeReaderWithGivenSchema() throws IOException, MalformedRecordException {
+        final RecordSchema schema = new SimpleRecordSchema(getDefaultFields());
+        final RecordSchema emptySchema = new SimpleRecordSchema(Collections.emptyList());
+
+        for (final String filename : Arrays.asList("bank-account-array.json", "bank-account-multiline.json", "bank-account-oneline.json",
+                "bank-account-array-different-schemas.json", "bank-account-array-optional-balance.json", "bank-account-mixed.json",
+                "bank-account-multiarray.json", "single-bank-account-wrong-field-type.json", "single-element-nested.json",
+                "single-element-nested-array.json", "prov-events.json")) {
+            final File file = new File("src/test/resources/json/" + filename);
+            assertSameRecords(file, schema);
+            assertSameRecords(file, emptySchema);
+        }
+    }
+
+    @Test
+    public void testSameRecordsAsTreeReaderWithAliases() throws IOException, MalformedRecordException {
+        final List<RecordField> fields = new ArrayList<>();
+        fields.add(new RecordField("id", RecordFieldType.INT.getDataType(), null, new HashSet<>(Arrays.asList("accountId"))));
+        fields.add(new RecordField("fullName", RecordFieldType.STRING.getDataType(), null, new HashSet<>(Arrays.asList("name"))));
+
+        final String json = "{\"id\": 1, \"name\": \"John\"}\n{\"accountId\": 2, \"fullName\": \"Jane\", \"name\": \"Jill\"}\n{\"name\": \"Joe\", \"fullName\": \"Jim\"}";
+        assertSameRecords(json.getBytes(StandardCharsets.UTF_8), new SimpleRecordSchema(fields));
+    }
+
+    @Test
+    public void testUnknownNestedFieldsSkipped() throws IOException, MalformedRecordException {
+        final List<RecordField> fields = new ArrayList<>();
+        fields.add(new RecordField("id", RecordFieldType.INT.getDataType()));
+        fields.add(new RecordField("name", RecordFieldType.STRING.getDataType()));
+        final RecordSchema schema = new SimpleRecordSchema(fields);
+
+        final String json = "[{\"id\": 1, \"other\": {\"a\": [1, 2, {\"b\": {\"c\": \"d\"}}], \"name\": \"nested\"}, \"name\": \"John\"},"
+            + "{\"list\": [[1], [2, [3]]], \"id\": 2, \"name\": \"Jane\"}]";
+
+        try (final InputStream in = new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8));
+             final JsonStreamingRowRecordReader reader = new JsonStreamingRowRecordReader(in, logger, schema, dateFormat, timeFormat, timestampFormat)) {
+
+            final Record first = reader.nextRecord(true, true);
+            assertEquals(1, first.getValue("id"));
+            assertEquals("John", first.getValue("name"));
+            assertEquals(new HashSet<>(Arrays.asList("id", "name")), first.getRawFieldNames());
+
+            final Record second = reader.nextRecord(true, true);
+            assertEquals(2, second.getValue("id"));
+            assertEquals("Jane", second.getValue("name"));
+            assertEquals(new HashSet<>(Arrays.asList("id", "name")), second.getRawFieldNames());
+
+            assertNull(reader.nextRecord(true, true));
+        }
+    }
+
+    @Test
+    public void testNextRecordAfterConversionFailure() throws IOException, MalformedRecordException {
+        final List<RecordField> fields = new ArrayList<>();
+        fields.add(new RecordField("id", RecordFieldType.INT.getDataType()));
+        fields.add(new RecordField("tags", RecordFieldType.ARRAY.getArrayDataType(RecordFieldType.STRING.getDataType())));
+        fields.add(new RecordField("name", RecordFieldType.STRING.getDataType()));
+        final RecordSchema schema = new SimpleRecordSchema(fields);
+
+        final String json = "{\"id\": \"one\", \"tags\": [\"a\", {\"x\": [1]}], \"name\": \"John\"}\n"
+            + "{\"id\": 2, \"tags\": \"b\", \"name\": {\"first\": \"Jane\"}}\n"
+            + "{\"id\": 3, \"tags\": [\"c\"], \"name\": \"Joe\"}";
+
+        try (final InputStream in = new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8));
+             final JsonStreamingRowRecordReader reader = new JsonStreamingRowRecordReader(in, logger, schema, dateFormat, timeFormat, timestampFormat)) {
+
+            for (int i = 0; i < 2; i++) {
+                try {
+                    reader.nextRecord();
+                    fail("Expected MalformedRecordException");
+                } catch (final MalformedRecordException expected) {
+                }
+            }
+
+            final Record record = reader.nextRecord();
+            assertEquals(3, record.getValue("id"));
+            assertEquals("Joe", record.getValue("name"));
+            assertNull(reader.nextRecord());
+        }
+    }
+
+    @Test(expected = IOException.class)
+    public void testReadFailureNotMalformed() throws IOException, MalformedRecordException {
+        final InputStream failingIn = new InputStream() {
+            @Override
+            public int read() throws IOException {
+                throw new IOException("Intentional failure for unit test");
+            }
+        };
+
+        try (final InputStream in = new SequenceInputStream(new ByteArrayInputStream("{\"id\": 1, \"name\": \"Jo".getBytes(StandardCharsets.UTF_8)), failingIn);
+             final JsonStreamingRowRecordReader reader = new JsonStreamingRowRecordReader(in, logger, new SimpleRecordSchema(getDefaultFields()),
+                 dateFormat, timeFormat, timestampFormat)) {
+            reader.nextRecord();
+        }
+    }
+
+    @Test
+    public void testNoSerializedForm() throws IOException, MalformedRecordException {
+        try (final InputStream in = new FileInputStream(new File("src/test/resources/json/bank-account-oneline.json"));
+             final JsonStreamingRowRecordReader reader = new JsonStreamingRowRecordReader(in, logger, new SimpleRecordSchema(getDefaultFields()),
+                 dateFormat, timeFormat, timestampFormat)) {
+
+            final Record record = reader.nextRecord();
+            assertEquals("John Doe", record.getValue("name"));
+            assertFalse(record.getSerializedForm().isPresent());
+        }
+    }
+
+    @Test(expected = MalformedRecordException.class)
+    public void testInvalidJson() throws IOException, MalformedRecordException {
+        try (final InputStream in = new ByteArrayInputStream("{\"id\": 1, \"name\": }".getBytes(StandardCharsets.UTF_8));
+             final JsonStreamingRowRecordReader reader = new JsonStreamingRowRecordReader(in, logger, new SimpleRecordSchema(getDefaultFields()),
+                 dateFormat, timeFormat, timestampFormat)) {
+            reader.nextRecord();
+        }
+    }
+
+    private RecordReader createReader(final boolean streaming, final InputStream in, final RecordSchema schema) throws IOException, MalformedRecordException {
+        if (streaming) {
+            return new JsonStreamingRowRecordReader(in, logger, schema, dateFormat, timeFormat, timestampFormat);
+        }
+
+        return new JsonTreeRowRecordReader(in, logger, schema, dateFormat, timeFormat, timestampFormat);
+    }
+
+    private void assertSameRecords(final File file, final RecordSchema schema) throws IOException, MalformedRecordException {
+        assertSameRecords(Files.readAllBytes(file.toPath()), schema);
+    }
+
+    private void assertSameRecords(final byte[] data, final RecordSchema schema) throws IOException, MalformedRecordException {
+        for (final boolean coerceTypes : new boolean[] {false, true}) {
+            for (final boolean dropUnknownFields : new boolean[] {false, true}) {
+                final List<Object> expected = readAll(false, data, schema, coerceTypes, dropUnknownFields);
+                final List<Object> actual = readAll(true, data, schema, coerceTypes, dropUnknownFields);
+                assertEquals("coerceTypes=" + coerceTypes + ", dropUnknownFields=" + dropUnknownFields + ", schema=" + schema, expected, actual);
+            }
+        }
+    }
+
+    private List<Object> readAll(final boolean streaming, final byte[] data, final RecordSchema schema, final boolean coerceTypes, final boolean dropUnknownFields)
+            throws IOException, MalformedRecordException {
+        final List<Object> records = new ArrayList<>();
+        try (final InputStream in = new ByteArrayInputStream(data);
+             final RecordReader reader = createReader(streaming, in, schema)) {
+
+            while (true) {
+                final Record record;
+                try {
+                    record = reader.nextRecord(coerceTypes, dropUnknownFields);
+                } catch (final MalformedRecordException e) {
+                    records.add("Malformed Record");
+                    continue;
+                }
+
+                if (record == null) {
+                    return records;
+                }
+
+                records.add(normalize(record));
+            }
+        }
+    }
+
+    /**
+     * Converts a value into one that can be compared using equals(), so that Records and arrays are compared by their contents
+     */
+    private static Object normalize(final Object value) {
+        if (value instanceof Record) {
+            final Record record = (Record) value;
+            final Map<String, Object> normalized = new TreeMap<>();
+            for (final String fieldName : record.getRawFieldNames()) {
+                normalized.put(fieldName, normalize(record.getValue(fieldName)));
+            }
+
+            final List<Object> fieldTypes = new ArrayList<>();
+            for (final RecordField field : record.getSchema().getFields()) {
+                fieldTypes.add(field.getFieldName() + ":" + field.getDataType());
+            }
+            normalized.put("<schema>", fieldTypes);
+            return normalized;
+        }
+        if (value instanceof Object[]) {
+            final List<Object> normalized = new ArrayList<>();
+            for (final Object element : (Object[]) value) {
+                normalized.add(normalize(element));
+            }
+            return normalized;
+        }
+        if (value instanceof byte[]) {
+            return new String((byte[]) value, StandardCharsets.UTF_8);
+        }
+        if (value instanceof Map) {
+            final Map<Object, Object> normalized = new TreeMap<>();
+            for (final Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+                normalized.put(entry.getKey(), normalize(entry.getValue()));
+            }
+            return normalized;
+        }
+        if (value instanceof Date) {
+            return value.getClass().getName() + ":" + ((Date) value).getTime();
+        }
+
+        return value;
+    }
+}